@@ -0,0 +1,48 @@
+package com.ai.studybuddy.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-EntityManager-in-View solo dove serve.
+ *
+ * L'OSIV di default (spring.jpa.open-in-view) tiene una connessione DB per tutta la durata
+ * della richiesta: sulle rotte AI significherebbe occupare una connessione Hikari per
+ * tutta l'attesa di Groq. Per questo è disabilitato globalmente e registrato qui
+ * escludendo le rotte di generazione, che gestiscono da sole transazioni brevi.
+ * Escluse anche le sessioni live: lo stream SSE resta aperto per tutta la lezione
+ * e lo stato è in memoria.
+ * Esclusa la dashboard: le sezioni girano su altri thread con transazioni proprie,
+ * e il thread della richiesta terrebbe una connessione solo per aspettarle.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    static final String[] AI_GENERATION_PATHS = {
+            "/api/ai/explain",
+            "/api/ai/quiz/generate",
+            "/api/ai/flashcards/generate"
+    };
+
+    static final String LIVE_SESSION_PATHS = "/api/live/**";
+
+    static final String DASHBOARD_PATH = "/api/dashboard";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public WebMvcConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor osiv = new OpenEntityManagerInViewInterceptor();
+        osiv.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(osiv).excludePathPatterns(AI_GENERATION_PATHS)
+                .excludePathPatterns(LIVE_SESSION_PATHS)
+                .excludePathPatterns(DASHBOARD_PATH);
+    }
+}
@@ -1,5 +1,7 @@
 package com.ai.studybuddy.config.integration;
 
+import java.util.List;
+
 /**
  * Interfaccia per client di servizi AI.
  *
@@ -12,13 +14,27 @@ package com.ai.studybuddy.config.integration;
 public interface AIClient {
 
     /**
-     * Genera testo usando il modello AI.
+     * Genera testo a partire da una conversazione strutturata.
+     *
+     * @param messages messaggi da inviare al modello (system prima, dati variabili per ultimi)
+     * @return il testo generato dal modello
+     * @throws RuntimeException se la chiamata fallisce
+     */
+    String generateText(List<ChatMessage> messages);
+
+    /**
+     * Genera testo usando il modello AI con un singolo messaggio utente.
      *
      * @param prompt il prompt da inviare al modello
      * @return il testo generato dal modello
      * @throws RuntimeException se la chiamata fallisce
      */
-    String generateText(String prompt);
+    default String generateText(String prompt) {
+        if (prompt == null || prompt.trim().isEmpty()) {
+            throw new IllegalArgumentException("Prompt cannot be null or empty");
+        }
+        return generateText(List.of(ChatMessage.user(prompt)));
+    }
 
     /**
      * Verifica se il client AI è disponibile e funzionante.
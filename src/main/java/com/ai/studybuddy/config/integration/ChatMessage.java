@@ -0,0 +1,38 @@
+package com.ai.studybuddy.config.integration;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.List;
+
+/**
+ * Messaggio di una conversazione chat (formato OpenAI/Groq).
+ *
+ * I prompt vanno costruiti con le istruzioni statiche nel messaggio "system"
+ * (identico a parità di operazione e lingua) e i dati variabili nell'ultimo messaggio "user":
+ * così il prefisso della richiesta resta stabile e il provider può riusare la sua cache.
+ */
+public record ChatMessage(String role, String content) {
+
+    public static final String ROLE_SYSTEM = "system";
+    public static final String ROLE_USER = "user";
+
+    public static ChatMessage system(String content) {
+        return new ChatMessage(ROLE_SYSTEM, content);
+    }
+
+    public static ChatMessage user(String content) {
+        return new ChatMessage(ROLE_USER, content);
+    }
+
+    public static JsonArray toJsonArray(List<ChatMessage> messages) {
+        JsonArray array = new JsonArray();
+        for (ChatMessage message : messages) {
+            JsonObject json = new JsonObject();
+            json.addProperty("role", message.role());
+            json.addProperty("content", message.content());
+            array.add(json);
+        }
+        return array;
+    }
+}
@@ -1,10 +1,11 @@
 package com.ai.studybuddy.config.integration;
 
+import com.ai.studybuddy.config.resilience.Deadline;
 import com.ai.studybuddy.exception.AIServiceException;
+import com.ai.studybuddy.exception.DeadlineExceededException;
 import com.ai.studybuddy.exception.AIServiceException.AIErrorType;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +15,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.time.Duration;
+import java.util.List;
 
 /**
  * Client Groq di fallback con logging dettagliato per debug
@@ -44,9 +46,9 @@ public class GroqFallbackClient implements AIClient {
     }
 
     @Override
-    public String generateText(String prompt) {
-        if (prompt == null || prompt.trim().isEmpty()) {
-            throw new IllegalArgumentException("Prompt cannot be null or empty");
+    public String generateText(List<ChatMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            throw new IllegalArgumentException("Messages cannot be null or empty");
         }
 
         log.info("========================================");
@@ -56,8 +58,8 @@ public class GroqFallbackClient implements AIClient {
         log.info("API Key length: {}", apiKey != null ? apiKey.length() : 0);
         log.info("========================================");
 
-        // Costruisci richiesta con system e user prompt separati
-        JsonObject requestBody = buildRequestFromPrompt(prompt);
+        JsonObject requestBody = buildRequest(messages);
+        Duration timeout = Deadline.remainingOr(TIMEOUT, "chiamata AI fallback");
 
         // LOG DELLA RICHIESTA COMPLETA (senza API key)
         if (log.isInfoEnabled()) {
@@ -73,7 +75,7 @@ public class GroqFallbackClient implements AIClient {
                     .bodyValue(gson.toJson(requestBody))
                     .retrieve()
                     .bodyToMono(String.class)
-                    .timeout(TIMEOUT)
+                    .timeout(timeout)
                     .block();
 
             log.info("✅ Risposta ricevuta con successo");
@@ -82,6 +84,10 @@ public class GroqFallbackClient implements AIClient {
         } catch (WebClientResponseException e) {
             throw handleWebClientException(e);
         } catch (Exception e) {
+            Deadline deadline = Deadline.current();
+            if (deadline != null && deadline.isExpired()) {
+                throw new DeadlineExceededException("chiamata AI fallback");
+            }
             throw new AIServiceException(AIErrorType.SERVICE_UNAVAILABLE,
                     "Errore generico chiamando Groq Fallback API: " + e.getMessage(), e);
         }
@@ -104,41 +110,13 @@ public class GroqFallbackClient implements AIClient {
     }
 
     /**
-     * Costruisce la richiesta separando system e user prompt
+     * Costruisce la richiesta con i messaggi già strutturati dal chiamante
      */
-    private JsonObject buildRequestFromPrompt(String fullPrompt) {
-        JsonArray messages = new JsonArray();
-
-        // Cerca di separare system e user prompt
-        String systemPrompt = "Sei un assistente AI educativo. Rispondi in italiano.";
-        String userPrompt = fullPrompt;
-
-        // Se il prompt contiene "Sei un", probabilmente è già formattato
-        if (fullPrompt.contains("Sei un generatore") || fullPrompt.contains("Sei un tutor")) {
-            // Il prompt contiene già il system prompt, estraiamolo
-            String[] parts = fullPrompt.split("\\. Genera |\\. Spiega ", 2);
-            if (parts.length == 2) {
-                systemPrompt = parts[0] + ".";
-                userPrompt = (fullPrompt.contains("Genera") ? "Genera " : "Spiega ") + parts[1];
-            }
-        }
-
-        // System message
-        JsonObject systemMessage = new JsonObject();
-        systemMessage.addProperty("role", "system");
-        systemMessage.addProperty("content", systemPrompt);
-        messages.add(systemMessage);
-
-        // User message
-        JsonObject userMessage = new JsonObject();
-        userMessage.addProperty("role", "user");
-        userMessage.addProperty("content", userPrompt);
-        messages.add(userMessage);
-
+    private JsonObject buildRequest(List<ChatMessage> messages) {
         // Request body
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("model", model);
-        requestBody.add("messages", messages);
+        requestBody.add("messages", ChatMessage.toJsonArray(messages));
         requestBody.addProperty("temperature", 0.5);
         requestBody.addProperty("max_tokens", 1500);
 
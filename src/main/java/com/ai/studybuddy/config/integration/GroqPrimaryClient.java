@@ -1,7 +1,8 @@
 package com.ai.studybuddy.config.integration;
 
+import com.ai.studybuddy.config.resilience.Deadline;
+import com.ai.studybuddy.exception.DeadlineExceededException;
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +10,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Client Groq principale con modello Llama 3.3 70B.
  *
@@ -30,6 +34,8 @@ public class GroqPrimaryClient implements AIClient {
     private final ResponseParser responseParser;
     private final Gson gson = new Gson();
 
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
     // Constructor Injection
     public GroqPrimaryClient(WebClient.Builder webClientBuilder, ResponseParser responseParser) {
         this.webClient = webClientBuilder
@@ -39,12 +45,13 @@ public class GroqPrimaryClient implements AIClient {
     }
 
     @Override
-    public String generateText(String prompt) {
-        if (prompt == null || prompt.trim().isEmpty()) {
-            throw new IllegalArgumentException("Prompt cannot be null or empty");
+    public String generateText(List<ChatMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            throw new IllegalArgumentException("Messages cannot be null or empty");
         }
 
-        JsonObject requestBody = buildRequest(prompt);
+        JsonObject requestBody = buildRequest(messages);
+        Duration timeout = Deadline.remainingOr(TIMEOUT, "chiamata AI primaria");
 
         log.info("========================================");
         log.info("Chiamata Groq API - PRIMARY MODEL");
@@ -60,11 +67,17 @@ public class GroqPrimaryClient implements AIClient {
                     .bodyValue(requestBody.toString())
                     .retrieve()
                     .bodyToMono(String.class)
+                    .timeout(timeout)
                     .block();
 
             return responseParser.extractContent(response);
 
         } catch (Exception e) {
+            // Timeout dovuto alla deadline della richiesta: la chiamata è già stata cancellata
+            Deadline deadline = Deadline.current();
+            if (deadline != null && deadline.isExpired()) {
+                throw new DeadlineExceededException("chiamata AI primaria");
+            }
             handleException(e);
             throw new RuntimeException("Errore Primary Groq Model: " + e.getMessage());
         }
@@ -86,25 +99,11 @@ public class GroqPrimaryClient implements AIClient {
         return model + " (Primary)";
     }
 
-    private JsonObject buildRequest(String prompt) {
-        JsonArray messages = new JsonArray();
-
-        // System message
-        JsonObject systemMessage = new JsonObject();
-        systemMessage.addProperty("role", "system");
-        systemMessage.addProperty("content", "Sei un assistente AI educativo. Rispondi sempre in italiano con accuratezza e dettaglio.");
-        messages.add(systemMessage);
-
-        // User message
-        JsonObject userMessage = new JsonObject();
-        userMessage.addProperty("role", "user");
-        userMessage.addProperty("content", prompt);
-        messages.add(userMessage);
-
+    private JsonObject buildRequest(List<ChatMessage> messages) {
         // Request body
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("model", model);
-        requestBody.add("messages", messages);
+        requestBody.add("messages", ChatMessage.toJsonArray(messages));
         requestBody.addProperty("temperature", 0.7);
         requestBody.addProperty("max_tokens", 2048);
 
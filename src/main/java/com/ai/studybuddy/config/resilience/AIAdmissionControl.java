@@ -0,0 +1,223 @@
+package com.ai.studybuddy.config.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control per le chiamate AI.
+ *
+ * - Limita le richieste AI contemporanee: le altre attendono un permesso al più per il target
+ *   (ai.admission.codel-target-ms), mai di più, così i thread servlet non si accumulano
+ * - Le richieste BULK (generazione quiz/flashcard) non possono occupare tutti i posti:
+ *   una quota resta sempre disponibile per le spiegazioni INTERACTIVE
+ * - Controllo stile CoDel sul tempo di attesa misurato (sojourn): se per un intero intervallo
+ *   nessuna richiesta ha atteso meno del target, la coda è in sovraccarico persistente e si entra
+ *   in stato di drop: le nuove richieste passano solo se c'è subito un permesso libero,
+ *   altrimenti 503 immediato. Basta un'attesa sotto il target per uscirne.
+ * - Le BULK vengono scartate per prime: già alla prima attesa sopra il target, senza aspettare
+ *   l'intervallo che serve per scartare le INTERACTIVE
+ */
+@Component
+public class AIAdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(AIAdmissionControl.class);
+
+    public enum Priority { INTERACTIVE, BULK }
+
+    /**
+     * Permesso ottenuto: va sempre rilasciato con {@link #release(Permit)}
+     */
+    public record Permit(Priority priority, long admittedAtNanos) {}
+
+    private final Semaphore permits;
+    private final Semaphore bulkPermits;
+    private final int maxQueue;
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final int retryAfterSeconds;
+    private final LongSupplier clock;
+
+    private final QueueState interactive = new QueueState();
+    private final QueueState bulk = new QueueState();
+
+    // Stato CoDel, comune alle due priorità: misura la contesa sui permessi condivisi
+    private boolean above;          // ultima attesa misurata sopra il target
+    private long dropAtNanos;       // istante da cui, se resta sopra il target, si entra in drop
+    private boolean dropping;
+
+    @Autowired
+    public AIAdmissionControl(
+            @Value("${ai.admission.max-concurrent:8}") int maxConcurrent,
+            @Value("${ai.admission.bulk-max-concurrent:4}") int bulkMaxConcurrent,
+            @Value("${ai.admission.max-queue:32}") int maxQueue,
+            @Value("${ai.admission.codel-target-ms:200}") long targetMs,
+            @Value("${ai.admission.codel-interval-ms:5000}") long intervalMs,
+            @Value("${ai.admission.retry-after-seconds:5}") int retryAfterSeconds) {
+        this(maxConcurrent, bulkMaxConcurrent, maxQueue, targetMs, intervalMs, retryAfterSeconds, System::nanoTime);
+    }
+
+    AIAdmissionControl(int maxConcurrent, int bulkMaxConcurrent, int maxQueue, long targetMs, long intervalMs,
+                       int retryAfterSeconds, LongSupplier clock) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.bulkPermits = new Semaphore(Math.min(bulkMaxConcurrent, maxConcurrent), true);
+        this.maxQueue = maxQueue;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMs);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Prova ad ammettere una richiesta.
+     *
+     * @return il permesso, oppure null se la richiesta va rifiutata (503)
+     */
+    public Permit tryAdmit(Priority priority) throws InterruptedException {
+        QueueState state = state(priority);
+
+        if (state.waiting.get() >= queueLimit(priority)) {
+            state.rejected.incrementAndGet();
+            log.warn("Admission AI: coda {} piena ({}), richiesta rifiutata", priority, state.waiting.get());
+            return null;
+        }
+
+        state.waiting.incrementAndGet();
+        boolean bulkAcquired = false;
+        boolean acquired = false;
+        try {
+            // In drop (o sotto pressione, per le bulk) si entra solo se un permesso è libero subito
+            long timeout = shedding(priority) ? 0 : targetNanos;
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                // Non ha senso attendere in coda oltre la deadline della richiesta
+                timeout = Math.max(0, Math.min(timeout, deadline.remaining().toNanos()));
+            }
+
+            if (priority == Priority.BULK) {
+                // Attesa sulla quota bulk: contesa tra sole bulk, non entra nella misura CoDel
+                long bulkStart = System.nanoTime();
+                bulkAcquired = bulkPermits.tryAcquire(timeout, TimeUnit.NANOSECONDS);
+                if (!bulkAcquired) {
+                    return reject(state, priority);
+                }
+                timeout = Math.max(0, timeout - (System.nanoTime() - bulkStart));
+            }
+
+            long enqueuedAt = System.nanoTime();
+            acquired = permits.tryAcquire(timeout, TimeUnit.NANOSECONDS);
+            long sojourn = System.nanoTime() - enqueuedAt;
+            if (!acquired) {
+                if (bulkAcquired) bulkPermits.release();
+                if (timeout > 0) {
+                    // Scaduta l'attesa: il sojourn reale è almeno il target
+                    observe(Math.max(sojourn, targetNanos));
+                }
+                return reject(state, priority);
+            }
+            observe(sojourn);
+            state.lastSojournNanos.set(sojourn);
+            state.admitted.incrementAndGet();
+            return new Permit(priority, System.nanoTime());
+        } catch (InterruptedException e) {
+            if (bulkAcquired && !acquired) bulkPermits.release();
+            throw e;
+        } finally {
+            state.waiting.decrementAndGet();
+        }
+    }
+
+    public void release(Permit permit) {
+        if (permit == null) return;
+        permits.release();
+        if (permit.priority() == Priority.BULK) {
+            bulkPermits.release();
+        }
+    }
+
+    public int getRetryAfterSeconds(Priority priority) {
+        // Le richieste bulk vengono invitate ad aspettare di più
+        return priority == Priority.BULK ? retryAfterSeconds * 2 : retryAfterSeconds;
+    }
+
+    public Stats getStats(Priority priority) {
+        QueueState s = state(priority);
+        return new Stats(
+                priority,
+                s.waiting.get(),
+                s.admitted.get(),
+                s.rejected.get(),
+                TimeUnit.NANOSECONDS.toMillis(s.lastSojournNanos.get()),
+                permits.availablePermits(),
+                shedding(priority)
+        );
+    }
+
+    /**
+     * @param shedding true se la priorità è in stato di drop (503 salvo permesso libero subito)
+     */
+    public record Stats(Priority priority, int queued, long admitted, long rejected,
+                        long lastSojournMs, int availablePermits, boolean shedding) {}
+
+    // ==================== INTERNALS ====================
+
+    private static class QueueState {
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicLong lastSojournNanos = new AtomicLong();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+    }
+
+    private QueueState state(Priority priority) {
+        return priority == Priority.INTERACTIVE ? interactive : bulk;
+    }
+
+    private int queueLimit(Priority priority) {
+        return priority == Priority.INTERACTIVE ? maxQueue : Math.max(1, maxQueue / 2);
+    }
+
+    /**
+     * Le interattive si scartano solo in drop; le bulk appena un'attesa supera il target
+     */
+    private synchronized boolean shedding(Priority priority) {
+        return dropping || (priority == Priority.BULK && above);
+    }
+
+    /**
+     * CoDel: un sojourn sotto il target azzera tutto; sopra il target per un intervallo intero
+     * (cioè il minimo dell'intervallo è sopra il target) si entra in drop
+     */
+    private synchronized void observe(long sojournNanos) {
+        long now = clock.getAsLong();
+        if (sojournNanos < targetNanos) {
+            if (dropping) {
+                log.info("Admission AI: attese di nuovo sotto il target, fine del load shedding");
+            }
+            above = false;
+            dropping = false;
+            return;
+        }
+        if (!above) {
+            above = true;
+            dropAtNanos = now + intervalNanos;
+        } else if (!dropping && now - dropAtNanos >= 0) {
+            dropping = true;
+            log.warn("Admission AI: attese sopra {} ms da un intervallo intero, load shedding attivo",
+                    TimeUnit.NANOSECONDS.toMillis(targetNanos));
+        }
+    }
+
+    private Permit reject(QueueState state, Priority priority) {
+        state.rejected.incrementAndGet();
+        log.debug("Admission AI: richiesta {} rifiutata", priority);
+        return null;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ai.studybuddy.config.resilience;
+
+import com.ai.studybuddy.config.resilience.AIAdmissionControl.Permit;
+import com.ai.studybuddy.config.resilience.AIAdmissionControl.Priority;
+import com.ai.studybuddy.util.Const;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applica l'admission control agli endpoint che chiamano l'AI.
+ * Le richieste rifiutate ricevono subito 503 con header Retry-After.
+ *
+ * Senza @Order il filtro gira dopo la catena di Spring Security: le richieste non autenticate
+ * vengono respinte prima e non consumano posti né alzano la stima del carico.
+ */
+@Component
+public class AIAdmissionFilter extends OncePerRequestFilter {
+
+    private final AIAdmissionControl admissionControl;
+
+    public AIAdmissionFilter(AIAdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return resolvePriority(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Priority priority = resolvePriority(request);
+
+        Permit permit;
+        try {
+            permit = admissionControl.tryAdmit(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = null;
+        }
+
+        if (permit == null) {
+            writeOverloaded(response, priority);
+            return;
+        }
+
+        boolean asyncStarted = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Endpoint asincrono (bulkhead): il permesso va rilasciato quando la risposta è completa
+                request.getAsyncContext().addListener(new ReleasePermitListener(permit));
+                asyncStarted = true;
+            }
+        } finally {
+            if (!asyncStarted) {
+                admissionControl.release(permit);
+            }
+        }
+    }
+
+    private class ReleasePermitListener implements AsyncListener {
+
+        private final Permit permit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasePermitListener(Permit permit) {
+            this.permit = permit;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                admissionControl.release(permit);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Nuovo ciclo asincrono: il listener va registrato di nuovo per ricevere gli eventi
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    /**
+     * Solo le rotte che chiamano effettivamente l'AI passano dall'admission control
+     */
+    static Priority resolvePriority(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/api/ai/explain")) {
+            return Priority.INTERACTIVE;
+        }
+        if (path.equals("/api/ai/quiz/generate") || path.equals("/api/ai/flashcards/generate")) {
+            return Priority.BULK;
+        }
+        return null;
+    }
+
+    private void writeOverloaded(HttpServletResponse response, Priority priority) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", String.valueOf(admissionControl.getRetryAfterSeconds(priority)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"" + Const.AI_OVERLOADED + "\","
+                + "\"message\":\"Servizio AI sovraccarico, riprova tra poco\"}");
+    }
+}
@@ -0,0 +1,171 @@
+package com.ai.studybuddy.config.resilience;
+
+import com.ai.studybuddy.exception.DeadlineExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Compartimento stagno (bulkhead): pool di thread dedicato e limitato,
+ * con coda limitata e metriche di saturazione proprie.
+ * Quando pool e coda sono pieni le nuove richieste vengono rifiutate con 503
+ * invece di consumare i thread di Tomcat.
+ */
+public class Bulkhead {
+
+    private static final Logger log = LoggerFactory.getLogger(Bulkhead.class);
+
+    /**
+     * Attesa massima di un permesso DB quando la richiesta non ha una deadline
+     */
+    private static final Duration MAX_DB_WAIT = Duration.ofSeconds(30);
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final Semaphore dbPermits;
+    private final int maxDbConnections;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLatencyMs = new AtomicLong();
+    private final AtomicLong dbWaits = new AtomicLong();
+
+    public Bulkhead(String name, int maxThreads, int queueCapacity, int maxDbConnections) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.maxDbConnections = maxDbConnections;
+        this.dbPermits = new Semaphore(maxDbConnections, true);
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, "bulkhead-" + name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Esegue il lavoro nel pool dedicato, propagando la deadline della richiesta.
+     * Se la deadline scade mentre il lavoro è in coda, il lavoro non viene nemmeno avviato.
+     *
+     * @throws ResponseStatusException 503 se il bulkhead è saturo
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long submittedAt = System.currentTimeMillis();
+        Deadline deadline = Deadline.current();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (deadline == null) {
+                        return work.get();
+                    }
+                    deadline.checkNotExpired("attesa nel bulkhead " + name);
+                    return Deadline.callWith(deadline, work);
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    throw e;
+                } finally {
+                    totalLatencyMs.addAndGet(System.currentTimeMillis() - submittedAt);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("Bulkhead '{}' saturo: {} attivi, {} in coda", name, executor.getActiveCount(),
+                    executor.getQueue().size());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Servizio temporaneamente saturo, riprova tra poco");
+        }
+    }
+
+    /**
+     * Esegue una sezione che usa il database rispettando il budget di connessioni del bulkhead:
+     * il lavoro AI non può occupare tutto il pool Hikari a scapito delle rotte CRUD.
+     * L'attesa del permesso non supera il tempo rimanente della deadline della richiesta.
+     *
+     * @throws DeadlineExceededException se la deadline scade durante l'attesa
+     * @throws ResponseStatusException 503 se nessun permesso si libera entro l'attesa massima
+     */
+    public <T> T withDbConnection(Supplier<T> work) {
+        if (!dbPermits.tryAcquire()) {
+            dbWaits.incrementAndGet();
+            acquireDbPermit();
+        }
+        try {
+            return work.get();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    private void acquireDbPermit() {
+        String operation = "attesa connessione DB nel bulkhead " + name;
+        Duration wait = Deadline.remainingOr(MAX_DB_WAIT, operation);
+        boolean acquired;
+        try {
+            acquired = dbPermits.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Attesa connessione DB interrotta");
+        }
+        if (!acquired) {
+            Deadline deadline = Deadline.current();
+            if (deadline != null && deadline.isExpired()) {
+                throw new DeadlineExceededException(operation);
+            }
+            log.warn("Bulkhead '{}': nessuna connessione DB libera dopo {} ms", name, wait.toMillis());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Servizio temporaneamente saturo, riprova tra poco");
+        }
+    }
+
+    public Stats getStats() {
+        long completed = executor.getCompletedTaskCount();
+        int active = executor.getActiveCount();
+        int queued = executor.getQueue().size();
+        int capacity = executor.getMaximumPoolSize() + queueCapacity;
+        return new Stats(
+                name,
+                active,
+                executor.getMaximumPoolSize(),
+                queued,
+                queueCapacity,
+                capacity > 0 ? (double) (active + queued) / capacity : 0.0,
+                completed,
+                rejected.get(),
+                failed.get(),
+                completed > 0 ? totalLatencyMs.get() / completed : 0,
+                maxDbConnections - dbPermits.availablePermits(),
+                maxDbConnections,
+                dbWaits.get()
+        );
+    }
+
+    public record Stats(String name, int activeThreads, int maxThreads, int queued, int queueCapacity,
+                        double saturation, long completed, long rejected, long failed, long avgLatencyMs,
+                        int dbConnectionsInUse, int maxDbConnections, long dbWaits) {}
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
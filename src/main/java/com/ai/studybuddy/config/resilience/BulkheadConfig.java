@@ -0,0 +1,31 @@
+package com.ai.studybuddy.config.resilience;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bulkhead dedicati al lavoro AI, separati dai thread Tomcat usati dalle rotte CRUD.
+ *
+ * Il budget di connessioni DB dei bulkhead AI è volutamente inferiore al pool Hikari
+ * (spring.datasource.hikari.maximum-pool-size): le connessioni restanti sono riservate alle rotte veloci.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead aiInteractiveBulkhead(
+            @Value("${ai.bulkhead.interactive.threads:8}") int threads,
+            @Value("${ai.bulkhead.interactive.queue:16}") int queue,
+            @Value("${ai.bulkhead.interactive.db-connections:1}") int dbConnections) {
+        return new Bulkhead("ai-interactive", threads, queue, dbConnections);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead aiBulkBulkhead(
+            @Value("${ai.bulkhead.bulk.threads:4}") int threads,
+            @Value("${ai.bulkhead.bulk.queue:8}") int queue,
+            @Value("${ai.bulkhead.bulk.db-connections:1}") int dbConnections) {
+        return new Bulkhead("ai-bulk", threads, queue, dbConnections);
+    }
+}
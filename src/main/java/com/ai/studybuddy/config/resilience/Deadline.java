@@ -0,0 +1,83 @@
+package com.ai.studybuddy.config.resilience;
+
+import com.ai.studybuddy.exception.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Deadline di una richiesta, impostata all'ingresso (DeadlineFilter) e propagata
+ * nel thread corrente: chiamate AI e transazioni DB usano il tempo rimanente
+ * come timeout, così il lavoro si interrompe quando il client ha già rinunciato.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @return la deadline del thread corrente, oppure null se non impostata
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public void checkNotExpired(String operation) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(operation);
+        }
+    }
+
+    /**
+     * Tempo a disposizione: il minimo tra {@code max} e il tempo rimanente della deadline corrente.
+     *
+     * @throws DeadlineExceededException se la deadline è già scaduta
+     */
+    public static Duration remainingOr(Duration max, String operation) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return max;
+        }
+        deadline.checkNotExpired(operation);
+        Duration remaining = deadline.remaining();
+        return remaining.compareTo(max) < 0 ? remaining : max;
+    }
+
+    /**
+     * Esegue il lavoro con questa deadline installata nel thread corrente
+     */
+    public static <T> T callWith(Deadline deadline, Supplier<T> work) {
+        Deadline previous = CURRENT.get();
+        set(deadline);
+        try {
+            return work.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    static void set(Deadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ai.studybuddy.config.resilience;
+
+import com.ai.studybuddy.exception.DeadlineExceededException;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Transaction manager che limita il timeout di ogni transazione al tempo rimanente
+ * della deadline della richiesta. Spring applica il timeout di transazione come
+ * query timeout JDBC, quindi le query lente vengono interrotte dal database.
+ */
+public class DeadlineAwareJpaTransactionManager extends JpaTransactionManager {
+
+    public DeadlineAwareJpaTransactionManager(EntityManagerFactory emf) {
+        super(emf);
+    }
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int configured = super.determineTimeout(definition);
+
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return configured;
+        }
+        deadline.checkNotExpired("apertura transazione");
+
+        // Arrotondato per eccesso: il timeout JDBC è in secondi
+        int remainingSeconds = (int) Math.max(1, (deadline.remaining().toMillis() + 999) / 1000);
+        if (configured == TransactionDefinition.TIMEOUT_DEFAULT) {
+            return remainingSeconds;
+        }
+        return Math.min(configured, remainingSeconds);
+    }
+}
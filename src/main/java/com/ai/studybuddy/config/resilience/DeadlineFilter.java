@@ -0,0 +1,61 @@
+package com.ai.studybuddy.config.resilience;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Imposta la deadline della richiesta all'ingresso delle API.
+ * Il client può chiedere un budget più corto con l'header X-Request-Timeout-Ms,
+ * mai più lungo del massimo configurato.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    @Value("${request.deadline.ai-ms:45000}")
+    private long aiBudgetMs;
+
+    @Value("${request.deadline.default-ms:10000}")
+    private long defaultBudgetMs;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        long budgetMs = AIAdmissionFilter.resolvePriority(request) != null ? aiBudgetMs : defaultBudgetMs;
+
+        String requested = request.getHeader(TIMEOUT_HEADER);
+        if (requested != null) {
+            try {
+                budgetMs = Math.min(budgetMs, Math.max(1, Long.parseLong(requested.trim())));
+            } catch (NumberFormatException ignored) {
+                // header non valido: si usa il budget di default
+            }
+        }
+
+        Deadline.set(Deadline.after(Duration.ofMillis(budgetMs)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.set(null);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ai.studybuddy.config.scheduling;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Abilita i job @Scheduled (manutenzione notturna, vedi MaintenanceService).
+ *
+ * Lo scheduler di Spring Boot resta a un thread (spring.task.scheduling.pool.size):
+ * i job girano uno alla volta e occupano al più due connessioni del pool,
+ * quella del lock di leader e quella del chunk in corso.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
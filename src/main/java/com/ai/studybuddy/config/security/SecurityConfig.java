@@ -1,5 +1,6 @@
 package com.ai.studybuddy.config.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,6 +23,11 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
 
                 .authorizeHttpRequests(auth -> auth
+                        // Re-dispatch ASYNC degli endpoint che restituiscono CompletableFuture/SSE:
+                        // la richiesta è già stata autorizzata nel dispatch REQUEST, mentre il JwtFilter
+                        // non gira sul dispatch ASYNC e il contesto di sicurezza non viene salvato (STATELESS)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // File statici (HTML, CSS, JS, immagini)
                         .requestMatchers("/").permitAll()
                         .requestMatchers("/*.html").permitAll()
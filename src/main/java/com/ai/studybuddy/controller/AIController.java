@@ -1,22 +1,36 @@
 package com.ai.studybuddy.controller;
 
+import com.ai.studybuddy.config.resilience.AIAdmissionControl;
+import com.ai.studybuddy.config.resilience.Bulkhead;
 import com.ai.studybuddy.dto.explanation.ExplanationResponse;
+import com.ai.studybuddy.dto.flashcard.FlashcardResponse;
 import com.ai.studybuddy.dto.flashcard.GenerateFlashcardsResponse;
 import com.ai.studybuddy.dto.gamification.GamificationDTO.XpEventResponse;
 import com.ai.studybuddy.dto.quiz.QuizAnswerRequest;
+import com.ai.studybuddy.dto.quiz.QuizAttemptResponse;
+import com.ai.studybuddy.dto.quiz.QuizDetailResponse;
 import com.ai.studybuddy.dto.quiz.QuizGenerateRequest;
 import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.dto.quiz.QuizSummaryResponse;
+import com.ai.studybuddy.dto.quiz.SharedQuizResponse;
 import com.ai.studybuddy.model.flashcard.Flashcard;
 import com.ai.studybuddy.model.quiz.Quiz;
+import com.ai.studybuddy.model.quiz.QuizTemplate;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.service.impl.FlashcardServiceImpl;
 import com.ai.studybuddy.service.impl.GamificationServiceImpl;
 import com.ai.studybuddy.service.inter.ExplanationService;
+import com.ai.studybuddy.service.inter.IdempotencyService;
+import com.ai.studybuddy.service.inter.QuizCompletionService;
 import com.ai.studybuddy.service.inter.QuizService;
+import com.ai.studybuddy.service.inter.QuizTemplateService;
+import com.ai.studybuddy.service.inter.TrendingTopicService;
 import com.ai.studybuddy.service.inter.UserService;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
+import com.ai.studybuddy.util.pagination.CursorPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +39,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -37,17 +52,38 @@ public class AIController {
     private final QuizService quizService;
     private final UserService userService;
     private final GamificationServiceImpl gamificationService;
+    private final IdempotencyService idempotencyService;
+    private final Bulkhead interactiveBulkhead;
+    private final Bulkhead bulkBulkhead;
+    private final AIAdmissionControl admissionControl;
+    private final TrendingTopicService trendingTopicService;
+    private final QuizTemplateService quizTemplateService;
+    private final QuizCompletionService quizCompletionService;
 
     public AIController(ExplanationService explanationService,
                         FlashcardServiceImpl flashcardServiceImpl,
                         QuizService quizService,
                         UserService userService,
-                        GamificationServiceImpl gamificationService) {
+                        GamificationServiceImpl gamificationService,
+                        IdempotencyService idempotencyService,
+                        @Qualifier("aiInteractiveBulkhead") Bulkhead interactiveBulkhead,
+                        @Qualifier("aiBulkBulkhead") Bulkhead bulkBulkhead,
+                        AIAdmissionControl admissionControl,
+                        TrendingTopicService trendingTopicService,
+                        QuizTemplateService quizTemplateService,
+                        QuizCompletionService quizCompletionService) {
         this.explanationService = explanationService;
         this.flashcardServiceImpl = flashcardServiceImpl;
         this.quizService = quizService;
         this.userService = userService;
         this.gamificationService = gamificationService;
+        this.idempotencyService = idempotencyService;
+        this.interactiveBulkhead = interactiveBulkhead;
+        this.bulkBulkhead = bulkBulkhead;
+        this.admissionControl = admissionControl;
+        this.trendingTopicService = trendingTopicService;
+        this.quizTemplateService = quizTemplateService;
+        this.quizCompletionService = quizCompletionService;
     }
 
     // ==================== EXPLANATION ====================
@@ -55,9 +91,10 @@ public class AIController {
     /**
      * Genera una spiegazione personalizzata
      * ✅ ASSEGNA XP PER SPIEGAZIONE (+10 XP)
+     * Eseguita nel bulkhead interattivo: il thread Tomcat viene liberato subito
      */
     @GetMapping("/explain")
-    public ResponseEntity<ExplanationResponse> getExplanation(
+    public CompletableFuture<ResponseEntity<ExplanationResponse>> getExplanation(
             @RequestParam String topic,
             @RequestParam(required = false) String level,  // Opzionale
             @RequestParam(required = false) String subject,
@@ -79,26 +116,34 @@ public class AIController {
         logger.info("Richiesta spiegazione '{}' da utente: {} - Livello: {}, Lingua: {}", 
                 topic, user.getEmail(), educationLevel, user.getPreferredLanguage());
 
-        ExplanationResponse response = explanationService.generateExplanation(
-                topic, educationLevel, subject, user);
+        String resolvedLevel = educationLevel;
+        return interactiveBulkhead.submit(() -> {
+            // Registrato solo per le richieste accettate dal bulkhead, non per quelle rifiutate con 503
+            trendingTopicService.record(topic, user.getPreferredLanguage());
+            ExplanationResponse response = explanationService.generateExplanation(
+                    topic, resolvedLevel, subject, user);
 
-        logger.info("Spiegazione generata - XP: +{}, Totale: {}",
-                response.getXpEarned(), response.getTotalXp());
+            logger.info("Spiegazione generata - XP: +{}, Totale: {}",
+                    response.getXpEarned(), response.getTotalXp());
 
-        return ResponseEntity.ok(response);
+            return ResponseEntity.ok(response);
+        });
     }
 
     // ==================== QUIZ ====================
 
     /**
      * Genera un quiz E lo salva nel database
+     * Supporta l'header Idempotency-Key: i retry con la stessa chiave ricevono lo stesso quiz
+     * Eseguita nel bulkhead bulk
      */
     @PostMapping("/quiz/generate")
-    public ResponseEntity<Quiz> generateAndSaveQuiz(
+    public CompletableFuture<ResponseEntity<QuizDetailResponse>> generateAndSaveQuiz(
             @RequestParam String topic,
             @RequestParam(defaultValue = "5") int numberOfQuestions,
             @RequestParam(defaultValue = "INTERMEDIO") String difficulty,
             @RequestParam(required = false) String subject,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Principal principal) {
 
         User user = userService.getCurrentUser(principal);
@@ -113,10 +158,20 @@ public class AIController {
                 .language(user.getPreferredLanguage())
                 .build();
 
-        Quiz quiz = quizService.generateQuiz(request, user);
-
-        logger.info("Quiz salvato con ID: {}", quiz.getId());
-        return ResponseEntity.ok(quiz);
+        String fingerprint = String.join("|", "quiz", topic, String.valueOf(numberOfQuestions),
+                difficulty, String.valueOf(subject));
+        return bulkBulkhead.submit(() -> {
+            // Si memorizza il DTO, non l'entity: i retry lo rileggono da altri thread
+            QuizDetailResponse quiz = idempotencyService.execute(user.getId(), idempotencyKey, fingerprint,
+                    () -> {
+                        // Dentro l'azione idempotente: un retry con la stessa chiave non conta due volte
+                        trendingTopicService.record(topic, user.getPreferredLanguage());
+                        return QuizDetailResponse.from(quizService.generateQuiz(request, user), Map.of());
+                    });
+
+            logger.info("Quiz salvato con ID: {}", quiz.getId());
+            return ResponseEntity.ok(quiz);
+        });
     }
 
     /**
@@ -146,83 +201,106 @@ public class AIController {
         User user = userService.getCurrentUser(principal);
         logger.info("Invio risposte quiz {} per utente: {}", request.getQuizId(), user.getEmail());
 
-        // Processa le risposte
-        QuizResultResponse result = quizService.submitAnswers(request, user.getId());
+        // Risposte, risultato, XP, progressi e badge in un'unica transazione
+        QuizResultResponse result = quizCompletionService.completeQuiz(request, user);
+        return ResponseEntity.ok(result);
+    }
 
-        // ✅ ASSEGNA XP PER QUIZ COMPLETATO
-        boolean passed = result.isPassed();
-        String topic = result.getTopic();
-        String subject = result.getSubject();
-        double scorePercentage = result.getScorePercentage();
-        int totalQuestions = result.getTotalQuestions();
-        int correctAnswers = result.getScore();
+    /**
+     * Condividi un quiz: chiunque abbia il codice può svolgerlo, con un proprio tentativo
+     */
+    @PostMapping("/quiz/{quizId}/share")
+    public ResponseEntity<Map<String, String>> shareQuiz(
+            @PathVariable UUID quizId,
+            Principal principal) {
 
-        XpEventResponse xpEvent = gamificationService.recordQuizXp(
-                user,
-                passed,
-                topic,
-                subject,
-                scorePercentage,
-                totalQuestions,
-                correctAnswers
-        );
+        User user = userService.getCurrentUser(principal);
+        String shareCode = quizTemplateService.shareQuiz(quizId, user.getId());
+        return ResponseEntity.ok(Map.of("shareCode", shareCode));
+    }
 
-        // Aggiungi info XP alla risposta
-        result.setXpEarned(xpEvent.getXpEarned());
-        result.setTotalXp(xpEvent.getNewTotalXp());
-        result.setLevel(xpEvent.getNewLevel());
-        result.setLeveledUp(xpEvent.isLeveledUp());
-
-        if (xpEvent.getNewBadges() != null && !xpEvent.getNewBadges().isEmpty()) {
-            List<Map<String, Object>> badgesList = new java.util.ArrayList<>();
-            for (var badge : xpEvent.getNewBadges()) {
-                Map<String, Object> badgeMap = new HashMap<>();
-                badgeMap.put("name", badge.getName());
-                badgeMap.put("icon", badge.getIcon());
-                badgeMap.put("description", badge.getDescription());
-                badgeMap.put("xpReward", badge.getXpReward() != null ? badge.getXpReward() : 0);
-                badgesList.add(badgeMap);
-            }
-            result.setNewBadges(badgesList);
-        }
+    /**
+     * Ottieni un quiz condiviso (senza risposte corrette)
+     */
+    @GetMapping("/quiz/shared/{shareCode}")
+    public ResponseEntity<SharedQuizResponse> getSharedQuiz(
+            @PathVariable String shareCode,
+            Principal principal) {
+
+        userService.getCurrentUser(principal);
+        QuizTemplate template = quizTemplateService.getSharedTemplate(shareCode);
+        return ResponseEntity.ok(SharedQuizResponse.from(template, shareCode));
+    }
+
+    /**
+     * Invia le risposte a un quiz condiviso
+     * ✅ ASSEGNA XP COME PER I PROPRI QUIZ, SOLO AL PRIMO COMPLETAMENTO
+     */
+    @PostMapping("/quiz/shared/{shareCode}/submit")
+    public ResponseEntity<QuizResultResponse> submitSharedQuiz(
+            @PathVariable String shareCode,
+            @RequestBody Map<UUID, String> answers,
+            Principal principal) {
 
-        logger.info("Quiz completato - Score: {}/{}, XP guadagnati: {}",
-                result.getScore(), result.getTotalQuestions(), xpEvent.getXpEarned());
+        User user = userService.getCurrentUser(principal);
+        logger.info("Invio risposte quiz condiviso {} per utente: {}", shareCode, user.getEmail());
 
+        QuizResultResponse result = quizCompletionService.completeSharedQuiz(shareCode, answers, user);
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Storico dei tentativi dell'utente corrente su un quiz
+     */
+    @GetMapping("/quiz/{quizId}/attempts")
+    public ResponseEntity<List<QuizAttemptResponse>> getQuizAttempts(
+            @PathVariable UUID quizId,
+            Principal principal) {
+
+        User user = userService.getCurrentUser(principal);
+        List<QuizAttemptResponse> attempts = quizTemplateService.getAttempts(quizId, user.getId()).stream()
+                .map(QuizAttemptResponse::from)
+                .toList();
+        return ResponseEntity.ok(attempts);
+    }
+
     /**
      * Ottieni un quiz specifico
      */
     @GetMapping("/quiz/{quizId}")
-    public ResponseEntity<Quiz> getQuiz(
+    public ResponseEntity<QuizDetailResponse> getQuiz(
             @PathVariable UUID quizId,
             Principal principal) {
 
         User user = userService.getCurrentUser(principal);
-        Quiz quiz = quizService.getQuiz(quizId, user.getId());
+        QuizDetailResponse quiz = quizService.getQuizDetail(quizId, user.getId());
         return ResponseEntity.ok(quiz);
     }
 
     /**
-     * Ottieni tutti i quiz dell'utente
+     * Ottieni i quiz dell'utente (paginati: pagina successiva con ?cursor=<X-Next-Cursor>)
      */
     @GetMapping("/quiz/my")
-    public ResponseEntity<List<Quiz>> getMyQuizzes(Principal principal) {
+    public ResponseEntity<List<QuizSummaryResponse>> getMyQuizzes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
         User user = userService.getCurrentUser(principal);
-        List<Quiz> quizzes = quizService.getUserQuizzes(user.getId());
-        return ResponseEntity.ok(quizzes);
+        return quizService.getUserQuizSummaries(user.getId(), cursor, CursorPage.clampLimit(limit))
+                .toResponse();
     }
 
     /**
-     * Ottieni quiz completati
+     * Ottieni quiz completati (paginati: pagina successiva con ?cursor=<X-Next-Cursor>)
      */
     @GetMapping("/quiz/completed")
-    public ResponseEntity<List<Quiz>> getCompletedQuizzes(Principal principal) {
+    public ResponseEntity<List<QuizSummaryResponse>> getCompletedQuizzes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
         User user = userService.getCurrentUser(principal);
-        List<Quiz> quizzes = quizService.getCompletedQuizzes(user.getId());
-        return ResponseEntity.ok(quizzes);
+        return quizService.getCompletedQuizSummaries(user.getId(), cursor, CursorPage.clampLimit(limit))
+                .toResponse();
     }
 
     /**
@@ -236,7 +314,7 @@ public class AIController {
     }
 
     /**
-     * Ripeti un quiz (resetta le risposte)
+     * Ripeti un quiz (il tentativo precedente resta nello storico)
      */
     @PostMapping("/quiz/{quizId}/retry")
     public ResponseEntity<Quiz> retryQuiz(
@@ -266,19 +344,34 @@ public class AIController {
     /**
      * Genera e salva flashcards con AI
      * ✅ ASSEGNA XP PER FLASHCARDS GENERATE (+2 XP per card)
+     * Supporta l'header Idempotency-Key: i retry non rigenerano le carte e non riassegnano XP
+     * Eseguita nel bulkhead bulk
      */
     @PostMapping("/flashcards/generate")
-    public ResponseEntity<GenerateFlashcardsResponse> generateAndSaveFlashcards(
+    public CompletableFuture<ResponseEntity<GenerateFlashcardsResponse>> generateAndSaveFlashcards(
             @RequestParam UUID deckId,
             @RequestParam String topic,
             @RequestParam(defaultValue = "5") int numberOfCards,
             @RequestParam(defaultValue = "MEDIUM") String difficulty,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Principal principal) {
 
         User user = userService.getCurrentUser(principal);
         logger.info("Generazione e salvataggio {} flashcard '{}' nel deck {} per utente: {}, lingua: {}",
                 numberOfCards, topic, deckId, user.getEmail(), user.getPreferredLanguage());
 
+        String fingerprint = String.join("|", "flashcards", deckId.toString(), topic,
+                String.valueOf(numberOfCards), difficulty);
+        return bulkBulkhead.submit(() -> ResponseEntity.ok(
+                idempotencyService.execute(user.getId(), idempotencyKey, fingerprint,
+                        () -> doGenerateFlashcards(deckId, topic, numberOfCards, difficulty, user))));
+    }
+
+    private GenerateFlashcardsResponse doGenerateFlashcards(UUID deckId, String topic, int numberOfCards,
+                                                            String difficulty, User user) {
+        // Eseguito una sola volta per Idempotency-Key: i retry non contano nei trending
+        trendingTopicService.record(topic, user.getPreferredLanguage());
+
         List<Flashcard> createdCards = flashcardServiceImpl.generateAndSaveFlashcards(
                 deckId,
                 topic,
@@ -289,13 +382,14 @@ public class AIController {
         );
 
         // ✅ ASSEGNA XP PER FLASHCARDS GENERATE
-        XpEventResponse xpEvent = gamificationService.recordFlashcardXp(user, createdCards.size());
+        XpEventResponse xpEvent = bulkBulkhead.withDbConnection(
+                () -> gamificationService.recordFlashcardXp(user, createdCards.size()));
 
         GenerateFlashcardsResponse response = new GenerateFlashcardsResponse(
                 true,
                 String.format("Generate %d flashcard con successo (+%d XP)",
                         createdCards.size(), xpEvent.getXpEarned()),
-                createdCards
+                createdCards.stream().map(FlashcardResponse::from).toList()
         );
 
         // Aggiungi info XP alla risposta
@@ -303,7 +397,19 @@ public class AIController {
         response.setTotalXp(xpEvent.getNewTotalXp());
         response.setLeveledUp(xpEvent.isLeveledUp());
 
-        return ResponseEntity.ok(response);
+        return response;
+    }
+
+    // ==================== TRENDING ====================
+
+    /**
+     * Argomenti più richiesti di recente (spiegazioni, quiz, flashcard)
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingTopicService.TrendingTopic>> getTrendingTopics(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String language) {
+        return ResponseEntity.ok(trendingTopicService.getTrending(Math.min(Math.max(limit, 1), 100), language));
     }
 
     // ==================== DEBUG / UTILITY ====================
@@ -326,6 +432,19 @@ public class AIController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Metriche di saturazione dei bulkhead AI e dell'admission control
+     */
+    @GetMapping("/bulkheads")
+    public ResponseEntity<Map<String, Object>> getBulkheadStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("bulkheads", List.of(interactiveBulkhead.getStats(), bulkBulkhead.getStats()));
+        response.put("admission", List.of(
+                admissionControl.getStats(AIAdmissionControl.Priority.INTERACTIVE),
+                admissionControl.getStats(AIAdmissionControl.Priority.BULK)));
+        return ResponseEntity.ok(response);
+    }
+
     // ==================== HEALTH CHECK ====================
 
     @GetMapping("/health")
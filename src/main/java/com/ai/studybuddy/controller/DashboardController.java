@@ -0,0 +1,40 @@
+package com.ai.studybuddy.controller;
+
+import com.ai.studybuddy.dto.dashboard.DashboardResponse;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.service.inter.DashboardService;
+import com.ai.studybuddy.service.inter.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+
+/**
+ * Controller della dashboard
+ *
+ * Endpoints:
+ * - GET /api/dashboard - Statistiche, quiz recenti, attività, raccomandazioni e deck in una sola richiesta
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+    private final UserService userService;
+
+    public DashboardController(DashboardService dashboardService, UserService userService) {
+        this.dashboardService = dashboardService;
+        this.userService = userService;
+    }
+
+    /**
+     * Utente risolto una volta, sezioni lette in parallelo; quelle non disponibili sono in "unavailable"
+     */
+    @GetMapping
+    public ResponseEntity<DashboardResponse> getDashboard(Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        return ResponseEntity.ok(dashboardService.getDashboard(user.getId()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.ai.studybuddy.controller;
 
+import com.ai.studybuddy.dto.flashcard.DeckNameResponse;
 import com.ai.studybuddy.dto.flashcard.FlashcardCreateRequest;
 import com.ai.studybuddy.dto.flashcard.FlashcardDeckCreateRequest;
 import com.ai.studybuddy.dto.gamification.GamificationDTO.XpEventResponse;
@@ -10,6 +11,7 @@ import com.ai.studybuddy.service.impl.GamificationServiceImpl;
 import com.ai.studybuddy.service.inter.FlashcardDeckService;
 import com.ai.studybuddy.service.inter.FlashcardService;
 import com.ai.studybuddy.service.inter.UserService;
+import com.ai.studybuddy.util.pagination.CursorPage;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,12 +49,26 @@ public class FlashcardController {
     // ==================== DECK ENDPOINTS ====================
 
     @GetMapping("/decks")
-    public ResponseEntity<List<FlashcardDeck>> getAllDecks(Principal principal) {
+    public ResponseEntity<List<FlashcardDeck>> getAllDecks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
         User user = userService.getCurrentUser(principal);
         logger.debug("Recupero deck per utente: {}", user.getEmail());
 
-        List<FlashcardDeck> decks = deckService.getUserDecks(user.getId());
-        return ResponseEntity.ok(decks);
+        return deckService.getUserDecks(user.getId(), cursor, CursorPage.clampLimit(limit)).toResponse();
+    }
+
+    /**
+     * Solo id e nome dei deck, per i menu di selezione: senza caricare le entity e paginato come /decks
+     */
+    @GetMapping("/decks/names")
+    public ResponseEntity<List<DeckNameResponse>> getDeckNames(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        return deckService.getDeckNames(user.getId(), cursor, CursorPage.clampLimit(limit)).toResponse();
     }
 
     @GetMapping("/decks/{deckId}")
@@ -120,10 +136,12 @@ public class FlashcardController {
     @GetMapping("/decks/{deckId}/cards")
     public ResponseEntity<List<Flashcard>> getFlashcards(
             @PathVariable UUID deckId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Principal principal) {
         User user = userService.getCurrentUser(principal);
-        List<Flashcard> cards = flashcardService.getFlashcardsByDeck(deckId, user.getId());
-        return ResponseEntity.ok(cards);
+        return flashcardService.getFlashcardsByDeck(deckId, user.getId(), cursor, CursorPage.clampLimit(limit))
+                .toResponse();
     }
 
     @PostMapping("/decks/{deckId}/cards")
@@ -170,7 +188,7 @@ public class FlashcardController {
         Flashcard card = flashcardService.reviewFlashcard(cardId, wasCorrect, user.getId());
 
         // ✅ ASSEGNA XP PER FLASHCARD STUDIATA
-        XpEventResponse xpEvent = gamificationService.recordFlashcardXp(user, 1);
+        XpEventResponse xpEvent = gamificationService.recordFlashcardReviewXp(user);
 
         logger.debug("Flashcard {} reviewata da {}, XP guadagnati: {}",
                 cardId, user.getEmail(), xpEvent.getXpEarned());
@@ -278,7 +296,7 @@ public class FlashcardController {
             @RequestParam String query,
             Principal principal) {
         User user = userService.getCurrentUser(principal);
-        List<Flashcard> cards = flashcardService.searchFlashcards(deckId, query, user.getId());
+        List<Flashcard> cards = flashcardService.searchFlashcards(deckId, query, user);
         return ResponseEntity.ok(cards);
     }
 
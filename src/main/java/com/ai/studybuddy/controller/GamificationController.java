@@ -7,10 +7,12 @@ import com.ai.studybuddy.service.inter.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -18,6 +20,7 @@ import java.util.List;
  *
  * Endpoints:
  * - GET /api/gamification/stats - Statistiche utente
+ * - GET /api/gamification/xp/history - Storico degli XP guadagnati
  * - GET /api/gamification/badges - Tutti i badge con stato
  * - GET /api/gamification/badges/unlocked - Badge sbloccati
  * - GET /api/gamification/badges/new - Nuovi badge (non visti)
@@ -27,6 +30,9 @@ import java.util.List;
  * - POST /api/gamification/recommendations/{id}/dismiss - Ignora raccomandazione
  * - POST /api/gamification/recommendations/{id}/complete - Completa raccomandazione
  * - GET /api/gamification/leaderboard/{type} - Leaderboard
+ * - GET /api/gamification/leaderboard/{type}/around-me - Utenti attorno all'utente corrente
+ * - GET /api/gamification/leaderboard/{type}/my-rank - Posizione dell'utente corrente
+ * - GET /api/gamification/leaderboard/history/{period} - Classifica di una settimana o un mese passati
  */
 @RestController
 @RequestMapping("/api/gamification")
@@ -52,6 +58,17 @@ public class GamificationController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Storico degli XP guadagnati (spiegazioni, quiz, flashcard, focus, bonus badge)
+     */
+    @GetMapping("/xp/history")
+    public ResponseEntity<List<XpHistoryEntry>> getXpHistory(
+            @RequestParam(defaultValue = "50") int limit,
+            Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        return ResponseEntity.ok(gamificationService.getXpHistory(user.getId(), Math.min(Math.max(limit, 1), 200)));
+    }
+
     // ==================== BADGE ====================
 
     /**
@@ -105,22 +122,26 @@ public class GamificationController {
             @PathVariable String type,
             @RequestParam(defaultValue = "10") int limit) {
 
-        List<LeaderboardEntry> entries = switch (type.toUpperCase()) {
-            case "XP" -> gamificationService.getXpLeaderboard(limit);
-            case "WEEKLY_XP", "WEEKLY" -> gamificationService.getWeeklyLeaderboard(limit);
-            case "STREAK" -> gamificationService.getStreakLeaderboard(limit);
-            default -> gamificationService.getXpLeaderboard(limit);
-        };
-
-        // Aggiunge il rank
-        for (int i = 0; i < entries.size(); i++) {
-            // Il rank è già nel costruttore, ma lo impostiamo correttamente
-            // (il costruttore riceve 0, ma la posizione nell'array è il rank)
-        }
+        List<LeaderboardEntry> entries = gamificationService.getLeaderboard(type, Math.min(Math.max(limit, 1), 100));
 
         return ResponseEntity.ok(entries);
     }
 
+    /**
+     * Ottiene gli utenti attorno all'utente corrente nella leaderboard
+     * @param radius - posizioni sopra e sotto (max 25)
+     */
+    @GetMapping("/leaderboard/{type}/around-me")
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboardAroundMe(
+            @PathVariable String type,
+            @RequestParam(defaultValue = "5") int radius,
+            Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        List<LeaderboardEntry> entries = gamificationService.getLeaderboardAroundUser(
+                user.getId(), type, Math.min(Math.max(radius, 0), 25));
+        return ResponseEntity.ok(entries);
+    }
+
     /**
      * Ottiene la posizione dell'utente nella leaderboard
      */
@@ -133,6 +154,21 @@ public class GamificationController {
         return ResponseEntity.ok(rank);
     }
 
+    /**
+     * Classifica XP di un periodo, anche passato
+     * @param period - WEEK, MONTH
+     * @param date - un giorno qualsiasi del periodo (default oggi)
+     */
+    @GetMapping("/leaderboard/history/{period}")
+    public ResponseEntity<List<LeaderboardEntry>> getPeriodLeaderboard(
+            @PathVariable String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<LeaderboardEntry> entries = gamificationService.getPeriodLeaderboard(
+                period, date != null ? date : LocalDate.now(), Math.min(Math.max(limit, 1), 100));
+        return ResponseEntity.ok(entries);
+    }
+
     // ==================== FOCUS SESSION ====================
 
     /**
@@ -0,0 +1,118 @@
+package com.ai.studybuddy.controller;
+
+import com.ai.studybuddy.dto.live.CreateLiveSessionRequest;
+import com.ai.studybuddy.dto.live.LiveAnswerRequest;
+import com.ai.studybuddy.dto.live.LiveSessionResponse;
+import com.ai.studybuddy.model.live.LiveSession;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.service.inter.LiveSessionService;
+import com.ai.studybuddy.service.inter.UserService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.security.Principal;
+
+/**
+ * Controller per le sessioni quiz live in classe
+ *
+ * Endpoints:
+ * - POST /api/live/sessions - Crea una sessione da un quiz (docente)
+ * - GET /api/live/sessions/{code} - Stato della sessione
+ * - POST /api/live/sessions/{code}/join - Entra nella sessione
+ * - GET /api/live/sessions/{code}/events - Stream SSE degli eventi
+ * - POST /api/live/sessions/{code}/next - Domanda successiva (docente)
+ * - POST /api/live/sessions/{code}/reveal - Mostra la risposta corretta (docente)
+ * - POST /api/live/sessions/{code}/end - Termina la sessione (docente)
+ * - POST /api/live/sessions/{code}/answers - Risponde alla domanda corrente
+ */
+@RestController
+@RequestMapping("/api/live/sessions")
+@CrossOrigin(origins = "*")
+public class LiveSessionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveSessionController.class);
+
+    private final LiveSessionService liveSessionService;
+    private final UserService userService;
+
+    public LiveSessionController(LiveSessionService liveSessionService, UserService userService) {
+        this.liveSessionService = liveSessionService;
+        this.userService = userService;
+    }
+
+    @PostMapping
+    public ResponseEntity<LiveSessionResponse> createSession(@Valid @RequestBody CreateLiveSessionRequest request,
+                                                             Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        logger.info("Creazione sessione live sul quiz {} da: {}", request.getQuizId(), user.getEmail());
+
+        LiveSession session = liveSessionService.createSession(request, user);
+        return ResponseEntity.status(HttpStatus.CREATED).body(LiveSessionResponse.from(session, user.getId()));
+    }
+
+    @GetMapping("/{code}")
+    public ResponseEntity<LiveSessionResponse> getSession(@PathVariable String code, Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        return ResponseEntity.ok(LiveSessionResponse.from(liveSessionService.getSession(code), user.getId()));
+    }
+
+    @PostMapping("/{code}/join")
+    public ResponseEntity<LiveSessionResponse> join(@PathVariable String code, Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        logger.debug("Utente {} entra nella sessione live {}", user.getEmail(), code);
+        return ResponseEntity.ok(LiveSessionResponse.from(liveSessionService.join(code, user), user.getId()));
+    }
+
+    /**
+     * Stream degli eventi: state, question, histogram, participants, reveal, finished
+     */
+    @GetMapping(value = "/{code}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable String code, Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        return liveSessionService.subscribe(code, user.getId());
+    }
+
+    @PostMapping("/{code}/next")
+    public ResponseEntity<LiveSessionResponse> nextQuestion(@PathVariable String code, Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        return ResponseEntity.ok(LiveSessionResponse.from(liveSessionService.nextQuestion(code, user.getId()),
+                user.getId()));
+    }
+
+    @PostMapping("/{code}/reveal")
+    public ResponseEntity<LiveSessionResponse> reveal(@PathVariable String code, Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        return ResponseEntity.ok(LiveSessionResponse.from(liveSessionService.reveal(code, user.getId()),
+                user.getId()));
+    }
+
+    @PostMapping("/{code}/end")
+    public ResponseEntity<LiveSessionResponse> endSession(@PathVariable String code, Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        logger.info("Chiusura sessione live {} da: {}", code, user.getEmail());
+        return ResponseEntity.ok(LiveSessionResponse.from(liveSessionService.endSession(code, user.getId()),
+                user.getId()));
+    }
+
+    /**
+     * Risposta alla domanda corrente: 202 se accettata, 409 se la domanda è chiusa o si è già risposto.
+     * Correttezza e punteggio arrivano con l'evento reveal.
+     */
+    @PostMapping("/{code}/answers")
+    public ResponseEntity<Void> answer(@PathVariable String code,
+                                       @Valid @RequestBody LiveAnswerRequest request,
+                                       Principal principal) {
+        User user = userService.getCurrentUser(principal);
+        if (!liveSessionService.answer(code, user.getId(), request)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Risposta non accettata");
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
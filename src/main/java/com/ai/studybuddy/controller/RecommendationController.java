@@ -6,6 +6,7 @@ import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.service.impl.RecommendationServiceImpl;
 import com.ai.studybuddy.service.inter.RecommendationService;
 import com.ai.studybuddy.service.inter.UserService;
+import com.ai.studybuddy.util.pagination.CursorPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -41,18 +42,24 @@ public class RecommendationController {
     /**
      * Ottiene le raccomandazioni attive per l'utente corrente
      *
+     * @param cursor Cursore della pagina successiva (header X-Next-Cursor della risposta precedente)
+     * @param limit Dimensione pagina (default 50, max 100)
      * @param principal Utente autenticato
-     * @return Lista delle raccomandazioni attive
+     * @return Pagina delle raccomandazioni attive
      */
     @GetMapping
-    public ResponseEntity<List<RecommendationResponse>> getRecommendations(Principal principal) {
+    public ResponseEntity<List<RecommendationResponse>> getRecommendations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
         User user = userService.getCurrentUser(principal);
         logger.info("Richiesta raccomandazioni per utente: {}", user.getEmail());
 
-        List<RecommendationResponse> recommendations = recommendationService.getActiveRecommendations(user.getId());
+        CursorPage<RecommendationResponse> recommendations =
+                recommendationService.getActiveRecommendations(user.getId(), cursor, CursorPage.clampLimit(limit));
 
-        logger.debug("Trovate {} raccomandazioni attive per {}", recommendations.size(), user.getEmail());
-        return ResponseEntity.ok(recommendations);
+        logger.debug("Trovate {} raccomandazioni attive per {}", recommendations.items().size(), user.getEmail());
+        return recommendations.toResponse();
     }
 
     /**
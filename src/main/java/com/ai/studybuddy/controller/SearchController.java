@@ -0,0 +1,97 @@
+package com.ai.studybuddy.controller;
+
+import com.ai.studybuddy.dto.search.SearchResultResponse;
+import com.ai.studybuddy.model.search.SearchDocument.DocType;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.service.inter.SearchService;
+import com.ai.studybuddy.service.inter.UserService;
+import com.ai.studybuddy.util.pagination.CursorPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Controller per la ricerca full-text unificata
+ *
+ * Responsabilità:
+ * - Cercare tra deck, flashcard e quiz dell'utente con un'unica query
+ * - Risultati ordinati per rilevanza e paginati con cursore
+ */
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private final SearchService searchService;
+    private final UserService userService;
+
+    public SearchController(SearchService searchService, UserService userService) {
+        this.searchService = searchService;
+        this.userService = userService;
+    }
+
+    /**
+     * Ricerca nei contenuti dell'utente corrente
+     *
+     * @param q Testo da cercare
+     * @param types Tipi separati da virgola (deck, flashcard, quiz), default tutti
+     * @param deckId Limita la ricerca a un deck (opzionale)
+     * @param language Lingua della query per lo stemming, default lingua preferita dell'utente
+     * @param cursor Cursore della pagina successiva (header X-Next-Cursor della risposta precedente)
+     * @param limit Dimensione pagina (default 50, max 100)
+     * @param principal Utente autenticato
+     * @return Pagina di risultati ordinati per rilevanza
+     */
+    @GetMapping
+    public ResponseEntity<List<SearchResultResponse>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String types,
+            @RequestParam(required = false) UUID deckId,
+            @RequestParam(required = false) String language,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
+        if (q.length() > MAX_QUERY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query troppo lunga (max " + MAX_QUERY_LENGTH + " caratteri)");
+        }
+        User user = userService.getCurrentUser(principal);
+        logger.info("Ricerca '{}' per utente: {}", q, user.getEmail());
+
+        CursorPage<SearchResultResponse> results = searchService.search(user.getId(), q, parseTypes(types), deckId,
+                language != null ? language : user.getPreferredLanguage(), cursor, CursorPage.clampLimit(limit));
+
+        logger.debug("Trovati {} risultati per '{}'", results.items().size(), q);
+        return results.toResponse();
+    }
+
+    private static Set<DocType> parseTypes(String types) {
+        Set<DocType> parsed = EnumSet.noneOf(DocType.class);
+        if (types == null || types.isBlank()) {
+            return parsed;
+        }
+        for (String type : types.split(",")) {
+            if (type.isBlank()) continue;
+            try {
+                parsed.add(DocType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo di ricerca non valido: " + type.trim());
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ai.studybuddy.dto.dashboard;
+
+import com.ai.studybuddy.dto.gamification.GamificationDTO.UserStatsResponse;
+import com.ai.studybuddy.dto.gamification.GamificationDTO.XpHistoryEntry;
+import com.ai.studybuddy.dto.quiz.QuizSummaryResponse;
+import com.ai.studybuddy.dto.recommendation.RecommendationResponse;
+import com.ai.studybuddy.model.flashcard.FlashcardDeck;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Risposta aggregata della dashboard: tutte le sezioni in una richiesta.
+ *
+ * Una sezione non disponibile (errore o timeout) resta null e il suo nome
+ * finisce in {@code unavailable}: il frontend mostra il resto.
+ */
+public class DashboardResponse {
+
+    private UserStatsResponse stats;
+    private Integer xpRank;
+    private List<QuizSummaryResponse> recentQuizzes;
+    private List<XpHistoryEntry> recentActivity;
+    private List<RecommendationResponse> recommendations;
+    private List<DeckSummary> decks;
+    private final List<String> unavailable = new ArrayList<>();
+
+    // ==================== DECK SUMMARY ====================
+
+    /**
+     * Deck ridotto ai campi della dashboard
+     */
+    public static class DeckSummary {
+        private UUID id;
+        private String name;
+        private String subject;
+        private String color;
+        private String icon;
+        private int totalCards;
+        private int cardsMastered;
+        private LocalDateTime lastStudiedAt;
+
+        public static DeckSummary fromDeck(FlashcardDeck deck) {
+            DeckSummary summary = new DeckSummary();
+            summary.id = deck.getId();
+            summary.name = deck.getName();
+            summary.subject = deck.getSubject();
+            summary.color = deck.getColor();
+            summary.icon = deck.getIcon();
+            summary.totalCards = deck.getTotalCards() != null ? deck.getTotalCards() : 0;
+            summary.cardsMastered = deck.getCardsMastered() != null ? deck.getCardsMastered() : 0;
+            summary.lastStudiedAt = deck.getLastStudiedAt();
+            return summary;
+        }
+
+        // Getters
+        public UUID getId() { return id; }
+        public String getName() { return name; }
+        public String getSubject() { return subject; }
+        public String getColor() { return color; }
+        public String getIcon() { return icon; }
+        public int getTotalCards() { return totalCards; }
+        public int getCardsMastered() { return cardsMastered; }
+        public LocalDateTime getLastStudiedAt() { return lastStudiedAt; }
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public UserStatsResponse getStats() { return stats; }
+    public void setStats(UserStatsResponse stats) { this.stats = stats; }
+
+    public Integer getXpRank() { return xpRank; }
+    public void setXpRank(Integer xpRank) { this.xpRank = xpRank; }
+
+    public List<QuizSummaryResponse> getRecentQuizzes() { return recentQuizzes; }
+    public void setRecentQuizzes(List<QuizSummaryResponse> recentQuizzes) { this.recentQuizzes = recentQuizzes; }
+
+    public List<XpHistoryEntry> getRecentActivity() { return recentActivity; }
+    public void setRecentActivity(List<XpHistoryEntry> recentActivity) { this.recentActivity = recentActivity; }
+
+    public List<RecommendationResponse> getRecommendations() { return recommendations; }
+    public void setRecommendations(List<RecommendationResponse> recommendations) { this.recommendations = recommendations; }
+
+    public List<DeckSummary> getDecks() { return decks; }
+    public void setDecks(List<DeckSummary> decks) { this.decks = decks; }
+
+    public List<String> getUnavailable() { return unavailable; }
+    public void addUnavailable(String section) { this.unavailable.add(section); }
+}
@@ -0,0 +1,27 @@
+package com.ai.studybuddy.dto.flashcard;
+
+import java.util.UUID;
+
+/**
+ * Response DTO minimale di un deck (id e nome) per i menu di selezione
+ */
+public class DeckNameResponse {
+
+    private UUID id;
+    private String name;
+
+    public DeckNameResponse() {}
+
+    public DeckNameResponse(UUID id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ai.studybuddy.dto.flashcard;
+
+import com.ai.studybuddy.model.flashcard.Flashcard;
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO di una flashcard, con gli stessi campi JSON dell'entity.
+ * Serve dove la risposta sopravvive alla transazione (es. risultati memorizzati per Idempotency-Key).
+ */
+public class FlashcardResponse {
+
+    private UUID id;
+    private String frontContent;
+    private String backContent;
+    private String hint;
+    private String tags;
+    private String[] tagsArray;
+    private DifficultyLevel difficultyLevel;
+    private Boolean aiGenerated;
+    private String source;
+    private Integer timesReviewed;
+    private Integer timesCorrect;
+    private LocalDateTime lastReviewedAt;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private double successRate;
+    private boolean mastered;
+
+    public FlashcardResponse() {}
+
+    public static FlashcardResponse from(Flashcard flashcard) {
+        FlashcardResponse response = new FlashcardResponse();
+        response.id = flashcard.getId();
+        response.frontContent = flashcard.getFrontContent();
+        response.backContent = flashcard.getBackContent();
+        response.hint = flashcard.getHint();
+        response.tags = flashcard.getTags();
+        response.tagsArray = flashcard.getTagsArray();
+        response.difficultyLevel = flashcard.getDifficultyLevel();
+        response.aiGenerated = flashcard.getAiGenerated();
+        response.source = flashcard.getSource();
+        response.timesReviewed = flashcard.getTimesReviewed();
+        response.timesCorrect = flashcard.getTimesCorrect();
+        response.lastReviewedAt = flashcard.getLastReviewedAt();
+        response.isActive = flashcard.getIsActive();
+        response.createdAt = flashcard.getCreatedAt();
+        response.updatedAt = flashcard.getUpdatedAt();
+        response.successRate = flashcard.getSuccessRate();
+        response.mastered = flashcard.isMastered();
+        return response;
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getFrontContent() {
+        return frontContent;
+    }
+
+    public String getBackContent() {
+        return backContent;
+    }
+
+    public String getHint() {
+        return hint;
+    }
+
+    public String getTags() {
+        return tags;
+    }
+
+    public String[] getTagsArray() {
+        return tagsArray;
+    }
+
+    public DifficultyLevel getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public Boolean getAiGenerated() {
+        return aiGenerated;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Integer getTimesReviewed() {
+        return timesReviewed;
+    }
+
+    public Integer getTimesCorrect() {
+        return timesCorrect;
+    }
+
+    public LocalDateTime getLastReviewedAt() {
+        return lastReviewedAt;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public double getSuccessRate() {
+        return successRate;
+    }
+
+    public boolean isMastered() {
+        return mastered;
+    }
+}
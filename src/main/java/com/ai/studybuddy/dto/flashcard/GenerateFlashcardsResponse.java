@@ -1,16 +1,16 @@
 package com.ai.studybuddy.dto.flashcard;
 
-import com.ai.studybuddy.model.flashcard.Flashcard;
 import java.util.List;
 
 /**
- * Response DTO per la generazione di flashcards tramite AI
+ * Response DTO per la generazione di flashcards tramite AI.
+ * Contiene FlashcardResponse e non entity: viene memorizzato per Idempotency-Key e riletto da altri thread.
  */
 public class GenerateFlashcardsResponse {
 
     private boolean success;
     private String message;
-    private List<Flashcard> flashcards;
+    private List<FlashcardResponse> flashcards;
 
     // ==================== CAMPI GAMIFICATION ====================
 
@@ -22,7 +22,7 @@ public class GenerateFlashcardsResponse {
 
     public GenerateFlashcardsResponse() {}
 
-    public GenerateFlashcardsResponse(boolean success, String message, List<Flashcard> flashcards) {
+    public GenerateFlashcardsResponse(boolean success, String message, List<FlashcardResponse> flashcards) {
         this.success = success;
         this.message = message;
         this.flashcards = flashcards;
@@ -46,11 +46,11 @@ public class GenerateFlashcardsResponse {
         this.message = message;
     }
 
-    public List<Flashcard> getFlashcards() {
+    public List<FlashcardResponse> getFlashcards() {
         return flashcards;
     }
 
-    public void setFlashcards(List<Flashcard> flashcards) {
+    public void setFlashcards(List<FlashcardResponse> flashcards) {
         this.flashcards = flashcards;
     }
 
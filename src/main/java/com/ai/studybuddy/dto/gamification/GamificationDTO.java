@@ -36,6 +36,16 @@ public class GamificationDTO {
             this.newBadges = newBadges;
         }
 
+        public XpEventResponse(String eventType, int xpEarned, int newTotalXp, int newLevel,
+                               boolean leveledUp, List<Badge> newBadges) {
+            this.eventType = eventType;
+            this.xpEarned = xpEarned;
+            this.newTotalXp = newTotalXp;
+            this.newLevel = newLevel;
+            this.leveledUp = leveledUp;
+            this.newBadges = newBadges;
+        }
+
         // Getters
         public String getEventType() { return eventType; }
         public int getXpEarned() { return xpEarned; }
@@ -101,6 +111,30 @@ public class GamificationDTO {
             return response;
         }
 
+        /**
+         * Somma XP e flashcard non ancora scritti (write-behind delle revisioni)
+         */
+        public UserStatsResponse withPending(int xp, int cards) {
+            if (xp == 0 && cards == 0) {
+                return this;
+            }
+            totalXp += xp;
+            weeklyXp += xp;
+            monthlyXp += xp;
+            flashcardsStudied += cards;
+
+            int newLevel = UserStats.levelForXp(totalXp);
+            if (newLevel != level) {
+                level = newLevel;
+                xpForNextLevel = (int)(100 * Math.pow(level + 1, 1.5));
+            }
+            int xpForCurrentLevel = level > 1 ? (int)(100 * Math.pow(level, 1.5)) : 0;
+            xpInCurrentLevel = totalXp - xpForCurrentLevel;
+            int xpNeededForLevel = xpForNextLevel - xpForCurrentLevel;
+            levelProgress = xpNeededForLevel <= 0 ? 100.0 : (double) xpInCurrentLevel / xpNeededForLevel * 100;
+            return this;
+        }
+
         // Getters
         public UUID getUserId() { return userId; }
         public int getTotalXp() { return totalXp; }
@@ -204,6 +238,17 @@ public class GamificationDTO {
             };
         }
 
+        public LeaderboardEntry(int rank, UUID userId, String userName, String avatarUrl,
+                                int value, int level, String type) {
+            this.rank = rank;
+            this.userId = userId;
+            this.userName = userName;
+            this.avatarUrl = avatarUrl;
+            this.value = value;
+            this.level = level;
+            this.type = type;
+        }
+
         // Getters
         public int getRank() { return rank; }
         public UUID getUserId() { return userId; }
@@ -216,4 +261,31 @@ public class GamificationDTO {
         // Setter for rank (to set after ordering)
         public void setRank(int rank) { this.rank = rank; }
     }
-}
\ No newline at end of file
+
+    // ==================== XP HISTORY ENTRY ====================
+
+    /**
+     * Voce dello storico XP (registro eventi)
+     */
+    public static class XpHistoryEntry {
+        private String type;
+        private int xp;
+        private String topic;
+        private LocalDateTime occurredAt;
+
+        public static XpHistoryEntry fromEvent(XpEvent event) {
+            XpHistoryEntry entry = new XpHistoryEntry();
+            entry.type = event.getType().name();
+            entry.xp = event.getXp();
+            entry.topic = event.getTopic();
+            entry.occurredAt = event.getOccurredAt();
+            return entry;
+        }
+
+        // Getters
+        public String getType() { return type; }
+        public int getXp() { return xp; }
+        public String getTopic() { return topic; }
+        public LocalDateTime getOccurredAt() { return occurredAt; }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ai.studybuddy.dto.live;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+/**
+ * DTO per avviare una sessione live a partire da un quiz del docente
+ */
+public class CreateLiveSessionRequest {
+
+    @NotNull(message = "L'ID del quiz è obbligatorio")
+    private UUID quizId;
+
+    @Min(value = 5, message = "Minimo 5 secondi per domanda")
+    @Max(value = 300, message = "Massimo 300 secondi per domanda")
+    private Integer secondsPerQuestion;  // opzionale, default da configurazione
+
+    // Costruttori
+    public CreateLiveSessionRequest() {}
+
+    // Getters & Setters
+    public UUID getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(UUID quizId) {
+        this.quizId = quizId;
+    }
+
+    public Integer getSecondsPerQuestion() {
+        return secondsPerQuestion;
+    }
+
+    public void setSecondsPerQuestion(Integer secondsPerQuestion) {
+        this.secondsPerQuestion = secondsPerQuestion;
+    }
+}
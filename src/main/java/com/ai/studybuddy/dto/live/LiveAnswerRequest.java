@@ -0,0 +1,38 @@
+package com.ai.studybuddy.dto.live;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+/**
+ * DTO per rispondere alla domanda corrente di una sessione live
+ */
+public class LiveAnswerRequest {
+
+    @NotNull(message = "L'ID della domanda è obbligatorio")
+    private UUID questionId;
+
+    @NotBlank(message = "La risposta è obbligatoria")
+    private String answer;  // "A", "B", "C" o "D"
+
+    // Costruttori
+    public LiveAnswerRequest() {}
+
+    // Getters & Setters
+    public UUID getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(UUID questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+
+    public void setAnswer(String answer) {
+        this.answer = answer;
+    }
+}
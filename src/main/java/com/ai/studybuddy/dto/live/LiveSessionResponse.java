@@ -0,0 +1,82 @@
+package com.ai.studybuddy.dto.live;
+
+import com.ai.studybuddy.model.live.LiveSession;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * DTO stato di una sessione live (senza risposte corrette)
+ */
+public class LiveSessionResponse {
+
+    private String code;
+    private UUID quizId;
+    private String title;
+    private LiveSession.Status status;
+    private Integer currentIndex;
+    private Integer totalQuestions;
+    private Integer participantCount;
+    private Integer secondsPerQuestion;
+    private Instant questionDeadline;
+    private Boolean host;
+
+    public LiveSessionResponse() {}
+
+    public static LiveSessionResponse from(LiveSession session, UUID viewerId) {
+        LiveSessionResponse response = new LiveSessionResponse();
+        response.code = session.getCode();
+        response.quizId = session.getTemplate().id();
+        response.title = session.getTemplate().title();
+        response.status = session.getStatus();
+        response.currentIndex = session.getCurrentIndex();
+        response.totalQuestions = session.getTemplate().questions().size();
+        response.participantCount = session.getParticipantCount();
+        response.secondsPerQuestion = session.getSecondsPerQuestion();
+        response.questionDeadline = session.getQuestionDeadline();
+        response.host = session.getHostId().equals(viewerId);
+        return response;
+    }
+
+    // ==================== GETTERS ====================
+
+    public String getCode() {
+        return code;
+    }
+
+    public UUID getQuizId() {
+        return quizId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LiveSession.Status getStatus() {
+        return status;
+    }
+
+    public Integer getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public Integer getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public Integer getParticipantCount() {
+        return participantCount;
+    }
+
+    public Integer getSecondsPerQuestion() {
+        return secondsPerQuestion;
+    }
+
+    public Instant getQuestionDeadline() {
+        return questionDeadline;
+    }
+
+    public Boolean getHost() {
+        return host;
+    }
+}
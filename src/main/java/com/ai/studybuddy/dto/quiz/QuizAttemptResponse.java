@@ -0,0 +1,70 @@
+package com.ai.studybuddy.dto.quiz;
+
+import com.ai.studybuddy.model.quiz.QuizAttempt;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO voce dello storico tentativi di un quiz
+ */
+public class QuizAttemptResponse {
+
+    private UUID id;
+    private UUID quizId;
+    private int score;
+    private int totalQuestions;
+    private double percentage;
+    private boolean passed;
+    private Integer timeSpentSeconds;
+    private LocalDateTime completedAt;
+
+    public QuizAttemptResponse() {}
+
+    public static QuizAttemptResponse from(QuizAttempt attempt) {
+        QuizAttemptResponse response = new QuizAttemptResponse();
+        response.id = attempt.getId();
+        response.quizId = attempt.getQuizId();
+        response.score = attempt.getScore();
+        response.totalQuestions = attempt.getTotalQuestions();
+        response.percentage = attempt.getPercentage();
+        response.passed = attempt.isPassed();
+        response.timeSpentSeconds = attempt.getTimeSpentSeconds();
+        response.completedAt = attempt.getCompletedAt();
+        return response;
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getQuizId() {
+        return quizId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public double getPercentage() {
+        return percentage;
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    public Integer getTimeSpentSeconds() {
+        return timeSpentSeconds;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
@@ -0,0 +1,187 @@
+package com.ai.studybuddy.dto.quiz;
+
+import com.ai.studybuddy.model.quiz.Question;
+import com.ai.studybuddy.model.quiz.Quiz;
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * DTO dettaglio quiz con le domande ordinate.
+ * Va costruito da un Quiz caricato con fetch join delle domande (vedi QuizRepository).
+ * Le risposte mostrate sono quelle dell'ultimo tentativo dell'utente.
+ */
+public class QuizDetailResponse {
+
+    private UUID id;
+    private String title;
+    private String topic;
+    private String subject;
+    private String description;
+    private DifficultyLevel difficultyLevel;
+    private Integer numberOfQuestions;
+    private Boolean isCompleted;
+    private Integer score;
+    private Integer totalPoints;
+    private Double percentage;
+    private Integer timeSpentSeconds;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime createdAt;
+    private List<QuestionItem> questions;
+
+    public QuizDetailResponse() {}
+
+    /**
+     * @param answers risposte dell'ultimo tentativo (questionId -> lettera); null per i quiz
+     *                completati prima dei tentativi, con le risposte ancora sulle domande
+     */
+    public static QuizDetailResponse from(Quiz quiz, Map<UUID, String> answers) {
+        QuizDetailResponse response = new QuizDetailResponse();
+        response.id = quiz.getId();
+        response.title = quiz.getTitle();
+        response.topic = quiz.getTopic();
+        response.subject = quiz.getSubject();
+        response.description = quiz.getDescription();
+        response.difficultyLevel = quiz.getDifficultyLevel();
+        response.numberOfQuestions = quiz.getNumberOfQuestions();
+        response.isCompleted = quiz.getIsCompleted();
+        response.score = quiz.getScore();
+        response.totalPoints = quiz.getTotalPoints();
+        response.percentage = quiz.getPercentage();
+        response.timeSpentSeconds = quiz.getTimeSpentSeconds();
+        response.startedAt = quiz.getStartedAt();
+        response.completedAt = quiz.getCompletedAt();
+        response.createdAt = quiz.getCreatedAt();
+        response.questions = quiz.getQuestions().stream()
+                .sorted(Comparator.comparing(Question::getQuestionOrder,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(q -> QuestionItem.from(q, answers))
+                .toList();
+        return response;
+    }
+
+    // ==================== INNER CLASS ====================
+
+    public static class QuestionItem {
+        private UUID id;
+        private Integer questionOrder;
+        private String questionText;
+        private String optionA;
+        private String optionB;
+        private String optionC;
+        private String optionD;
+        private String correctAnswer;
+        private String explanation;
+        private String userAnswer;
+        private Boolean isCorrect;
+
+        public QuestionItem() {}
+
+        public static QuestionItem from(Question question, Map<UUID, String> answers) {
+            QuestionItem item = new QuestionItem();
+            item.id = question.getId();
+            item.questionOrder = question.getQuestionOrder();
+            item.questionText = question.getQuestionText();
+            item.optionA = question.getOptionA();
+            item.optionB = question.getOptionB();
+            item.optionC = question.getOptionC();
+            item.optionD = question.getOptionD();
+            item.correctAnswer = question.getCorrectAnswer();
+            item.explanation = question.getExplanation();
+            if (answers == null) {
+                item.userAnswer = question.getUserAnswer();
+                item.isCorrect = question.getIsCorrect();
+            } else {
+                item.userAnswer = answers.get(question.getId());
+                item.isCorrect = item.userAnswer != null
+                        ? item.userAnswer.equalsIgnoreCase(question.getCorrectAnswer())
+                        : null;
+            }
+            return item;
+        }
+
+        // Getters
+        public UUID getId() { return id; }
+        public Integer getQuestionOrder() { return questionOrder; }
+        public String getQuestionText() { return questionText; }
+        public String getOptionA() { return optionA; }
+        public String getOptionB() { return optionB; }
+        public String getOptionC() { return optionC; }
+        public String getOptionD() { return optionD; }
+        public String getCorrectAnswer() { return correctAnswer; }
+        public String getExplanation() { return explanation; }
+        public String getUserAnswer() { return userAnswer; }
+        public Boolean getIsCorrect() { return isCorrect; }
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public DifficultyLevel getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public Integer getNumberOfQuestions() {
+        return numberOfQuestions;
+    }
+
+    public Boolean getIsCompleted() {
+        return isCompleted;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public Integer getTotalPoints() {
+        return totalPoints;
+    }
+
+    public Double getPercentage() {
+        return percentage;
+    }
+
+    public Integer getTimeSpentSeconds() {
+        return timeSpentSeconds;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<QuestionItem> getQuestions() {
+        return questions;
+    }
+}
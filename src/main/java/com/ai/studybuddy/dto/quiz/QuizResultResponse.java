@@ -26,6 +26,8 @@ public class QuizResultResponse {
     private int level;
     private boolean leveledUp;
     private List<Map<String, Object>> newBadges;
+    // false per i quiz condivisi già completati: tentativo registrato senza XP
+    private boolean firstCompletion = true;
 
     // ==================== COSTRUTTORI ====================
 
@@ -184,6 +186,14 @@ public class QuizResultResponse {
         this.leveledUp = leveledUp;
     }
 
+    public boolean isFirstCompletion() {
+        return firstCompletion;
+    }
+
+    public void setFirstCompletion(boolean firstCompletion) {
+        this.firstCompletion = firstCompletion;
+    }
+
     public List<Map<String, Object>> getNewBadges() {
         return newBadges;
     }
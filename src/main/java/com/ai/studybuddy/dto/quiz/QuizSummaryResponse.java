@@ -0,0 +1,139 @@
+package com.ai.studybuddy.dto.quiz;
+
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO riga di elenco quiz (storico, dashboard).
+ * Costruito direttamente dalla query JPQL: nessuna domanda viene caricata.
+ */
+public class QuizSummaryResponse {
+
+    private UUID id;
+    private String title;
+    private String topic;
+    private String subject;
+    private DifficultyLevel difficultyLevel;
+    private Integer numberOfQuestions;
+    private Boolean isCompleted;
+    private Integer score;
+    private Double percentage;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+    // ==================== COSTRUTTORI ====================
+
+    public QuizSummaryResponse() {}
+
+    /**
+     * Usato dalle constructor expression JPQL di QuizRepository: l'ordine dei parametri è parte del contratto
+     */
+    public QuizSummaryResponse(UUID id, String title, String topic, String subject,
+                               DifficultyLevel difficultyLevel, Integer numberOfQuestions,
+                               Boolean isCompleted, Integer score, Double percentage,
+                               LocalDateTime createdAt, LocalDateTime completedAt) {
+        this.id = id;
+        this.title = title;
+        this.topic = topic;
+        this.subject = subject;
+        this.difficultyLevel = difficultyLevel;
+        this.numberOfQuestions = numberOfQuestions;
+        this.isCompleted = isCompleted;
+        this.score = score;
+        this.percentage = percentage;
+        this.createdAt = createdAt;
+        this.completedAt = completedAt;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public DifficultyLevel getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public void setDifficultyLevel(DifficultyLevel difficultyLevel) {
+        this.difficultyLevel = difficultyLevel;
+    }
+
+    public Integer getNumberOfQuestions() {
+        return numberOfQuestions;
+    }
+
+    public void setNumberOfQuestions(Integer numberOfQuestions) {
+        this.numberOfQuestions = numberOfQuestions;
+    }
+
+    public Boolean getIsCompleted() {
+        return isCompleted;
+    }
+
+    public void setIsCompleted(Boolean isCompleted) {
+        this.isCompleted = isCompleted;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
+    public Double getPercentage() {
+        return percentage;
+    }
+
+    public void setPercentage(Double percentage) {
+        this.percentage = percentage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ai.studybuddy.dto.quiz;
+
+import com.ai.studybuddy.model.quiz.QuizTemplate;
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO quiz condiviso: solo domande e opzioni.
+ * Risposte corrette e spiegazioni arrivano con il risultato, dopo l'invio.
+ */
+public class SharedQuizResponse {
+
+    private UUID id;
+    private String shareCode;
+    private String title;
+    private String topic;
+    private String subject;
+    private String description;
+    private DifficultyLevel difficultyLevel;
+    private Integer numberOfQuestions;
+    private List<QuestionItem> questions;
+
+    public SharedQuizResponse() {}
+
+    public static SharedQuizResponse from(QuizTemplate template, String shareCode) {
+        SharedQuizResponse response = new SharedQuizResponse();
+        response.id = template.id();
+        response.shareCode = shareCode;
+        response.title = template.title();
+        response.topic = template.topic();
+        response.subject = template.subject();
+        response.description = template.description();
+        response.difficultyLevel = template.difficultyLevel();
+        response.numberOfQuestions = template.questions().size();
+        response.questions = template.questions().stream().map(QuestionItem::from).toList();
+        return response;
+    }
+
+    // ==================== INNER CLASS ====================
+
+    public static class QuestionItem {
+        private UUID id;
+        private Integer questionOrder;
+        private String questionText;
+        private String optionA;
+        private String optionB;
+        private String optionC;
+        private String optionD;
+
+        public QuestionItem() {}
+
+        public static QuestionItem from(QuizTemplate.Item question) {
+            QuestionItem item = new QuestionItem();
+            item.id = question.id();
+            item.questionOrder = question.order();
+            item.questionText = question.questionText();
+            item.optionA = question.optionA();
+            item.optionB = question.optionB();
+            item.optionC = question.optionC();
+            item.optionD = question.optionD();
+            return item;
+        }
+
+        // Getters
+        public UUID getId() { return id; }
+        public Integer getQuestionOrder() { return questionOrder; }
+        public String getQuestionText() { return questionText; }
+        public String getOptionA() { return optionA; }
+        public String getOptionB() { return optionB; }
+        public String getOptionC() { return optionC; }
+        public String getOptionD() { return optionD; }
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getShareCode() {
+        return shareCode;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public DifficultyLevel getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public Integer getNumberOfQuestions() {
+        return numberOfQuestions;
+    }
+
+    public List<QuestionItem> getQuestions() {
+        return questions;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ai.studybuddy.dto.search;
+
+import com.ai.studybuddy.model.search.SearchDocument.DocType;
+
+import java.util.UUID;
+
+/**
+ * DTO risultato della ricerca unificata
+ */
+public class SearchResultResponse {
+
+    private DocType type;
+    private UUID id;
+    private UUID deckId;
+    private String title;
+    private String snippet;
+    private double score;
+
+    public SearchResultResponse() {}
+
+    public SearchResultResponse(DocType type, UUID id, UUID deckId, String title, String snippet, double score) {
+        this.type = type;
+        this.id = id;
+        this.deckId = deckId;
+        this.title = title;
+        this.snippet = snippet;
+        this.score = score;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public DocType getType() {
+        return type;
+    }
+
+    public void setType(DocType type) {
+        this.type = type;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getDeckId() {
+        return deckId;
+    }
+
+    public void setDeckId(UUID deckId) {
+        this.deckId = deckId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
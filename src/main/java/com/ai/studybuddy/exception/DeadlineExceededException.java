@@ -0,0 +1,17 @@
+package com.ai.studybuddy.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Eccezione per richieste che hanno superato la propria deadline
+ */
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class DeadlineExceededException extends StudyBuddyException {
+
+    private static final String ERROR_CODE = "DEADLINE_EXCEEDED";
+
+    public DeadlineExceededException(String operation) {
+        super(ERROR_CODE, String.format("Tempo massimo della richiesta superato durante: %s", operation));
+    }
+}
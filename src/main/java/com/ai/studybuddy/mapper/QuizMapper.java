@@ -2,13 +2,22 @@ package com.ai.studybuddy.mapper;
 
 import com.ai.studybuddy.dto.quiz.QuizGenerateRequest;
 import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.model.quiz.BankQuestion;
 import com.ai.studybuddy.model.quiz.Question;
 import com.ai.studybuddy.model.quiz.Quiz;
+import com.ai.studybuddy.model.quiz.QuizAttempt;
+import com.ai.studybuddy.model.quiz.QuizTemplate;
 import com.ai.studybuddy.model.user.User;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -38,7 +47,60 @@ public class QuizMapper {
     }
 
     /**
-     * Crea Question entity da JSON dell'AI
+     * Valida una domanda generata dall'AI prima di convertirla in entity.
+     * Una domanda è valida se ha testo non vuoto, 4 opzioni distinte e non vuote
+     * e una risposta corretta riconducibile ad una delle lettere A-D.
+     *
+     * @return lista dei problemi trovati (vuota se la domanda è valida)
+     */
+    public List<String> validateQuestionJson(JsonElement element) {
+        List<String> problems = new ArrayList<>();
+        if (element == null || !element.isJsonObject()) {
+            problems.add("elemento non è un oggetto JSON");
+            return problems;
+        }
+        JsonObject json = element.getAsJsonObject();
+
+        if (getJsonString(json, FIELD_QUESTION).isBlank()) {
+            problems.add("testo della domanda vuoto");
+        }
+
+        List<String> options = getOptions(json);
+        if (options.size() != 4) {
+            problems.add("numero di opzioni non valido: " + options.size());
+        } else {
+            Set<String> distinct = new HashSet<>();
+            for (String option : options) {
+                if (option.isBlank()) {
+                    problems.add("opzione vuota");
+                    break;
+                }
+                distinct.add(option.trim().toLowerCase(Locale.ROOT));
+            }
+            if (distinct.size() < 4) {
+                problems.add("opzioni duplicate");
+            }
+        }
+
+        if (problems.isEmpty()) {
+            Question probe = new Question();
+            probe.setOptionA(options.get(0));
+            probe.setOptionB(options.get(1));
+            probe.setOptionC(options.get(2));
+            probe.setOptionD(options.get(3));
+            if (extractLetterAnswer(getJsonString(json, FIELD_CORRECT), probe) == null) {
+                problems.add("risposta corretta non riconducibile ad A-D");
+            }
+        }
+
+        return problems;
+    }
+
+    /**
+     * Crea Question entity da JSON dell'AI.
+     * Il JSON deve essere già stato validato con {@link #validateQuestionJson(JsonElement)}.
+     *
+     * @throws IllegalArgumentException se la risposta corretta non è riconducibile ad A-D
      */
     public Question toQuestionEntity(JsonObject json, Quiz quiz, int order) {
         Question question = new Question();
@@ -47,19 +109,21 @@ public class QuizMapper {
         question.setQuestionText(getJsonString(json, FIELD_QUESTION));
 
         // Parsing opzioni
-        if (json.has(FIELD_OPTIONS) && json.get(FIELD_OPTIONS).isJsonArray()) {
-            var options = json.getAsJsonArray(FIELD_OPTIONS);
-            if (options.size() >= 4) {
-                question.setOptionA(options.get(0).getAsString());
-                question.setOptionB(options.get(1).getAsString());
-                question.setOptionC(options.get(2).getAsString());
-                question.setOptionD(options.get(3).getAsString());
-            }
+        List<String> options = getOptions(json);
+        if (options.size() >= 4) {
+            question.setOptionA(options.get(0));
+            question.setOptionB(options.get(1));
+            question.setOptionC(options.get(2));
+            question.setOptionD(options.get(3));
         }
 
         // Estrai la risposta corretta - deve essere solo "A", "B", "C" o "D"
         String correctRaw = getJsonString(json, FIELD_CORRECT);
         String correctAnswer = extractLetterAnswer(correctRaw, question);
+        if (correctAnswer == null) {
+            // Una domanda senza risposta corretta non si può correggere: non va mai salvata
+            throw new IllegalArgumentException("Risposta corretta non riconducibile ad A-D: " + correctRaw);
+        }
         question.setCorrectAnswer(correctAnswer);
 
         // Spiegazione opzionale
@@ -70,13 +134,52 @@ public class QuizMapper {
         return question;
     }
 
+    /**
+     * Crea una voce della banca domande da JSON dell'AI già validato.
+     * Chiave (topic, difficoltà, lingua) e hash vengono impostati dal servizio.
+     *
+     * @throws IllegalArgumentException se la risposta corretta non è riconducibile ad A-D
+     */
+    public BankQuestion toBankQuestion(JsonObject json) {
+        Question parsed = toQuestionEntity(json, null, 0);
+        BankQuestion bankQuestion = new BankQuestion();
+        bankQuestion.setQuestionText(parsed.getQuestionText());
+        bankQuestion.setOptionA(parsed.getOptionA());
+        bankQuestion.setOptionB(parsed.getOptionB());
+        bankQuestion.setOptionC(parsed.getOptionC());
+        bankQuestion.setOptionD(parsed.getOptionD());
+        bankQuestion.setCorrectAnswer(parsed.getCorrectAnswer());
+        bankQuestion.setExplanation(parsed.getExplanation());
+        return bankQuestion;
+    }
+
+    /**
+     * Copia una domanda della banca nel quiz: la Question tiene anche la risposta dell'utente
+     */
+    public Question toQuestionEntity(BankQuestion bankQuestion, Quiz quiz, int order) {
+        Question question = new Question();
+        question.setQuiz(quiz);
+        question.setQuestionOrder(order);
+        question.setQuestionText(bankQuestion.getQuestionText());
+        question.setOptionA(bankQuestion.getOptionA());
+        question.setOptionB(bankQuestion.getOptionB());
+        question.setOptionC(bankQuestion.getOptionC());
+        question.setOptionD(bankQuestion.getOptionD());
+        question.setCorrectAnswer(bankQuestion.getCorrectAnswer());
+        question.setExplanation(bankQuestion.getExplanation());
+        question.setBankQuestionId(bankQuestion.getId());
+        return question;
+    }
+
     /**
      * Estrae la lettera della risposta corretta
      * L'AI potrebbe restituire "A", "B", "C", "D" oppure il testo completo della risposta
+     *
+     * @return la lettera, oppure null se la risposta non è riconducibile a nessuna opzione
      */
     private String extractLetterAnswer(String correctRaw, Question question) {
-        if (correctRaw == null || correctRaw.isEmpty()) {
-            return "A"; // default
+        if (correctRaw == null || correctRaw.isBlank()) {
+            return null;
         }
 
         // Se è già una singola lettera A-D, usala
@@ -97,8 +200,30 @@ public class QuizMapper {
             return upper.substring(0, 1);
         }
 
-        // Default
-        return "A";
+        return null;
+    }
+
+    /**
+     * Risultato di un tentativo: risposte dell'utente confrontate con il template
+     */
+    public QuizResultResponse toResultResponse(QuizTemplate template, QuizAttempt attempt) {
+        QuizResultResponse response = new QuizResultResponse();
+        response.setQuizId(template.id());
+        response.setTopic(template.topic());
+        response.setSubject(template.subject());
+        response.setScore(attempt.getScore());
+        response.setTotalQuestions(attempt.getTotalQuestions());
+        response.setScorePercentage(attempt.getPercentage());
+        response.setPassed(attempt.isPassed());
+
+        List<QuizResultResponse.QuestionResult> questionResults = new ArrayList<>();
+        for (QuizTemplate.Item item : template.questions()) {
+            String answer = attempt.getAnswers().get(item.id());
+            questionResults.add(new QuizResultResponse.QuestionResult(item.id(), item.questionText(),
+                    answer, item.correctAnswer(), item.isCorrect(answer), item.explanation()));
+        }
+        response.setQuestionResults(questionResults);
+        return response;
     }
 
     /**
@@ -124,9 +249,23 @@ public class QuizMapper {
         return null;
     }
 
+    // Helper per estrarre le opzioni come stringhe (elementi non primitivi vengono ignorati)
+    private List<String> getOptions(JsonObject json) {
+        List<String> options = new ArrayList<>();
+        if (json.has(FIELD_OPTIONS) && json.get(FIELD_OPTIONS).isJsonArray()) {
+            JsonArray array = json.getAsJsonArray(FIELD_OPTIONS);
+            for (JsonElement option : array) {
+                if (option.isJsonPrimitive()) {
+                    options.add(option.getAsString());
+                }
+            }
+        }
+        return options;
+    }
+
     // Helper per estrarre stringa da JSON in modo sicuro
     private String getJsonString(JsonObject json, String key) {
-        if (json.has(key) && !json.get(key).isJsonNull()) {
+        if (json.has(key) && json.get(key).isJsonPrimitive()) {
             return json.get(key).getAsString();
         }
         return "";
@@ -1,5 +1,6 @@
 package com.ai.studybuddy.model.flashcard;
 
+import com.ai.studybuddy.model.search.SearchIndexListener;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -13,10 +14,12 @@ import java.util.UUID;
  * Entità Flashcard - rappresenta una singola scheda di studio
  */
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "flashcards", indexes = {
         @Index(name = "idx_flashcard_deck", columnList = "deck_id"),
         @Index(name = "idx_flashcard_created_by", columnList = "created_by_user_id"),
-        @Index(name = "idx_flashcard_active", columnList = "is_active")
+        @Index(name = "idx_flashcard_active", columnList = "is_active"),
+        @Index(name = "idx_flashcard_deck_created", columnList = "deck_id, created_at, id")
 })
 public class Flashcard {
 
@@ -64,13 +67,14 @@ public class Flashcard {
 
     // ==================== STATISTICHE ====================
 
-    @Column(name = "times_reviewed")
+    // Scritti solo con incrementi atomici (FlashcardRepository.recordReview), mai dall'entity
+    @Column(name = "times_reviewed", updatable = false)
     private Integer timesReviewed = 0;
 
-    @Column(name = "times_correct")
+    @Column(name = "times_correct", updatable = false)
     private Integer timesCorrect = 0;
 
-    @Column(name = "last_reviewed_at")
+    @Column(name = "last_reviewed_at", updatable = false)
     private LocalDateTime lastReviewedAt;
 
     // ==================== AUDIT ====================
@@ -119,7 +123,7 @@ public class Flashcard {
     }
 
     /**
-     * Registra una revisione
+     * Registra una revisione sull'oggetto in memoria (il database lo aggiorna FlashcardRepository.recordReview)
      */
     public void recordReview(boolean wasCorrect) {
         if (timesReviewed == null) timesReviewed = 0;
@@ -1,5 +1,6 @@
 package com.ai.studybuddy.model.flashcard;
 
+import com.ai.studybuddy.model.search.SearchIndexListener;
 import com.ai.studybuddy.model.user.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
@@ -14,11 +15,14 @@ import java.util.UUID;
  * FlashcardDeck - rappresenta un mazzo/collezione di flashcards
  */
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "flashcard_decks", indexes = {
         @Index(name = "idx_deck_owner", columnList = "user_id"),
         @Index(name = "idx_deck_active", columnList = "is_active"),
         @Index(name = "idx_deck_public", columnList = "is_public"),
-        @Index(name = "idx_deck_subject", columnList = "subject")
+        @Index(name = "idx_deck_subject", columnList = "subject"),
+        @Index(name = "idx_deck_owner_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_deck_public_created", columnList = "is_public, created_at, id")
 })
 public class FlashcardDeck {
 
@@ -64,7 +68,8 @@ public class FlashcardDeck {
 
     // ==================== STATISTICHE ====================
 
-    @Column(name = "total_cards")
+    // Scritto solo con incrementi atomici (FlashcardDeckRepository.addToTotalCards), mai dall'entity
+    @Column(name = "total_cards", updatable = false)
     private Integer totalCards = 0;
 
     @Column(name = "cards_mastered")
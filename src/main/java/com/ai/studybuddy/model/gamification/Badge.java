@@ -8,6 +8,7 @@ import java.util.UUID;
  * Entità Badge - rappresenta un achievement/traguardo sbloccabile
  */
 @Entity
+@EntityListeners(BadgeChangeListener.class)
 @Table(name = "badges")
 public class Badge {
 
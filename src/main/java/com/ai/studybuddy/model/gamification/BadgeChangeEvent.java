@@ -0,0 +1,15 @@
+package com.ai.studybuddy.model.gamification;
+
+import java.util.UUID;
+
+/**
+ * Evento applicativo: è cambiato il catalogo badge (userId null)
+ * oppure un badge di un utente è stato sbloccato o rimosso.
+ * Pubblicato da {@link BadgeChangeListener}, consumato dal BadgeRuleEngine dopo il commit.
+ */
+public record BadgeChangeEvent(UUID userId, UUID badgeId, boolean removed) {
+
+    public boolean isCatalogChange() {
+        return userId == null;
+    }
+}
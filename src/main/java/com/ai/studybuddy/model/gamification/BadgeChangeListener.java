@@ -0,0 +1,44 @@
+package com.ai.studybuddy.model.gamification;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener JPA su Badge e UserBadge: traduce le scritture in BadgeChangeEvent.
+ *
+ * Come per la ricerca, le cache vengono aggiornate solo dopo il commit:
+ * un badge sbloccato in una transazione annullata non risulta mai sbloccato.
+ */
+@Component
+public class BadgeChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public BadgeChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof Badge badge) {
+            publisher.publishEvent(new BadgeChangeEvent(null, badge.getId(), removed));
+        } else if (entity instanceof UserBadge userBadge) {
+            // getId() sul proxy lazy non inizializza l'utente
+            publisher.publishEvent(new BadgeChangeEvent(userBadge.getUser().getId(),
+                    userBadge.getBadge().getId(), removed));
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.UUID;
  * Entità UserBadge - rappresenta un badge sbloccato da un utente
  */
 @Entity
+@EntityListeners(BadgeChangeListener.class)
 @Table(name = "user_badges",
         uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "badge_id"}))
 public class UserBadge {
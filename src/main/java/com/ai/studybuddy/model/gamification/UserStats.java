@@ -14,6 +14,7 @@ import java.util.UUID;
  * - UserStats → statistiche GLOBALI (XP totali, livello, streak, badge)
  */
 @Entity
+@EntityListeners(UserStatsListener.class)
 @Table(name = "user_stats")
 public class UserStats {
 
@@ -30,12 +31,19 @@ public class UserStats {
     @Column(name = "total_xp")
     private Integer totalXp = 0;
 
+    // Copia del bucket corrente (XpBucket): vale solo se il periodo coincide con quello di oggi
     @Column(name = "weekly_xp")
     private Integer weeklyXp = 0;
 
+    @Column(name = "weekly_xp_period")
+    private LocalDate weeklyXpPeriod;
+
     @Column(name = "monthly_xp")
     private Integer monthlyXp = 0;
 
+    @Column(name = "monthly_xp_period")
+    private LocalDate monthlyXpPeriod;
+
     // ==================== CONTATORI ATTIVITÀ ====================
 
     @Column(name = "explanations_requested")
@@ -78,6 +86,17 @@ public class UserStats {
     @Column(name = "xp_for_next_level")
     private Integer xpForNextLevel = 100;
 
+    // ==================== PROIEZIONE EVENTI XP ====================
+
+    // Ultimo XpEvent applicato; null = statistiche mai proiettate dal registro
+    @Column(name = "last_event_id")
+    private Long lastEventId;
+
+    // Lock ottimistico: chi scrive senza il lock di riga del proiettore fallisce invece di sovrascrivere
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     // ==================== AUDIT ====================
 
     @Column(name = "created_at", updatable = false)
@@ -104,9 +123,18 @@ public class UserStats {
      * @return true se l'utente è salito di livello
      */
     public boolean addXp(int xp) {
+        return addXp(xp, LocalDate.now());
+    }
+
+    /**
+     * Aggiunge XP guadagnati in un certo giorno (proiezione degli eventi XP)
+     */
+    public boolean addXp(int xp, LocalDate today) {
         this.totalXp += xp;
-        this.weeklyXp += xp;
-        this.monthlyXp += xp;
+        this.weeklyXp = getWeeklyXp(today) + xp;
+        this.weeklyXpPeriod = XpBucket.PeriodType.WEEK.start(today);
+        this.monthlyXp = getMonthlyXp(today) + xp;
+        this.monthlyXpPeriod = XpBucket.PeriodType.MONTH.start(today);
 
         // Controlla level up
         boolean leveledUp = false;
@@ -119,19 +147,49 @@ public class UserStats {
         return leveledUp;
     }
 
+    /**
+     * Ricalcola livello e soglia del prossimo livello dagli XP totali
+     */
+    public void recalculateLevel() {
+        this.level = levelForXp(this.totalXp);
+        this.xpForNextLevel = calculateXpForLevel(this.level + 1);
+    }
+
     /**
      * Calcola XP necessari per un livello
      * Formula: 100 * livello^1.5
      */
-    private int calculateXpForLevel(int level) {
+    private static int calculateXpForLevel(int level) {
         return (int) (100 * Math.pow(level, 1.5));
     }
 
+    /**
+     * Livello corrispondente a un totale di XP, con la stessa progressione di addXp
+     */
+    public static int levelForXp(int totalXp) {
+        int level = 1;
+        int xpForNext = 100;
+        while (totalXp >= xpForNext) {
+            level++;
+            xpForNext = calculateXpForLevel(level + 1);
+        }
+        return level;
+    }
+
     /**
      * Aggiorna lo streak giornaliero
      */
     public void updateStreak() {
-        LocalDate today = LocalDate.now();
+        updateStreak(LocalDate.now());
+    }
+
+    /**
+     * Aggiorna lo streak con un'attività svolta in un certo giorno
+     */
+    public void updateStreak(LocalDate today) {
+        if (lastActivityDate != null && today.isBefore(lastActivityDate)) {
+            return;
+        }
 
         if (lastActivityDate == null) {
             currentStreak = 1;
@@ -149,6 +207,37 @@ public class UserStats {
         lastActivityDate = today;
     }
 
+    /**
+     * Riporta a zero tutto ciò che si ricava dagli eventi XP, prima di riproiettarli
+     */
+    public void resetProjection() {
+        totalXp = 0;
+        weeklyXp = 0;
+        weeklyXpPeriod = null;
+        monthlyXp = 0;
+        monthlyXpPeriod = null;
+        explanationsRequested = 0;
+        quizzesCompleted = 0;
+        quizzesPassed = 0;
+        flashcardsStudied = 0;
+        flashcardsMastered = 0;
+        focusSessionsCompleted = 0;
+        totalStudyTimeMinutes = 0;
+        currentStreak = 0;
+        longestStreak = 0;
+        lastActivityDate = null;
+        level = 1;
+        xpForNextLevel = 100;
+    }
+
+    /**
+     * true se l'utente ha già accumulato qualcosa (prima del registro eventi)
+     */
+    public boolean hasActivity() {
+        return totalXp > 0 || explanationsRequested > 0 || quizzesCompleted > 0
+                || flashcardsStudied > 0 || focusSessionsCompleted > 0;
+    }
+
     /**
      * Calcola la percentuale di progresso verso il prossimo livello
      */
@@ -219,22 +308,64 @@ public class UserStats {
         this.totalXp = totalXp;
     }
 
+    /**
+     * XP della settimana corrente: 0 se l'ultimo XP è di una settimana passata (reset implicito)
+     */
     public Integer getWeeklyXp() {
-        return weeklyXp;
+        return getWeeklyXp(LocalDate.now());
+    }
+
+    public int getWeeklyXp(LocalDate today) {
+        return weeklyXp != null && XpBucket.PeriodType.WEEK.start(today).equals(weeklyXpPeriod) ? weeklyXp : 0;
     }
 
     public void setWeeklyXp(Integer weeklyXp) {
         this.weeklyXp = weeklyXp;
     }
 
+    /**
+     * XP del mese corrente: 0 se l'ultimo XP è di un mese passato (reset implicito)
+     */
     public Integer getMonthlyXp() {
-        return monthlyXp;
+        return getMonthlyXp(LocalDate.now());
+    }
+
+    public int getMonthlyXp(LocalDate today) {
+        return monthlyXp != null && XpBucket.PeriodType.MONTH.start(today).equals(monthlyXpPeriod) ? monthlyXp : 0;
     }
 
     public void setMonthlyXp(Integer monthlyXp) {
         this.monthlyXp = monthlyXp;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Long getLastEventId() {
+        return lastEventId;
+    }
+
+    public void setLastEventId(Long lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+
+    public LocalDate getWeeklyXpPeriod() {
+        return weeklyXpPeriod;
+    }
+
+    public void setWeeklyXpPeriod(LocalDate weeklyXpPeriod) {
+        this.weeklyXpPeriod = weeklyXpPeriod;
+    }
+
+    public LocalDate getMonthlyXpPeriod() {
+        return monthlyXpPeriod;
+    }
+
+    public void setMonthlyXpPeriod(LocalDate monthlyXpPeriod) {
+        this.monthlyXpPeriod = monthlyXpPeriod;
+    }
+
     public Integer getExplanationsRequested() {
         return explanationsRequested;
     }
@@ -0,0 +1,18 @@
+package com.ai.studybuddy.model.gamification;
+
+import java.util.UUID;
+
+/**
+ * Evento applicativo: le statistiche di un utente sono state salvate o eliminate.
+ * Pubblicato da {@link UserStatsListener}, consumato dalle classifiche in memoria dopo il commit.
+ *
+ * I valori sono assoluti: version (la @Version di UserStats) permette di scartare
+ * un evento più vecchio di quello già applicato.
+ */
+public record UserStatsChangedEvent(UUID userId,
+                                    int totalXp,
+                                    int weeklyXp,
+                                    int currentStreak,
+                                    int level,
+                                    long version,
+                                    boolean removed) {}
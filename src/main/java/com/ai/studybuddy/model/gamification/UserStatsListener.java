@@ -0,0 +1,51 @@
+package com.ai.studybuddy.model.gamification;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener JPA su UserStats: traduce le scritture in UserStatsChangedEvent.
+ *
+ * I valori vengono copiati nell'evento al momento del flush; le classifiche li applicano
+ * solo dopo il commit. Gli UPDATE massivi (reset settimanale) non passano di qui:
+ * chi li esegue deve ricostruire le classifiche.
+ */
+@Component
+public class UserStatsListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public UserStatsListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(UserStats stats) {
+        publish(stats, false);
+    }
+
+    @PostRemove
+    public void onRemove(UserStats stats) {
+        publish(stats, true);
+    }
+
+    private void publish(UserStats stats, boolean removed) {
+        publisher.publishEvent(new UserStatsChangedEvent(
+                stats.getUser().getId(),
+                valueOf(stats.getTotalXp()),
+                valueOf(stats.getWeeklyXp()),
+                valueOf(stats.getCurrentStreak()),
+                stats.getLevel() != null ? stats.getLevel() : 1,
+                // Dopo il flush: la versione è già quella appena scritta
+                stats.getVersion(),
+                removed));
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ai.studybuddy.model.gamification;
+
+import jakarta.persistence.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Entity XpBucket - XP guadagnati da un utente in un periodo (settimana ISO o mese)
+ *
+ * Una riga per utente e periodo: il "settimanale" è semplicemente la riga della settimana
+ * corrente, quindi nessun reset da schedulare. Le settimane passate restano e danno
+ * le classifiche storiche, fino alla retention (maintenance.xp-buckets.retention-days).
+ */
+@Entity
+@Table(name = "xp_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_xp_bucket_user_period",
+                columnNames = {"user_id", "period_type", "period_start"}),
+        indexes = @Index(name = "idx_xp_bucket_period_xp", columnList = "period_type, period_start, xp"))
+public class XpBucket {
+
+    public enum PeriodType {
+        WEEK,
+        MONTH;
+
+        /**
+         * Primo giorno del periodo che contiene la data: lunedì per la settimana ISO, il giorno 1 per il mese
+         */
+        public LocalDate start(LocalDate date) {
+            return this == WEEK ? date.with(DayOfWeek.MONDAY) : date.withDayOfMonth(1);
+        }
+
+        /**
+         * @throws IllegalArgumentException se il periodo non è né settimana né mese
+         */
+        public static PeriodType parse(String value) {
+            if (value == null) {
+                return WEEK;
+            }
+            return switch (value.trim().toUpperCase(Locale.ROOT)) {
+                case "WEEK", "WEEKLY" -> WEEK;
+                case "MONTH", "MONTHLY" -> MONTH;
+                default -> throw new IllegalArgumentException("Periodo non valido: " + value + " (WEEK o MONTH)");
+            };
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false, length = 10)
+    private PeriodType periodType;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "xp", nullable = false)
+    private int xp;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public XpBucket() {}
+
+    public XpBucket(UUID userId, PeriodType periodType, LocalDate periodStart, int xp) {
+        this.userId = userId;
+        this.periodType = periodType;
+        this.periodStart = periodStart;
+        this.xp = xp;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public PeriodType getPeriodType() {
+        return periodType;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public int getXp() {
+        return xp;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,191 @@
+package com.ai.studybuddy.model.gamification;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity XpEvent - registro append-only degli XP assegnati
+ *
+ * Ogni attività che dà XP scrive una riga e nient'altro: UserStats, bucket settimanali,
+ * UserProgress, classifiche e badge sono proiezioni ricavate da questi eventi
+ * dal proiettore asincrono. Il contenuto di un evento non cambia mai: l'unica colonna
+ * aggiornabile è il flag projected, il segnalibro del proiettore.
+ *
+ * Righe compatte: id da sequenza (allocazione a blocchi, insert in batch), colonne
+ * valorizzate solo quando servono al tipo di evento.
+ */
+@Entity
+@Table(name = "xp_events", indexes = {
+        @Index(name = "idx_xp_event_pending", columnList = "projected, user_id"),
+        @Index(name = "idx_xp_event_user", columnList = "user_id, id")
+})
+public class XpEvent {
+
+    public enum Type {
+        EXPLANATION,
+        QUIZ,
+        FLASHCARD,
+        FOCUS_SESSION,
+        BADGE_REWARD,
+        // Statistiche accumulate prima del registro, scritte una volta per utente
+        OPENING_BALANCE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "xp_events_seq")
+    @SequenceGenerator(name = "xp_events_seq", sequenceName = "xp_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, updatable = false, length = 16)
+    private Type type;
+
+    @Column(name = "xp", nullable = false, updatable = false)
+    private int xp;
+
+    // Flashcard studiate o minuti di focus, secondo il tipo
+    @Column(name = "quantity", updatable = false)
+    private Integer quantity;
+
+    @Column(name = "passed", updatable = false)
+    private Boolean passed;
+
+    @Column(name = "topic", updatable = false, length = 200)
+    private String topic;
+
+    @Column(name = "subject", updatable = false, length = 100)
+    private String subject;
+
+    @Column(name = "total_questions", updatable = false)
+    private Integer totalQuestions;
+
+    @Column(name = "correct_answers", updatable = false)
+    private Integer correctAnswers;
+
+    // Id del badge per BADGE_REWARD, contatori di partenza in JSON per OPENING_BALANCE
+    @Column(name = "details", updatable = false, columnDefinition = "TEXT")
+    private String details;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "projected", nullable = false)
+    private boolean projected;
+
+    protected XpEvent() {}
+
+    private XpEvent(UUID userId, Type type, int xp) {
+        this.userId = userId;
+        this.type = type;
+        this.xp = xp;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    // ==================== FACTORY ====================
+
+    public static XpEvent explanation(UUID userId, int xp, String topic, String subject) {
+        XpEvent event = new XpEvent(userId, Type.EXPLANATION, xp);
+        event.topic = topic;
+        event.subject = subject;
+        return event;
+    }
+
+    public static XpEvent quiz(UUID userId, int xp, boolean passed, String topic, String subject,
+                               int totalQuestions, int correctAnswers) {
+        XpEvent event = new XpEvent(userId, Type.QUIZ, xp);
+        event.passed = passed;
+        event.topic = topic;
+        event.subject = subject;
+        event.totalQuestions = totalQuestions;
+        event.correctAnswers = correctAnswers;
+        return event;
+    }
+
+    public static XpEvent flashcards(UUID userId, int xp, int cardsStudied) {
+        XpEvent event = new XpEvent(userId, Type.FLASHCARD, xp);
+        event.quantity = cardsStudied;
+        return event;
+    }
+
+    public static XpEvent focusSession(UUID userId, int xp, int durationMinutes) {
+        XpEvent event = new XpEvent(userId, Type.FOCUS_SESSION, xp);
+        event.quantity = durationMinutes;
+        return event;
+    }
+
+    /**
+     * Bonus di un badge: scritto dal proiettore già applicato
+     */
+    public static XpEvent badgeReward(UUID userId, int xp, UUID badgeId) {
+        XpEvent event = new XpEvent(userId, Type.BADGE_REWARD, xp);
+        event.details = badgeId.toString();
+        event.projected = true;
+        return event;
+    }
+
+    public static XpEvent openingBalance(UUID userId, int totalXp, String details) {
+        XpEvent event = new XpEvent(userId, Type.OPENING_BALANCE, totalXp);
+        event.details = details;
+        event.projected = true;
+        return event;
+    }
+
+    // ==================== GETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getXp() {
+        return xp;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Boolean getPassed() {
+        return passed;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Integer getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public Integer getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public boolean isProjected() {
+        return projected;
+    }
+}
@@ -0,0 +1,9 @@
+package com.ai.studybuddy.model.gamification;
+
+import java.util.UUID;
+
+/**
+ * Evento applicativo: un utente ha nuovi eventi XP da proiettare.
+ * Consumato dopo il commit per svegliare il proiettore senza aspettare il polling.
+ */
+public record XpEventAppended(UUID userId) {}
@@ -0,0 +1,10 @@
+package com.ai.studybuddy.model.gamification;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Evento applicativo: gli eventi XP indicati sono entrati in UserStats.
+ * Consumato dopo il commit per togliere dal write-behind i delta ormai visibili nei totali.
+ */
+public record XpEventsProjected(UUID userId, List<Long> eventIds) {}
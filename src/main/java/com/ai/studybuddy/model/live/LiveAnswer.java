@@ -0,0 +1,91 @@
+package com.ai.studybuddy.model.live;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity LiveAnswer - risposta data durante una sessione live
+ *
+ * Scritta in modo asincrono a blocchi: durante la sessione lo stato vive in memoria
+ * (LiveSession), questa tabella serve per lo storico e i report del docente.
+ */
+@Entity
+@Table(name = "live_answers", indexes = {
+        @Index(name = "idx_live_answer_session", columnList = "session_code, question_id"),
+        @Index(name = "idx_live_answer_user", columnList = "user_id")
+})
+public class LiveAnswer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "session_code", nullable = false, length = 12)
+    private String sessionCode;
+
+    @Column(name = "quiz_id", nullable = false)
+    private UUID quizId;
+
+    @Column(name = "question_id", nullable = false)
+    private UUID questionId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "answer", nullable = false, length = 1)
+    private String answer;
+
+    @Column(name = "is_correct", nullable = false)
+    private boolean correct;
+
+    @Column(name = "answered_at", nullable = false)
+    private LocalDateTime answeredAt;
+
+    public LiveAnswer() {}
+
+    public LiveAnswer(String sessionCode, UUID quizId, UUID questionId, UUID userId, String answer, boolean correct) {
+        this.sessionCode = sessionCode;
+        this.quizId = quizId;
+        this.questionId = questionId;
+        this.userId = userId;
+        this.answer = answer;
+        this.correct = correct;
+        this.answeredAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getSessionCode() {
+        return sessionCode;
+    }
+
+    public UUID getQuizId() {
+        return quizId;
+    }
+
+    public UUID getQuestionId() {
+        return questionId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    public LocalDateTime getAnsweredAt() {
+        return answeredAt;
+    }
+}
@@ -0,0 +1,268 @@
+package com.ai.studybuddy.model.live;
+
+import com.ai.studybuddy.model.quiz.QuizTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stato in memoria di una sessione live (non persistito).
+ *
+ * Le transizioni (domanda successiva, reveal, fine) prendono il write lock della sessione;
+ * le risposte prendono il read lock e aggiornano solo strutture concorrenti, così centinaia
+ * di partecipanti rispondono in parallelo, ma nessuna risposta viene accettata dopo il reveal
+ * né manca da istogramma e classifica del reveal.
+ */
+public class LiveSession {
+
+    public enum Status { LOBBY, QUESTION, REVEAL, FINISHED }
+
+    public static final String[] LETTERS = {"A", "B", "C", "D"};
+
+    /**
+     * Partecipante: il punteggio è modificato solo dal thread che registra la sua risposta
+     */
+    public static class Participant {
+        private final UUID userId;
+        private final String displayName;
+        private volatile int score;
+        private volatile int correctAnswers;
+
+        public Participant(UUID userId, String displayName) {
+            this.userId = userId;
+            this.displayName = displayName;
+        }
+
+        synchronized void award(int points) {
+            score += points;
+            correctAnswers++;
+        }
+
+        public UUID getUserId() { return userId; }
+        public String getDisplayName() { return displayName; }
+        public int getScore() { return score; }
+        public int getCorrectAnswers() { return correctAnswers; }
+    }
+
+    private final String code;
+    private final UUID hostId;
+    private final QuizTemplate template;
+    private final int secondsPerQuestion;
+    private final Instant createdAt = Instant.now();
+
+    /**
+     * Domanda corrente con le sue risposte: sostituita in blocco a ogni avanzamento,
+     * così una risposta letta con un round non finisce mai nell'istogramma del successivo
+     */
+    private record Round(int index, QuizTemplate.Item question, Instant startedAt, Instant deadline,
+                         Map<UUID, String> answers, AtomicIntegerArray histogram) {}
+
+    private volatile Status status = Status.LOBBY;
+    private volatile Round round;
+    private volatile Instant lastActivity = Instant.now();
+
+    private final Map<UUID, Participant> participants = new ConcurrentHashMap<>();
+    // Istogramma cambiato dall'ultimo push: il broadcast è coalescente, non uno per risposta
+    private final AtomicBoolean histogramDirty = new AtomicBoolean();
+    private final AtomicBoolean participantsDirty = new AtomicBoolean();
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LiveSession(String code, UUID hostId, QuizTemplate template, int secondsPerQuestion) {
+        this.code = code;
+        this.hostId = hostId;
+        this.template = template;
+        this.secondsPerQuestion = secondsPerQuestion;
+    }
+
+    // ==================== TRANSIZIONI ====================
+
+    /**
+     * Passa alla domanda successiva
+     *
+     * @return false se le domande sono finite
+     */
+    public boolean advance() {
+        lock.writeLock().lock();
+        try {
+            int next = getCurrentIndex() + 1;
+            if (status == Status.FINISHED || next >= template.questions().size()) {
+                return false;
+            }
+            Instant now = Instant.now();
+            round = new Round(next, template.questions().get(next), now, now.plusSeconds(secondsPerQuestion),
+                    new ConcurrentHashMap<>(), new AtomicIntegerArray(LETTERS.length));
+            histogramDirty.set(false);
+            status = Status.QUESTION;
+            touch();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false se non c'è una domanda aperta
+     */
+    public boolean reveal() {
+        lock.writeLock().lock();
+        try {
+            if (status != Status.QUESTION) {
+                return false;
+            }
+            status = Status.REVEAL;
+            touch();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finish() {
+        lock.writeLock().lock();
+        try {
+            status = Status.FINISHED;
+            touch();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== RISPOSTE ====================
+
+    /**
+     * Registra la risposta alla domanda corrente
+     *
+     * @return la domanda a cui si è risposto, null se la risposta non è accettata
+     *         (domanda chiusa, già risposto, lettera non valida, utente non iscritto)
+     */
+    public QuizTemplate.Item answer(UUID userId, UUID questionId, String letter, int maxPoints) {
+        Participant participant = participants.get(userId);
+        int slot = letterIndex(letter);
+        if (participant == null || slot < 0) {
+            return null;
+        }
+        // Controllo e registrazione sotto lo stesso lock del reveal: la domanda non si chiude a metà risposta
+        lock.readLock().lock();
+        try {
+            Round current = round;
+            if (current == null || status != Status.QUESTION
+                    || !current.question().id().equals(questionId) || Instant.now().isAfter(current.deadline())) {
+                return null;
+            }
+            if (current.answers().putIfAbsent(userId, LETTERS[slot]) != null) {
+                return null;
+            }
+            current.histogram().incrementAndGet(slot);
+            histogramDirty.set(true);
+
+            if (current.question().isCorrect(LETTERS[slot])) {
+                // Bonus velocità: metà punti garantiti, l'altra metà decresce fino alla scadenza
+                long total = Math.max(1, current.deadline().toEpochMilli() - current.startedAt().toEpochMilli());
+                long remaining = Math.max(0, current.deadline().toEpochMilli() - System.currentTimeMillis());
+                participant.award(maxPoints / 2 + (int) (maxPoints / 2 * remaining / total));
+            }
+            touch();
+            return current.question();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean consumeHistogramChange() {
+        return histogramDirty.getAndSet(false);
+    }
+
+    public int[] histogramSnapshot() {
+        Round current = round;
+        int[] counts = new int[LETTERS.length];
+        if (current != null) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = current.histogram().get(i);
+            }
+        }
+        return counts;
+    }
+
+    public int answeredCount() {
+        Round current = round;
+        return current != null ? current.answers().size() : 0;
+    }
+
+    public List<Participant> leaderboard(int limit) {
+        return participants.values().stream()
+                .sorted(Comparator.comparingInt(Participant::getScore).reversed()
+                        .thenComparing(Participant::getDisplayName))
+                .limit(limit)
+                .toList();
+    }
+
+    // ==================== PARTECIPANTI ====================
+
+    public Participant join(UUID userId, String displayName) {
+        touch();
+        return participants.computeIfAbsent(userId, id -> {
+            participantsDirty.set(true);
+            return new Participant(id, displayName);
+        });
+    }
+
+    public boolean consumeParticipantsChange() {
+        return participantsDirty.getAndSet(false);
+    }
+
+    public boolean isParticipant(UUID userId) {
+        return participants.containsKey(userId);
+    }
+
+    // ==================== UTILITY ====================
+
+    public QuizTemplate.Item currentQuestion() {
+        Round current = round;
+        return current != null ? current.question() : null;
+    }
+
+    public boolean isExpired() {
+        Round current = round;
+        return status == Status.QUESTION && current != null && Instant.now().isAfter(current.deadline());
+    }
+
+    public void touch() {
+        lastActivity = Instant.now();
+    }
+
+    private static int letterIndex(String letter) {
+        if (letter == null) return -1;
+        String normalized = letter.trim().toUpperCase();
+        for (int i = 0; i < LETTERS.length; i++) {
+            if (LETTERS[i].equals(normalized)) return i;
+        }
+        return -1;
+    }
+
+    // ==================== GETTERS ====================
+
+    public String getCode() { return code; }
+    public UUID getHostId() { return hostId; }
+    public QuizTemplate getTemplate() { return template; }
+    public int getSecondsPerQuestion() { return secondsPerQuestion; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Status getStatus() { return status; }
+    public int getCurrentIndex() { Round current = round; return current != null ? current.index() : -1; }
+    public Instant getQuestionDeadline() { Round current = round; return current != null ? current.deadline() : null; }
+    public Instant getLastActivity() { return lastActivity; }
+    public int getParticipantCount() { return participants.size(); }
+    public List<SseEmitter> getEmitters() { return emitters; }
+}
@@ -0,0 +1,143 @@
+package com.ai.studybuddy.model.maintenance;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity JobRun - storico delle esecuzioni dei job di manutenzione
+ *
+ * Una riga per esecuzione, scritta dal nodo che ha ottenuto il lock del job:
+ * durata, righe elaborate e chunk danno le metriche di ogni job nel tempo.
+ * Le esecuzioni schedulate portano l'inizio della finestra del cron (windowStart):
+ * un job già riuscito nella finestra non viene rieseguito da un altro nodo.
+ * Le righe vecchie le elimina il job di retention stesso.
+ */
+@Entity
+@Table(name = "job_runs", indexes = {
+        @Index(name = "idx_job_run_name_started", columnList = "job_name, started_at"),
+        @Index(name = "idx_job_run_name_window", columnList = "job_name, window_start")
+})
+public class JobRun {
+
+    public enum Status {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "job_name", nullable = false, length = 64)
+    private String jobName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    // Nodo che ha eseguito il job (pid@host)
+    @Column(name = "node", length = 100)
+    private String node;
+
+    // Ultima attivazione prevista dal cron; null per le esecuzioni manuali
+    @Column(name = "window_start")
+    private LocalDateTime windowStart;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "items_processed", nullable = false)
+    private int itemsProcessed;
+
+    @Column(name = "chunks", nullable = false)
+    private int chunks;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    protected JobRun() {}
+
+    public JobRun(String jobName, String node, LocalDateTime windowStart) {
+        this.jobName = jobName;
+        this.node = node;
+        this.windowStart = windowStart;
+        this.status = Status.RUNNING;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    // ==================== METODI BUSINESS ====================
+
+    public void succeed(int itemsProcessed, int chunks, long durationMs) {
+        finish(Status.SUCCEEDED, itemsProcessed, chunks, durationMs);
+    }
+
+    public void fail(int itemsProcessed, int chunks, long durationMs, String errorMessage) {
+        finish(Status.FAILED, itemsProcessed, chunks, durationMs);
+        this.errorMessage = errorMessage != null && errorMessage.length() > 500
+                ? errorMessage.substring(0, 500)
+                : errorMessage;
+    }
+
+    private void finish(Status status, int itemsProcessed, int chunks, long durationMs) {
+        this.status = status;
+        this.itemsProcessed = itemsProcessed;
+        this.chunks = chunks;
+        this.durationMs = durationMs;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public LocalDateTime getWindowStart() {
+        return windowStart;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public int getItemsProcessed() {
+        return itemsProcessed;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
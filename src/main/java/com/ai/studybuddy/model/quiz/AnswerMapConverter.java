@@ -0,0 +1,35 @@
+package com.ai.studybuddy.model.quiz;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Salva le risposte di un tentativo come JSON in una sola colonna:
+ * un tentativo resta una riga sola, senza una riga per risposta.
+ */
+@Converter
+public class AnswerMapConverter implements AttributeConverter<Map<UUID, String>, String> {
+
+    private static final Gson GSON = new Gson();
+    private static final Type MAP_TYPE = new TypeToken<LinkedHashMap<UUID, String>>() {}.getType();
+
+    @Override
+    public String convertToDatabaseColumn(Map<UUID, String> answers) {
+        return answers == null ? "{}" : GSON.toJson(answers);
+    }
+
+    @Override
+    public Map<UUID, String> convertToEntityAttribute(String json) {
+        if (json == null || json.isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        return GSON.fromJson(json, MAP_TYPE);
+    }
+}
@@ -0,0 +1,248 @@
+package com.ai.studybuddy.model.quiz;
+
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Entity BankQuestion - domanda della banca condivisa tra tutti gli utenti
+ *
+ * Ogni domanda generata dall'AI finisce qui, deduplicata per (topic normalizzato,
+ * difficoltà, lingua, hash del testo). I quiz copiano il contenuto nelle proprie
+ * Question (che tengono anche la risposta dell'utente) e ne riportano l'id per
+ * aggiornare le statistiche dell'item.
+ */
+@Entity
+@Table(name = "question_bank",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"topic_key", "difficulty_level", "language", "content_hash"}),
+        indexes = @Index(name = "idx_bank_lookup",
+                columnList = "topic_key, difficulty_level, language, times_served"))
+public class BankQuestion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    // ==================== CHIAVE ====================
+
+    @Column(name = "topic_key", nullable = false, length = 255)
+    private String topicKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "difficulty_level", nullable = false, length = 20)
+    private DifficultyLevel difficultyLevel;
+
+    @Column(name = "language", nullable = false, length = 5)
+    private String language;
+
+    // SHA-256 del testo normalizzato della domanda
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    // ==================== CONTENUTO ====================
+
+    @Column(name = "question_text", nullable = false, columnDefinition = "TEXT")
+    private String questionText;
+
+    @Column(name = "option_a", nullable = false, length = 500)
+    private String optionA;
+
+    @Column(name = "option_b", nullable = false, length = 500)
+    private String optionB;
+
+    @Column(name = "option_c", nullable = false, length = 500)
+    private String optionC;
+
+    @Column(name = "option_d", nullable = false, length = 500)
+    private String optionD;
+
+    @Column(name = "correct_answer", nullable = false, length = 1)
+    private String correctAnswer;
+
+    @Column(name = "explanation", columnDefinition = "TEXT")
+    private String explanation;
+
+    // ==================== STATISTICHE ====================
+
+    @Column(name = "times_served", nullable = false)
+    private long timesServed = 0;
+
+    @Column(name = "times_answered", nullable = false)
+    private long timesAnswered = 0;
+
+    @Column(name = "times_correct", nullable = false)
+    private long timesCorrect = 0;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_served_at")
+    private LocalDateTime lastServedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // ==================== BUSINESS LOGIC ====================
+
+    /**
+     * Percentuale di risposte corrette (0-1), null se nessuno ha ancora risposto
+     */
+    public Double getCorrectRate() {
+        return timesAnswered > 0 ? (double) timesCorrect / timesAnswered : null;
+    }
+
+    // ==================== EQUALS & HASHCODE ====================
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BankQuestion that = (BankQuestion) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getTopicKey() {
+        return topicKey;
+    }
+
+    public void setTopicKey(String topicKey) {
+        this.topicKey = topicKey;
+    }
+
+    public DifficultyLevel getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public void setDifficultyLevel(DifficultyLevel difficultyLevel) {
+        this.difficultyLevel = difficultyLevel;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    public void setQuestionText(String questionText) {
+        this.questionText = questionText;
+    }
+
+    public String getOptionA() {
+        return optionA;
+    }
+
+    public void setOptionA(String optionA) {
+        this.optionA = optionA;
+    }
+
+    public String getOptionB() {
+        return optionB;
+    }
+
+    public void setOptionB(String optionB) {
+        this.optionB = optionB;
+    }
+
+    public String getOptionC() {
+        return optionC;
+    }
+
+    public void setOptionC(String optionC) {
+        this.optionC = optionC;
+    }
+
+    public String getOptionD() {
+        return optionD;
+    }
+
+    public void setOptionD(String optionD) {
+        this.optionD = optionD;
+    }
+
+    public String getCorrectAnswer() {
+        return correctAnswer;
+    }
+
+    public void setCorrectAnswer(String correctAnswer) {
+        this.correctAnswer = correctAnswer;
+    }
+
+    public String getExplanation() {
+        return explanation;
+    }
+
+    public void setExplanation(String explanation) {
+        this.explanation = explanation;
+    }
+
+    public long getTimesServed() {
+        return timesServed;
+    }
+
+    public void setTimesServed(long timesServed) {
+        this.timesServed = timesServed;
+    }
+
+    public long getTimesAnswered() {
+        return timesAnswered;
+    }
+
+    public void setTimesAnswered(long timesAnswered) {
+        this.timesAnswered = timesAnswered;
+    }
+
+    public long getTimesCorrect() {
+        return timesCorrect;
+    }
+
+    public void setTimesCorrect(long timesCorrect) {
+        this.timesCorrect = timesCorrect;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastServedAt() {
+        return lastServedAt;
+    }
+
+    public void setLastServedAt(LocalDateTime lastServedAt) {
+        this.lastServedAt = lastServedAt;
+    }
+}
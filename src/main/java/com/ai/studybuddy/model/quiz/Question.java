@@ -10,7 +10,8 @@ import java.util.UUID;
  * Entity Question - rappresenta una singola domanda di un quiz
  */
 @Entity
-@Table(name = "questions")
+@Table(name = "questions",
+        indexes = @Index(name = "idx_question_bank", columnList = "bank_question_id"))
 public class Question {
 
     @Id
@@ -47,6 +48,11 @@ public class Question {
     @Column(name = "explanation", columnDefinition = "TEXT")
     private String explanation;  // Spiegazione opzionale della risposta
 
+    // Domanda della banca condivisa da cui è stata copiata (null per quiz precedenti alla banca)
+    @Column(name = "bank_question_id")
+    @JsonIgnore
+    private UUID bankQuestionId;
+
     // ==================== RISPOSTA UTENTE ====================
 
     @Column(name = "user_answer", length = 1)
@@ -226,4 +232,12 @@ public class Question {
     public void setQuestionOrder(Integer questionOrder) {
         this.questionOrder = questionOrder;
     }
-}
\ No newline at end of file
+
+    public UUID getBankQuestionId() {
+        return bankQuestionId;
+    }
+
+    public void setBankQuestionId(UUID bankQuestionId) {
+        this.bankQuestionId = bankQuestionId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ai.studybuddy.model.quiz;
 
+import com.ai.studybuddy.model.search.SearchIndexListener;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -15,10 +16,14 @@ import java.util.UUID;
  * Entity Quiz - rappresenta un quiz con domande a scelta multipla
  */
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "quizzes", indexes = {
         @Index(name = "idx_quiz_user", columnList = "user_id"),
         @Index(name = "idx_quiz_completed", columnList = "is_completed"),
-        @Index(name = "idx_quiz_subject", columnList = "subject")
+        @Index(name = "idx_quiz_subject", columnList = "subject"),
+        @Index(name = "idx_quiz_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_quiz_user_completed", columnList = "user_id, completed_at, id"),
+        @Index(name = "idx_quiz_share_code", columnList = "share_code", unique = true)
 })
 public class Quiz {
 
@@ -66,6 +71,10 @@ public class Quiz {
     @Column(name = "is_ai_generated")
     private Boolean isAiGenerated = false;
 
+    // Codice del link di condivisione, null finché il creatore non condivide il quiz
+    @Column(name = "share_code", length = 16)
+    private String shareCode;
+
     // ==================== RISULTATI ====================
 
     @Column(name = "score")
@@ -155,6 +164,21 @@ public class Quiz {
         }
     }
 
+    /**
+     * Completa il quiz con il punteggio di un tentativo (le domande restano invariate)
+     */
+    public void complete(int correctAnswers, int totalQuestions) {
+        this.completedAt = LocalDateTime.now();
+        this.isCompleted = true;
+        this.totalPoints = totalQuestions;
+        this.score = correctAnswers;
+        this.percentage = totalPoints > 0 ? (double) score / totalPoints * 100 : 0.0;
+
+        if (startedAt != null) {
+            this.timeSpentSeconds = (int) java.time.Duration.between(startedAt, completedAt).getSeconds();
+        }
+    }
+
     /**
      * Calcola il punteggio
      */
@@ -209,6 +233,18 @@ public class Quiz {
         this.timeSpentSeconds = null;
     }
 
+    /**
+     * Torna "da fare" senza toccare le domande: i tentativi precedenti restano in QuizAttempt
+     */
+    public void resetResult() {
+        this.isCompleted = false;
+        this.score = null;
+        this.percentage = null;
+        this.startedAt = null;
+        this.completedAt = null;
+        this.timeSpentSeconds = null;
+    }
+
     /**
      * Verifica se il quiz è stato superato (>=60%)
      */
@@ -331,6 +367,14 @@ public class Quiz {
         this.isAiGenerated = isAiGenerated;
     }
 
+    public String getShareCode() {
+        return shareCode;
+    }
+
+    public void setShareCode(String shareCode) {
+        this.shareCode = shareCode;
+    }
+
     public Integer getScore() {
         return score;
     }
@@ -0,0 +1,151 @@
+package com.ai.studybuddy.model.quiz;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Entity QuizAttempt - un tentativo di un utente su un quiz
+ *
+ * Record leggero separato dal contenuto del quiz: lo stesso quiz può essere svolto
+ * più volte dal creatore e da chiunque abbia il link di condivisione, mantenendo lo storico.
+ */
+@Entity
+@Table(name = "quiz_attempts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_attempt_rewarded", columnNames = {"quiz_id", "user_id", "rewarded"})
+}, indexes = {
+        @Index(name = "idx_attempt_quiz_user", columnList = "quiz_id, user_id, completed_at"),
+        @Index(name = "idx_attempt_user", columnList = "user_id, completed_at")
+})
+public class QuizAttempt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "quiz_id", nullable = false)
+    private UUID quizId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    // questionId -> "A", "B", "C" o "D"
+    @Convert(converter = AnswerMapConverter.class)
+    @Column(name = "answers", nullable = false, columnDefinition = "TEXT")
+    private Map<UUID, String> answers = new LinkedHashMap<>();
+
+    @Column(name = "score", nullable = false)
+    private int score;
+
+    @Column(name = "total_questions", nullable = false)
+    private int totalQuestions;
+
+    @Column(name = "percentage", nullable = false)
+    private double percentage;
+
+    @Column(name = "time_spent_seconds")
+    private Integer timeSpentSeconds;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    // TRUE sul tentativo di un quiz condiviso che ha assegnato gli XP, null sugli altri:
+    // il vincolo unique ammette più NULL, quindi al massimo un tentativo premiato per (quiz, utente)
+    @Column(name = "rewarded")
+    private Boolean rewarded;
+
+    public QuizAttempt() {}
+
+    public QuizAttempt(UUID quizId, UUID userId, Map<UUID, String> answers, int score, int totalQuestions,
+                       LocalDateTime startedAt) {
+        this.quizId = quizId;
+        this.userId = userId;
+        this.answers = new LinkedHashMap<>(answers);
+        this.score = score;
+        this.totalQuestions = totalQuestions;
+        this.percentage = totalQuestions > 0 ? (double) score / totalQuestions * 100 : 0.0;
+        this.startedAt = startedAt;
+        this.completedAt = LocalDateTime.now();
+        if (startedAt != null) {
+            this.timeSpentSeconds = (int) java.time.Duration.between(startedAt, completedAt).getSeconds();
+        }
+    }
+
+    // ==================== BUSINESS LOGIC ====================
+
+    public boolean isPassed() {
+        return percentage >= 60.0;
+    }
+
+    public void markRewarded() {
+        this.rewarded = Boolean.TRUE;
+    }
+
+    public boolean isRewarded() {
+        return Boolean.TRUE.equals(rewarded);
+    }
+
+    // ==================== EQUALS & HASHCODE ====================
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        QuizAttempt that = (QuizAttempt) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    // ==================== GETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getQuizId() {
+        return quizId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Map<UUID, String> getAnswers() {
+        return answers;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public double getPercentage() {
+        return percentage;
+    }
+
+    public Integer getTimeSpentSeconds() {
+        return timeSpentSeconds;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
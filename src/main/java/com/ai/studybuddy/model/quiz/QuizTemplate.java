@@ -0,0 +1,75 @@
+package com.ai.studybuddy.model.quiz;
+
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Snapshot immutabile del contenuto di un quiz (domande, opzioni, risposte corrette).
+ *
+ * Le domande non cambiano dopo la generazione, quindi il template può essere messo in cache
+ * e servito a qualsiasi numero di utenti in parallelo: le risposte di ognuno stanno in QuizAttempt.
+ */
+public record QuizTemplate(UUID id,
+                           UUID ownerId,
+                           String title,
+                           String topic,
+                           String subject,
+                           String description,
+                           DifficultyLevel difficultyLevel,
+                           List<Item> questions) {
+
+    public record Item(UUID id,
+                       int order,
+                       String questionText,
+                       String optionA,
+                       String optionB,
+                       String optionC,
+                       String optionD,
+                       String correctAnswer,
+                       String explanation,
+                       UUID bankQuestionId) {
+
+        public boolean isCorrect(String answer) {
+            return answer != null && correctAnswer != null
+                    && answer.trim().equalsIgnoreCase(correctAnswer.trim());
+        }
+    }
+
+    /**
+     * Va costruito da un Quiz caricato con le domande (fetch join)
+     */
+    public static QuizTemplate from(Quiz quiz) {
+        List<Item> items = quiz.getQuestions().stream()
+                .sorted(Comparator.comparing(Question::getQuestionOrder,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(q -> new Item(q.getId(),
+                        q.getQuestionOrder() != null ? q.getQuestionOrder() : 0,
+                        q.getQuestionText(),
+                        q.getOptionA(), q.getOptionB(), q.getOptionC(), q.getOptionD(),
+                        q.getCorrectAnswer(),
+                        q.getExplanation(),
+                        q.getBankQuestionId()))
+                .toList();
+        return new QuizTemplate(quiz.getId(), quiz.getUser().getId(), quiz.getTitle(), quiz.getTopic(),
+                quiz.getSubject(), quiz.getDescription(), quiz.getDifficultyLevel(), items);
+    }
+
+    /**
+     * Numero di risposte corrette
+     *
+     * @param answers questionId -> lettera scelta
+     */
+    public int score(Map<UUID, String> answers) {
+        int correct = 0;
+        for (Item item : questions) {
+            if (item.isCorrect(answers.get(item.id()))) {
+                correct++;
+            }
+        }
+        return correct;
+    }
+}
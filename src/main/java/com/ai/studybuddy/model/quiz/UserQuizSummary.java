@@ -0,0 +1,112 @@
+package com.ai.studybuddy.model.quiz;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity UserQuizSummary - contatori quiz aggregati per utente
+ *
+ * Mantenuta in modo incrementale dal percorso di creazione/completamento dei quiz
+ * (vedi QuizAnalyticsService), così le statistiche si leggono con un'unica lookup
+ * per chiave primaria invece di scansionare lo storico dei quiz.
+ */
+@Entity
+@Table(name = "user_quiz_summaries")
+public class UserQuizSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "total_quizzes", nullable = false)
+    private long totalQuizzes;
+
+    @Column(name = "completed_quizzes", nullable = false)
+    private long completedQuizzes;
+
+    @Column(name = "passed_quizzes", nullable = false)
+    private long passedQuizzes;
+
+    @Column(name = "failed_quizzes", nullable = false)
+    private long failedQuizzes;
+
+    // Somma delle percentuali dei quiz completati: media = scoreSum / completedQuizzes
+    @Column(name = "score_sum", nullable = false)
+    private double scoreSum;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public UserQuizSummary() {}
+
+    public UserQuizSummary(UUID userId) {
+        this.userId = userId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // ==================== BUSINESS LOGIC ====================
+
+    public double getAverageScore() {
+        return completedQuizzes > 0 ? scoreSum / completedQuizzes : 0.0;
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public long getTotalQuizzes() {
+        return totalQuizzes;
+    }
+
+    public void setTotalQuizzes(long totalQuizzes) {
+        this.totalQuizzes = totalQuizzes;
+    }
+
+    public long getCompletedQuizzes() {
+        return completedQuizzes;
+    }
+
+    public void setCompletedQuizzes(long completedQuizzes) {
+        this.completedQuizzes = completedQuizzes;
+    }
+
+    public long getPassedQuizzes() {
+        return passedQuizzes;
+    }
+
+    public void setPassedQuizzes(long passedQuizzes) {
+        this.passedQuizzes = passedQuizzes;
+    }
+
+    public long getFailedQuizzes() {
+        return failedQuizzes;
+    }
+
+    public void setFailedQuizzes(long failedQuizzes) {
+        this.failedQuizzes = failedQuizzes;
+    }
+
+    public double getScoreSum() {
+        return scoreSum;
+    }
+
+    public void setScoreSum(double scoreSum) {
+        this.scoreSum = scoreSum;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,84 @@
+package com.ai.studybuddy.model.quiz;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity UserQuizTopicScore - miglior punteggio di un utente per topic
+ *
+ * Il record rappresenta il massimo storico: eliminare o ripetere un quiz non lo abbassa.
+ */
+@Entity
+@Table(name = "user_quiz_topic_scores",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "topic"}))
+public class UserQuizTopicScore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "topic", nullable = false, length = 200)
+    private String topic;
+
+    @Column(name = "best_percentage", nullable = false)
+    private double bestPercentage;
+
+    @Column(name = "achieved_at")
+    private LocalDateTime achievedAt;
+
+    public UserQuizTopicScore() {}
+
+    public UserQuizTopicScore(UUID userId, String topic, double bestPercentage) {
+        this.userId = userId;
+        this.topic = topic;
+        this.bestPercentage = bestPercentage;
+        this.achievedAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public double getBestPercentage() {
+        return bestPercentage;
+    }
+
+    public void setBestPercentage(double bestPercentage) {
+        this.bestPercentage = bestPercentage;
+    }
+
+    public LocalDateTime getAchievedAt() {
+        return achievedAt;
+    }
+
+    public void setAchievedAt(LocalDateTime achievedAt) {
+        this.achievedAt = achievedAt;
+    }
+}
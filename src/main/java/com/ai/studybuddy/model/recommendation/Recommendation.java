@@ -9,7 +9,9 @@ import java.util.UUID;
  * Entità Recommendation - raccomandazioni personalizzate per lo studio
  */
 @Entity
-@Table(name = "recommendations")
+@Table(name = "recommendations", indexes = {
+        @Index(name = "idx_recommendation_user_created", columnList = "user_id, created_at, id")
+})
 public class Recommendation {
 
     @Id
@@ -0,0 +1,153 @@
+package com.ai.studybuddy.model.search;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity SearchDocument - riga dell'indice di ricerca (deck, flashcard o quiz).
+ *
+ * Copia denormalizzata del testo ricercabile di un'entità, mantenuta dal SearchService.
+ * Su PostgreSQL la tabella ha anche la colonna search_vector (tsvector con indice GIN)
+ * e un indice trigram sul titolo, creati all'avvio: non sono mappati qui.
+ */
+@Entity
+@Table(name = "search_documents",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"doc_type", "ref_id"}),
+        indexes = {
+                @Index(name = "idx_search_owner", columnList = "owner_id"),
+                @Index(name = "idx_search_deck", columnList = "deck_id")
+        })
+public class SearchDocument {
+
+    public enum DocType {
+        DECK,
+        FLASHCARD,
+        QUIZ
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "doc_type", nullable = false, length = 20)
+    private DocType docType;
+
+    // ID dell'entità indicizzata
+    @Column(name = "ref_id", nullable = false)
+    private UUID refId;
+
+    // Deck di appartenenza (solo flashcard), per filtrare e per la navigazione dal frontend
+    @Column(name = "deck_id")
+    private UUID deckId;
+
+    @Column(name = "title", nullable = false, length = 500)
+    private String title;
+
+    @Column(name = "body", columnDefinition = "TEXT")
+    private String body;
+
+    // Lingua usata per lo stemming (lingua preferita del proprietario)
+    @Column(name = "language", length = 5)
+    private String language;
+
+    // Evita riscritture quando l'entità cambia solo in campi non ricercabili
+    @Column(name = "content_hash")
+    private Integer contentHash;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // ==================== GETTERS & SETTERS ====================
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(UUID ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public DocType getDocType() {
+        return docType;
+    }
+
+    public void setDocType(DocType docType) {
+        this.docType = docType;
+    }
+
+    public UUID getRefId() {
+        return refId;
+    }
+
+    public void setRefId(UUID refId) {
+        this.refId = refId;
+    }
+
+    public UUID getDeckId() {
+        return deckId;
+    }
+
+    public void setDeckId(UUID deckId) {
+        this.deckId = deckId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public Integer getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(Integer contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.ai.studybuddy.model.search;
+
+import java.util.UUID;
+
+/**
+ * Evento applicativo: un'entità ricercabile è stata salvata o eliminata.
+ * Pubblicato da {@link SearchIndexListener}, consumato dal SearchService dopo il commit.
+ */
+public record SearchIndexEvent(SearchDocument.DocType type, UUID refId, boolean removed) {}
@@ -0,0 +1,47 @@
+package com.ai.studybuddy.model.search;
+
+import com.ai.studybuddy.model.flashcard.Flashcard;
+import com.ai.studybuddy.model.flashcard.FlashcardDeck;
+import com.ai.studybuddy.model.quiz.Quiz;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener JPA su deck, flashcard e quiz: traduce le scritture in SearchIndexEvent.
+ *
+ * Non tocca il database (siamo dentro il flush): l'indicizzazione vera avviene
+ * dopo il commit, così una transazione annullata non lascia documenti orfani.
+ */
+@Component
+public class SearchIndexListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public SearchIndexListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof FlashcardDeck deck) {
+            publisher.publishEvent(new SearchIndexEvent(SearchDocument.DocType.DECK, deck.getId(), removed));
+        } else if (entity instanceof Flashcard card) {
+            publisher.publishEvent(new SearchIndexEvent(SearchDocument.DocType.FLASHCARD, card.getId(), removed));
+        } else if (entity instanceof Quiz quiz) {
+            publisher.publishEvent(new SearchIndexEvent(SearchDocument.DocType.QUIZ, quiz.getId(), removed));
+        }
+    }
+}
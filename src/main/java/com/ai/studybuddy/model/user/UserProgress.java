@@ -86,6 +86,11 @@ public class UserProgress {
                 this.lastActivityAt = LocalDateTime.now();
         }
 
+        /** false finché il topic non ha un punteggio: getAverageScore restituisce 0 anche in quel caso */
+        public boolean hasAverageScore() {
+                return averageScore != null;
+        }
+
         private int safe(Integer value) {
                 return value == null ? 0 : value;
         }
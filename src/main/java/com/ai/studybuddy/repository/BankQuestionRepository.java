@@ -0,0 +1,62 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.quiz.BankQuestion;
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BankQuestionRepository extends JpaRepository<BankQuestion, UUID> {
+
+    /**
+     * Domande "buone" per un quiz: ancora senza campione sufficiente oppure con un tasso
+     * di risposte corrette nel range utile (né banali né fuori tema), escludendo quelle
+     * che l'utente ha già visto. Le meno servite per prime, così l'uso si distribuisce.
+     */
+    @Query("SELECT b FROM BankQuestion b " +
+            "WHERE b.topicKey = :topicKey AND b.difficultyLevel = :difficulty AND b.language = :language " +
+            "AND (b.timesAnswered < :minSample " +
+            "     OR (b.timesCorrect >= :minRate * b.timesAnswered AND b.timesCorrect <= :maxRate * b.timesAnswered)) " +
+            "AND NOT EXISTS (SELECT 1 FROM Question q WHERE q.bankQuestionId = b.id AND q.quiz.user.id = :userId) " +
+            "ORDER BY b.timesServed ASC, b.createdAt ASC")
+    List<BankQuestion> findCandidates(@Param("topicKey") String topicKey,
+                                      @Param("difficulty") DifficultyLevel difficulty,
+                                      @Param("language") String language,
+                                      @Param("userId") UUID userId,
+                                      @Param("minSample") long minSample,
+                                      @Param("minRate") double minRate,
+                                      @Param("maxRate") double maxRate,
+                                      Pageable pageable);
+
+    // Domande già presenti tra quelle appena generate (deduplica)
+    @Query("SELECT b FROM BankQuestion b " +
+            "WHERE b.topicKey = :topicKey AND b.difficultyLevel = :difficulty AND b.language = :language " +
+            "AND b.contentHash IN :hashes")
+    List<BankQuestion> findByKeyAndHashes(@Param("topicKey") String topicKey,
+                                          @Param("difficulty") DifficultyLevel difficulty,
+                                          @Param("language") String language,
+                                          @Param("hashes") Collection<String> hashes);
+
+    @Modifying
+    @Query("UPDATE BankQuestion b SET b.timesServed = b.timesServed + 1, b.lastServedAt = :now " +
+            "WHERE b.id IN :ids")
+    int incrementServed(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Incremento atomico delle statistiche: nessun lock applicativo anche con molti studenti
+     * sulla stessa domanda. Chiamato una volta per le risposte corrette e una per le errate.
+     */
+    @Modifying
+    @Query("UPDATE BankQuestion b SET b.timesAnswered = b.timesAnswered + 1, " +
+            "b.timesCorrect = b.timesCorrect + :correct WHERE b.id IN :ids")
+    int recordAnswers(@Param("ids") Collection<UUID> ids, @Param("correct") long correct);
+}
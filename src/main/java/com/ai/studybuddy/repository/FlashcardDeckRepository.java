@@ -1,11 +1,14 @@
 package com.ai.studybuddy.repository;
 
 import com.ai.studybuddy.model.flashcard.FlashcardDeck;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,6 +21,49 @@ public interface FlashcardDeckRepository extends JpaRepository<FlashcardDeck, UU
      */
     List<FlashcardDeck> findByOwnerIdAndIsActiveTrueOrderByUpdatedAtDesc(UUID ownerId);
 
+    /**
+     * Prima pagina dei deck di un utente (creati più di recente prima).
+     * Si ordina per (createdAt, id), immutabili: un deck modificato non salta tra le pagine
+     */
+    @Query("SELECT d FROM FlashcardDeck d WHERE d.owner.id = :ownerId AND d.isActive = true " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<FlashcardDeck> findPageByOwnerId(@Param("ownerId") UUID ownerId, Pageable pageable);
+
+    /**
+     * Pagine successive: seek dopo (createdAt, id) dell'ultimo deck restituito
+     */
+    @Query("SELECT d FROM FlashcardDeck d WHERE d.owner.id = :ownerId AND d.isActive = true " +
+           "AND (d.createdAt < :createdAt OR (d.createdAt = :createdAt AND d.id < :id)) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<FlashcardDeck> findPageByOwnerIdAfter(
+        @Param("ownerId") UUID ownerId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
+    /**
+     * Solo id e nome dei deck attivi di un utente, per i selettori (es. pagina spiegazione).
+     * Stesso ordinamento (createdAt, id) della lista deck, così il cursore funziona allo stesso modo
+     */
+    @Query("SELECT d.id AS id, d.name AS name, d.createdAt AS createdAt FROM FlashcardDeck d " +
+           "WHERE d.owner.id = :ownerId AND d.isActive = true ORDER BY d.createdAt DESC, d.id DESC")
+    List<DeckName> findNamesByOwnerId(@Param("ownerId") UUID ownerId, Pageable pageable);
+
+    /**
+     * Pagine successive dei nomi: seek dopo (createdAt, id) dell'ultimo deck restituito
+     */
+    @Query("SELECT d.id AS id, d.name AS name, d.createdAt AS createdAt FROM FlashcardDeck d " +
+           "WHERE d.owner.id = :ownerId AND d.isActive = true " +
+           "AND (d.createdAt < :createdAt OR (d.createdAt = :createdAt AND d.id < :id)) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<DeckName> findNamesByOwnerIdAfter(
+        @Param("ownerId") UUID ownerId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
     /**
      * Trova deck per materia/argomento
      */
@@ -31,6 +77,26 @@ public interface FlashcardDeckRepository extends JpaRepository<FlashcardDeck, UU
      */
     List<FlashcardDeck> findByIsPublicTrueAndIsActiveTrueOrderByTimesStudiedDesc();
 
+    /**
+     * Prima pagina dei deck pubblici (pubblicati più di recente prima).
+     * timesStudied cambia a ogni sessione di studio: come chiave di seek farebbe saltare o ripetere deck
+     */
+    @Query("SELECT d FROM FlashcardDeck d WHERE d.isPublic = true AND d.isActive = true " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<FlashcardDeck> findPublicPage(Pageable pageable);
+
+    /**
+     * Pagine successive: seek dopo (createdAt, id) dell'ultimo deck restituito
+     */
+    @Query("SELECT d FROM FlashcardDeck d WHERE d.isPublic = true AND d.isActive = true " +
+           "AND (d.createdAt < :createdAt OR (d.createdAt = :createdAt AND d.id < :id)) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<FlashcardDeck> findPublicPageAfter(
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
     /**
      * Cerca deck per nome
      */
@@ -83,8 +149,38 @@ public interface FlashcardDeckRepository extends JpaRepository<FlashcardDeck, UU
            "WHERE d.owner.id = :ownerId AND d.isActive = true")
     long countTotalCardsByOwner(@Param("ownerId") UUID ownerId);
 
+    /**
+     * Totali dei deck attivi di un utente in una sola query, senza caricare le entity
+     */
+    @Query("SELECT COUNT(d) AS decks, COALESCE(SUM(d.totalCards), 0) AS cards, " +
+           "COALESCE(SUM(d.cardsMastered), 0) AS mastered, COALESCE(SUM(d.timesStudied), 0) AS studySessions " +
+           "FROM FlashcardDeck d WHERE d.owner.id = :ownerId AND d.isActive = true")
+    DeckTotals sumTotalsByOwner(@Param("ownerId") UUID ownerId);
+
     /**
      * Trova deck per ID e verifica proprietà
      */
     Optional<FlashcardDeck> findByIdAndOwnerIdAndIsActiveTrue(UUID id, UUID ownerId);
+
+    /**
+     * Aggiorna il numero di carte con un incremento atomico (delta negativo per le eliminazioni).
+     * Il conteggio non fa parte del documento di ricerca del deck: nessun evento di indicizzazione
+     */
+    @Modifying
+    @Query("UPDATE FlashcardDeck d SET d.totalCards = COALESCE(d.totalCards, 0) + :delta, d.updatedAt = :now " +
+           "WHERE d.id = :id")
+    int addToTotalCards(@Param("id") UUID id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    interface DeckName {
+        UUID getId();
+        String getName();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface DeckTotals {
+        long getDecks();
+        long getCards();
+        long getMastered();
+        long getStudySessions();
+    }
 }
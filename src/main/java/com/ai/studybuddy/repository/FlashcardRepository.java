@@ -2,7 +2,9 @@ package com.ai.studybuddy.repository;
 
 import com.ai.studybuddy.model.flashcard.Flashcard;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,6 +21,26 @@ public interface FlashcardRepository extends JpaRepository<Flashcard, UUID> {
      */
     List<Flashcard> findByDeckIdAndIsActiveTrue(UUID deckId);
 
+    /**
+     * Prima pagina delle flashcard di un deck, in ordine di creazione
+     */
+    @Query("SELECT f FROM Flashcard f WHERE f.deck.id = :deckId AND f.isActive = true " +
+           "ORDER BY f.createdAt ASC, f.id ASC")
+    List<Flashcard> findPageByDeckId(@Param("deckId") UUID deckId, Pageable pageable);
+
+    /**
+     * Pagine successive: seek dopo (createdAt, id) dell'ultima card restituita
+     */
+    @Query("SELECT f FROM Flashcard f WHERE f.deck.id = :deckId AND f.isActive = true " +
+           "AND (f.createdAt > :createdAt OR (f.createdAt = :createdAt AND f.id > :id)) " +
+           "ORDER BY f.createdAt ASC, f.id ASC")
+    List<Flashcard> findPageByDeckIdAfter(
+        @Param("deckId") UUID deckId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id,
+        Pageable pageable
+    );
+
     /**
      * Trova flashcard per livello di difficoltà
      */
@@ -60,18 +82,6 @@ public interface FlashcardRepository extends JpaRepository<Flashcard, UUID> {
            "ORDER BY (CAST(f.timesCorrect AS float) / f.timesReviewed) ASC")
     List<Flashcard> findMostDifficult(@Param("deckId") UUID deckId);
 
-    /**
-     * Cerca flashcard per contenuto (full-text search)
-     */
-    @Query("SELECT f FROM Flashcard f WHERE f.deck.id = :deckId " +
-           "AND (LOWER(f.frontContent) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
-           "OR LOWER(f.backContent) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
-           "AND f.isActive = true")
-    List<Flashcard> searchByContent(
-        @Param("deckId") UUID deckId, 
-        @Param("searchTerm") String searchTerm
-    );
-
     /**
      * Trova flashcard per tag
      */
@@ -97,6 +107,18 @@ public interface FlashcardRepository extends JpaRepository<Flashcard, UUID> {
            "AND f.isActive = true")
     long countMasteredByDeckId(@Param("deckId") UUID deckId);
 
+    /**
+     * Totale, masterizzate e da ripassare di un deck in una sola query, senza caricare le carte.
+     * Stessi criteri di Flashcard.getSuccessRate (>= 80%) e di findNeedingReview, più le carte mai revisionate
+     */
+    @Query("SELECT COUNT(f) AS total, " +
+           "COALESCE(SUM(CASE WHEN f.timesReviewed > 0 " +
+           "AND (CAST(f.timesCorrect AS float) / f.timesReviewed) >= 0.8 THEN 1 ELSE 0 END), 0) AS mastered, " +
+           "COALESCE(SUM(CASE WHEN f.timesReviewed IS NULL OR f.timesReviewed = 0 " +
+           "OR f.lastReviewedAt IS NULL OR f.lastReviewedAt < :cutoffDate THEN 1 ELSE 0 END), 0) AS needReview " +
+           "FROM Flashcard f WHERE f.deck.id = :deckId AND f.isActive = true")
+    DeckCardStats countStatsByDeckId(@Param("deckId") UUID deckId, @Param("cutoffDate") LocalDateTime cutoffDate);
+
     /**
      * Trova flashcard random per sessione di studio
      */
@@ -107,4 +129,28 @@ public interface FlashcardRepository extends JpaRepository<Flashcard, UUID> {
         @Param("deckId") UUID deckId, 
         @Param("limit") int limit
     );
+
+    /**
+     * Registra una revisione con un incremento atomico: revisioni concorrenti della stessa carta non si perdono.
+     * Tocca solo contatori non indicizzati: nessun aggiornamento dell'indice di ricerca
+     */
+    @Modifying
+    @Query("UPDATE Flashcard f SET f.timesReviewed = COALESCE(f.timesReviewed, 0) + 1, " +
+           "f.timesCorrect = COALESCE(f.timesCorrect, 0) + :correct, f.lastReviewedAt = :now " +
+           "WHERE f.id = :id")
+    int recordReview(@Param("id") UUID id, @Param("correct") int correct, @Param("now") LocalDateTime now);
+
+    /**
+     * Disattiva la carta solo se ancora attiva: 0 righe = già eliminata, il conteggio del deck non cambia.
+     * Non passa dal SearchIndexListener: il chiamante pubblica la rimozione dall'indice di ricerca
+     */
+    @Modifying
+    @Query("UPDATE Flashcard f SET f.isActive = false, f.updatedAt = :now WHERE f.id = :id AND f.isActive = true")
+    int deactivate(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    interface DeckCardStats {
+        long getTotal();
+        long getMastered();
+        long getNeedReview();
+    }
 }
@@ -0,0 +1,39 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.maintenance.JobRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, UUID> {
+
+    // Metriche per job: esecuzioni, fallimenti, durata media e massima
+    @Query("SELECT r.jobName AS jobName, COUNT(r) AS runs, " +
+            "SUM(CASE WHEN r.status = com.ai.studybuddy.model.maintenance.JobRun.Status.FAILED THEN 1 ELSE 0 END) AS failures, " +
+            "AVG(r.durationMs) AS avgDurationMs, MAX(r.durationMs) AS maxDurationMs, MAX(r.startedAt) AS lastStartedAt " +
+            "FROM JobRun r WHERE r.startedAt >= :since GROUP BY r.jobName ORDER BY r.jobName")
+    List<JobStats> findStatsSince(@Param("since") LocalDateTime since);
+
+    // Esecuzione già riuscita nella finestra del cron: gli altri nodi saltano il giro
+    boolean existsByJobNameAndWindowStartAndStatus(String jobName, LocalDateTime windowStart, JobRun.Status status);
+
+    // Retention: id delle esecuzioni vecchie, a pagine in ordine di id (keyset)
+    @Query("SELECT r.id FROM JobRun r WHERE r.startedAt < :cutoff AND r.id > :afterId ORDER BY r.id")
+    List<UUID> findIdsStartedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") UUID afterId, Pageable pageable);
+
+    interface JobStats {
+        String getJobName();
+        Long getRuns();
+        Long getFailures();
+        Double getAvgDurationMs();
+        Long getMaxDurationMs();
+        LocalDateTime getLastStartedAt();
+    }
+}
@@ -0,0 +1,14 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.live.LiveAnswer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LiveAnswerRepository extends JpaRepository<LiveAnswer, UUID> {
+
+    List<LiveAnswer> findBySessionCodeOrderByAnsweredAtAsc(String sessionCode);
+}
@@ -0,0 +1,30 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.quiz.QuizAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, UUID> {
+
+    // Storico dei tentativi di un utente su un quiz, dal più recente
+    List<QuizAttempt> findByQuizIdAndUserIdOrderByCompletedAtDesc(UUID quizId, UUID userId);
+
+    Optional<QuizAttempt> findFirstByQuizIdAndUserIdOrderByCompletedAtDesc(UUID quizId, UUID userId);
+
+    long countByQuizId(UUID quizId);
+
+    // Un quiz condiviso dà XP solo al primo completamento
+    boolean existsByQuizIdAndUserIdAndRewardedTrue(UUID quizId, UUID userId);
+
+    @Modifying
+    @Query("DELETE FROM QuizAttempt a WHERE a.quizId = :quizId")
+    int deleteByQuizId(@Param("quizId") UUID quizId);
+}
@@ -1,8 +1,12 @@
 package com.ai.studybuddy.repository;
 
+import com.ai.studybuddy.dto.quiz.QuizSummaryResponse;
 import com.ai.studybuddy.model.quiz.Quiz;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -36,6 +40,57 @@ public interface QuizRepository extends JpaRepository<Quiz, UUID> {
     // Trova quiz con ID e utente
     Optional<Quiz> findByIdAndUserId(UUID quizId, UUID userId);
 
+    // Quiz dell'utente con lock di riga (invio delle risposte)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT q FROM Quiz q WHERE q.id = :quizId AND q.user.id = :userId")
+    Optional<Quiz> findByIdAndUserIdForUpdate(@Param("quizId") UUID quizId, @Param("userId") UUID userId);
+
+    // Quiz con domande ordinate in un'unica query (dettaglio)
+    @Query("SELECT q FROM Quiz q LEFT JOIN FETCH q.questions qs " +
+            "WHERE q.id = :quizId AND q.user.id = :userId ORDER BY qs.questionOrder ASC")
+    Optional<Quiz> findWithQuestionsByIdAndUserId(@Param("quizId") UUID quizId, @Param("userId") UUID userId);
+
+    // Quiz con domande senza filtro utente: costruzione del template condiviso
+    @Query("SELECT q FROM Quiz q LEFT JOIN FETCH q.questions qs " +
+            "WHERE q.id = :quizId ORDER BY qs.questionOrder ASC")
+    Optional<Quiz> findWithQuestionsById(@Param("quizId") UUID quizId);
+
+    @Query("SELECT q.id FROM Quiz q WHERE q.shareCode = :shareCode")
+    Optional<UUID> findIdByShareCode(@Param("shareCode") String shareCode);
+
+    // ==================== PROIEZIONI ELENCO (KEYSET) ====================
+
+    String SUMMARY_SELECT = "SELECT new com.ai.studybuddy.dto.quiz.QuizSummaryResponse(" +
+            "q.id, q.title, q.topic, q.subject, q.difficultyLevel, q.numberOfQuestions, " +
+            "q.isCompleted, q.score, q.percentage, q.createdAt, q.completedAt) FROM Quiz q ";
+
+    // Prima pagina dei quiz dell'utente (nessuna domanda caricata)
+    @Query(SUMMARY_SELECT + "WHERE q.user.id = :userId ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuizSummaryResponse> findSummariesByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+    // Pagine successive: seek dopo (createdAt, id) dell'ultima riga
+    @Query(SUMMARY_SELECT + "WHERE q.user.id = :userId " +
+            "AND (q.createdAt < :createdAt OR (q.createdAt = :createdAt AND q.id < :id)) " +
+            "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuizSummaryResponse> findSummariesByUserIdAfter(@Param("userId") UUID userId,
+                                                         @Param("createdAt") LocalDateTime createdAt,
+                                                         @Param("id") UUID id,
+                                                         Pageable pageable);
+
+    // Prima pagina dei quiz completati
+    @Query(SUMMARY_SELECT + "WHERE q.user.id = :userId AND q.isCompleted = true " +
+            "ORDER BY q.completedAt DESC, q.id DESC")
+    List<QuizSummaryResponse> findCompletedSummariesByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+    // Pagine successive dei completati: seek dopo (completedAt, id)
+    @Query(SUMMARY_SELECT + "WHERE q.user.id = :userId AND q.isCompleted = true " +
+            "AND (q.completedAt < :completedAt OR (q.completedAt = :completedAt AND q.id < :id)) " +
+            "ORDER BY q.completedAt DESC, q.id DESC")
+    List<QuizSummaryResponse> findCompletedSummariesByUserIdAfter(@Param("userId") UUID userId,
+                                                                  @Param("completedAt") LocalDateTime completedAt,
+                                                                  @Param("id") UUID id,
+                                                                  Pageable pageable);
+
     // Conta quiz completati per utente
     long countByUserIdAndIsCompletedTrue(UUID userId);
 
@@ -58,6 +113,43 @@ public interface QuizRepository extends JpaRepository<Quiz, UUID> {
     @Query("SELECT q FROM Quiz q WHERE q.user.id = :userId AND q.isCompleted = true AND q.percentage < 60.0 ORDER BY q.completedAt DESC")
     List<Quiz> findFailedQuizzes(@Param("userId") UUID userId);
 
+    // ==================== AGGREGATI PER RICOSTRUZIONE SUMMARY ====================
+
+    interface QuizTotals {
+        long getTotal();
+        Long getCompleted();
+        Long getPassed();
+        Long getFailed();
+        Double getScoreSum();
+    }
+
+    interface TopicBest {
+        String getTopic();
+        Double getBest();
+    }
+
+    // Contatori di UserQuizSummary calcolati dallo storico (usato solo per backfill/ricostruzione)
+    @Query("SELECT COUNT(q) AS total, " +
+            "SUM(CASE WHEN q.isCompleted = true THEN 1 ELSE 0 END) AS completed, " +
+            "SUM(CASE WHEN q.isCompleted = true AND q.percentage >= 60.0 THEN 1 ELSE 0 END) AS passed, " +
+            "SUM(CASE WHEN q.isCompleted = true AND (q.percentage IS NULL OR q.percentage < 60.0) THEN 1 ELSE 0 END) AS failed, " +
+            "SUM(CASE WHEN q.isCompleted = true THEN COALESCE(q.percentage, 0.0) ELSE 0.0 END) AS scoreSum " +
+            "FROM Quiz q WHERE q.user.id = :userId")
+    QuizTotals aggregateTotalsByUserId(@Param("userId") UUID userId);
+
+    @Query("SELECT q.topic AS topic, MAX(q.percentage) AS best FROM Quiz q " +
+            "WHERE q.user.id = :userId AND q.isCompleted = true AND q.percentage IS NOT NULL GROUP BY q.topic")
+    List<TopicBest> findBestScoresByUserId(@Param("userId") UUID userId);
+
+    // Utenti con quiz ma senza riga di summary (backfill), in ordine di id dopo afterId
+    @Query("SELECT DISTINCT q.user.id FROM Quiz q WHERE q.user.id > :afterId AND NOT EXISTS " +
+            "(SELECT 1 FROM UserQuizSummary s WHERE s.userId = q.user.id) ORDER BY q.user.id")
+    List<UUID> findUserIdsWithoutSummaryAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    // Tutti gli utenti con almeno un quiz, in ordine di id dopo afterId (ricostruzione completa)
+    @Query("SELECT DISTINCT q.user.id FROM Quiz q WHERE q.user.id > :afterId ORDER BY q.user.id")
+    List<UUID> findUserIdsWithQuizzesAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
     // Miglior punteggio per topic
     @Query("SELECT MAX(q.percentage) FROM Quiz q WHERE q.user.id = :userId AND q.topic = :topic AND q.isCompleted = true")
     Double getBestScoreByTopic(@Param("userId") UUID userId, @Param("topic") String topic);
@@ -2,8 +2,8 @@ package com.ai.studybuddy.repository;
 
 import com.ai.studybuddy.model.recommendation.Recommendation;
 import com.ai.studybuddy.model.recommendation.Recommendation.RecommendationType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -21,6 +21,25 @@ public interface RecommendationRepository extends JpaRepository<Recommendation,
             "ORDER BY r.priority DESC, r.createdAt DESC")
     List<Recommendation> findActiveByUserId(UUID userId, LocalDateTime now);
 
+    // Rango numerico della priorità: l'ordinamento sulla stringa dell'enum non è quello di business
+    String PRIORITY_RANK = "(CASE r.priority WHEN 'URGENT' THEN 3 WHEN 'HIGH' THEN 2 WHEN 'MEDIUM' THEN 1 ELSE 0 END)";
+
+    String ACTIVE_FILTER = "r.user.id = :userId AND r.isDismissed = false AND r.isCompleted = false " +
+            "AND (r.expiresAt IS NULL OR r.expiresAt > :now) ";
+
+    // Prima pagina delle raccomandazioni attive
+    @Query("SELECT r FROM Recommendation r WHERE " + ACTIVE_FILTER +
+            "ORDER BY " + PRIORITY_RANK + " DESC, r.createdAt DESC, r.id DESC")
+    List<Recommendation> findActivePageByUserId(UUID userId, LocalDateTime now, Pageable pageable);
+
+    // Pagine successive: seek dopo (rango priorità, createdAt, id) dell'ultima riga
+    @Query("SELECT r FROM Recommendation r WHERE " + ACTIVE_FILTER +
+            "AND (" + PRIORITY_RANK + " < :rank OR (" + PRIORITY_RANK + " = :rank " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)))) " +
+            "ORDER BY " + PRIORITY_RANK + " DESC, r.createdAt DESC, r.id DESC")
+    List<Recommendation> findActivePageByUserIdAfter(UUID userId, LocalDateTime now, int rank,
+                                                     LocalDateTime createdAt, UUID id, Pageable pageable);
+
     // Raccomandazioni per tipo
     List<Recommendation> findByUserIdAndTypeAndIsDismissedFalseAndIsCompletedFalse(
             UUID userId, RecommendationType type);
@@ -38,17 +57,15 @@ public interface RecommendationRepository extends JpaRepository<Recommendation,
             "AND (r.expiresAt IS NULL OR r.expiresAt > :now)")
     long countActiveByUserId(UUID userId, LocalDateTime now);
 
-    // Pulisci raccomandazioni scadute
-    @Modifying
-    @Query("DELETE FROM Recommendation r WHERE r.expiresAt < :now")
-    void deleteExpired(LocalDateTime now);
+    // Pulizia a chunk: id delle raccomandazioni scadute, in ordine di id (keyset)
+    @Query("SELECT r.id FROM Recommendation r WHERE r.expiresAt < :now AND r.id > :afterId ORDER BY r.id")
+    List<UUID> findExpiredIds(LocalDateTime now, UUID afterId, Pageable pageable);
 
-    // Pulisci vecchie raccomandazioni completate/ignorate
-    @Modifying
-    @Query("DELETE FROM Recommendation r WHERE " +
+    // Pulizia a chunk: id delle vecchie raccomandazioni completate/ignorate
+    @Query("SELECT r.id FROM Recommendation r WHERE " +
             "(r.isDismissed = true OR r.isCompleted = true) " +
-            "AND r.createdAt < :cutoff")
-    void deleteOldCompleted(LocalDateTime cutoff);
+            "AND r.createdAt < :cutoff AND r.id > :afterId ORDER BY r.id")
+    List<UUID> findOldCompletedIds(LocalDateTime cutoff, UUID afterId, Pageable pageable);
 
     // Verifica se esiste già una raccomandazione simile
     boolean existsByUserIdAndTypeAndTopicAndIsDismissedFalseAndIsCompletedFalse(
@@ -59,4 +76,13 @@ public interface RecommendationRepository extends JpaRepository<Recommendation,
             UUID userId, String topic);
 
     boolean existsByUserIdAndTypeAndTopic(UUID userId, Recommendation.RecommendationType type, String topic);
+
+    // Chiavi (tipo, topic) di tutte le raccomandazioni dell'utente, in qualsiasi stato: deduplica in una query
+    @Query("SELECT r.type AS type, r.topic AS topic FROM Recommendation r WHERE r.user.id = :userId")
+    List<RecommendationKey> findKeysByUserId(UUID userId);
+
+    interface RecommendationKey {
+        RecommendationType getType();
+        String getTopic();
+    }
 }
\ No newline at end of file
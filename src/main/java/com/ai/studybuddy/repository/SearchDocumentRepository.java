@@ -0,0 +1,101 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.search.SearchDocument;
+import com.ai.studybuddy.model.search.SearchDocument.DocType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SearchDocumentRepository extends JpaRepository<SearchDocument, UUID> {
+
+    Optional<SearchDocument> findByDocTypeAndRefId(DocType docType, UUID refId);
+
+    @Modifying
+    @Query("DELETE FROM SearchDocument d WHERE d.docType = :docType AND d.refId = :refId")
+    int deleteByDocTypeAndRefId(@Param("docType") DocType docType, @Param("refId") UUID refId);
+
+    @Modifying
+    @Query("DELETE FROM SearchDocument d WHERE d.deckId = :deckId")
+    int deleteByDeckId(@Param("deckId") UUID deckId);
+
+    // Caricamento a pagine per costruire l'indice in memoria all'avvio
+    @Query("SELECT d FROM SearchDocument d ORDER BY d.id")
+    List<SearchDocument> findPage(Pageable pageable);
+
+    // ==================== POSTGRESQL FULL-TEXT ====================
+
+    /**
+     * Ricalcola il tsvector del documento: titolo con peso A, corpo con peso B.
+     * Ogni campo è indicizzato sia con la configurazione della lingua (stemming)
+     * sia con 'simple' (forma esatta), così una query in un'altra lingua trova comunque i termini.
+     */
+    @Modifying
+    @Query(value = "UPDATE search_documents SET search_vector = " +
+            "setweight(to_tsvector(CAST(:config AS regconfig), coalesce(title, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+            "setweight(to_tsvector(CAST(:config AS regconfig), coalesce(body, '')), 'B') || " +
+            "setweight(to_tsvector('simple', coalesce(body, '')), 'B') " +
+            "WHERE id = :id", nativeQuery = true)
+    void updateSearchVector(@Param("id") UUID id, @Param("config") String config);
+
+    /**
+     * Riga di risultato della ricerca nativa
+     */
+    interface SearchHitRow {
+        UUID getId();
+        String getDocType();
+        UUID getRefId();
+        UUID getDeckId();
+        String getTitle();
+        String getBody();
+        Double getScore();
+        Long getRankKey();
+    }
+
+    /**
+     * Lo score float non è una chiave di seek affidabile (uguaglianze tra float ricalcolati):
+     * paginazione e ordinamento usano rankKey = round(score * 10^6), un intero esatto, più l'id
+     */
+    String PG_SEARCH_SELECT = "SELECT * FROM (SELECT r0.*, CAST(round(r0.score * 1000000) AS bigint) AS rankKey FROM (" +
+            "SELECT d.id AS id, d.doc_type AS docType, d.ref_id AS refId, d.deck_id AS deckId, " +
+            "d.title AS title, d.body AS body, " +
+            "CAST(ts_rank_cd(d.search_vector, q.query) + similarity(d.title, :raw) AS double precision) AS score " +
+            "FROM search_documents d, " +
+            "(SELECT websearch_to_tsquery(CAST(:config AS regconfig), :raw) || " +
+            "websearch_to_tsquery('simple', :raw) AS query) q " +
+            "WHERE d.owner_id = :ownerId " +
+            "AND d.doc_type = ANY(string_to_array(:types, ',')) " +
+            "AND (CAST(:deckId AS text) = '' OR CAST(d.deck_id AS text) = :deckId) " +
+            "AND (d.search_vector @@ q.query OR d.title % :raw)" +
+            ") r0) r ";
+
+    // Prima pagina: GIN su search_vector per il match full-text, GIN trigram sul titolo per i refusi
+    @Query(value = PG_SEARCH_SELECT + "ORDER BY r.rankKey DESC, r.id DESC LIMIT :limit", nativeQuery = true)
+    List<SearchHitRow> searchPostgres(@Param("ownerId") UUID ownerId,
+                                      @Param("raw") String raw,
+                                      @Param("config") String config,
+                                      @Param("types") String types,
+                                      @Param("deckId") String deckId,
+                                      @Param("limit") int limit);
+
+    // Pagine successive: seek dopo (rankKey, id) dell'ultimo risultato
+    @Query(value = PG_SEARCH_SELECT +
+            "WHERE r.rankKey < :afterRank OR (r.rankKey = :afterRank AND r.id < :afterId) " +
+            "ORDER BY r.rankKey DESC, r.id DESC LIMIT :limit", nativeQuery = true)
+    List<SearchHitRow> searchPostgresAfter(@Param("ownerId") UUID ownerId,
+                                           @Param("raw") String raw,
+                                           @Param("config") String config,
+                                           @Param("types") String types,
+                                           @Param("deckId") String deckId,
+                                           @Param("afterRank") long afterRank,
+                                           @Param("afterId") UUID afterId,
+                                           @Param("limit") int limit);
+}
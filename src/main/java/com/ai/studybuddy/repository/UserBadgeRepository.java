@@ -25,6 +25,9 @@ public interface UserBadgeRepository extends JpaRepository<UserBadge, UUID> {
 
     boolean existsByUserIdAndBadgeCode(UUID userId, String badgeCode);
 
+    @Query("SELECT ub.badge.id FROM UserBadge ub WHERE ub.user.id = :userId")
+    List<UUID> findBadgeIdsByUserId(UUID userId);
+
     @Query("SELECT COUNT(ub) FROM UserBadge ub WHERE ub.user.id = :userId")
     long countByUserId(UUID userId);
 
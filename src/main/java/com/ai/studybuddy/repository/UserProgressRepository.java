@@ -3,7 +3,9 @@ package com.ai.studybuddy.repository;
 import com.ai.studybuddy.model.user.UserProgress;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -69,4 +71,45 @@ public interface UserProgressRepository extends JpaRepository<UserProgress, UUID
 
     // Verifica se esiste già progress per topic
     boolean existsByUserIdAndTopic(UUID userId, String topic);
-}
\ No newline at end of file
+
+    // Somma un'attività al progress del topic con un solo UPDATE (0 righe se il progress non esiste).
+    // Nel SET le colonne valgono ancora il valore precedente: media e mastery si calcolano sui nuovi totali.
+    // Soglie mastery: >= 90% AVANZATO, >= 70% INTERMEDIO
+    @Modifying
+    @Query("UPDATE UserProgress up SET " +
+            "up.quizCompleted = COALESCE(up.quizCompleted, 0) + :quizzes, " +
+            "up.totalQuestions = COALESCE(up.totalQuestions, 0) + :questions, " +
+            "up.correctAnswers = COALESCE(up.correctAnswers, 0) + :correct, " +
+            "up.averageScore = CASE WHEN COALESCE(up.totalQuestions, 0) + :questions > 0 " +
+            "  THEN (COALESCE(up.correctAnswers, 0) + :correct) * 100.0 / (COALESCE(up.totalQuestions, 0) + :questions) " +
+            "  ELSE up.averageScore END, " +
+            "up.masteryLevel = CASE WHEN COALESCE(up.totalQuestions, 0) + :questions = 0 THEN up.masteryLevel " +
+            "  WHEN (COALESCE(up.correctAnswers, 0) + :correct) * 100.0 >= 90.0 * (COALESCE(up.totalQuestions, 0) + :questions) THEN :advanced " +
+            "  WHEN (COALESCE(up.correctAnswers, 0) + :correct) * 100.0 >= 70.0 * (COALESCE(up.totalQuestions, 0) + :questions) THEN :intermediate " +
+            "  ELSE :beginner END, " +
+            "up.lastActivityAt = :now " +
+            "WHERE up.user.id = :userId AND up.topic = :topic")
+    int applyActivity(@Param("userId") UUID userId,
+                      @Param("topic") String topic,
+                      @Param("quizzes") int quizzes,
+                      @Param("questions") int questions,
+                      @Param("correct") int correct,
+                      @Param("now") LocalDateTime now,
+                      @Param("advanced") DifficultyLevel advanced,
+                      @Param("intermediate") DifficultyLevel intermediate,
+                      @Param("beginner") DifficultyLevel beginner);
+
+    // Crea il progress vuoto del topic se manca: due proiezioni concorrenti sullo stesso nuovo topic
+    // non falliscono sul vincolo (user_id, topic), la seconda non inserisce nulla e poi applica l'UPDATE
+    @Modifying
+    @Query(value = "INSERT INTO user_progress (id, user_id, topic, subject, quiz_completed, average_score, " +
+            "total_questions, correct_answers, mastery_level, total_study_minutes, last_activity_at) " +
+            "VALUES (:id, :userId, :topic, :subject, 0, 0.0, 0, 0, :masteryLevel, 0, :now) " +
+            "ON CONFLICT (user_id, topic) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id,
+                       @Param("userId") UUID userId,
+                       @Param("topic") String topic,
+                       @Param("subject") String subject,
+                       @Param("masteryLevel") String masteryLevel,
+                       @Param("now") LocalDateTime now);
+}
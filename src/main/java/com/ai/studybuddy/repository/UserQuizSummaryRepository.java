@@ -0,0 +1,56 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.quiz.UserQuizSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserQuizSummaryRepository extends JpaRepository<UserQuizSummary, UUID> {
+
+    /**
+     * Applica i delta in un solo UPDATE atomico (nessun read-modify-write).
+     * Il lock di riga tiene serializzati i completamenti concorrenti dello stesso utente
+     * fino alla fine della transazione.
+     *
+     * @return 0 se la riga non esiste ancora (va ricostruita)
+     */
+    @Modifying
+    @Query("UPDATE UserQuizSummary s SET " +
+            "s.totalQuizzes = s.totalQuizzes + :total, " +
+            "s.completedQuizzes = s.completedQuizzes + :completed, " +
+            "s.passedQuizzes = s.passedQuizzes + :passed, " +
+            "s.failedQuizzes = s.failedQuizzes + :failed, " +
+            "s.scoreSum = s.scoreSum + :score, " +
+            "s.updatedAt = :now " +
+            "WHERE s.userId = :userId")
+    int applyDelta(@Param("userId") UUID userId,
+                   @Param("total") long total,
+                   @Param("completed") long completed,
+                   @Param("passed") long passed,
+                   @Param("failed") long failed,
+                   @Param("score") double score,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Crea la riga vuota se manca: due ricostruzioni concorrenti dello stesso utente non falliscono
+     * sulla chiave primaria, la seconda attende il commit della prima e poi non inserisce nulla
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_quiz_summaries (user_id, total_quizzes, completed_quizzes, passed_quizzes, " +
+            "failed_quizzes, score_sum, updated_at) VALUES (:userId, 0, 0, 0, 0, 0.0, :now) " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserQuizSummary s WHERE s.userId = :userId")
+    Optional<UserQuizSummary> findByUserIdForUpdate(@Param("userId") UUID userId);
+}
@@ -0,0 +1,37 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.quiz.UserQuizTopicScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserQuizTopicScoreRepository extends JpaRepository<UserQuizTopicScore, UUID> {
+
+    Optional<UserQuizTopicScore> findByUserIdAndTopic(UUID userId, String topic);
+
+    boolean existsByUserIdAndTopic(UUID userId, String topic);
+
+    /**
+     * Alza il best score solo se il nuovo punteggio è migliore
+     *
+     * @return 0 se la riga non esiste oppure il punteggio non è migliore
+     */
+    @Modifying
+    @Query("UPDATE UserQuizTopicScore t SET t.bestPercentage = :percentage, t.achievedAt = :now " +
+            "WHERE t.userId = :userId AND t.topic = :topic AND t.bestPercentage < :percentage")
+    int raiseBest(@Param("userId") UUID userId,
+                  @Param("topic") String topic,
+                  @Param("percentage") double percentage,
+                  @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM UserQuizTopicScore t WHERE t.userId = :userId")
+    void deleteByUserId(@Param("userId") UUID userId);
+}
@@ -1,12 +1,16 @@
 package com.ai.studybuddy.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ai.studybuddy.model.gamification.UserStats;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,15 +20,20 @@ public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
 
     Optional<UserStats> findByUserId(UUID userId);
 
+    // Lock di riga: proiezione e ricostruzione degli eventi XP dello stesso utente non si sovrappongono
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT us FROM UserStats us WHERE us.user.id = :userId")
+    Optional<UserStats> findByUserIdForUpdate(@Param("userId") UUID userId);
+
     boolean existsByUserId(UUID userId);
 
     // Leaderboard per XP totale
     @Query("SELECT us FROM UserStats us ORDER BY us.totalXp DESC LIMIT :limit")
     List<UserStats> findTopByTotalXp(int limit);
 
-    // Leaderboard per XP settimanale
-    @Query("SELECT us FROM UserStats us ORDER BY us.weeklyXp DESC LIMIT :limit")
-    List<UserStats> findTopByWeeklyXp(int limit);
+    // Leaderboard per XP settimanale: solo chi ha XP nella settimana che inizia a weekStart
+    @Query("SELECT us FROM UserStats us WHERE us.weeklyXpPeriod = :weekStart ORDER BY us.weeklyXp DESC LIMIT :limit")
+    List<UserStats> findTopByWeeklyXp(@Param("weekStart") LocalDate weekStart, @Param("limit") int limit);
 
     // Leaderboard per streak
     @Query("SELECT us FROM UserStats us ORDER BY us.currentStreak DESC LIMIT :limit")
@@ -34,20 +43,28 @@ public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
     @Query("SELECT us FROM UserStats us ORDER BY us.level DESC, us.totalXp DESC LIMIT :limit")
     List<UserStats> findTopByLevel(int limit);
 
-    // Reset settimanale XP (da schedulare)
-    @Modifying
-    @Query("UPDATE UserStats us SET us.weeklyXp = 0")
-    void resetWeeklyXp();
 
-    // Reset mensile XP (da schedulare)
-    @Modifying
-    @Query("UPDATE UserStats us SET us.monthlyXp = 0")
-    void resetMonthlyXp();
+    // Righe per ricostruire le classifiche in memoria, a pagine in ordine di id (keyset)
+    @Query("SELECT us.id AS id, us.user.id AS userId, us.totalXp AS totalXp, us.weeklyXp AS weeklyXp, " +
+            "us.weeklyXpPeriod AS weeklyXpPeriod, us.currentStreak AS currentStreak, us.level AS level, " +
+            "us.version AS version " +
+            "FROM UserStats us WHERE us.id > :afterId ORDER BY us.id")
+    List<LeaderboardRow> findLeaderboardRows(@Param("afterId") UUID afterId, Pageable pageable);
+
+    interface LeaderboardRow {
+        UUID getId();
+        UUID getUserId();
+        Integer getTotalXp();
+        Integer getWeeklyXp();
+        LocalDate getWeeklyXpPeriod();
+        Integer getCurrentStreak();
+        Integer getLevel();
+        Long getVersion();
+    }
 
 
-    /* DA SISTEMARE CURRENT_DATE - 1 */
-    /*                               */
-    // Trova utenti con streak da resettare (non hanno fatto attività ieri)
-    @Query("SELECT us FROM UserStats us WHERE us.lastActivityDate < CURRENT_DATE AND us.currentStreak > 0")
-    List<UserStats> findUsersWithBrokenStreak();
+    // Streak interrotti (nessuna attività da prima di cutoff = ieri), a pagine in ordine di id (keyset)
+    @Query("SELECT us.id FROM UserStats us WHERE us.lastActivityDate < :cutoff AND us.currentStreak > 0 " +
+            "AND us.id > :afterId ORDER BY us.id")
+    List<UUID> findBrokenStreakIds(@Param("cutoff") LocalDate cutoff, @Param("afterId") UUID afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.gamification.XpBucket;
+import com.ai.studybuddy.model.gamification.XpBucket.PeriodType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface XpBucketRepository extends JpaRepository<XpBucket, UUID> {
+
+    // Incremento atomico del bucket, creato al primo XP dell'utente nel periodo: un solo statement,
+    // così due proiezioni concorrenti sullo stesso nuovo periodo non violano uk_xp_bucket_user_period
+    @Modifying
+    @Query(value = "INSERT INTO xp_buckets (id, user_id, period_type, period_start, xp, updated_at) " +
+            "VALUES (:id, :userId, :periodType, :periodStart, :xp, :now) " +
+            "ON CONFLICT (user_id, period_type, period_start) " +
+            "DO UPDATE SET xp = xp_buckets.xp + EXCLUDED.xp, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int addXp(@Param("id") UUID id,
+              @Param("userId") UUID userId,
+              @Param("periodType") String periodType,
+              @Param("periodStart") LocalDate periodStart,
+              @Param("xp") int xp,
+              @Param("now") LocalDateTime now);
+
+    // Valore ricalcolato dal registro eventi (ricostruzione), stesso upsert con sostituzione
+    @Modifying
+    @Query(value = "INSERT INTO xp_buckets (id, user_id, period_type, period_start, xp, updated_at) " +
+            "VALUES (:id, :userId, :periodType, :periodStart, :xp, :now) " +
+            "ON CONFLICT (user_id, period_type, period_start) " +
+            "DO UPDATE SET xp = EXCLUDED.xp, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int setXp(@Param("id") UUID id,
+              @Param("userId") UUID userId,
+              @Param("periodType") String periodType,
+              @Param("periodStart") LocalDate periodStart,
+              @Param("xp") int xp,
+              @Param("now") LocalDateTime now);
+
+    // Classifica di un periodo (anche passato), servita dall'indice (period_type, period_start, xp)
+    @Query("SELECT b FROM XpBucket b WHERE b.periodType = :periodType AND b.periodStart = :periodStart " +
+            "AND b.xp > 0 ORDER BY b.xp DESC, b.userId")
+    List<XpBucket> findTopByPeriod(@Param("periodType") PeriodType periodType,
+                                   @Param("periodStart") LocalDate periodStart,
+                                   Pageable pageable);
+
+    // Retention: id dei bucket di periodi chiusi da tempo, in ordine di id (keyset)
+    @Query("SELECT b.id FROM XpBucket b WHERE b.periodStart < :cutoff AND b.id > :afterId ORDER BY b.id")
+    List<UUID> findIdsWithPeriodStartBefore(@Param("cutoff") LocalDate cutoff,
+                                            @Param("afterId") UUID afterId,
+                                            Pageable pageable);
+}
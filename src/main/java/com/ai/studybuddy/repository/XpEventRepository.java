@@ -0,0 +1,50 @@
+package com.ai.studybuddy.repository;
+
+import com.ai.studybuddy.model.gamification.XpEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface XpEventRepository extends JpaRepository<XpEvent, Long> {
+
+    // Utenti con eventi da proiettare
+    @Query("SELECT DISTINCT e.userId FROM XpEvent e WHERE e.projected = false")
+    List<UUID> findPendingUserIds(Pageable pageable);
+
+    // Eventi da proiettare di un utente, bloccati: un altro proiettore (altra istanza) li salta
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM XpEvent e WHERE e.userId = :userId AND e.projected = false ORDER BY e.id")
+    List<XpEvent> lockPendingByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE XpEvent e SET e.projected = true WHERE e.id IN :ids")
+    int markProjected(@Param("ids") Collection<Long> ids);
+
+    // Eventi già proiettati di un utente, in ordine, per la ricostruzione (keyset su id)
+    @Query("SELECT e FROM XpEvent e WHERE e.userId = :userId AND e.projected = true AND e.id > :afterId ORDER BY e.id")
+    List<XpEvent> findProjectedByUserId(@Param("userId") UUID userId, @Param("afterId") long afterId, Pageable pageable);
+
+    // Storico XP dell'utente, dal più recente
+    List<XpEvent> findByUserIdOrderByIdDesc(UUID userId, Pageable pageable);
+
+    Optional<XpEvent> findFirstByUserIdAndTypeOrderByIdAsc(UUID userId, XpEvent.Type type);
+
+    // Registro di un utente eliminato (xp_events non ha FK verso users)
+    @Modifying
+    @Query("DELETE FROM XpEvent e WHERE e.userId = :userId")
+    int deleteByUserId(@Param("userId") UUID userId);
+}
@@ -1,8 +1,11 @@
 package com.ai.studybuddy.service.impl;
 
 import com.ai.studybuddy.config.integration.AIClient;
+import com.ai.studybuddy.config.integration.ChatMessage;
+import com.ai.studybuddy.config.resilience.Deadline;
 import com.ai.studybuddy.exception.AIServiceException;
 import com.ai.studybuddy.exception.AIServiceException.AIErrorType;
+import com.ai.studybuddy.exception.DeadlineExceededException;
 import com.ai.studybuddy.service.inter.AIService;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
 import com.google.gson.Gson;
@@ -16,7 +19,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Servizio principale per la generazione di contenuti AI.
@@ -32,6 +38,7 @@ public class AIServiceImpl implements AIService {
     private final AIClient primaryClient;
     private final AIClient fallbackClient;
     private final Gson gson = new Gson();
+    private final Map<String, String> systemPromptCache = new ConcurrentHashMap<>();
 
     @Value("${ai.groq.test-fallback:true}")
     private boolean testFallback;
@@ -53,8 +60,8 @@ public class AIServiceImpl implements AIService {
         log.info("Generazione spiegazione - topic: '{}', livello: {}, lingua: {}", 
                 topic, studentLevel, language);
 
-        String prompt = buildExplanationPrompt(topic, studentLevel, language);
-        return callAIWithFallback(prompt);
+        List<ChatMessage> messages = buildExplanationMessages(topic, studentLevel, language);
+        return callAIWithFallback(messages);
     }
 
     @Override
@@ -62,8 +69,8 @@ public class AIServiceImpl implements AIService {
         log.info("Generazione quiz - topic: '{}', domande: {}, difficoltà: {}, lingua: {}",
                 topic, numQuestions, difficulty, language);
 
-        String prompt = buildQuizPrompt(topic, numQuestions, difficulty, language);
-        return callAIWithFallback(prompt);
+        List<ChatMessage> messages = buildQuizMessages(topic, numQuestions, difficulty, language);
+        return callAIWithFallback(messages);
     }
 
     @Override
@@ -71,13 +78,22 @@ public class AIServiceImpl implements AIService {
         return generateQuiz(topic, numQuestions, difficulty.getLevel(), language);
     }
 
+    @Override
+    public String regenerateQuizQuestions(String topic, int numQuestions, DifficultyLevel difficulty,
+                                          String language, List<String> existingQuestions) {
+        log.info("Rigenerazione {} domande quiz - topic: '{}', lingua: {}", numQuestions, topic, language);
+
+        List<ChatMessage> messages = buildQuizRepairMessages(topic, numQuestions, difficulty.getLevel(), language, existingQuestions);
+        return callAIWithFallback(messages);
+    }
+
     @Override
     public String generateFlashcards(String topic, int numCards, DifficultyLevel difficulty, String language) {
         log.info("Generazione flashcards - topic: '{}', carte: {}, difficoltà: {}, lingua: {}",
                 topic, numCards, difficulty, language);
 
-        String prompt = buildFlashcardsPrompt(topic, numCards, difficulty, language);
-        return callAIWithFallback(prompt);
+        List<ChatMessage> messages = buildFlashcardsMessages(topic, numCards, difficulty, language);
+        return callAIWithFallback(messages);
     }
 
     @Override
@@ -86,8 +102,8 @@ public class AIServiceImpl implements AIService {
         log.info("Generazione flashcards con contesto - topic: '{}', carte: {}, lingua: {}",
                 topic, numCards, language);
 
-        String prompt = buildFlashcardsWithContextPrompt(topic, numCards, difficulty, context, language);
-        return callAIWithFallback(prompt);
+        List<ChatMessage> messages = buildFlashcardsWithContextMessages(topic, numCards, difficulty, context, language);
+        return callAIWithFallback(messages);
     }
 
     // ========================================
@@ -187,24 +203,35 @@ public class AIServiceImpl implements AIService {
     // FALLBACK LOGIC
     // ========================================
 
-    private String callAIWithFallback(String prompt) {
+    private String callAIWithFallback(List<ChatMessage> messages) {
         if (testFallback) {
             log.warn("⚠️ TEST MODE ATTIVO: Forzando fallback al modello secondario");
             throw new AIServiceException(AIErrorType.RATE_LIMIT, "Test fallback");
         }
 
+        // Primary e fallback condividono lo stesso budget: la deadline della richiesta
         try {
             log.debug("Tentativo con {}", primaryClient.getModelName());
-            return primaryClient.generateText(prompt);
+            return primaryClient.generateText(messages);
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch (Exception primaryError) {
             log.warn("Primary model fallito: {}", primaryError.getMessage());
 
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                // Inutile tentare il fallback se il client ha già rinunciato
+                deadline.checkNotExpired("fallback AI");
+            }
+
             try {
                 log.info("🔄 Fallback a {}", fallbackClient.getModelName());
-                return fallbackClient.generateText(prompt);
+                return fallbackClient.generateText(messages);
             } catch (WebClientResponseException e) {
                 handleWebClientException(e);
                 throw new AIServiceException(AIErrorType.SERVICE_UNAVAILABLE);
+            } catch (DeadlineExceededException e) {
+                throw e;
             } catch (Exception fallbackError) {
                 log.error("❌ Anche il fallback model è fallito: {}", fallbackError.getMessage());
 
@@ -223,91 +250,129 @@ public class AIServiceImpl implements AIService {
     // COSTRUZIONE PROMPT RAFFORZATI (LINGUA OBBLIGATORIA + LIVELLO)
     // ========================================
 
+    // Le istruzioni statiche vanno SEMPRE nel messaggio system e sono identiche a parità
+    // di (operazione, lingua): il prefisso della richiesta resta stabile e la prompt cache
+    // del provider può riusarlo. I dati variabili (argomento, numeri) stanno solo nell'ultimo
+    // messaggio user.
+
     /**
-     * Costruisce il prompt per spiegazioni con istruzioni linguistiche vincolanti.
+     * Messaggi per spiegazioni con istruzioni linguistiche vincolanti.
      */
-    private String buildExplanationPrompt(String topic, String studentLevel, String language) {
-        String languageInstruction = getLanguageInstruction(language);
-        
-        return String.format(
+    private List<ChatMessage> buildExplanationMessages(String topic, String studentLevel, String language) {
+        String system = systemPrompt("explanation", language, () -> String.format(
                 "%s\n\n" +
                 "⚠️ È ASSOLUTAMENTE OBBLIGATORIO rispondere ESCLUSIVAMENTE nella lingua specificata.\n" +
                 "⚠️ QUALSIASI PAROLA, FRASE O SPIEGAZIONE IN ITALIANO O IN ALTRA LINGUA È VIETATA E SARÀ CONSIDERATA ERRORE.\n\n" +
                 "Sei un tutor paziente e chiaro.\n" +
-                "Spiega '%s' a uno studente di livello %s.\n" +
+                "Riceverai un argomento e il livello dello studente: spiega l'argomento a quel livello.\n" +
                 "Usa esempi concreti e un linguaggio appropriato al livello.\n" +
                 "Parla SOLO nella lingua specificata e NON COMMENTARE la richiesta.\n" +
                 "Adatta il contenuto alla cultura e al sistema educativo della lingua target se rilevante.\n\n" +
                 "La spiegazione deve essere chiara, ben strutturata e facile da capire.\n\n" +
                 "RICORDA: TUTTA LA RISPOSTA DEVE ESSERE NELLA LINGUA: %s.",
-                languageInstruction, topic, studentLevel, language
+                getLanguageInstruction(language), language));
+
+        return List.of(
+                ChatMessage.system(system),
+                ChatMessage.user(String.format("Argomento: '%s'\nLivello dello studente: %s", topic, studentLevel))
         );
     }
 
     /**
-     * Costruisce il prompt per quiz con istruzioni linguistiche vincolanti e formato JSON.
+     * Messaggi per quiz con istruzioni linguistiche vincolanti e formato JSON.
      */
-    private String buildQuizPrompt(String topic, int numQuestions, String difficulty, String language) {
-        String languageInstruction = getLanguageInstruction(language);
-        
-        return String.format(
+    private List<ChatMessage> buildQuizMessages(String topic, int numQuestions, String difficulty, String language) {
+        return List.of(
+                ChatMessage.system(quizSystemPrompt(language)),
+                ChatMessage.user(String.format("Numero di domande: %d\nArgomento: '%s'\nDifficoltà: %s",
+                        numQuestions, topic, difficulty))
+        );
+    }
+
+    /**
+     * Messaggi per rigenerare solo le domande scartate dalla validazione.
+     * Stesso system del quiz (stesso prefisso); le domande già valide vengono
+     * elencate nel messaggio user per evitare duplicati.
+     */
+    private List<ChatMessage> buildQuizRepairMessages(String topic, int numQuestions, String difficulty,
+                                                      String language, List<String> existingQuestions) {
+        StringBuilder existing = new StringBuilder();
+        for (String q : existingQuestions) {
+            existing.append("- ").append(q).append("\n");
+        }
+
+        return List.of(
+                ChatMessage.system(quizSystemPrompt(language)),
+                ChatMessage.user(String.format(
+                        "Numero di domande: %d\nArgomento: '%s'\nDifficoltà: %s\n" +
+                        "Le domande devono essere DIVERSE da queste, già presenti nel quiz:\n%s",
+                        numQuestions, topic, difficulty,
+                        existing.length() > 0 ? existing.toString() : "- nessuna\n"))
+        );
+    }
+
+    private String quizSystemPrompt(String language) {
+        return systemPrompt("quiz", language, () -> String.format(
                 "%s\n\n" +
                 "⚠️ È ASSOLUTAMENTE OBBLIGATORIO rispondere ESCLUSIVAMENTE nella lingua specificata.\n" +
                 "⚠️ TUTTO IL CONTENUTO (domande, opzioni, eventuali testi) DEVE ESSERE NELLA LINGUA: %s.\n" +
                 "⚠️ NON AGGIUNGERE NESSUN TESTO FUORI DAL JSON, NEPPURE INTRODUZIONI O COMMENTI.\n\n" +
                 "Sei un generatore di quiz educativi. Rispondi SOLO con JSON valido, senza testo aggiuntivo.\n" +
-                "Genera %d domande a scelta multipla su '%s' con difficoltà %s.\n" +
+                "Riceverai numero di domande, argomento e difficoltà: genera domande a scelta multipla di conseguenza.\n" +
                 "Formato JSON richiesto: [{\"question\": \"...\", \"options\": [\"A\", \"B\", \"C\", \"D\"], \"correct\": \"A\"}]\n" +
+                "Ogni domanda deve avere ESATTAMENTE 4 opzioni diverse tra loro e non vuote.\n" +
                 "IMPORTANTE: Il campo 'correct' deve contenere SOLO la lettera della risposta corretta (A, B, C o D), non il testo.\n" +
                 "TUTTO il contenuto (domande e opzioni) deve essere ESCLUSIVAMENTE nella lingua specificata.\n" +
                 "Rispondi SOLO con l'array JSON, nient'altro.",
-                languageInstruction, language, numQuestions, topic, difficulty
-        );
+                getLanguageInstruction(language), language));
     }
 
     /**
-     * Costruisce il prompt per flashcards con istruzioni linguistiche vincolanti e formato JSON.
+     * Messaggi per flashcards con istruzioni linguistiche vincolanti e formato JSON.
      */
-    private String buildFlashcardsPrompt(String topic, int numCards, DifficultyLevel difficulty, String language) {
-        String languageInstruction = getLanguageInstruction(language);
-        
-        return String.format(
-                "%s\n\n" +
-                "⚠️ È ASSOLUTAMENTE OBBLIGATORIO rispondere ESCLUSIVAMENTE nella lingua specificata.\n" +
-                "⚠️ TUTTO IL CONTENUTO (front, back) DEVE ESSERE NELLA LINGUA: %s.\n" +
-                "⚠️ NON AGGIUNGERE NESSUN TESTO FUORI DAL JSON, NEPPURE INTRODUZIONI O COMMENTI.\n\n" +
-                "Sei un generatore di flashcards educative. Rispondi SOLO con JSON valido, senza testo aggiuntivo.\n" +
-                "Genera %d flashcards su '%s' con difficoltà %s.\n" +
-                "Formato JSON richiesto: [{\"front\": \"domanda o concetto\", \"back\": \"risposta o spiegazione\"}]\n" +
-                "Le flashcards devono essere chiare, concise e utili per il ripasso.\n" +
-                "TUTTO il contenuto (front e back) deve essere ESCLUSIVAMENTE nella lingua specificata.\n" +
-                "Rispondi SOLO con l'array JSON, nient'altro.",
-                languageInstruction, language, numCards, topic, difficulty.getLevel()
+    private List<ChatMessage> buildFlashcardsMessages(String topic, int numCards, DifficultyLevel difficulty,
+                                                      String language) {
+        return List.of(
+                ChatMessage.system(flashcardsSystemPrompt(language)),
+                ChatMessage.user(String.format("Numero di flashcards: %d\nArgomento: '%s'\nDifficoltà: %s",
+                        numCards, topic, difficulty.getLevel()))
         );
     }
 
     /**
-     * Costruisce il prompt per flashcards con contesto, con istruzioni linguistiche vincolanti.
+     * Messaggi per flashcards con contesto: stesso system, il contesto è un dato variabile.
      */
-    private String buildFlashcardsWithContextPrompt(String topic, int numCards,
-                                                    DifficultyLevel difficulty, String context, String language) {
-        String languageInstruction = getLanguageInstruction(language);
-        
-        return String.format(
+    private List<ChatMessage> buildFlashcardsWithContextMessages(String topic, int numCards,
+                                                                 DifficultyLevel difficulty, String context,
+                                                                 String language) {
+        return List.of(
+                ChatMessage.system(flashcardsSystemPrompt(language)),
+                ChatMessage.user(String.format(
+                        "Numero di flashcards: %d\nArgomento: '%s'\nDifficoltà: %s\nContesto aggiuntivo: %s",
+                        numCards, topic, difficulty.getLevel(), context != null ? context : "nessuno"))
+        );
+    }
+
+    private String flashcardsSystemPrompt(String language) {
+        return systemPrompt("flashcards", language, () -> String.format(
                 "%s\n\n" +
                 "⚠️ È ASSOLUTAMENTE OBBLIGATORIO rispondere ESCLUSIVAMENTE nella lingua specificata.\n" +
                 "⚠️ TUTTO IL CONTENUTO (front, back) DEVE ESSERE NELLA LINGUA: %s.\n" +
                 "⚠️ NON AGGIUNGERE NESSUN TESTO FUORI DAL JSON, NEPPURE INTRODUZIONI O COMMENTI.\n\n" +
                 "Sei un generatore di flashcards educative. Rispondi SOLO con JSON valido, senza testo aggiuntivo.\n" +
-                "Genera %d flashcards su '%s' con difficoltà %s.\n" +
-                "Contesto aggiuntivo: %s.\n\n" +
+                "Riceverai numero di flashcards, argomento, difficoltà ed eventuale contesto: genera le flashcards di conseguenza.\n" +
                 "Formato JSON richiesto: [{\"front\": \"domanda o concetto\", \"back\": \"risposta o spiegazione\"}]\n" +
                 "Le flashcards devono essere chiare, concise e utili per il ripasso.\n" +
                 "TUTTO il contenuto (front e back) deve essere ESCLUSIVAMENTE nella lingua specificata.\n" +
                 "Rispondi SOLO con l'array JSON, nient'altro.",
-                languageInstruction, language, numCards, topic, difficulty.getLevel(),
-                context != null ? context : "nessuno"
-        );
+                getLanguageInstruction(language), language));
+    }
+
+    private String systemPrompt(String operation, String language, Supplier<String> builder) {
+        if (language == null) {
+            throw new IllegalArgumentException("La lingua non può essere null");
+        }
+        return systemPromptCache.computeIfAbsent(operation + "|" + language.toLowerCase(), k -> builder.get());
     }
 
     /**
@@ -0,0 +1,288 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.Badge;
+import com.ai.studybuddy.model.gamification.BadgeChangeEvent;
+import com.ai.studybuddy.model.gamification.UserStats;
+import com.ai.studybuddy.repository.BadgeRepository;
+import com.ai.studybuddy.repository.UserBadgeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Valutazione dei badge in memoria.
+ *
+ * Il catalogo dei badge attivi è tenuto come array di soglie ordinate per tipo di requisito,
+ * i badge sbloccati di ogni utente come bitset sugli indici del catalogo.
+ * Su ogni evento XP la valutazione è qualche lookup su array: il database viene letto
+ * solo al primo accesso di un utente e scritto solo quando un badge si sblocca davvero.
+ *
+ * Il catalogo si ricarica dopo ogni modifica a Badge (via JPA) e comunque ogni
+ * badges.catalog-refresh-minutes, per le modifiche fatte direttamente in SQL.
+ */
+@Component
+public class BadgeRuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BadgeRuleEngine.class);
+
+    /**
+     * Snapshot immutabile del catalogo
+     */
+    static final class Catalog {
+        final int version;
+        final long loadedAt;
+        final List<Badge> badges;                  // indice nel catalogo = posizione nel bitset
+        final Map<UUID, Integer> indexById;
+        final Map<String, int[]> thresholds;       // tipo -> soglie crescenti
+        final Map<String, int[]> badgeIndexes;     // tipo -> indice badge, parallelo a thresholds
+
+        Catalog(int version, List<Badge> active) {
+            this.version = version;
+            this.loadedAt = System.currentTimeMillis();
+            this.badges = List.copyOf(active);
+            this.indexById = new HashMap<>();
+
+            Map<String, List<Integer>> byType = new HashMap<>();
+            for (int i = 0; i < badges.size(); i++) {
+                Badge badge = badges.get(i);
+                indexById.put(badge.getId(), i);
+                if (badge.getRequirementType() != null && badge.getRequirementValue() != null) {
+                    byType.computeIfAbsent(badge.getRequirementType(), t -> new ArrayList<>()).add(i);
+                }
+            }
+
+            this.thresholds = new HashMap<>();
+            this.badgeIndexes = new HashMap<>();
+            byType.forEach((type, indexes) -> {
+                indexes.sort((a, b) -> Integer.compare(badges.get(a).getRequirementValue(),
+                        badges.get(b).getRequirementValue()));
+                int[] values = new int[indexes.size()];
+                int[] positions = new int[indexes.size()];
+                for (int i = 0; i < values.length; i++) {
+                    positions[i] = indexes.get(i);
+                    values[i] = badges.get(positions[i]).getRequirementValue();
+                }
+                thresholds.put(type, values);
+                badgeIndexes.put(type, positions);
+            });
+        }
+    }
+
+    /**
+     * Badge sbloccati di un utente, validi per una versione del catalogo
+     */
+    private record Unlocked(int catalogVersion, long[] bits) {
+
+        boolean get(int index) {
+            int word = index >>> 6;
+            return word < bits.length && (bits[word] & (1L << index)) != 0;
+        }
+
+        Unlocked with(int index, boolean value) {
+            long[] copy = Arrays.copyOf(bits, Math.max(bits.length, (index >>> 6) + 1));
+            if (value) {
+                copy[index >>> 6] |= 1L << index;
+            } else {
+                copy[index >>> 6] &= ~(1L << index);
+            }
+            return new Unlocked(catalogVersion, copy);
+        }
+    }
+
+    private final BadgeRepository badgeRepository;
+    private final UserBadgeRepository userBadgeRepository;
+    private final long refreshMs;
+
+    private volatile Catalog catalog;
+    private volatile boolean stale;
+    private int nextVersion = 1;
+
+    // LRU dei bitset: pochi long per utente
+    private final Map<UUID, Unlocked> unlockedByUser;
+
+    public BadgeRuleEngine(BadgeRepository badgeRepository,
+                           UserBadgeRepository userBadgeRepository,
+                           @Value("${badges.user-cache-size:10000}") int userCacheSize,
+                           @Value("${badges.catalog-refresh-minutes:10}") int refreshMinutes) {
+        this.badgeRepository = badgeRepository;
+        this.userBadgeRepository = userBadgeRepository;
+        this.refreshMs = Duration.ofMinutes(refreshMinutes).toMillis();
+        this.unlockedByUser = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Unlocked> eldest) {
+                return size() > userCacheSize;
+            }
+        });
+    }
+
+    // ==================== VALUTAZIONE ====================
+
+    /**
+     * Badge attivi che le statistiche soddisfano e che l'utente non ha ancora.
+     * Nessuna query se catalogo e bitset dell'utente sono in cache.
+     *
+     * @return badge da sbloccare, in ordine di soglia per tipo
+     */
+    public List<Badge> findUnlockable(UUID userId, UserStats stats) {
+        Catalog current = catalog();
+        Unlocked unlocked = unlocked(userId, current);
+
+        List<Badge> result = null;
+        for (Map.Entry<String, int[]> entry : current.thresholds.entrySet()) {
+            Integer value = currentValue(entry.getKey(), stats);
+            if (value == null) {
+                continue;
+            }
+            int[] values = entry.getValue();
+            int[] positions = current.badgeIndexes.get(entry.getKey());
+            int reached = upperBound(values, value);
+            for (int i = 0; i < reached; i++) {
+                if (!unlocked.get(positions[i])) {
+                    if (result == null) {
+                        result = new ArrayList<>();
+                    }
+                    result.add(current.badges.get(positions[i]));
+                }
+            }
+        }
+        return result != null ? result : List.of();
+    }
+
+    /**
+     * Catalogo dei badge attivi, in ordine di soglia
+     */
+    public List<Badge> activeBadges() {
+        return catalog().badges;
+    }
+
+    /**
+     * Valore corrente di un requisito nelle statistiche dell'utente
+     */
+    public static Integer currentValue(String requirementType, UserStats stats) {
+        if (requirementType == null) {
+            return null;
+        }
+        return switch (requirementType) {
+            case "EXPLANATIONS_COUNT" -> stats.getExplanationsRequested();
+            case "QUIZZES_COMPLETED" -> stats.getQuizzesCompleted();
+            case "QUIZZES_PASSED" -> stats.getQuizzesPassed();
+            case "FLASHCARDS_STUDIED" -> stats.getFlashcardsStudied();
+            case "STREAK_DAYS" -> stats.getCurrentStreak();
+            case "TOTAL_XP" -> stats.getTotalXp();
+            case "LEVEL" -> stats.getLevel();
+            case "FOCUS_SESSIONS" -> stats.getFocusSessionsCompleted();
+            default -> null;
+        };
+    }
+
+    // ==================== INVALIDAZIONE ====================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBadgeChange(BadgeChangeEvent event) {
+        if (event.isCatalogChange()) {
+            invalidateCatalog();
+            return;
+        }
+        Catalog current = catalog;
+        Integer index = current != null ? current.indexById.get(event.badgeId()) : null;
+        if (index == null) {
+            return;
+        }
+        unlockedByUser.computeIfPresent(event.userId(), (id, unlocked) ->
+                unlocked.catalogVersion() == current.version ? unlocked.with(index, !event.removed()) : null);
+    }
+
+    /**
+     * Il bitset dell'utente viene riletto dal database al prossimo accesso
+     */
+    public void evictUser(UUID userId) {
+        unlockedByUser.remove(userId);
+    }
+
+    public void invalidateCatalog() {
+        stale = true;
+        log.info("Catalogo badge invalidato");
+    }
+
+    // ==================== INTERNALS ====================
+
+    private Catalog catalog() {
+        Catalog current = catalog;
+        if (current != null && !stale && System.currentTimeMillis() - current.loadedAt < refreshMs) {
+            return current;
+        }
+        synchronized (this) {
+            current = catalog;
+            if (current == null || stale || System.currentTimeMillis() - current.loadedAt >= refreshMs) {
+                stale = false;
+                List<Badge> active = badgeRepository.findByIsActiveTrueOrderByRequirementValueAsc();
+                // Stessi badge nello stesso ordine: i bitset in cache restano validi
+                int version = current != null && sameBadges(current.badges, active) ? current.version : nextVersion++;
+                current = new Catalog(version, active);
+                catalog = current;
+                log.debug("Catalogo badge caricato: {} badge attivi (versione {})",
+                        current.badges.size(), current.version);
+            }
+            return current;
+        }
+    }
+
+    private static boolean sameBadges(List<Badge> previous, List<Badge> active) {
+        if (previous.size() != active.size()) {
+            return false;
+        }
+        for (int i = 0; i < previous.size(); i++) {
+            if (!previous.get(i).getId().equals(active.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Unlocked unlocked(UUID userId, Catalog current) {
+        Unlocked cached = unlockedByUser.get(userId);
+        if (cached != null && cached.catalogVersion() == current.version) {
+            return cached;
+        }
+        long[] bits = new long[(current.badges.size() + 63) >>> 6];
+        for (UUID badgeId : userBadgeRepository.findBadgeIdsByUserId(userId)) {
+            Integer index = current.indexById.get(badgeId);
+            if (index != null) {
+                bits[index >>> 6] |= 1L << index;
+            }
+        }
+        Unlocked loaded = new Unlocked(current.version, bits);
+        unlockedByUser.put(userId, loaded);
+        return loaded;
+    }
+
+    /**
+     * Numero di soglie <= value
+     */
+    private static int upperBound(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.config.resilience.Deadline;
+import com.ai.studybuddy.dto.dashboard.DashboardResponse;
+import com.ai.studybuddy.dto.dashboard.DashboardResponse.DeckSummary;
+import com.ai.studybuddy.dto.gamification.GamificationDTO.UserStatsResponse;
+import com.ai.studybuddy.dto.gamification.GamificationDTO.XpHistoryEntry;
+import com.ai.studybuddy.dto.quiz.QuizSummaryResponse;
+import com.ai.studybuddy.dto.recommendation.RecommendationResponse;
+import com.ai.studybuddy.exception.DeadlineExceededException;
+import com.ai.studybuddy.service.inter.DashboardService;
+import com.ai.studybuddy.service.inter.FlashcardDeckService;
+import com.ai.studybuddy.service.inter.GamificationService;
+import com.ai.studybuddy.service.inter.LeaderboardService;
+import com.ai.studybuddy.service.inter.QuizService;
+import com.ai.studybuddy.service.inter.RecommendationService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Implementazione DashboardService
+ *
+ * Ogni sezione gira su un virtual thread con la deadline della sezione installata
+ * (timeout delle transazioni). Le sezioni fanno query: un semaforo limita quante
+ * ne girano insieme, così le dashboard non si prendono tutto il pool di connessioni.
+ */
+@Service
+public class DashboardServiceImpl implements DashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardServiceImpl.class);
+
+    private static final int RECENT_QUIZZES = 5;
+    private static final int RECENT_ACTIVITY = 10;
+    private static final int RECOMMENDATIONS = 3;
+    private static final int DECKS = 4;
+
+    private final GamificationService gamificationService;
+    private final LeaderboardService leaderboardService;
+    private final QuizService quizService;
+    private final RecommendationService recommendationService;
+    private final FlashcardDeckService deckService;
+    private final Duration sectionTimeout;
+    private final Semaphore queryPermits;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public DashboardServiceImpl(GamificationService gamificationService,
+                                LeaderboardService leaderboardService,
+                                QuizService quizService,
+                                RecommendationService recommendationService,
+                                FlashcardDeckService deckService,
+                                @Value("${dashboard.section-timeout-ms:2000}") long sectionTimeoutMs,
+                                @Value("${dashboard.max-parallel-queries:3}") int maxParallelQueries) {
+        this.gamificationService = gamificationService;
+        this.leaderboardService = leaderboardService;
+        this.quizService = quizService;
+        this.recommendationService = recommendationService;
+        this.deckService = deckService;
+        this.sectionTimeout = Duration.ofMillis(sectionTimeoutMs);
+        this.queryPermits = new Semaphore(Math.max(1, maxParallelQueries));
+    }
+
+    @Override
+    public DashboardResponse getDashboard(UUID userId) {
+        // Tutte le sezioni partono insieme: stessa scadenza, mai oltre la deadline della richiesta
+        Deadline deadline = Deadline.after(Deadline.remainingOr(sectionTimeout, "dashboard"));
+
+        Future<UserStatsResponse> stats = submit(deadline,
+                () -> gamificationService.getUserStatsResponse(userId));
+        Future<List<QuizSummaryResponse>> quizzes = submit(deadline,
+                () -> quizService.getCompletedQuizSummaries(userId, null, RECENT_QUIZZES).items());
+        Future<List<XpHistoryEntry>> activity = submit(deadline,
+                () -> gamificationService.getXpHistory(userId, RECENT_ACTIVITY));
+        Future<List<RecommendationResponse>> recommendations = submit(deadline,
+                () -> recommendationService.getActiveRecommendations(userId, null, RECOMMENDATIONS).items());
+        Future<List<DeckSummary>> decks = submit(deadline,
+                () -> deckService.getUserDecks(userId, null, DECKS).items().stream()
+                        .map(DeckSummary::fromDeck)
+                        .collect(Collectors.toList()));
+
+        DashboardResponse response = new DashboardResponse();
+
+        // Classifica in memoria: nessuna query, niente thread
+        int rank = leaderboardService.rankOf(LeaderboardService.Metric.XP, userId);
+        response.setXpRank(rank > 0 ? rank : null);
+
+        response.setStats(await("stats", stats, deadline, response));
+        response.setRecentQuizzes(await("recentQuizzes", quizzes, deadline, response));
+        response.setRecentActivity(await("recentActivity", activity, deadline, response));
+        response.setRecommendations(await("recommendations", recommendations, deadline, response));
+        response.setDecks(await("decks", decks, deadline, response));
+        return response;
+    }
+
+    private <T> Future<T> submit(Deadline deadline, Supplier<T> work) {
+        return executor.submit(() -> {
+            if (!queryPermits.tryAcquire(deadline.remaining().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new DeadlineExceededException("sezione dashboard");
+            }
+            try {
+                return Deadline.callWith(deadline, work);
+            } finally {
+                queryPermits.release();
+            }
+        });
+    }
+
+    /**
+     * Risultato della sezione entro la scadenza; altrimenti null e sezione segnata come non disponibile
+     */
+    private <T> T await(String section, Future<T> future, Deadline deadline, DashboardResponse response) {
+        try {
+            return future.get(deadline.remaining().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Dashboard: sezione {} oltre il timeout", section);
+        } catch (ExecutionException e) {
+            log.warn("Dashboard: sezione {} non disponibile: {}", section, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        }
+        response.addUnavailable(section);
+        return null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,213 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.service.inter.ExplanationCacheService;
+import com.ai.studybuddy.service.inter.TrendingTopicService;
+import com.ai.studybuddy.util.semantic.HnswIndex;
+import com.ai.studybuddy.util.semantic.NgramEmbedder;
+import com.ai.studybuddy.util.semantic.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cache semantica in-process: embedding a n-grammi di caratteri + indice HNSW
+ * per ogni coppia (lingua, livello).
+ *
+ * Ogni partizione ha la sua tabella IDF, congelata insieme all'indice: si ricalcola solo
+ * quando l'indice viene ricostruito (raddoppio delle voci, compattazione), così vettori
+ * salvati e query usano sempre gli stessi pesi.
+ */
+@Service
+public class ExplanationCacheServiceImpl implements ExplanationCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExplanationCacheServiceImpl.class);
+
+    private static final int HNSW_M = 16;
+    private static final int HNSW_EF_CONSTRUCTION = 100;
+    private static final int HNSW_EF_SEARCH = 50;
+    // Vicini valutati oltre la soglia: il più simile può avere parole chiave diverse
+    private static final int CANDIDATES = 5;
+    // Sotto questo numero di voci l'IDF non è affidabile: peso uniforme
+    private static final int MIN_IDF_DOCUMENTS = 50;
+
+    @Value("${ai.explanation-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.explanation-cache.similarity-threshold:0.50}")
+    private double similarityThreshold;
+
+    @Value("${ai.explanation-cache.max-entries-per-partition:5000}")
+    private int maxEntriesPerPartition;
+
+    private final NgramEmbedder embedder;
+    private final TrendingTopicService trendingTopicService;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ExplanationCacheServiceImpl(@Value("${ai.explanation-cache.dimensions:1024}") int dimensions,
+                                       TrendingTopicService trendingTopicService) {
+        this.embedder = new NgramEmbedder(dimensions);
+        this.trendingTopicService = trendingTopicService;
+    }
+
+    @Override
+    public Optional<String> findSimilar(String topic, String level, String language) {
+        if (!enabled || topic == null || topic.isBlank()) {
+            return Optional.empty();
+        }
+
+        Partition partition = partitions.get(partitionKey(level, language));
+        if (partition == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        // Match esatto sul testo normalizzato: evita la ricerca vettoriale
+        String normalized = TextNormalizer.normalize(topic);
+        CachedExplanation exact = partition.exact.get(normalized);
+        if (exact != null) {
+            hits.incrementAndGet();
+            log.debug("Cache spiegazioni: hit esatto per '{}'", topic);
+            return Optional.of(exact.explanation());
+        }
+
+        // Vicinanza negli n-grammi non basta: numeri, ordinali e parole chiave non devono contraddirsi
+        Space space = partition.space;
+        List<HnswIndex.Match<CachedExplanation>> matches =
+                space.index().search(embedder.embed(topic, space.idf()), CANDIDATES);
+        for (HnswIndex.Match<CachedExplanation> match : matches) {
+            if (match.similarity() < similarityThreshold) {
+                break;
+            }
+            if (!TextNormalizer.compatibleTopics(topic, match.value().topic())) {
+                continue;
+            }
+            hits.incrementAndGet();
+            log.info("Cache spiegazioni: '{}' servito da '{}' (similarità {})",
+                    topic, match.value().topic(), String.format(Locale.ROOT, "%.3f", match.similarity()));
+            return Optional.of(match.value().explanation());
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    @Override
+    public void store(String topic, String level, String language, String explanation) {
+        if (!enabled || topic == null || topic.isBlank() || explanation == null || explanation.isBlank()) {
+            return;
+        }
+
+        String normalized = TextNormalizer.normalize(topic);
+        Partition partition = partitions.computeIfAbsent(partitionKey(level, language), k -> new Partition());
+
+        synchronized (partition) {
+            if (partition.exact.containsKey(normalized)) {
+                return;
+            }
+            if (partition.entries.size() >= maxEntriesPerPartition) {
+                String lang = language;
+                partition.compact(maxEntriesPerPartition / 2, embedder,
+                        e -> trendingTopicService.isTrending(e.topic(), lang));
+            }
+
+            CachedExplanation entry = new CachedExplanation(topic, explanation);
+            partition.entries.add(entry);
+            partition.exact.put(normalized, entry);
+            if (partition.entries.size() >= partition.nextIdfFit) {
+                partition.rebuild(embedder);
+            } else {
+                Space space = partition.space;
+                space.index().add(embedder.embed(topic, space.idf()), entry);
+            }
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        int entries = partitions.values().stream().mapToInt(p -> p.space.index().size()).sum();
+        double hitRate = (h + m) == 0 ? 0.0 : (double) h / (h + m);
+        return new CacheStats(h, m, entries, hitRate);
+    }
+
+    private String partitionKey(String level, String language) {
+        String lang = language != null ? language.toLowerCase(Locale.ROOT) : "it";
+        String lvl = level != null ? level.toLowerCase(Locale.ROOT) : "università";
+        return lang + "|" + lvl;
+    }
+
+    // ==================== PARTITION ====================
+
+    private record CachedExplanation(String topic, String explanation) {}
+
+    /**
+     * Indice e pesi con cui sono stati calcolati i suoi vettori: si sostituiscono insieme
+     */
+    private record Space(NgramEmbedder.Idf idf, HnswIndex<CachedExplanation> index) {}
+
+    private static class Partition {
+        private volatile Space space = new Space(null, newIndex());
+        private final Map<String, CachedExplanation> exact = new ConcurrentHashMap<>();
+        private final List<CachedExplanation> entries = new ArrayList<>();
+        // Voci a cui ricalcolare l'IDF: raddoppia a ogni ricostruzione (costo ammortizzato costante)
+        private int nextIdfFit = MIN_IDF_DOCUMENTS;
+
+        private static HnswIndex<CachedExplanation> newIndex() {
+            return new HnswIndex<>(HNSW_M, HNSW_EF_CONSTRUCTION, HNSW_EF_SEARCH);
+        }
+
+        /**
+         * Nuova tabella IDF dalle voci correnti e indice ricalcolato con quei pesi
+         */
+        private void rebuild(NgramEmbedder embedder) {
+            NgramEmbedder.Idf idf = entries.size() >= MIN_IDF_DOCUMENTS
+                    ? embedder.fitIdf(entries.stream().map(CachedExplanation::topic).toList())
+                    : null;
+            HnswIndex<CachedExplanation> rebuilt = newIndex();
+            for (CachedExplanation e : entries) {
+                rebuilt.add(embedder.embed(e.topic(), idf), e);
+            }
+            space = new Space(idf, rebuilt);
+            nextIdfFit = Math.max(MIN_IDF_DOCUMENTS, entries.size() * 2);
+        }
+
+        /**
+         * HNSW non supporta la rimozione: si ricostruisce l'indice con le voci più recenti
+         * più quelle più vecchie su argomenti ancora di tendenza
+         */
+        private void compact(int keep, NgramEmbedder embedder, Predicate<CachedExplanation> trending) {
+            int cut = Math.max(0, entries.size() - keep);
+            List<CachedExplanation> recent = new ArrayList<>();
+            for (CachedExplanation e : entries.subList(0, cut)) {
+                if (trending.test(e)) {
+                    recent.add(e);
+                }
+            }
+            recent.addAll(entries.subList(cut, entries.size()));
+
+            exact.clear();
+            for (CachedExplanation e : recent) {
+                exact.put(TextNormalizer.normalize(e.topic()), e);
+            }
+            entries.clear();
+            entries.addAll(recent);
+            rebuild(embedder);
+
+            log.info("Cache spiegazioni: partizione compattata a {} voci", recent.size());
+        }
+    }
+}
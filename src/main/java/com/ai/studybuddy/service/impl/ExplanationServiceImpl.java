@@ -1,12 +1,15 @@
 package com.ai.studybuddy.service.impl;
 
+import com.ai.studybuddy.config.resilience.Bulkhead;
 import com.ai.studybuddy.dto.explanation.ExplanationResponse;
 import com.ai.studybuddy.dto.gamification.GamificationDTO.XpEventResponse;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.service.inter.AIService;
+import com.ai.studybuddy.service.inter.ExplanationCacheService;
 import com.ai.studybuddy.service.inter.ExplanationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,11 +19,17 @@ public class ExplanationServiceImpl implements ExplanationService {
 
     private final AIService aiService;
     private final GamificationServiceImpl gamificationService;
+    private final ExplanationCacheService explanationCacheService;
+    private final Bulkhead aiBulkhead;
 
     public ExplanationServiceImpl(AIService aiService,
-                                  GamificationServiceImpl gamificationService) {
+                                  GamificationServiceImpl gamificationService,
+                                  ExplanationCacheService explanationCacheService,
+                                  @Qualifier("aiInteractiveBulkhead") Bulkhead aiBulkhead) {
         this.aiService = aiService;
         this.gamificationService = gamificationService;
+        this.explanationCacheService = explanationCacheService;
+        this.aiBulkhead = aiBulkhead;
     }
 
     @Override
@@ -30,10 +39,11 @@ public class ExplanationServiceImpl implements ExplanationService {
 
         // ✅ PASSA LA LINGUA DELL'UTENTE!
         String language = user.getPreferredLanguage();  // Mai null (default "it" in User)
-        String explanation = aiService.generateExplanation(topic, mapLevel(level), language);
+        String explanation = getOrGenerate(topic, mapLevel(level), language);
 
         // Registra XP (+10 per spiegazione)
-        XpEventResponse xpEvent = gamificationService.recordExplanationXp(user, topic, subject);
+        XpEventResponse xpEvent = aiBulkhead.withDbConnection(
+                () -> gamificationService.recordExplanationXp(user, topic, subject));
 
         log.info("Spiegazione generata per '{}' in lingua '{}' - XP guadagnati: {}, Totale: {}",
                 topic, language, xpEvent.getXpEarned(), xpEvent.getNewTotalXp());
@@ -55,7 +65,20 @@ public class ExplanationServiceImpl implements ExplanationService {
     public String generateExplanationPreview(String topic, String level) {
         log.info("Generazione preview spiegazione - topic: '{}', level: '{}'", topic, level);
         // Preview usa italiano (senza XP)
-        return aiService.generateExplanation(topic, mapLevel(level), "it");
+        return getOrGenerate(topic, mapLevel(level), "it");
+    }
+
+    /**
+     * Riusa una spiegazione già generata per un argomento simile (stessa lingua e livello),
+     * altrimenti chiama l'AI e salva il risultato in cache
+     */
+    private String getOrGenerate(String topic, String mappedLevel, String language) {
+        return explanationCacheService.findSimilar(topic, mappedLevel, language)
+                .orElseGet(() -> {
+                    String explanation = aiService.generateExplanation(topic, mappedLevel, language);
+                    explanationCacheService.store(topic, mappedLevel, language, explanation);
+                    return explanation;
+                });
     }
 
     private String mapLevel(String level) {
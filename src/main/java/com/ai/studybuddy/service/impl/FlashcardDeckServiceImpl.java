@@ -1,5 +1,6 @@
 package com.ai.studybuddy.service.impl;
 
+import com.ai.studybuddy.dto.flashcard.DeckNameResponse;
 import com.ai.studybuddy.dto.flashcard.FlashcardDeckCreateRequest;
 import com.ai.studybuddy.exception.ResourceNotFoundException;
 import com.ai.studybuddy.mapper.FlashcardMapper;
@@ -7,6 +8,8 @@ import com.ai.studybuddy.model.flashcard.FlashcardDeck;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.repository.FlashcardDeckRepository;
 import com.ai.studybuddy.service.inter.FlashcardDeckService;
+import com.ai.studybuddy.util.pagination.CursorPage;
+import com.ai.studybuddy.util.pagination.PageCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -43,9 +46,25 @@ public class FlashcardDeckServiceImpl implements FlashcardDeckService {
     }
 
     @Override
-    public List<FlashcardDeck> getUserDecks(UUID userId) {
+    public CursorPage<FlashcardDeck> getUserDecks(UUID userId, String cursor, int limit) {
         log.debug("Recupero deck per utente: {}", userId);
-        return deckRepository.findByOwnerIdAndIsActiveTrueOrderByUpdatedAtDesc(userId);
+        PageCursor after = PageCursor.decode(cursor, 2);
+        List<FlashcardDeck> rows = after == null
+                ? deckRepository.findPageByOwnerId(userId, CursorPage.probe(limit))
+                : deckRepository.findPageByOwnerIdAfter(userId, after.timestamp(0), after.uuid(1),
+                        CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, d -> PageCursor.encode(d.getCreatedAt(), d.getId()));
+    }
+
+    @Override
+    public CursorPage<DeckNameResponse> getDeckNames(UUID userId, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor, 2);
+        List<FlashcardDeckRepository.DeckName> rows = after == null
+                ? deckRepository.findNamesByOwnerId(userId, CursorPage.probe(limit))
+                : deckRepository.findNamesByOwnerIdAfter(userId, after.timestamp(0), after.uuid(1),
+                        CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, d -> PageCursor.encode(d.getCreatedAt(), d.getId()))
+                .map(d -> new DeckNameResponse(d.getId(), d.getName()));
     }
 
     @Override
@@ -99,8 +118,12 @@ public class FlashcardDeckServiceImpl implements FlashcardDeckService {
     }
 
     @Override
-    public List<FlashcardDeck> getPublicDecks() {
-        return deckRepository.findByIsPublicTrueAndIsActiveTrueOrderByTimesStudiedDesc();
+    public CursorPage<FlashcardDeck> getPublicDecks(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor, 2);
+        List<FlashcardDeck> rows = after == null
+                ? deckRepository.findPublicPage(CursorPage.probe(limit))
+                : deckRepository.findPublicPageAfter(after.timestamp(0), after.uuid(1), CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, d -> PageCursor.encode(d.getCreatedAt(), d.getId()));
     }
 
     @Override
@@ -118,20 +141,11 @@ public class FlashcardDeckServiceImpl implements FlashcardDeckService {
     public FlashcardDeckService.DeckGlobalStats getGlobalStats(UUID userId) {
         log.debug("Calcolo statistiche globali per utente: {}", userId);
 
-        long totalDecks = deckRepository.countByOwnerIdAndIsActiveTrue(userId);
-        long totalCards = deckRepository.countTotalCardsByOwner(userId);
-
-        List<FlashcardDeck> decks = deckRepository.findByOwnerIdAndIsActiveTrueOrderByUpdatedAtDesc(userId);
-
-        long totalMastered = decks.stream()
-                .mapToLong(FlashcardDeck::getCardsMastered)
-                .sum();
-
-        long totalStudySessions = decks.stream()
-                .mapToLong(FlashcardDeck::getTimesStudied)
-                .sum();
+        // Somme calcolate dal database: nessun deck viene caricato in memoria
+        FlashcardDeckRepository.DeckTotals totals = deckRepository.sumTotalsByOwner(userId);
 
-        return new FlashcardDeckService.DeckGlobalStats(totalDecks, totalCards, totalMastered, totalStudySessions);
+        return new FlashcardDeckService.DeckGlobalStats(totals.getDecks(), totals.getCards(),
+                totals.getMastered(), totals.getStudySessions());
     }
 
     // ==================== HELPER METHODS ====================
@@ -1,31 +1,45 @@
 package com.ai.studybuddy.service.impl;
 
+import com.ai.studybuddy.config.resilience.Bulkhead;
 import com.ai.studybuddy.dto.flashcard.FlashcardAIGenerateRequest;
 import com.ai.studybuddy.dto.flashcard.FlashcardCreateRequest;
+import com.ai.studybuddy.dto.search.SearchResultResponse;
 import com.ai.studybuddy.exception.ResourceNotFoundException;
 import com.ai.studybuddy.exception.UnauthorizedException;
 import com.ai.studybuddy.mapper.FlashcardMapper;
 import com.ai.studybuddy.model.flashcard.Flashcard;
 import com.ai.studybuddy.model.flashcard.FlashcardDeck;
+import com.ai.studybuddy.model.search.SearchDocument.DocType;
+import com.ai.studybuddy.model.search.SearchIndexEvent;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.repository.FlashcardDeckRepository;
 import com.ai.studybuddy.repository.FlashcardRepository;
 import com.ai.studybuddy.service.inter.AIService;
 import com.ai.studybuddy.service.inter.FlashcardService;
+import com.ai.studybuddy.service.inter.SearchService;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
+import com.ai.studybuddy.util.pagination.CursorPage;
+import com.ai.studybuddy.util.pagination.PageCursor;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class FlashcardServiceImpl implements FlashcardService {
@@ -37,17 +51,26 @@ public class FlashcardServiceImpl implements FlashcardService {
     private final FlashcardDeckRepository deckRepository;
     private final AIService aiService;
     private final FlashcardMapper flashcardMapper;
+    private final Bulkhead aiBulkhead;
+    private final SearchService searchService;
+    private final ApplicationEventPublisher eventPublisher;
     
     private FlashcardService selfProxy;
 
     public FlashcardServiceImpl(FlashcardRepository flashcardRepository,
                                 FlashcardDeckRepository deckRepository,
                                 AIService aiService,
-                                FlashcardMapper flashcardMapper) {
+                                FlashcardMapper flashcardMapper,
+                                @Qualifier("aiBulkBulkhead") Bulkhead aiBulkhead,
+                                SearchService searchService,
+                                ApplicationEventPublisher eventPublisher) {
         this.flashcardRepository = flashcardRepository;
         this.deckRepository = deckRepository;
         this.aiService = aiService;
         this.flashcardMapper = flashcardMapper;
+        this.aiBulkhead = aiBulkhead;
+        this.searchService = searchService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Autowired
@@ -70,7 +93,6 @@ public class FlashcardServiceImpl implements FlashcardService {
 
     @Override
     @Deprecated
-    @Transactional
     public List<Flashcard> generateAndSaveFlashcards(UUID deckId, String topic, int numberOfCards,
                                                      String difficulty, User user) {
         // Usa la lingua preferita dell'utente
@@ -79,7 +101,6 @@ public class FlashcardServiceImpl implements FlashcardService {
     }
 
     @Override
-    @Transactional
     public List<Flashcard> generateAndSaveFlashcards(UUID deckId, String topic, int numberOfCards,
                                                      String difficulty, String language, User user) {
         FlashcardAIGenerateRequest request = FlashcardAIGenerateRequest.builder()
@@ -91,8 +112,11 @@ public class FlashcardServiceImpl implements FlashcardService {
         return selfProxy.generateAndSaveFlashcards(deckId, request, user);
     }
 
+    /**
+     * La chiamata AI avviene fuori transazione: la connessione DB viene presa solo
+     * per la verifica del deck e per il salvataggio finale delle carte.
+     */
     @Override
-    @Transactional
     public List<Flashcard> generateAndSaveFlashcards(UUID deckId,
                                                      FlashcardAIGenerateRequest request,
                                                      User user) {
@@ -101,6 +125,7 @@ public class FlashcardServiceImpl implements FlashcardService {
         log.info("Generazione AI flashcards - deck: {}, topic: {}, cards: {}, lingua: {}",
                 deckId, request.getTopic(), request.getNumberOfCards(), language);
 
+        // Verifica prima di spendere una chiamata AI
         FlashcardDeck deck = findDeckOrThrow(deckId);
         verifyOwnership(deck, user);
 
@@ -123,30 +148,50 @@ public class FlashcardServiceImpl implements FlashcardService {
         }
 
         JsonArray flashcardsJson = aiService.parseFlashcardsResponse(aiResponse);
-        List<Flashcard> createdCards = new ArrayList<>();
+        List<FlashcardCreateRequest> cardRequests = new ArrayList<>();
 
         for (int i = 0; i < flashcardsJson.size(); i++) {
             JsonObject cardJson = flashcardsJson.get(i).getAsJsonObject();
-            FlashcardCreateRequest cardRequest = FlashcardCreateRequest.builder()
+            cardRequests.add(FlashcardCreateRequest.builder()
                     .frontContent(cardJson.get("front").getAsString())
                     .backContent(cardJson.get("back").getAsString())
                     .difficultyLevel(request.getDifficultyLevel())
                     .tags("ai-generated", request.getTopic(), "lang-" + language)
-                    .build();
+                    .build());
+        }
+
+        List<Flashcard> createdCards = aiBulkhead.withDbConnection(
+                () -> selfProxy.saveGeneratedFlashcards(deckId, cardRequests, user));
+        log.info("Generate {} flashcards con AI in lingua: {}", createdCards.size(), language);
+        return createdCards;
+    }
+
+    @Override
+    @Transactional
+    public List<Flashcard> saveGeneratedFlashcards(UUID deckId, List<FlashcardCreateRequest> cards, User user) {
+        FlashcardDeck deck = findDeckOrThrow(deckId);
+        verifyOwnership(deck, user);
+
+        List<Flashcard> createdCards = new ArrayList<>();
+        for (FlashcardCreateRequest cardRequest : cards) {
             Flashcard flashcard = flashcardMapper.toAIGeneratedEntity(cardRequest, deck, user);
             createdCards.add(flashcardRepository.save(flashcard));
         }
 
         updateDeckCardCount(deck, createdCards.size());
-        log.info("Generate {} flashcards con AI in lingua: {}", createdCards.size(), language);
         return createdCards;
     }
 
     @Override
-    public List<Flashcard> getFlashcardsByDeck(UUID deckId, UUID userId) {
+    public CursorPage<Flashcard> getFlashcardsByDeck(UUID deckId, UUID userId, String cursor, int limit) {
         FlashcardDeck deck = findDeckOrThrow(deckId);
         verifyOwnership(deck, userId);
-        return flashcardRepository.findByDeckIdAndIsActiveTrue(deckId);
+        PageCursor after = PageCursor.decode(cursor, 2);
+        List<Flashcard> rows = after == null
+                ? flashcardRepository.findPageByDeckId(deckId, CursorPage.probe(limit))
+                : flashcardRepository.findPageByDeckIdAfter(deckId, after.timestamp(0), after.uuid(1),
+                        CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, f -> PageCursor.encode(f.getCreatedAt(), f.getId()));
     }
 
     @Override
@@ -155,8 +200,10 @@ public class FlashcardServiceImpl implements FlashcardService {
         log.debug("Review flashcard: {}, correct: {}", flashcardId, wasCorrect);
         Flashcard flashcard = findFlashcardOrThrow(flashcardId);
         verifyOwnership(flashcard.getDeck(), userId);
+        flashcardRepository.recordReview(flashcardId, wasCorrect ? 1 : 0, LocalDateTime.now());
+        // Stesso incremento sull'oggetto restituito: i contatori non sono aggiornabili dall'entity
         flashcard.recordReview(wasCorrect);
-        return flashcardRepository.save(flashcard);
+        return flashcard;
     }
 
     @Override
@@ -191,31 +238,38 @@ public class FlashcardServiceImpl implements FlashcardService {
         log.info("Eliminazione flashcard: {}", flashcardId);
         Flashcard flashcard = findFlashcardOrThrow(flashcardId);
         verifyOwnership(flashcard.getDeck(), userId);
-        flashcard.setIsActive(false);
-        flashcardRepository.save(flashcard);
+        // Due eliminazioni concorrenti della stessa carta decrementano il deck una volta sola
+        if (flashcardRepository.deactivate(flashcardId, LocalDateTime.now()) == 0) {
+            return;
+        }
+        // L'UPDATE massivo non passa dal SearchIndexListener: la carta va tolta dall'indice a mano (dopo il commit)
+        eventPublisher.publishEvent(new SearchIndexEvent(DocType.FLASHCARD, flashcardId, true));
         updateDeckCardCount(flashcard.getDeck(), -1);
     }
 
     @Override
-    public List<Flashcard> searchFlashcards(UUID deckId, String searchTerm, UUID userId) {
+    public List<Flashcard> searchFlashcards(UUID deckId, String searchTerm, User user) {
         FlashcardDeck deck = findDeckOrThrow(deckId);
-        verifyOwnership(deck, userId);
-        return flashcardRepository.searchByContent(deckId, searchTerm);
+        verifyOwnership(deck, user);
+        // Stesso indice della ricerca unificata: rilevanza e stemming invece di un LIKE su tutto il deck
+        List<UUID> ids = searchService.search(user.getId(), searchTerm, EnumSet.of(DocType.FLASHCARD), deckId,
+                        user.getPreferredLanguage(), null, CursorPage.MAX_LIMIT)
+                .items().stream()
+                .map(SearchResultResponse::getId)
+                .toList();
+        Map<UUID, Flashcard> byId = flashcardRepository.findAllById(ids).stream()
+                .filter(f -> Boolean.TRUE.equals(f.getIsActive()))
+                .collect(Collectors.toMap(Flashcard::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
     @Override
     public FlashcardStats getFlashcardStats(UUID deckId, UUID userId) {
         FlashcardDeck deck = findDeckOrThrow(deckId);
         verifyOwnership(deck, userId);
-        List<Flashcard> allCards = flashcardRepository.findByDeckIdAndIsActiveTrue(deckId);
-        long total = allCards.size();
-        long mastered = allCards.stream()
-                .filter(card -> card.getSuccessRate() >= 80.0)
-                .count();
-        long needReview = allCards.stream()
-                .filter(this::needsReview)
-                .count();
-        return new FlashcardStats(total, mastered, needReview);
+        FlashcardRepository.DeckCardStats stats = flashcardRepository.countStatsByDeckId(
+                deckId, LocalDateTime.now().minusDays(DEFAULT_REVIEW_DAYS));
+        return new FlashcardStats(stats.getTotal(), stats.getMastered(), stats.getNeedReview());
     }
 
     private FlashcardDeck findDeckOrThrow(UUID deckId) {
@@ -238,14 +292,12 @@ public class FlashcardServiceImpl implements FlashcardService {
         }
     }
 
+    /**
+     * Incremento atomico nel database: creazioni ed eliminazioni concorrenti non perdono aggiornamenti.
+     * L'oggetto in memoria riceve lo stesso delta per la risposta.
+     */
     private void updateDeckCardCount(FlashcardDeck deck, int delta) {
-        deck.setTotalCards(deck.getTotalCards() + delta);
-        deckRepository.save(deck);
-    }
-
-    private boolean needsReview(Flashcard card) {
-        if (card.getTimesReviewed() == 0) return true;
-        if (card.getLastReviewedAt() == null) return true;
-        return card.getLastReviewedAt().isBefore(LocalDateTime.now().minusDays(DEFAULT_REVIEW_DAYS));
+        deckRepository.addToTotalCards(deck.getId(), delta, LocalDateTime.now());
+        deck.setTotalCards((deck.getTotalCards() != null ? deck.getTotalCards() : 0) + delta);
     }
 }
\ No newline at end of file
@@ -8,15 +8,21 @@ import com.ai.studybuddy.model.recommendation.Recommendation.Priority;
 import com.ai.studybuddy.model.recommendation.Recommendation.RecommendationType;
 import com.ai.studybuddy.model.gamification.UserStats;
 import com.ai.studybuddy.model.user.User;
-import com.ai.studybuddy.model.user.UserProgress;
 import com.ai.studybuddy.repository.*;
 import com.ai.studybuddy.service.inter.GamificationService;
+import com.ai.studybuddy.service.inter.LeaderboardService;
+import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -24,11 +30,11 @@ import java.util.stream.Collectors;
 /**
  * Implementazione GamificationService
  *
- * INTEGRAZIONE con UserProgress:
- * - Quando si registrano attività (quiz, spiegazioni, etc.)
- *   questo service aggiorna ENTRAMBE le tabelle:
+ * REGISTRO XP:
+ * - Le attività (quiz, spiegazioni, etc.) scrivono solo un XpEvent
+ * - Il proiettore (XpProjectionService) applica gli eventi in modo asincrono a:
  *   1. UserProgress → per tracciare progressi per argomento
- *   2. UserStats → per XP globali, badge, streak
+ *   2. UserStats e bucket XP → per XP globali, badge, streak
  */
 @Service
 public class GamificationServiceImpl implements GamificationService {
@@ -42,6 +48,9 @@ public class GamificationServiceImpl implements GamificationService {
     private static final int XP_FLASHCARD_PER_CARD = 2;// +2 XP per flashcard
     private static final int XP_FOCUS_SESSION = 15;    // +15 XP per sessione focus
 
+    private static final int REPLAY_PAGE_SIZE = 500;
+    private static final Gson GSON = new Gson();
+
     @Autowired
     private UserStatsRepository userStatsRepository;
 
@@ -60,6 +69,24 @@ public class GamificationServiceImpl implements GamificationService {
     @Autowired
     private UserProgressRepository userProgressRepository;  // Repository esistente!
 
+    @Autowired
+    private XpBucketRepository xpBucketRepository;
+
+    @Autowired
+    private XpEventRepository xpEventRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BadgeRuleEngine badgeRuleEngine;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private XpDeltaBuffer xpDeltaBuffer;
+
     // ==================== XP & STATISTICHE ====================
 
     @Override
@@ -83,7 +110,10 @@ public class GamificationServiceImpl implements GamificationService {
         // Arricchisci con dati da UserProgress
         enrichStatsFromProgress(stats, userId);
 
-        return UserStatsResponse.fromUserStats(stats, badgeCount);
+        // Revisioni flashcard non ancora nei totali (da scrivere o scritte e non proiettate): l'utente le vede subito
+        XpDeltaBuffer.Delta pending = xpDeltaBuffer.pendingFor(userId, stats.getLastEventId());
+        return UserStatsResponse.fromUserStats(stats, badgeCount)
+                .withPending(pending.xp(), pending.cards());
     }
 
     /**
@@ -103,31 +133,16 @@ public class GamificationServiceImpl implements GamificationService {
     }
 
     /**
-     * Registra XP per spiegazione con topic opzionale
-     * Aggiorna sia UserStats che UserProgress
+     * Registra XP per spiegazione con topic opzionale.
+     * Scrive solo l'evento: UserStats e UserProgress li aggiorna il proiettore
      */
     @Transactional
     public XpEventResponse recordExplanationXp(User user, String topic, String subject) {
-        UserStats stats = getOrCreateUserStats(user.getId());
-
-        // Aggiorna UserStats (globale)
-        stats.incrementExplanations();
-        stats.updateStreak();
-        boolean leveledUp = stats.addXp(XP_EXPLANATION);
-        userStatsRepository.save(stats);
-
-        // Aggiorna UserProgress (per topic) se specificato
-        if (topic != null && !topic.isEmpty()) {
-            updateUserProgress(user, topic, subject, 0, 0, 0, 0);
-        }
-
-        // Verifica badge
-        List<Badge> newBadges = checkAndUnlockBadges(user, stats);
+        append(XpEvent.explanation(user.getId(), XP_EXPLANATION, emptyToNull(topic), subject));
 
-        logger.info("Utente {} ha guadagnato {} XP per spiegazione. Totale: {}",
-                user.getEmail(), XP_EXPLANATION, stats.getTotalXp());
+        logger.info("Utente {} ha guadagnato {} XP per spiegazione", user.getEmail(), XP_EXPLANATION);
 
-        return new XpEventResponse("EXPLANATION", XP_EXPLANATION, stats, leveledUp, newBadges);
+        return preview("EXPLANATION", user, XP_EXPLANATION);
     }
 
     @Override
@@ -139,147 +154,369 @@ public class GamificationServiceImpl implements GamificationService {
     /**
      * Registra XP per quiz con dettagli per UserProgress
      */
+    @Override
     @Transactional
     public XpEventResponse recordQuizXp(User user, boolean passed, String topic, String subject,
                                         double score, int totalQuestions, int correctAnswers) {
-        UserStats stats = getOrCreateUserStats(user.getId());
-
         int xpEarned = XP_QUIZ_COMPLETED;
         if (passed) {
             xpEarned += XP_QUIZ_PASSED_BONUS;
         }
 
-        // Aggiorna UserStats (globale)
-        stats.incrementQuizzesCompleted(passed);
-        stats.updateStreak();
-        boolean leveledUp = stats.addXp(xpEarned);
-        userStatsRepository.save(stats);
+        append(XpEvent.quiz(user.getId(), xpEarned, passed, emptyToNull(topic), subject,
+                totalQuestions, correctAnswers));
 
-        // Aggiorna UserProgress (per topic) se specificato
-        if (topic != null && !topic.isEmpty()) {
-            updateUserProgress(user, topic, subject, 1, score, totalQuestions, correctAnswers);
-        }
-
-        // Verifica badge
-        List<Badge> newBadges = checkAndUnlockBadges(user, stats);
-
-        logger.info("Utente {} ha guadagnato {} XP per quiz (passed: {}). Totale: {}",
-                user.getEmail(), xpEarned, passed, stats.getTotalXp());
+        logger.info("Utente {} ha guadagnato {} XP per quiz (passed: {})", user.getEmail(), xpEarned, passed);
 
-        return new XpEventResponse("QUIZ", xpEarned, stats, leveledUp, newBadges);
+        return preview("QUIZ", user, xpEarned);
     }
 
     @Override
     @Transactional
     public XpEventResponse recordFlashcardXp(User user, int cardsStudied) {
-        UserStats stats = getOrCreateUserStats(user.getId());
-
         int xpEarned = cardsStudied * XP_FLASHCARD_PER_CARD;
 
-        stats.incrementFlashcardsStudied(cardsStudied);
-        stats.updateStreak();
-        boolean leveledUp = stats.addXp(xpEarned);
-        userStatsRepository.save(stats);
+        append(XpEvent.flashcards(user.getId(), xpEarned, cardsStudied));
 
-        List<Badge> newBadges = checkAndUnlockBadges(user, stats);
+        logger.info("Utente {} ha guadagnato {} XP per {} flashcards", user.getEmail(), xpEarned, cardsStudied);
 
-        logger.info("Utente {} ha guadagnato {} XP per {} flashcards. Totale: {}",
-                user.getEmail(), xpEarned, cardsStudied, stats.getTotalXp());
+        return preview("FLASHCARD", user, xpEarned);
+    }
 
-        return new XpEventResponse("FLASHCARD", xpEarned, stats, leveledUp, newBadges);
+    /**
+     * Nessuna scrittura: il delta si somma in memoria e diventa un evento al flush del write-behind
+     */
+    @Override
+    public XpEventResponse recordFlashcardReviewXp(User user) {
+        XpDeltaBuffer.Delta pending = xpDeltaBuffer.add(user.getId(), 1, XP_FLASHCARD_PER_CARD);
+
+        int before = leaderboardService.totalXpOf(user.getId()) + pending.xp() - XP_FLASHCARD_PER_CARD;
+        int after = before + XP_FLASHCARD_PER_CARD;
+        int level = UserStats.levelForXp(after);
+        return new XpEventResponse("FLASHCARD", XP_FLASHCARD_PER_CARD, after, level,
+                level > UserStats.levelForXp(before), List.of());
     }
 
     @Override
     @Transactional
     public XpEventResponse recordFocusSessionXp(User user, int durationMinutes, int xpToAward) {
-        UserStats stats = getOrCreateUserStats(user.getId());
+        append(XpEvent.focusSession(user.getId(), xpToAward, durationMinutes));
 
-        stats.incrementFocusSessions(durationMinutes);
-        stats.updateStreak();
-        boolean leveledUp = stats.addXp(xpToAward);
-        userStatsRepository.save(stats);
+        logger.info("Utente {} ha guadagnato {} XP per sessione focus ({} min)",
+                user.getEmail(), xpToAward, durationMinutes);
 
-        List<Badge> newBadges = checkAndUnlockBadges(user, stats);
+        return preview("FOCUS_SESSION", user, xpToAward);
+    }
 
-        logger.info("Utente {} ha guadagnato {} XP per sessione focus ({} min). Totale: {}",
-                user.getEmail(), xpToAward, durationMinutes, stats.getTotalXp());
+    /**
+     * L'unica scrittura sul percorso della richiesta: il proiettore parte dopo il commit
+     */
+    private void append(XpEvent event) {
+        xpEventRepository.save(event);
+        eventPublisher.publishEvent(new XpEventAppended(event.getUserId()));
+    }
 
-        return new XpEventResponse("FOCUS_SESSION", xpToAward, stats, leveledUp, newBadges);
+    /**
+     * Totale e livello attesi dopo l'evento, dalle classifiche in memoria (nessuna query).
+     * I badge sbloccati arrivano dal proiettore e si leggono da /badges/new
+     */
+    private XpEventResponse preview(String eventType, User user, int xpEarned) {
+        int before = leaderboardService.totalXpOf(user.getId());
+        int after = before + xpEarned;
+        int level = UserStats.levelForXp(after);
+        return new XpEventResponse(eventType, xpEarned, after, level,
+                level > UserStats.levelForXp(before), List.of());
     }
 
-    // ==================== INTEGRAZIONE USER PROGRESS ====================
+    private static String emptyToNull(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+
+    @Override
+    public List<XpHistoryEntry> getXpHistory(UUID userId, int limit) {
+        return xpEventRepository.findByUserIdOrderByIdDesc(userId, PageRequest.of(0, limit))
+                .stream()
+                .map(XpHistoryEntry::fromEvent)
+                .collect(Collectors.toList());
+    }
+
+    // ==================== PROIEZIONE EVENTI XP ====================
 
     /**
-     * Aggiorna o crea UserProgress per un topic specifico
+     * Applica in una transazione gli eventi in attesa di un utente: una sola scrittura
+     * di UserStats e un upsert per bucket anche con molti eventi, badge valutati una volta.
+     * Idempotente: gli eventi sono bloccati (SKIP LOCKED) e marcati proiettati nella stessa transazione.
      */
+    @Override
     @Transactional
-    public void updateUserProgress(User user, String topic, String subject,
-                                   int quizCompleted, double score,
-                                   int totalQuestions, int correctAnswers) {
-        try {
-            Optional<UserProgress> existingProgress = userProgressRepository
-                    .findByUserIdAndTopic(user.getId(), topic);
-
-            UserProgress progress;
-            if (existingProgress.isPresent()) {
-                progress = existingProgress.get();
-
-                // Aggiorna statistiche esistenti
-                progress.setQuizCompleted(
-                        (progress.getQuizCompleted() != null ? progress.getQuizCompleted() : 0) + quizCompleted);
-                progress.setTotalQuestions(
-                        (progress.getTotalQuestions() != null ? progress.getTotalQuestions() : 0) + totalQuestions);
-                progress.setCorrectAnswers(
-                        (progress.getCorrectAnswers() != null ? progress.getCorrectAnswers() : 0) + correctAnswers);
-
-                // Ricalcola media
-                if (progress.getTotalQuestions() > 0) {
-                    double newAverage = (progress.getCorrectAnswers() * 100.0) / progress.getTotalQuestions();
-                    progress.setAverageScore(newAverage);
-                }
+    public int projectXpEvents(UUID userId, int maxEvents) {
+        List<XpEvent> events = xpEventRepository.lockPendingByUserId(userId, PageRequest.of(0, maxEvents));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = events.stream().map(XpEvent::getId).toList();
+        UserStats stats = lockOrCreateUserStats(userId);
+        if (stats == null) {
+            // Utente eliminato (eventi scritti dopo la cancellazione, es. flush del write-behind):
+            // marcati proiettati, altrimenti il proiettore li riproverebbe per sempre
+            xpEventRepository.markProjected(ids);
+            logger.warn("Scartati {} eventi XP dell'utente {} non più esistente", ids.size(), userId);
+            eventPublisher.publishEvent(new XpEventsProjected(userId, ids));
+            return events.size();
+        }
+        User user = stats.getUser();
+        ensureOpeningBalance(stats);
+
+        Map<BucketKey, Integer> buckets = new HashMap<>();
+        for (XpEvent event : events) {
+            applyToStats(stats, event, buckets);
+            applyToProgress(user, event);
+        }
+        stats.setLastEventId(Math.max(ids.get(ids.size() - 1),
+                stats.getLastEventId() != null ? stats.getLastEventId() : 0L));
+        xpEventRepository.markProjected(ids);
+
+        checkAndUnlockBadges(user, stats, buckets);
+        // Livello sempre ricavato dal totale, anche per righe scritte con la vecchia logica
+        stats.recalculateLevel();
+        addToBuckets(userId, buckets);
+        userStatsRepository.save(stats);
+        eventPublisher.publishEvent(new XpEventsProjected(userId, ids));
+
+        logger.debug("Proiettati {} eventi XP per l'utente {}. Totale: {}", events.size(), userId, stats.getTotalXp());
+        return events.size();
+    }
+
+    /**
+     * Ricalcola UserStats e bucket dell'utente rileggendo tutti i suoi eventi.
+     * UserProgress e badge non vengono toccati: i badge restano sbloccati e il loro bonus
+     * è già nel registro (BADGE_REWARD).
+     */
+    @Override
+    @Transactional
+    public int replayXpEvents(UUID userId) {
+        UserStats stats = userStatsRepository.findByUserIdForUpdate(userId).orElse(null);
+        if (stats == null) {
+            return 0;
+        }
+        ensureOpeningBalance(stats);
+        stats.resetProjection();
+
+        Map<BucketKey, Integer> buckets = new HashMap<>();
+        int replayed = 0;
+
+        // Il saldo iniziale va applicato per primo anche se ha un id successivo ai primi eventi
+        Optional<XpEvent> opening = xpEventRepository.findFirstByUserIdAndTypeOrderByIdAsc(userId,
+                XpEvent.Type.OPENING_BALANCE);
+        if (opening.isPresent()) {
+            applyToStats(stats, opening.get(), buckets);
+            replayed++;
+        }
 
-            } else {
-                // Crea nuovo progress
-                progress = new UserProgress();
-                progress.setUser(user);
-                progress.setTopic(topic);
-                progress.setSubject(subject);
-                progress.setQuizCompleted(quizCompleted);
-                progress.setTotalQuestions(totalQuestions);
-                progress.setCorrectAnswers(correctAnswers);
-
-                if (totalQuestions > 0) {
-                    progress.setAverageScore((correctAnswers * 100.0) / totalQuestions);
+        long afterId = 0L;
+        List<XpEvent> page;
+        do {
+            page = xpEventRepository.findProjectedByUserId(userId, afterId, PageRequest.of(0, REPLAY_PAGE_SIZE));
+            for (XpEvent event : page) {
+                if (event.getType() != XpEvent.Type.OPENING_BALANCE) {
+                    applyToStats(stats, event, buckets);
+                    replayed++;
                 }
+                afterId = event.getId();
             }
+        } while (page.size() == REPLAY_PAGE_SIZE);
 
-            progress.setLastActivityAt(LocalDateTime.now());
+        if (afterId > 0) {
+            stats.setLastEventId(Math.max(afterId, stats.getLastEventId() != null ? stats.getLastEventId() : 0L));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        buckets.forEach((key, xp) -> xpBucketRepository.setXp(UUID.randomUUID(), userId,
+                key.periodType().name(), key.periodStart(), xp, now));
+        userStatsRepository.save(stats);
+        return replayed;
+    }
+
+    /**
+     * Bucket (settimana o mese) toccato dagli XP di una proiezione
+     */
+    private record BucketKey(XpBucket.PeriodType periodType, LocalDate periodStart) {}
 
-            // Calcola mastery level basato su score medio
-            progress.setMasteryLevel(calculateMasteryLevel(progress.getAverageScore()));
+    /**
+     * Contatori accumulati prima del registro, salvati come JSON nell'evento OPENING_BALANCE
+     */
+    private record OpeningBalance(int explanationsRequested, int quizzesCompleted, int quizzesPassed,
+                                  int flashcardsStudied, int flashcardsMastered,
+                                  int focusSessionsCompleted, int totalStudyTimeMinutes,
+                                  int currentStreak, int longestStreak, String lastActivityDate,
+                                  int weeklyXp, String weeklyXpPeriod, int monthlyXp, String monthlyXpPeriod) {}
 
-            userProgressRepository.save(progress);
-        } catch (Exception e) {
-            logger.warn("Errore aggiornamento UserProgress: {}", e.getMessage());
+    /**
+     * @return null se l'utente non esiste più
+     */
+    private UserStats lockOrCreateUserStats(UUID userId) {
+        Optional<UserStats> existing = userStatsRepository.findByUserIdForUpdate(userId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        if (!userRepository.existsById(userId)) {
+            return null;
         }
+        UserStats stats = new UserStats();
+        stats.setUser(userRepository.getReferenceById(userId));
+        return userStatsRepository.save(stats);
     }
 
     /**
-     * Calcola il livello di padronanza basato sul punteggio medio
+     * Alla prima proiezione di un utente con statistiche precedenti al registro ne salva
+     * una fotografia: senza, una ricostruzione dagli eventi le perderebbe
      */
-    private com.ai.studybuddy.util.enums.DifficultyLevel calculateMasteryLevel(Double averageScore) {
-        if (averageScore == null) return com.ai.studybuddy.util.enums.DifficultyLevel.PRINCIPIANTE;
+    private void ensureOpeningBalance(UserStats stats) {
+        if (stats.getLastEventId() != null) {
+            return;
+        }
+        if (stats.hasActivity()) {
+            OpeningBalance balance = new OpeningBalance(
+                    stats.getExplanationsRequested(), stats.getQuizzesCompleted(), stats.getQuizzesPassed(),
+                    stats.getFlashcardsStudied(), stats.getFlashcardsMastered(),
+                    stats.getFocusSessionsCompleted(), stats.getTotalStudyTimeMinutes(),
+                    stats.getCurrentStreak(), stats.getLongestStreak(), toText(stats.getLastActivityDate()),
+                    stats.getWeeklyXp(), toText(stats.getWeeklyXpPeriod()),
+                    stats.getMonthlyXp(), toText(stats.getMonthlyXpPeriod()));
+            XpEvent opening = xpEventRepository.save(XpEvent.openingBalance(stats.getUser().getId(),
+                    stats.getTotalXp(), GSON.toJson(balance)));
+            stats.setLastEventId(opening.getId());
+        } else {
+            stats.setLastEventId(0L);
+        }
+    }
+
+    private void applyToStats(UserStats stats, XpEvent event, Map<BucketKey, Integer> buckets) {
+        LocalDate day = event.getOccurredAt().toLocalDate();
+        switch (event.getType()) {
+            case EXPLANATION -> stats.incrementExplanations();
+            case QUIZ -> stats.incrementQuizzesCompleted(Boolean.TRUE.equals(event.getPassed()));
+            case FLASHCARD -> stats.incrementFlashcardsStudied(valueOf(event.getQuantity()));
+            case FOCUS_SESSION -> stats.incrementFocusSessions(valueOf(event.getQuantity()));
+            case BADGE_REWARD -> {
+                stats.addXp(event.getXp(), day);
+                addBucketDelta(buckets, day, event.getXp());
+                return;
+            }
+            case OPENING_BALANCE -> {
+                applyOpeningBalance(stats, event, buckets);
+                return;
+            }
+        }
+        stats.updateStreak(day);
+        stats.addXp(event.getXp(), day);
+        addBucketDelta(buckets, day, event.getXp());
+    }
+
+    private void applyOpeningBalance(UserStats stats, XpEvent event, Map<BucketKey, Integer> buckets) {
+        OpeningBalance balance = GSON.fromJson(event.getDetails(), OpeningBalance.class);
+        stats.setTotalXp(stats.getTotalXp() + event.getXp());
+        stats.recalculateLevel();
+        stats.setExplanationsRequested(balance.explanationsRequested());
+        stats.setQuizzesCompleted(balance.quizzesCompleted());
+        stats.setQuizzesPassed(balance.quizzesPassed());
+        stats.setFlashcardsStudied(balance.flashcardsStudied());
+        stats.setFlashcardsMastered(balance.flashcardsMastered());
+        stats.setFocusSessionsCompleted(balance.focusSessionsCompleted());
+        stats.setTotalStudyTimeMinutes(balance.totalStudyTimeMinutes());
+        stats.setCurrentStreak(balance.currentStreak());
+        stats.setLongestStreak(balance.longestStreak());
+        stats.setLastActivityDate(toDate(balance.lastActivityDate()));
+
+        LocalDate weeklyPeriod = toDate(balance.weeklyXpPeriod());
+        if (weeklyPeriod != null) {
+            stats.setWeeklyXp(balance.weeklyXp());
+            stats.setWeeklyXpPeriod(weeklyPeriod);
+            buckets.merge(new BucketKey(XpBucket.PeriodType.WEEK, weeklyPeriod), balance.weeklyXp(), Integer::sum);
+        }
+        LocalDate monthlyPeriod = toDate(balance.monthlyXpPeriod());
+        if (monthlyPeriod != null) {
+            stats.setMonthlyXp(balance.monthlyXp());
+            stats.setMonthlyXpPeriod(monthlyPeriod);
+            buckets.merge(new BucketKey(XpBucket.PeriodType.MONTH, monthlyPeriod), balance.monthlyXp(), Integer::sum);
+        }
+    }
+
+    private void applyToProgress(User user, XpEvent event) {
+        if (event.getTopic() == null) {
+            return;
+        }
+        if (event.getType() == XpEvent.Type.EXPLANATION) {
+            updateUserProgress(user, event.getTopic(), event.getSubject(), 0, 0, 0, 0);
+        } else if (event.getType() == XpEvent.Type.QUIZ) {
+            updateUserProgress(user, event.getTopic(), event.getSubject(), 1, 0,
+                    valueOf(event.getTotalQuestions()), valueOf(event.getCorrectAnswers()));
+        }
+    }
+
+    private static void addBucketDelta(Map<BucketKey, Integer> buckets, LocalDate day, int xp) {
+        for (XpBucket.PeriodType periodType : XpBucket.PeriodType.values()) {
+            buckets.merge(new BucketKey(periodType, periodType.start(day)), xp, Integer::sum);
+        }
+    }
+
+    private void addToBuckets(UUID userId, Map<BucketKey, Integer> buckets) {
+        LocalDateTime now = LocalDateTime.now();
+        buckets.forEach((key, xp) -> xpBucketRepository.addXp(UUID.randomUUID(), userId,
+                key.periodType().name(), key.periodStart(), xp, now));
+    }
+
+    private static String toText(LocalDate date) {
+        return date != null ? date.toString() : null;
+    }
+
+    private static LocalDate toDate(String text) {
+        return text != null ? LocalDate.parse(text) : null;
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    // ==================== INTEGRAZIONE USER PROGRESS ====================
+
+    /**
+     * Aggiorna o crea UserProgress per un topic specifico.
+     * Upsert: un solo UPDATE con i contatori calcolati dal database; al primo quiz sul topic
+     * prima si inserisce la riga vuota (ON CONFLICT DO NOTHING) e poi si applica lo stesso UPDATE,
+     * così la creazione concorrente dello stesso topic non viola il vincolo al commit.
+     */
+    @Transactional
+    public void updateUserProgress(User user, String topic, String subject,
+                                   int quizCompleted, double score,
+                                   int totalQuestions, int correctAnswers) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (applyProgressActivity(user, topic, quizCompleted, totalQuestions, correctAnswers, now) > 0) {
+                return;
+            }
+            userProgressRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), topic, subject,
+                    com.ai.studybuddy.util.enums.DifficultyLevel.PRINCIPIANTE.name(), now);
+            applyProgressActivity(user, topic, quizCompleted, totalQuestions, correctAnswers, now);
+        } catch (Exception e) {
+            logger.warn("Errore aggiornamento UserProgress: {}", e.getMessage());
+        }
+    }
 
-        if (averageScore >= 90) return com.ai.studybuddy.util.enums.DifficultyLevel.AVANZATO;
-        if (averageScore >= 70) return com.ai.studybuddy.util.enums.DifficultyLevel.INTERMEDIO;
-        return com.ai.studybuddy.util.enums.DifficultyLevel.PRINCIPIANTE;
+    private int applyProgressActivity(User user, String topic, int quizCompleted,
+                                      int totalQuestions, int correctAnswers, LocalDateTime now) {
+        return userProgressRepository.applyActivity(user.getId(), topic,
+                quizCompleted, totalQuestions, correctAnswers, now,
+                com.ai.studybuddy.util.enums.DifficultyLevel.AVANZATO,
+                com.ai.studybuddy.util.enums.DifficultyLevel.INTERMEDIO,
+                com.ai.studybuddy.util.enums.DifficultyLevel.PRINCIPIANTE);
     }
 
     // ==================== BADGE ====================
 
     @Override
     public List<BadgeResponse> getAllBadgesWithStatus(UUID userId) {
-        List<Badge> allBadges = badgeRepository.findByIsActiveTrueOrderByRequirementValueAsc();
+        List<Badge> allBadges = badgeRuleEngine.activeBadges();
         UserStats stats = getOrCreateUserStats(userId);
 
         Map<UUID, UserBadge> unlockedMap = userBadgeRepository.findByUserIdOrderByUnlockedAtDesc(userId)
@@ -319,56 +556,65 @@ public class GamificationServiceImpl implements GamificationService {
         userBadgeRepository.markAllAsSeenForUser(userId);
     }
 
+    /**
+     * Valutazione in memoria (BadgeRuleEngine): nessuna query se non si sblocca nulla.
+     * Gli XP bonus dei badge sbloccati possono far scattare badge TOTAL_XP/LEVEL: si rivaluta finché serve.
+     */
     @Override
     @Transactional
     public List<Badge> checkAndUnlockBadges(User user, UserStats stats) {
-        List<Badge> newlyUnlocked = new ArrayList<>();
-
-        // Verifica ogni tipo di requisito
-        checkAndUnlockByType(user, stats, "EXPLANATIONS_COUNT",
-                stats.getExplanationsRequested(), newlyUnlocked);
-        checkAndUnlockByType(user, stats, "QUIZZES_COMPLETED",
-                stats.getQuizzesCompleted(), newlyUnlocked);
-        checkAndUnlockByType(user, stats, "QUIZZES_PASSED",
-                stats.getQuizzesPassed(), newlyUnlocked);
-        checkAndUnlockByType(user, stats, "FLASHCARDS_STUDIED",
-                stats.getFlashcardsStudied(), newlyUnlocked);
-        checkAndUnlockByType(user, stats, "STREAK_DAYS",
-                stats.getCurrentStreak(), newlyUnlocked);
-        checkAndUnlockByType(user, stats, "TOTAL_XP",
-                stats.getTotalXp(), newlyUnlocked);
-        checkAndUnlockByType(user, stats, "LEVEL",
-                stats.getLevel(), newlyUnlocked);
-        checkAndUnlockByType(user, stats, "FOCUS_SESSIONS",
-                stats.getFocusSessionsCompleted(), newlyUnlocked);
-
-        return newlyUnlocked;
+        Map<BucketKey, Integer> buckets = new HashMap<>();
+        List<Badge> unlocked = checkAndUnlockBadges(user, stats, buckets);
+        addToBuckets(user.getId(), buckets);
+        return unlocked;
     }
 
-    private void checkAndUnlockByType(User user, UserStats stats, String type,
-                                      Integer currentValue, List<Badge> newlyUnlocked) {
-        if (currentValue == null) return;
+    private List<Badge> checkAndUnlockBadges(User user, UserStats stats, Map<BucketKey, Integer> buckets) {
+        List<Badge> candidates = badgeRuleEngine.findUnlockable(user.getId(), stats);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
 
-        List<Badge> eligibleBadges = badgeRepository.findUnlockableBadges(type, currentValue);
+        List<Badge> newlyUnlocked = new ArrayList<>();
+        Set<UUID> handled = new HashSet<>();
+        List<UserBadge> toSave = new ArrayList<>();
+        while (!candidates.isEmpty()) {
+            for (Badge badge : candidates) {
+                if (!handled.add(badge.getId())) {
+                    continue;
+                }
+                // Il bitset in cache può essere indietro rispetto a un'altra richiesta concorrente
+                if (userBadgeRepository.existsByUserIdAndBadgeId(user.getId(), badge.getId())) {
+                    badgeRuleEngine.evictUser(user.getId());
+                    continue;
+                }
 
-        for (Badge badge : eligibleBadges) {
-            if (!userBadgeRepository.existsByUserIdAndBadgeId(user.getId(), badge.getId())) {
                 // Sblocca il badge
                 UserBadge userBadge = new UserBadge();
                 userBadge.setUser(user);
-                userBadge.setBadge(badge);
-                userBadge.setProgressAtUnlock(currentValue);
-                userBadgeRepository.save(userBadge);
+                userBadge.setBadge(badgeRepository.getReferenceById(badge.getId()));
+                userBadge.setProgressAtUnlock(BadgeRuleEngine.currentValue(badge.getRequirementType(), stats));
+                toSave.add(userBadge);
 
-                // Aggiungi XP bonus del badge
+                // Aggiungi XP bonus del badge, registrato come evento già proiettato
                 if (badge.getXpReward() != null && badge.getXpReward() > 0) {
+                    xpEventRepository.save(XpEvent.badgeReward(user.getId(), badge.getXpReward(), badge.getId()));
                     stats.addXp(badge.getXpReward());
+                    addBucketDelta(buckets, LocalDate.now(), badge.getXpReward());
                 }
 
                 newlyUnlocked.add(badge);
                 logger.info("Utente {} ha sbloccato il badge: {}", user.getEmail(), badge.getName());
             }
+            candidates = badgeRuleEngine.findUnlockable(user.getId(), stats).stream()
+                    .filter(badge -> !handled.contains(badge.getId()))
+                    .toList();
         }
+
+        if (!toSave.isEmpty()) {
+            userBadgeRepository.saveAll(toSave);
+        }
+        return newlyUnlocked;
     }
 
     private Double calculateBadgeProgress(Badge badge, UserStats stats) {
@@ -376,17 +622,7 @@ public class GamificationServiceImpl implements GamificationService {
             return 0.0;
         }
 
-        Integer currentValue = switch (badge.getRequirementType()) {
-            case "EXPLANATIONS_COUNT" -> stats.getExplanationsRequested();
-            case "QUIZZES_COMPLETED" -> stats.getQuizzesCompleted();
-            case "QUIZZES_PASSED" -> stats.getQuizzesPassed();
-            case "FLASHCARDS_STUDIED" -> stats.getFlashcardsStudied();
-            case "STREAK_DAYS" -> stats.getCurrentStreak();
-            case "TOTAL_XP" -> stats.getTotalXp();
-            case "LEVEL" -> stats.getLevel();
-            case "FOCUS_SESSIONS" -> stats.getFocusSessionsCompleted();
-            default -> 0;
-        };
+        Integer currentValue = BadgeRuleEngine.currentValue(badge.getRequirementType(), stats);
 
         if (currentValue == null) return 0.0;
 
@@ -400,42 +636,92 @@ public class GamificationServiceImpl implements GamificationService {
 
     @Override
     public List<LeaderboardEntry> getXpLeaderboard(int limit) {
-        return userStatsRepository.findTopByTotalXp(limit)
-                .stream()
-                .map(stats -> new LeaderboardEntry(0, stats, "XP"))
-                .collect(Collectors.toList());
+        return getLeaderboard("XP", limit);
     }
 
     @Override
     public List<LeaderboardEntry> getWeeklyLeaderboard(int limit) {
-        return userStatsRepository.findTopByWeeklyXp(limit)
-                .stream()
-                .map(stats -> new LeaderboardEntry(0, stats, "WEEKLY_XP"))
-                .collect(Collectors.toList());
+        return getLeaderboard("WEEKLY_XP", limit);
     }
 
     @Override
     public List<LeaderboardEntry> getStreakLeaderboard(int limit) {
-        return userStatsRepository.findTopByStreak(limit)
-                .stream()
-                .map(stats -> new LeaderboardEntry(0, stats, "STREAK"))
-                .collect(Collectors.toList());
+        return getLeaderboard("STREAK", limit);
+    }
+
+    /**
+     * Classifica dalla struttura in memoria: rank a pari merito e una sola query per nomi e avatar
+     */
+    @Override
+    public List<LeaderboardEntry> getLeaderboard(String type, int limit) {
+        LeaderboardService.Metric metric = LeaderboardService.Metric.parse(type);
+        return toEntries(metric, leaderboardService.top(metric, 0, limit));
+    }
+
+    @Override
+    public List<LeaderboardEntry> getLeaderboardAroundUser(UUID userId, String type, int radius) {
+        LeaderboardService.Metric metric = LeaderboardService.Metric.parse(type);
+        return toEntries(metric, leaderboardService.around(metric, userId, radius));
     }
 
     @Override
     public int getUserRank(UUID userId, String type) {
-        List<UserStats> allStats = switch (type) {
-            case "XP" -> userStatsRepository.findTopByTotalXp(1000);
-            case "WEEKLY_XP" -> userStatsRepository.findTopByWeeklyXp(1000);
-            case "STREAK" -> userStatsRepository.findTopByStreak(1000);
-            default -> userStatsRepository.findTopByLevel(1000);
-        };
-
-        for (int i = 0; i < allStats.size(); i++) {
-            if (allStats.get(i).getUser().getId().equals(userId)) {
-                return i + 1;
+        return leaderboardService.rankOf(LeaderboardService.Metric.parse(type), userId);
+    }
+
+    /**
+     * Classifica di una settimana o di un mese qualsiasi, letta dai bucket XP
+     */
+    @Override
+    public List<LeaderboardEntry> getPeriodLeaderboard(String period, LocalDate date, int limit) {
+        XpBucket.PeriodType periodType;
+        try {
+            periodType = XpBucket.PeriodType.parse(period);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        List<XpBucket> buckets = xpBucketRepository.findTopByPeriod(periodType, periodType.start(date),
+                PageRequest.of(0, limit));
+
+        Map<UUID, User> users = userRepository.findAllById(buckets.stream().map(XpBucket::getUserId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+
+        List<LeaderboardEntry> entries = new ArrayList<>(buckets.size());
+        int rank = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            XpBucket bucket = buckets.get(i);
+            // Rank a pari merito, come nelle classifiche in memoria
+            if (i == 0 || bucket.getXp() != buckets.get(i - 1).getXp()) {
+                rank = i + 1;
             }
+            User user = users.get(bucket.getUserId());
+            entries.add(new LeaderboardEntry(rank, bucket.getUserId(),
+                    user != null ? user.getFullName() : null,
+                    user != null ? user.getAvatarUrl() : null,
+                    bucket.getXp(), leaderboardService.levelOf(bucket.getUserId()), periodType.name()));
+        }
+        return entries;
+    }
+
+    private List<LeaderboardEntry> toEntries(LeaderboardService.Metric metric, List<LeaderboardService.Ranked> ranked) {
+        Map<UUID, User> users = userRepository.findAllById(ranked.stream().map(LeaderboardService.Ranked::userId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+
+        List<LeaderboardEntry> entries = new ArrayList<>(ranked.size());
+        for (LeaderboardService.Ranked r : ranked) {
+            User user = users.get(r.userId());
+            // Per LEVEL il cast tiene i 32 bit bassi: il valore mostrato sono gli XP totali
+            int value = (int) r.score();
+            int level = metric == LeaderboardService.Metric.LEVEL
+                    ? (int) (r.score() >>> 32)
+                    : leaderboardService.levelOf(r.userId());
+            entries.add(new LeaderboardEntry(r.rank(), r.userId(),
+                    user != null ? user.getFullName() : null,
+                    user != null ? user.getAvatarUrl() : null,
+                    value, level, metric.name()));
         }
-        return -1;
+        return entries;
     }
-}
\ No newline at end of file
+}
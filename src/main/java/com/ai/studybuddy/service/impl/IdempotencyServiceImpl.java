@@ -0,0 +1,130 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.config.resilience.Deadline;
+import com.ai.studybuddy.service.inter.IdempotencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Implementazione in memoria delle chiavi di idempotenza.
+ * Le operazioni fallite non vengono memorizzate: un retry con la stessa chiave riesegue il lavoro.
+ *
+ * Le chiavi vivono nella memoria del singolo nodo: con più istanze dietro un load balancer
+ * un retry che arriva su un altro nodo riesegue l'operazione, e un riavvio le dimentica tutte.
+ * I risultati memorizzati devono essere DTO, mai entity JPA: vengono riletti da altri thread
+ * dopo la chiusura della transazione che li ha prodotti.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int CLEANUP_EVERY = 100;
+
+    @Value("${idempotency.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    @Value("${idempotency.max-wait-seconds:90}")
+    private long maxWaitSeconds;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger callsSinceCleanup = new AtomicInteger();
+
+    private record Entry(String fingerprint, CompletableFuture<Object> result, long createdAt) {}
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(UUID userId, String key, String fingerprint, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key troppo lunga");
+        }
+
+        cleanupIfNeeded();
+
+        String scopedKey = userId + ":" + key;
+        Entry created = new Entry(fingerprint, new CompletableFuture<>(), System.currentTimeMillis());
+        Entry existing = entries.putIfAbsent(scopedKey, created);
+
+        if (existing != null && isExpired(existing)) {
+            // Scaduta ma non ancora ripulita: la sostituiamo atomicamente
+            existing = entries.replace(scopedKey, existing, created) ? null : entries.get(scopedKey);
+        }
+
+        if (existing != null) {
+            if (!existing.fingerprint().equals(fingerprint)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key già usata con parametri diversi");
+            }
+            log.info("Richiesta duplicata con Idempotency-Key {}: riuso del risultato", key);
+            return (T) await(existing.result());
+        }
+
+        try {
+            T value = action.get();
+            created.result().complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.result().completeExceptionally(e);
+            entries.remove(scopedKey, created);
+            throw e;
+        }
+    }
+
+    /**
+     * Attende l'esecuzione originale al massimo fino alla deadline della richiesta
+     * (o idempotency.max-wait-seconds): un duplicato non deve tenere occupato un thread per sempre.
+     */
+    private Object await(CompletableFuture<Object> future) {
+        Duration wait = Deadline.remainingOr(Duration.ofSeconds(maxWaitSeconds), "attesa Idempotency-Key");
+        try {
+            return future.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Richiesta con la stessa Idempotency-Key ancora in corso, riprova tra poco");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Attesa interrotta");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        // Le esecuzioni in corso non scadono mai
+        return entry.result().isDone()
+                && System.currentTimeMillis() - entry.createdAt() > ttlMinutes * 60_000;
+    }
+
+    private void cleanupIfNeeded() {
+        if (callsSinceCleanup.incrementAndGet() < CLEANUP_EVERY) {
+            return;
+        }
+        callsSinceCleanup.set(0);
+        entries.entrySet().removeIf(e -> isExpired(e.getValue()));
+    }
+}
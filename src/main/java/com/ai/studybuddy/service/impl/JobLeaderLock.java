@@ -0,0 +1,118 @@
+package com.ai.studybuddy.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Elezione del leader per i job schedulati, con gli advisory lock di PostgreSQL.
+ *
+ * Ogni nodo prova pg_try_advisory_lock sulla chiave del job: chi lo ottiene esegue il job,
+ * gli altri saltano il giro senza attendere. Il lock è di sessione, quindi resta legato a una
+ * connessione dedicata per tutta l'esecuzione; le transazioni dei chunk usano connessioni proprie
+ * e restano brevi. Se il nodo muore la sessione si chiude e il lock si libera da solo.
+ *
+ * Su altri database (H2 in sviluppo) un solo nodo: basta un lock locale.
+ */
+@Component
+public class JobLeaderLock {
+
+    private static final Logger log = LoggerFactory.getLogger(JobLeaderLock.class);
+
+    // Prima metà della chiave a due int: separa i lock dei job da altri advisory lock sullo stesso DB
+    private static final int LOCK_NAMESPACE = "studybuddy-jobs".hashCode();
+
+    private final DataSource dataSource;
+    private final Set<String> localLocks = ConcurrentHashMap.newKeySet();
+    private volatile Boolean postgres;
+
+    public JobLeaderLock(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Esegue il job solo se questo nodo ottiene il lock
+     * @return false se il job è già in esecuzione (qui o su un altro nodo)
+     */
+    public boolean runIfLeader(String jobName, Runnable job) {
+        if (!isPostgres()) {
+            return runLocally(jobName, job);
+        }
+        try (Connection con = dataSource.getConnection()) {
+            if (!call(con, "SELECT pg_try_advisory_lock(?, ?)", jobName)) {
+                return false;
+            }
+            try {
+                job.run();
+            } finally {
+                release(con, jobName);
+            }
+            return true;
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Lock del job " + jobName + " non disponibile", e);
+        }
+    }
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try (Connection con = dataSource.getConnection()) {
+                result = "PostgreSQL".equalsIgnoreCase(con.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                throw new DataAccessResourceFailureException("Database non raggiungibile", e);
+            }
+            postgres = result;
+        }
+        return result;
+    }
+
+    /**
+     * Una connessione tornata al pool con il lock ancora preso bloccherebbe il job per sempre:
+     * se l'unlock fallisce la connessione fisica viene chiusa, e con lei la sessione
+     */
+    private void release(Connection con, String jobName) {
+        try {
+            if (!call(con, "SELECT pg_advisory_unlock(?, ?)", jobName)) {
+                log.warn("Lock del job {} non più posseduto al rilascio", jobName);
+            }
+        } catch (SQLException e) {
+            log.error("Rilascio del lock del job {} fallito, chiudo la connessione: {}", jobName, e.getMessage());
+            try {
+                con.abort(Runnable::run);
+            } catch (SQLException ignored) {
+                // La connessione è comunque inutilizzabile
+            }
+        }
+    }
+
+    private static boolean call(Connection con, String sql, String jobName) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setInt(1, LOCK_NAMESPACE);
+            ps.setInt(2, jobName.hashCode());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean runLocally(String jobName, Runnable job) {
+        if (!localLocks.add(jobName)) {
+            return false;
+        }
+        try {
+            job.run();
+            return true;
+        } finally {
+            localLocks.remove(jobName);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.UserStatsChangedEvent;
+import com.ai.studybuddy.model.gamification.XpBucket;
+import com.ai.studybuddy.repository.UserStatsRepository;
+import com.ai.studybuddy.repository.UserStatsRepository.LeaderboardRow;
+import com.ai.studybuddy.service.inter.LeaderboardService;
+import com.ai.studybuddy.util.ranking.OrderStatisticTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Service
+public class LeaderboardServiceImpl implements LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardServiceImpl.class);
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final UserStatsRepository userStatsRepository;
+    private final boolean rebuildOnStartup;
+    private final int batchSize;
+
+    // Letture concorrenti (rank, top, around), scritture esclusive (eventi XP, swap dopo rebuild)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Metric, OrderStatisticTree> boards = newBoards(16);
+    // Versione di UserStats già applicata per utente: gli eventi più vecchi (riapplicati dopo un rebuild
+    // o arrivati fuori ordine) non sovrascrivono valori più recenti. Long.MAX_VALUE = utente eliminato
+    private Map<UUID, Long> versions = new HashMap<>();
+    private volatile boolean built;
+    // Settimana a cui si riferisce la classifica WEEKLY_XP: al cambio si svuota, niente reset sul database
+    private volatile LocalDate weeklyBoardStart = currentWeekStart();
+
+    // Eventi arrivati durante una ricostruzione: riapplicati sulle nuove classifiche dopo lo swap
+    private volatile boolean rebuilding;
+    private final ConcurrentLinkedQueue<UserStatsChangedEvent> pendingDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    public LeaderboardServiceImpl(UserStatsRepository userStatsRepository,
+                                  @Value("${leaderboard.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                                  @Value("${leaderboard.rebuild-batch-size:1000}") int batchSize) {
+        this.userStatsRepository = userStatsRepository;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.batchSize = batchSize;
+    }
+
+    // ==================== QUERY ====================
+
+    @Override
+    public List<Ranked> top(Metric metric, int offset, int limit) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            OrderStatisticTree board = boards.get(metric);
+            List<Ranked> result = new ArrayList<>(Math.max(0, Math.min(limit, board.size() - offset)));
+            for (int position = Math.max(0, offset); position < board.size() && result.size() < limit; position++) {
+                result.add(rankedAt(board, position));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Ranked> around(Metric metric, UUID userId, int radius) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            OrderStatisticTree board = boards.get(metric);
+            int position = board.positionOf(userId);
+            if (position < 0) {
+                return List.of();
+            }
+            int from = Math.max(0, position - radius);
+            int to = Math.min(board.size() - 1, position + radius);
+            List<Ranked> result = new ArrayList<>(to - from + 1);
+            for (int p = from; p <= to; p++) {
+                result.add(rankedAt(board, p));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int rankOf(Metric metric, UUID userId) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            return boards.get(metric).rankOf(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int levelOf(UUID userId) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            long score = boards.get(Metric.LEVEL).scoreOf(userId, -1L);
+            return score >= 0 ? (int) (score >>> 32) : 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int totalXpOf(UUID userId) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            return (int) boards.get(Metric.XP).scoreOf(userId, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size(Metric metric) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            return boards.get(metric).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== AGGIORNAMENTI ====================
+
+    /**
+     * Dopo il commit: una transazione annullata non sposta nessuno in classifica
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatsChanged(UserStatsChangedEvent event) {
+        if (rebuilding) {
+            pendingDuringRebuild.add(event);
+        }
+        lock.writeLock().lock();
+        try {
+            rollWeekLocked();
+            apply(boards, versions, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Ricostruzione classifiche fallita: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Le nuove classifiche si costruiscono fuori dal lock: le letture continuano
+     * sulle vecchie fino allo swap
+     */
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDate weekStart = currentWeekStart();
+        rebuilding = true;
+        try {
+            Map<Metric, OrderStatisticTree> fresh = newBoards((int) Math.min(Integer.MAX_VALUE, userStatsRepository.count()));
+            Map<UUID, Long> freshVersions = new HashMap<>();
+            UUID afterId = MIN_UUID;
+            List<LeaderboardRow> page;
+            do {
+                page = userStatsRepository.findLeaderboardRows(afterId, PageRequest.of(0, batchSize));
+                for (LeaderboardRow row : page) {
+                    int weeklyXp = weekStart.equals(row.getWeeklyXpPeriod()) ? valueOf(row.getWeeklyXp()) : 0;
+                    apply(fresh, freshVersions, new UserStatsChangedEvent(row.getUserId(),
+                            valueOf(row.getTotalXp()), weeklyXp, valueOf(row.getCurrentStreak()),
+                            row.getLevel() != null ? row.getLevel() : 1,
+                            row.getVersion() != null ? row.getVersion() : 0L, false));
+                    afterId = row.getId();
+                }
+            } while (page.size() == batchSize);
+
+            lock.writeLock().lock();
+            try {
+                UserStatsChangedEvent event;
+                // Solo gli eventi più recenti della riga letta: quelli già inclusi nella lettura vengono scartati
+                while ((event = pendingDuringRebuild.poll()) != null) {
+                    apply(fresh, freshVersions, event);
+                }
+                boards = fresh;
+                versions = freshVersions;
+                weeklyBoardStart = weekStart;
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Classifiche ricostruite: {} utenti in {}ms",
+                    fresh.get(Metric.XP).size(), System.currentTimeMillis() - start);
+        } finally {
+            rebuilding = false;
+            pendingDuringRebuild.clear();
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    private void ensureBuilt() {
+        if (built) {
+            if (!currentWeekStart().equals(weeklyBoardStart)) {
+                lock.writeLock().lock();
+                try {
+                    rollWeekLocked();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            if (!built) {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Lunedì: la classifica settimanale riparte vuota e si ripopola con i primi XP della settimana.
+     * Va chiamato con il write lock.
+     */
+    private void rollWeekLocked() {
+        LocalDate weekStart = currentWeekStart();
+        if (!weekStart.equals(weeklyBoardStart)) {
+            boards.get(Metric.WEEKLY_XP).clear();
+            weeklyBoardStart = weekStart;
+            log.info("Nuova settimana {}: classifica settimanale azzerata", weekStart);
+        }
+    }
+
+    private static LocalDate currentWeekStart() {
+        return XpBucket.PeriodType.WEEK.start(LocalDate.now());
+    }
+
+    private static void apply(Map<Metric, OrderStatisticTree> target, Map<UUID, Long> versions,
+                              UserStatsChangedEvent event) {
+        if (event.removed()) {
+            versions.put(event.userId(), Long.MAX_VALUE);
+            target.values().forEach(board -> board.remove(event.userId()));
+            return;
+        }
+        Long applied = versions.get(event.userId());
+        if (applied != null && applied >= event.version()) {
+            return;
+        }
+        versions.put(event.userId(), event.version());
+        target.get(Metric.XP).put(event.userId(), event.totalXp());
+        // Nella settimanale solo chi ha XP nella settimana corrente
+        if (event.weeklyXp() > 0) {
+            target.get(Metric.WEEKLY_XP).put(event.userId(), event.weeklyXp());
+        } else {
+            target.get(Metric.WEEKLY_XP).remove(event.userId());
+        }
+        target.get(Metric.STREAK).put(event.userId(), event.currentStreak());
+        // Livello e poi XP totali come spareggio, in un solo long
+        target.get(Metric.LEVEL).put(event.userId(), ((long) event.level() << 32) | event.totalXp());
+    }
+
+    private static Ranked rankedAt(OrderStatisticTree board, int position) {
+        long score = board.scoreAt(position);
+        return new Ranked(board.idAt(position), score, board.rankOfScore(score));
+    }
+
+    private static Map<Metric, OrderStatisticTree> newBoards(int capacity) {
+        Map<Metric, OrderStatisticTree> boards = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            boards.put(metric, new OrderStatisticTree(capacity));
+        }
+        return boards;
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
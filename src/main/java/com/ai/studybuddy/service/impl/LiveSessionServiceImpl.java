@@ -0,0 +1,481 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.dto.live.CreateLiveSessionRequest;
+import com.ai.studybuddy.dto.live.LiveAnswerRequest;
+import com.ai.studybuddy.exception.ResourceNotFoundException;
+import com.ai.studybuddy.model.live.LiveAnswer;
+import com.ai.studybuddy.model.live.LiveSession;
+import com.ai.studybuddy.model.quiz.QuizTemplate;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.repository.LiveAnswerRepository;
+import com.ai.studybuddy.repository.QuizRepository;
+import com.ai.studybuddy.service.inter.LiveSessionService;
+import com.ai.studybuddy.service.inter.QuizTemplateService;
+import com.google.gson.Gson;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class LiveSessionServiceImpl implements LiveSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveSessionServiceImpl.class);
+
+    private static final String CODE_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final int CODE_LENGTH = 6;
+    private static final long TICK_MS = 100;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000;
+    private static final int LEADERBOARD_SIZE = 10;
+    // Client serviti da un singolo task di broadcast
+    private static final int EMITTERS_PER_TASK = 50;
+
+    private final QuizRepository quizRepository;
+    private final QuizTemplateService quizTemplateService;
+    private final LiveAnswerRepository liveAnswerRepository;
+    private final Gson gson = new Gson();
+    private final SecureRandom random = new SecureRandom();
+
+    private final int defaultSecondsPerQuestion;
+    private final int maxPoints;
+    private final long emitterTimeoutMs;
+    private final int flushBatchSize;
+    private final Duration idleTimeout;
+
+    private final Map<String, LiveSession> sessions = new ConcurrentHashMap<>();
+
+    // Risposte in attesa di essere salvate: la richiesta dello studente non tocca il database
+    private final ConcurrentLinkedQueue<LiveAnswer> pendingAnswers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private volatile long lastFlushAt = System.currentTimeMillis();
+    private volatile long lastHeartbeatAt = System.currentTimeMillis();
+    // Un solo flush alla volta in coda sul writer
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    private final ScheduledExecutorService ticker;
+    // Scrive le risposte sul database fuori dal ticker: un saveAll lento non ritarda reveal e heartbeat
+    private final ExecutorService answerWriter;
+    // Una corsia single-thread per sessione (per hash del codice): gli eventi arrivano in ordine
+    private final ExecutorService[] broadcastLanes;
+
+    public LiveSessionServiceImpl(QuizRepository quizRepository,
+                                  QuizTemplateService quizTemplateService,
+                                  LiveAnswerRepository liveAnswerRepository,
+                                  @Value("${live.seconds-per-question:20}") int defaultSecondsPerQuestion,
+                                  @Value("${live.max-points:1000}") int maxPoints,
+                                  @Value("${live.emitter-timeout-ms:3600000}") long emitterTimeoutMs,
+                                  @Value("${live.flush-batch-size:200}") int flushBatchSize,
+                                  @Value("${live.session-idle-minutes:30}") int sessionIdleMinutes,
+                                  @Value("${live.broadcast-threads:4}") int broadcastThreads) {
+        this.quizRepository = quizRepository;
+        this.quizTemplateService = quizTemplateService;
+        this.liveAnswerRepository = liveAnswerRepository;
+        this.defaultSecondsPerQuestion = defaultSecondsPerQuestion;
+        this.maxPoints = maxPoints;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.flushBatchSize = flushBatchSize;
+        this.idleTimeout = Duration.ofMinutes(sessionIdleMinutes);
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(daemon("live-ticker"));
+        this.answerWriter = Executors.newSingleThreadExecutor(daemon("live-answer-writer"));
+        this.broadcastLanes = new ExecutorService[Math.max(1, broadcastThreads)];
+        for (int i = 0; i < broadcastLanes.length; i++) {
+            broadcastLanes[i] = Executors.newSingleThreadExecutor(daemon("live-broadcast-" + i));
+        }
+        this.ticker.scheduleWithFixedDelay(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== CICLO DI VITA ====================
+
+    @Override
+    public LiveSession createSession(CreateLiveSessionRequest request, User host) {
+        quizRepository.findByIdAndUserId(request.getQuizId(), host.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", "id", request.getQuizId()));
+        QuizTemplate template = quizTemplateService.getTemplate(request.getQuizId());
+        if (template.questions().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Il quiz non ha domande");
+        }
+
+        int seconds = request.getSecondsPerQuestion() != null
+                ? request.getSecondsPerQuestion() : defaultSecondsPerQuestion;
+        LiveSession session;
+        do {
+            session = new LiveSession(newCode(), host.getId(), template, seconds);
+        } while (sessions.putIfAbsent(session.getCode(), session) != null);
+
+        log.info("Sessione live {} creata da {} sul quiz {} ({} domande)",
+                session.getCode(), host.getEmail(), template.id(), template.questions().size());
+        return session;
+    }
+
+    @Override
+    public LiveSession getSession(String code) {
+        LiveSession session = sessions.get(code.toUpperCase());
+        if (session == null) {
+            throw new ResourceNotFoundException("Sessione live", "codice", code);
+        }
+        return session;
+    }
+
+    @Override
+    public LiveSession join(String code, User user) {
+        LiveSession session = getSession(code);
+        if (session.getStatus() == LiveSession.Status.FINISHED) {
+            throw new ResponseStatusException(HttpStatus.GONE, "La sessione è terminata");
+        }
+        String lastName = user.getLastName();
+        String displayName = user.getFirstName()
+                + (lastName != null && !lastName.isBlank() ? " " + lastName.charAt(0) + "." : "");
+        session.join(user.getId(), displayName);
+        // Il conteggio partecipanti viene inviato dal tick, non a ogni ingresso
+        return session;
+    }
+
+    @Override
+    public SseEmitter subscribe(String code, UUID userId) {
+        LiveSession session = getSession(code);
+        if (!session.getHostId().equals(userId) && !session.isParticipant(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Entra nella sessione prima di seguirla");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        session.getEmitters().add(emitter);
+        emitter.onCompletion(() -> session.getEmitters().remove(emitter));
+        emitter.onTimeout(() -> session.getEmitters().remove(emitter));
+        emitter.onError(e -> session.getEmitters().remove(emitter));
+
+        // Stato iniziale subito, così chi si collega a metà domanda vede countdown e istogramma
+        try {
+            emitter.send(frame("state", stateEvent(session)));
+            if (session.getStatus() == LiveSession.Status.QUESTION) {
+                emitter.send(frame("question", questionEvent(session)));
+                emitter.send(frame("histogram", histogramEvent(session)));
+            }
+        } catch (IOException e) {
+            session.getEmitters().remove(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @Override
+    public LiveSession nextQuestion(String code, UUID hostId) {
+        LiveSession session = requireHost(code, hostId);
+        if (session.getStatus() == LiveSession.Status.QUESTION && session.reveal()) {
+            broadcast(session, "reveal", revealEvent(session));
+        }
+        if (session.advance()) {
+            broadcast(session, "question", questionEvent(session));
+        } else {
+            finish(session);
+        }
+        return session;
+    }
+
+    @Override
+    public LiveSession reveal(String code, UUID hostId) {
+        LiveSession session = requireHost(code, hostId);
+        if (session.reveal()) {
+            broadcast(session, "reveal", revealEvent(session));
+        }
+        return session;
+    }
+
+    @Override
+    public LiveSession endSession(String code, UUID hostId) {
+        LiveSession session = requireHost(code, hostId);
+        finish(session);
+        return session;
+    }
+
+    @Override
+    public boolean answer(String code, UUID userId, LiveAnswerRequest request) {
+        LiveSession session = getSession(code);
+        QuizTemplate.Item item = session.answer(userId, request.getQuestionId(), request.getAnswer(), maxPoints);
+        if (item == null) {
+            return false;
+        }
+        String letter = request.getAnswer().trim().toUpperCase();
+        pendingAnswers.add(new LiveAnswer(session.getCode(), session.getTemplate().id(), item.id(), userId,
+                letter, item.isCorrect(letter)));
+        pendingCount.incrementAndGet();
+        return true;
+    }
+
+    // ==================== TICK ====================
+
+    /**
+     * Ogni 100ms: scadenza delle domande, push coalescente di istogramma e partecipanti,
+     * salvataggio a blocchi delle risposte (sul writer dedicato), heartbeat e pulizia delle sessioni inattive
+     */
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            boolean heartbeat = now - lastHeartbeatAt >= HEARTBEAT_INTERVAL_MS;
+            if (heartbeat) {
+                lastHeartbeatAt = now;
+            }
+            Instant idleBefore = Instant.now().minus(idleTimeout);
+
+            for (LiveSession session : sessions.values()) {
+                if (session.getLastActivity().isBefore(idleBefore)
+                        || (session.getStatus() == LiveSession.Status.FINISHED && session.getEmitters().isEmpty())) {
+                    close(session);
+                    continue;
+                }
+                if (session.consumeHistogramChange()) {
+                    broadcast(session, "histogram", histogramEvent(session));
+                }
+                if (session.consumeParticipantsChange()) {
+                    broadcast(session, "participants", Map.of("count", session.getParticipantCount()));
+                }
+                if (session.isExpired() && session.reveal()) {
+                    broadcast(session, "reveal", revealEvent(session));
+                }
+                if (heartbeat) {
+                    sendToAll(session, SseEmitter.event().comment("ping").build());
+                }
+            }
+
+            if ((pendingCount.get() >= flushBatchSize || now - lastFlushAt >= FLUSH_INTERVAL_MS)
+                    && flushQueued.compareAndSet(false, true)) {
+                lastFlushAt = now;
+                answerWriter.execute(() -> {
+                    try {
+                        flushAnswers();
+                    } finally {
+                        flushQueued.set(false);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            // Un errore non deve fermare il ticker (scheduleWithFixedDelay si interrompe alla prima eccezione)
+            log.error("Errore nel tick delle sessioni live: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flushAnswers() {
+        List<LiveAnswer> batch = new ArrayList<>(flushBatchSize);
+        LiveAnswer answer;
+        while ((answer = pendingAnswers.poll()) != null) {
+            batch.add(answer);
+            pendingCount.decrementAndGet();
+            if (batch.size() == flushBatchSize) {
+                saveBatch(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            saveBatch(batch);
+        }
+    }
+
+    private void saveBatch(List<LiveAnswer> batch) {
+        try {
+            liveAnswerRepository.saveAll(batch);
+        } catch (RuntimeException e) {
+            // Lo storico è secondario rispetto alla sessione in corso: si registra e si prosegue
+            log.error("Salvataggio di {} risposte live fallito: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+        sessions.values().forEach(this::close);
+        answerWriter.shutdown();
+        try {
+            answerWriter.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Risposte arrivate dopo l'ultimo flush del writer
+        flushAnswers();
+        for (ExecutorService lane : broadcastLanes) {
+            lane.shutdown();
+        }
+    }
+
+    // ==================== BROADCAST ====================
+
+    /**
+     * Serializza l'evento una sola volta e lo invia a tutti i client della sessione
+     * dalla sua corsia di broadcast: il chiamante (richiesta HTTP o tick) non attende i client lenti
+     */
+    private void broadcast(LiveSession session, String event, Object payload) {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = frame(event, payload);
+        sendToAll(session, frame);
+    }
+
+    private void sendToAll(LiveSession session, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        List<SseEmitter> emitters = session.getEmitters();
+        if (emitters.isEmpty()) {
+            return;
+        }
+        ExecutorService lane = broadcastLanes[Math.floorMod(session.getCode().hashCode(), broadcastLanes.length)];
+        List<SseEmitter> snapshot = List.copyOf(emitters);
+        for (int from = 0; from < snapshot.size(); from += EMITTERS_PER_TASK) {
+            List<SseEmitter> chunk = snapshot.subList(from, Math.min(from + EMITTERS_PER_TASK, snapshot.size()));
+            lane.execute(() -> {
+                for (SseEmitter emitter : chunk) {
+                    try {
+                        emitter.send(frame);
+                    } catch (IOException | IllegalStateException e) {
+                        // Client disconnesso: verrà rimosso dalle callback dell'emitter
+                        emitters.remove(emitter);
+                    }
+                }
+            });
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> frame(String event, Object payload) {
+        return SseEmitter.event().name(event).data(gson.toJson(payload)).build();
+    }
+
+    private void finish(LiveSession session) {
+        session.finish();
+        broadcast(session, "finished", Map.of("leaderboard", leaderboard(session)));
+        ExecutorService lane = broadcastLanes[Math.floorMod(session.getCode().hashCode(), broadcastLanes.length)];
+        // Dopo l'ultimo evento in corsia: i client ricevono la classifica prima della chiusura
+        lane.execute(() -> session.getEmitters().forEach(SseEmitter::complete));
+        log.info("Sessione live {} terminata ({} partecipanti)", session.getCode(), session.getParticipantCount());
+    }
+
+    private void close(LiveSession session) {
+        sessions.remove(session.getCode());
+        session.getEmitters().forEach(SseEmitter::complete);
+        log.debug("Sessione live {} rimossa", session.getCode());
+    }
+
+    // ==================== EVENTI ====================
+
+    // Mappe e tipi semplici: Gson non serializza java.time senza adapter
+
+    private Map<String, Object> stateEvent(LiveSession session) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("code", session.getCode());
+        event.put("title", session.getTemplate().title());
+        event.put("status", session.getStatus().name());
+        event.put("currentIndex", session.getCurrentIndex());
+        event.put("totalQuestions", session.getTemplate().questions().size());
+        event.put("participantCount", session.getParticipantCount());
+        return event;
+    }
+
+    /**
+     * Testo e opzioni senza risposta corretta; la scadenza è in epoch millis
+     */
+    private Map<String, Object> questionEvent(LiveSession session) {
+        QuizTemplate.Item item = session.currentQuestion();
+        Map<String, Object> question = new LinkedHashMap<>();
+        question.put("id", item.id().toString());
+        question.put("questionText", item.questionText());
+        question.put("optionA", item.optionA());
+        question.put("optionB", item.optionB());
+        question.put("optionC", item.optionC());
+        question.put("optionD", item.optionD());
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("index", session.getCurrentIndex());
+        event.put("totalQuestions", session.getTemplate().questions().size());
+        event.put("deadline", session.getQuestionDeadline().toEpochMilli());
+        event.put("question", question);
+        return event;
+    }
+
+    private Map<String, Object> histogramEvent(LiveSession session) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("index", session.getCurrentIndex());
+        event.put("counts", counts(session));
+        event.put("answered", session.answeredCount());
+        event.put("participantCount", session.getParticipantCount());
+        return event;
+    }
+
+    private Map<String, Object> revealEvent(LiveSession session) {
+        QuizTemplate.Item item = session.currentQuestion();
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("index", session.getCurrentIndex());
+        event.put("questionId", item.id().toString());
+        event.put("correctAnswer", item.correctAnswer());
+        event.put("explanation", item.explanation());
+        event.put("counts", counts(session));
+        event.put("leaderboard", leaderboard(session));
+        return event;
+    }
+
+    private Map<String, Integer> counts(LiveSession session) {
+        int[] histogram = session.histogramSnapshot();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < LiveSession.LETTERS.length; i++) {
+            counts.put(LiveSession.LETTERS[i], histogram[i]);
+        }
+        return counts;
+    }
+
+    private List<Map<String, Object>> leaderboard(LiveSession session) {
+        return session.leaderboard(LEADERBOARD_SIZE).stream()
+                .map(p -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("userId", p.getUserId().toString());
+                    entry.put("displayName", p.getDisplayName());
+                    entry.put("score", p.getScore());
+                    entry.put("correctAnswers", p.getCorrectAnswers());
+                    return entry;
+                })
+                .toList();
+    }
+
+    // ==================== UTILITY ====================
+
+    private LiveSession requireHost(String code, UUID userId) {
+        LiveSession session = getSession(code);
+        if (!session.getHostId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Solo il docente può gestire la sessione");
+        }
+        return session;
+    }
+
+    private String newCode() {
+        StringBuilder sb = new StringBuilder(CODE_LENGTH);
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            sb.append(CODE_ALPHABET.charAt(random.nextInt(CODE_ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
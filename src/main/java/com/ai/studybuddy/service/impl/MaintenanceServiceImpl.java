@@ -0,0 +1,337 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.UserStats;
+import com.ai.studybuddy.model.maintenance.JobRun;
+import com.ai.studybuddy.repository.JobRunRepository;
+import com.ai.studybuddy.repository.JobRunRepository.JobStats;
+import com.ai.studybuddy.repository.RecommendationRepository;
+import com.ai.studybuddy.repository.UserStatsRepository;
+import com.ai.studybuddy.repository.XpBucketRepository;
+import com.ai.studybuddy.service.inter.MaintenanceService;
+import com.ai.studybuddy.service.inter.QuizAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+@Service
+public class MaintenanceServiceImpl implements MaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaintenanceServiceImpl.class);
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final UserStatsRepository userStatsRepository;
+    private final RecommendationRepository recommendationRepository;
+    private final XpBucketRepository xpBucketRepository;
+    private final JobRunRepository jobRunRepository;
+    private final QuizAnalyticsService quizAnalyticsService;
+    private final JobLeaderLock jobLeaderLock;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+
+    private final int chunkSize;
+    private final long chunkPauseMs;
+    private final long lockTimeoutMs;
+    private final int recommendationRetentionDays;
+    private final int jobRunRetentionDays;
+    private final int xpBucketRetentionDays;
+    private final CronExpression streakResetCron;
+    private final CronExpression recommendationCleanupCron;
+    private final CronExpression retentionCron;
+    private final CronExpression quizAnalyticsRebuildCron;
+
+    public MaintenanceServiceImpl(UserStatsRepository userStatsRepository,
+                                  RecommendationRepository recommendationRepository,
+                                  XpBucketRepository xpBucketRepository,
+                                  JobRunRepository jobRunRepository,
+                                  QuizAnalyticsService quizAnalyticsService,
+                                  JobLeaderLock jobLeaderLock,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${maintenance.chunk-size:500}") int chunkSize,
+                                  @Value("${maintenance.chunk-pause-ms:100}") long chunkPauseMs,
+                                  @Value("${maintenance.chunk-timeout-seconds:10}") int chunkTimeoutSeconds,
+                                  @Value("${maintenance.lock-timeout-ms:2000}") long lockTimeoutMs,
+                                  @Value("${maintenance.recommendations.retention-days:30}") int recommendationRetentionDays,
+                                  @Value("${maintenance.job-runs.retention-days:90}") int jobRunRetentionDays,
+                                  @Value("${maintenance.xp-buckets.retention-days:730}") int xpBucketRetentionDays,
+                                  @Value("${maintenance.streak-reset.cron:0 5 0 * * *}") String streakResetCron,
+                                  @Value("${maintenance.recommendation-cleanup.cron:0 20 3 * * *}") String recommendationCleanupCron,
+                                  @Value("${maintenance.retention.cron:0 40 3 * * *}") String retentionCron,
+                                  @Value("${maintenance.quiz-analytics-rebuild.cron:0 0 4 * * SUN}") String quizAnalyticsRebuildCron) {
+        this.userStatsRepository = userStatsRepository;
+        this.recommendationRepository = recommendationRepository;
+        this.xpBucketRepository = xpBucketRepository;
+        this.jobRunRepository = jobRunRepository;
+        this.quizAnalyticsService = quizAnalyticsService;
+        this.jobLeaderLock = jobLeaderLock;
+        this.jdbcTemplate = jdbcTemplate;
+        // Timeout per chunk: Spring lo applica come query timeout JDBC
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setTimeout(chunkTimeoutSeconds);
+        this.chunkSize = chunkSize;
+        this.chunkPauseMs = chunkPauseMs;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.recommendationRetentionDays = recommendationRetentionDays;
+        this.jobRunRetentionDays = jobRunRetentionDays;
+        this.xpBucketRetentionDays = xpBucketRetentionDays;
+        this.streakResetCron = CronExpression.parse(streakResetCron);
+        this.recommendationCleanupCron = CronExpression.parse(recommendationCleanupCron);
+        this.retentionCron = CronExpression.parse(retentionCron);
+        this.quizAnalyticsRebuildCron = CronExpression.parse(quizAnalyticsRebuildCron);
+    }
+
+    // ==================== SCHEDULAZIONE ====================
+
+    @Scheduled(cron = "${maintenance.streak-reset.cron:0 5 0 * * *}")
+    public void scheduledStreakReset() {
+        runJob(JOB_STREAK_RESET, scheduleWindow(streakResetCron, LocalDateTime.now()), this::resetBrokenStreaks);
+    }
+
+    @Scheduled(cron = "${maintenance.recommendation-cleanup.cron:0 20 3 * * *}")
+    public void scheduledRecommendationCleanup() {
+        runJob(JOB_RECOMMENDATION_CLEANUP, scheduleWindow(recommendationCleanupCron, LocalDateTime.now()),
+                this::cleanupRecommendations);
+    }
+
+    @Scheduled(cron = "${maintenance.retention.cron:0 40 3 * * *}")
+    public void scheduledRetention() {
+        runJob(JOB_RETENTION, scheduleWindow(retentionCron, LocalDateTime.now()), this::applyRetention);
+    }
+
+    @Scheduled(cron = "${maintenance.quiz-analytics-rebuild.cron:0 0 4 * * SUN}")
+    public void scheduledQuizAnalyticsRebuild() {
+        runJob(JOB_QUIZ_ANALYTICS_REBUILD, scheduleWindow(quizAnalyticsRebuildCron, LocalDateTime.now()),
+                this::rebuildQuizAnalytics);
+    }
+
+    // ==================== JOB ====================
+
+    @Override
+    public int resetBrokenStreaks() {
+        return runJob(JOB_STREAK_RESET, null, this::resetBrokenStreaks);
+    }
+
+    private void resetBrokenStreaks(JobProgress progress) {
+        LocalDate cutoff = LocalDate.now().minusDays(1);
+        forEachChunk(progress,
+                (afterId, page) -> userStatsRepository.findBrokenStreakIds(cutoff, afterId, page),
+                ids -> {
+                    // Salvataggio via entity: @Version protegge dalle proiezioni XP concorrenti
+                    // e il listener aggiorna la classifica degli streak dopo il commit
+                    for (UserStats stats : userStatsRepository.findAllById(ids)) {
+                        if (stats.getLastActivityDate() != null && stats.getLastActivityDate().isBefore(cutoff)) {
+                            stats.setCurrentStreak(0);
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public int cleanupRecommendations() {
+        return runJob(JOB_RECOMMENDATION_CLEANUP, null, this::cleanupRecommendations);
+    }
+
+    private void cleanupRecommendations(JobProgress progress) {
+        LocalDateTime now = LocalDateTime.now();
+        forEachChunk(progress,
+                (afterId, page) -> recommendationRepository.findExpiredIds(now, afterId, page),
+                recommendationRepository::deleteAllByIdInBatch);
+
+        LocalDateTime cutoff = now.minusDays(recommendationRetentionDays);
+        forEachChunk(progress,
+                (afterId, page) -> recommendationRepository.findOldCompletedIds(cutoff, afterId, page),
+                recommendationRepository::deleteAllByIdInBatch);
+    }
+
+    @Override
+    public int applyRetention() {
+        return runJob(JOB_RETENTION, null, this::applyRetention);
+    }
+
+    private void applyRetention(JobProgress progress) {
+        LocalDateTime jobRunCutoff = LocalDateTime.now().minusDays(jobRunRetentionDays);
+        forEachChunk(progress,
+                (afterId, page) -> jobRunRepository.findIdsStartedBefore(jobRunCutoff, afterId, page),
+                jobRunRepository::deleteAllByIdInBatch);
+
+        // Le classifiche storiche restano disponibili per xp-buckets.retention-days
+        LocalDate bucketCutoff = LocalDate.now().minusDays(xpBucketRetentionDays);
+        forEachChunk(progress,
+                (afterId, page) -> xpBucketRepository.findIdsWithPeriodStartBefore(bucketCutoff, afterId, page),
+                xpBucketRepository::deleteAllByIdInBatch);
+
+        logJobStats();
+    }
+
+    @Override
+    public int rebuildQuizAnalytics() {
+        return runJob(JOB_QUIZ_ANALYTICS_REBUILD, null, this::rebuildQuizAnalytics);
+    }
+
+    private void rebuildQuizAnalytics(JobProgress progress) {
+        // Una transazione per utente gestita da QuizAnalyticsService, non i chunk di forEachChunk
+        progress.items += quizAnalyticsService.rebuildAll();
+    }
+
+    // ==================== ESECUZIONE ====================
+
+    /**
+     * Lock di leader, riga in job_runs con durata e righe elaborate; gli errori restano nel job.
+     *
+     * Il lock impedisce solo le esecuzioni sovrapposte: con windowStart (giri schedulati) il job
+     * controlla anche, sotto lock, che nella finestra non ci sia già un'esecuzione riuscita.
+     * Un giro fallito o interrotto invece si può ripetere nella stessa finestra.
+     */
+    private int runJob(String jobName, LocalDateTime windowStart, Consumer<JobProgress> work) {
+        JobProgress progress = new JobProgress();
+        boolean ran;
+        try {
+            ran = jobLeaderLock.runIfLeader(jobName, () -> {
+                if (windowStart != null && jobRunRepository.existsByJobNameAndWindowStartAndStatus(
+                        jobName, windowStart, JobRun.Status.SUCCEEDED)) {
+                    progress.alreadyDone = true;
+                    return;
+                }
+                JobRun run = jobRunRepository.save(new JobRun(jobName, NODE, windowStart));
+                long start = System.currentTimeMillis();
+                try {
+                    work.accept(progress);
+                    long elapsed = System.currentTimeMillis() - start;
+                    run.succeed(progress.items, progress.chunks, elapsed);
+                    log.info("Job {} completato: {} righe in {} chunk ({} saltati), {}ms",
+                            jobName, progress.items, progress.chunks, progress.failedChunks, elapsed);
+                } catch (RuntimeException e) {
+                    long elapsed = System.currentTimeMillis() - start;
+                    run.fail(progress.items, progress.chunks, elapsed, e.getMessage());
+                    log.error("Job {} fallito dopo {}ms: {}", jobName, elapsed, e.getMessage());
+                }
+                jobRunRepository.save(run);
+            });
+        } catch (DataAccessException e) {
+            log.error("Job {} non avviato: {}", jobName, e.getMessage());
+            return -1;
+        }
+        if (!ran) {
+            log.debug("Job {} già in esecuzione su un altro nodo", jobName);
+            return -1;
+        }
+        if (progress.alreadyDone) {
+            log.debug("Job {} già completato nella finestra del {}", jobName, windowStart);
+            return -1;
+        }
+        return progress.items;
+    }
+
+    /**
+     * Inizio della finestra del cron: l'ultima attivazione prevista non successiva a now.
+     * Il secondo di tolleranza copre un'attivazione dello scheduler con qualche millisecondo di anticipo.
+     */
+    static LocalDateTime scheduleWindow(CronExpression cron, LocalDateTime now) {
+        LocalDateTime limit = now.plusSeconds(1);
+        LocalDateTime from = limit.minusDays(1);
+        LocalDateTime next = cron.next(from);
+        // Cron più radi di un giorno (settimanali, mensili): si allarga la ricerca all'indietro
+        while ((next == null || next.isAfter(limit)) && from.isAfter(limit.minusYears(1))) {
+            from = from.minusDays(7);
+            next = cron.next(from);
+        }
+        if (next == null || next.isAfter(limit)) {
+            return null;
+        }
+        LocalDateTime window = next;
+        while ((next = cron.next(window)) != null && !next.isAfter(limit)) {
+            window = next;
+        }
+        return window;
+    }
+
+    /**
+     * Ciclo keyset comune: legge al più chunkSize id dopo l'ultimo elaborato e li passa
+     * a process in una transazione breve. Un chunk che va in conflitto con il traffico
+     * (lock timeout, lock ottimistico) viene saltato: lo riprende il giro successivo.
+     */
+    private void forEachChunk(JobProgress progress,
+                              BiFunction<UUID, Pageable, List<UUID>> nextIds,
+                              Consumer<List<UUID>> process) {
+        Pageable page = PageRequest.of(0, chunkSize);
+        UUID afterId = MIN_UUID;
+        while (true) {
+            List<UUID> ids = nextIds.apply(afterId, page);
+            if (ids.isEmpty()) {
+                return;
+            }
+            afterId = ids.get(ids.size() - 1);
+            try {
+                chunkTransaction.executeWithoutResult(status -> {
+                    if (jobLeaderLock.isPostgres()) {
+                        // Meglio rinunciare al chunk che far aspettare una richiesta utente
+                        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeoutMs + "ms'");
+                    }
+                    process.accept(ids);
+                });
+                progress.items += ids.size();
+            } catch (DataAccessException | TransactionException e) {
+                progress.failedChunks++;
+                log.warn("Chunk saltato ({} righe): {}", ids.size(), e.getMessage());
+            }
+            progress.chunks++;
+
+            if (ids.size() < chunkSize) {
+                return;
+            }
+            if (!pause()) {
+                return;
+            }
+        }
+    }
+
+    private boolean pause() {
+        if (chunkPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(chunkPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void logJobStats() {
+        List<JobStats> stats = jobRunRepository.findStatsSince(LocalDateTime.now().minusDays(7));
+        for (JobStats s : stats) {
+            log.info("Job {} (7 giorni): {} esecuzioni, {} fallite, durata media {}ms, massima {}ms",
+                    s.getJobName(), s.getRuns(), s.getFailures(),
+                    s.getAvgDurationMs() != null ? Math.round(s.getAvgDurationMs()) : 0,
+                    s.getMaxDurationMs() != null ? s.getMaxDurationMs() : 0);
+        }
+    }
+
+    private static class JobProgress {
+        int items;
+        int chunks;
+        int failedChunks;
+        boolean alreadyDone;
+    }
+}
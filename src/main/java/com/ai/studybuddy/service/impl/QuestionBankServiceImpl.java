@@ -0,0 +1,211 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.mapper.QuizMapper;
+import com.ai.studybuddy.model.quiz.BankQuestion;
+import com.ai.studybuddy.repository.BankQuestionRepository;
+import com.ai.studybuddy.service.inter.QuestionBankService;
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+import com.ai.studybuddy.util.semantic.TextNormalizer;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class QuestionBankServiceImpl implements QuestionBankService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionBankServiceImpl.class);
+
+    private static final int TOPIC_KEY_MAX_LENGTH = 255;
+    private static final String DEFAULT_LANGUAGE = "it";
+    private static final List<String> SUPPORTED_LANGUAGES = List.of("it", "en", "es", "fr", "de", "pt", "ru");
+
+    private final BankQuestionRepository bankQuestionRepository;
+    private final QuizMapper quizMapper;
+
+    @Value("${quiz.bank.enabled:true}")
+    private boolean enabled;
+
+    // Sotto questo numero di risposte il tasso di correttezza non è ancora significativo
+    @Value("${quiz.bank.min-sample:20}")
+    private long minSample;
+
+    // Domande quasi sempre sbagliate (ambigue/errate) o quasi sempre giuste (banali) non vengono riproposte
+    @Value("${quiz.bank.min-correct-rate:0.15}")
+    private double minCorrectRate;
+
+    @Value("${quiz.bank.max-correct-rate:0.95}")
+    private double maxCorrectRate;
+
+    private QuestionBankService selfProxy;
+
+    public QuestionBankServiceImpl(BankQuestionRepository bankQuestionRepository, QuizMapper quizMapper) {
+        this.bankQuestionRepository = bankQuestionRepository;
+        this.quizMapper = quizMapper;
+    }
+
+    @Autowired
+    public void setSelfProxy(@Lazy QuestionBankService questionBankService) {
+        this.selfProxy = questionBankService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BankQuestion> pickForQuiz(UUID userId, String topic, DifficultyLevel difficulty,
+                                          String language, int count) {
+        // Validata anche a banca disabilitata: la stessa lingua serve poi per salvare le domande generate
+        String lang = normalizeLanguage(language);
+        if (!enabled || count <= 0) {
+            return List.of();
+        }
+        List<BankQuestion> picked = bankQuestionRepository.findCandidates(topicKey(topic), difficulty,
+                lang, userId, minSample, minCorrectRate, maxCorrectRate,
+                PageRequest.of(0, count));
+        log.debug("Banca domande - topic: {}, richieste: {}, disponibili: {}", topic, count, picked.size());
+        return picked;
+    }
+
+    /**
+     * Due generazioni concorrenti sullo stesso topic possono inserire la stessa domanda:
+     * la seconda fallisce sul vincolo unique e al nuovo tentativo trova la riga già presente.
+     */
+    @Override
+    public List<BankQuestion> addGenerated(String topic, DifficultyLevel difficulty, String language,
+                                           List<JsonObject> questions) {
+        try {
+            return selfProxy.storeGenerated(topic, difficulty, language, questions);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Inserimento concorrente nella banca domande, nuovo tentativo: {}", e.getMessage());
+            return selfProxy.storeGenerated(topic, difficulty, language, questions);
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<BankQuestion> storeGenerated(String topic, DifficultyLevel difficulty, String language,
+                                             List<JsonObject> questions) {
+        String key = topicKey(topic);
+        String lang = normalizeLanguage(language);
+
+        // Deduplica anche all'interno della stessa generazione
+        Map<String, BankQuestion> byHash = new LinkedHashMap<>();
+        for (JsonObject json : questions) {
+            List<String> problems = quizMapper.validateQuestionJson(json);
+            if (!problems.isEmpty()) {
+                // Difesa per chiamanti che non hanno validato: una domanda senza risposta corretta non entra in banca
+                log.warn("Banca domande - topic: {}, domanda scartata: {}", key, String.join(", ", problems));
+                continue;
+            }
+            BankQuestion candidate = quizMapper.toBankQuestion(json);
+            candidate.setTopicKey(key);
+            candidate.setDifficultyLevel(difficulty);
+            candidate.setLanguage(lang);
+            candidate.setContentHash(contentHash(candidate.getQuestionText()));
+            byHash.putIfAbsent(candidate.getContentHash(), candidate);
+        }
+        if (byHash.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, BankQuestion> existing = bankQuestionRepository
+                .findByKeyAndHashes(key, difficulty, lang, byHash.keySet()).stream()
+                .collect(Collectors.toMap(BankQuestion::getContentHash, Function.identity()));
+
+        List<BankQuestion> toInsert = new ArrayList<>();
+        List<BankQuestion> result = new ArrayList<>(byHash.size());
+        for (Map.Entry<String, BankQuestion> entry : byHash.entrySet()) {
+            BankQuestion found = existing.get(entry.getKey());
+            if (found != null) {
+                result.add(found);
+            } else {
+                toInsert.add(entry.getValue());
+                result.add(entry.getValue());
+            }
+        }
+
+        if (!toInsert.isEmpty()) {
+            bankQuestionRepository.saveAllAndFlush(toInsert);
+            log.info("Banca domande - topic: {}, {} nuove domande ({} già presenti)",
+                    key, toInsert.size(), existing.size());
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void recordServed(Collection<UUID> bankQuestionIds) {
+        if (!bankQuestionIds.isEmpty()) {
+            bankQuestionRepository.incrementServed(bankQuestionIds, LocalDateTime.now());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void recordAnswers(Collection<UUID> correctIds, Collection<UUID> wrongIds) {
+        if (!correctIds.isEmpty()) {
+            bankQuestionRepository.recordAnswers(correctIds, 1);
+        }
+        if (!wrongIds.isEmpty()) {
+            bankQuestionRepository.recordAnswers(wrongIds, 0);
+        }
+    }
+
+    // ==================== UTILITY ====================
+
+    /**
+     * "La Rivoluzione Francese" e "rivoluzione francese!" finiscono sulla stessa chiave
+     */
+    private static String topicKey(String topic) {
+        String key = TextNormalizer.normalize(topic);
+        return key.length() <= TOPIC_KEY_MAX_LENGTH ? key : key.substring(0, TOPIC_KEY_MAX_LENGTH);
+    }
+
+    /**
+     * La colonna language è lunga 5 e fa parte della chiave unique: si riduce il tag al codice
+     * ISO primario ("it-IT", "pt_BR" -> "it", "pt") e si accettano solo le lingue supportate
+     */
+    static String normalizeLanguage(String language) {
+        if (language == null || language.isBlank()) {
+            return DEFAULT_LANGUAGE;
+        }
+        String primary = language.trim().toLowerCase(Locale.ROOT).split("[-_]", 2)[0];
+        if (!SUPPORTED_LANGUAGES.contains(primary)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Lingua non supportata. Supportate: " + SUPPORTED_LANGUAGES);
+        }
+        return primary;
+    }
+
+    private static String contentHash(String questionText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(TextNormalizer.normalize(questionText).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.quiz.UserQuizSummary;
+import com.ai.studybuddy.model.quiz.UserQuizTopicScore;
+import com.ai.studybuddy.repository.QuizRepository;
+import com.ai.studybuddy.repository.UserQuizSummaryRepository;
+import com.ai.studybuddy.repository.UserQuizTopicScoreRepository;
+import com.ai.studybuddy.service.inter.QuizAnalyticsService;
+import com.ai.studybuddy.service.inter.QuizService.QuizStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+@Service
+public class QuizAnalyticsServiceImpl implements QuizAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizAnalyticsServiceImpl.class);
+
+    private static final double PASS_THRESHOLD = 60.0;
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final UserQuizSummaryRepository summaryRepository;
+    private final UserQuizTopicScoreRepository topicScoreRepository;
+    private final QuizRepository quizRepository;
+
+    @Value("${quiz.analytics.backfill-batch-size:200}")
+    private int backfillBatchSize;
+
+    @Value("${quiz.analytics.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    private QuizAnalyticsService selfProxy;
+
+    public QuizAnalyticsServiceImpl(UserQuizSummaryRepository summaryRepository,
+                                    UserQuizTopicScoreRepository topicScoreRepository,
+                                    QuizRepository quizRepository) {
+        this.summaryRepository = summaryRepository;
+        this.topicScoreRepository = topicScoreRepository;
+        this.quizRepository = quizRepository;
+    }
+
+    @Autowired
+    public void setSelfProxy(@Lazy QuizAnalyticsService quizAnalyticsService) {
+        this.selfProxy = quizAnalyticsService;
+    }
+
+    @Override
+    @Transactional
+    public void recordQuizCreated(UUID userId) {
+        applyOrRebuild(userId, 1, 0, 0, 0, 0.0);
+    }
+
+    @Override
+    @Transactional
+    public void recordQuizCompleted(UUID userId, String topic, Double percentage) {
+        double score = percentage != null ? percentage : 0.0;
+        boolean passed = score >= PASS_THRESHOLD;
+        // Prima la summary: il lock di riga serializza anche l'upsert del topic per questo utente
+        boolean rebuilt = applyOrRebuild(userId, 0, 1, passed ? 1 : 0, passed ? 0 : 1, score);
+        if (!rebuilt) {
+            raiseTopicBest(userId, topic, score);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void recordCompletionReverted(UUID userId, Double percentage) {
+        double score = percentage != null ? percentage : 0.0;
+        boolean passed = score >= PASS_THRESHOLD;
+        applyOrRebuild(userId, 0, -1, passed ? -1 : 0, passed ? 0 : -1, -score);
+    }
+
+    @Override
+    @Transactional
+    public void recordQuizDeleted(UUID userId, boolean wasCompleted, Double percentage) {
+        if (!wasCompleted) {
+            applyOrRebuild(userId, -1, 0, 0, 0, 0.0);
+            return;
+        }
+        double score = percentage != null ? percentage : 0.0;
+        boolean passed = score >= PASS_THRESHOLD;
+        applyOrRebuild(userId, -1, -1, passed ? -1 : 0, passed ? 0 : -1, -score);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public QuizStats getStats(UUID userId) {
+        // Senza riga si calcola dallo storico senza scriverla: la crea il backfill o la prossima modifica
+        return summaryRepository.findById(userId)
+                .map(QuizAnalyticsServiceImpl::toStats)
+                .orElseGet(() -> {
+                    UserQuizSummary summary = new UserQuizSummary(userId);
+                    applyTotals(summary, quizRepository.aggregateTotalsByUserId(userId));
+                    return toStats(summary);
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Double> getBestScore(UUID userId, String topic) {
+        return topicScoreRepository.findByUserIdAndTopic(userId, topic)
+                .map(UserQuizTopicScore::getBestPercentage);
+    }
+
+    @Override
+    @Transactional
+    public QuizStats rebuild(UUID userId) {
+        // Riga garantita e bloccata prima di leggere lo storico: le ricostruzioni concorrenti si mettono in fila
+        // e i delta applicati nel frattempo restano in attesa del lock invece di essere sovrascritti
+        summaryRepository.insertIfAbsent(userId, LocalDateTime.now());
+        UserQuizSummary summary = summaryRepository.findByUserIdForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Summary quiz mancante dopo l'inserimento: " + userId));
+
+        applyTotals(summary, quizRepository.aggregateTotalsByUserId(userId));
+        summary.setUpdatedAt(LocalDateTime.now());
+        summaryRepository.save(summary);
+
+        topicScoreRepository.deleteByUserId(userId);
+        for (QuizRepository.TopicBest best : quizRepository.findBestScoresByUserId(userId)) {
+            topicScoreRepository.save(new UserQuizTopicScore(userId, best.getTopic(), best.getBest()));
+        }
+
+        log.debug("Summary quiz ricostruita per utente {}: {} quiz, {} completati",
+                userId, summary.getTotalQuizzes(), summary.getCompletedQuizzes());
+        return toStats(summary);
+    }
+
+    @Override
+    public int backfillMissing() {
+        return rebuildEach(quizRepository::findUserIdsWithoutSummaryAfter, "backfill");
+    }
+
+    @Override
+    public int rebuildAll() {
+        return rebuildEach(quizRepository::findUserIdsWithQuizzesAfter, "ricostruzione");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            int rebuilt = selfProxy.backfillMissing();
+            if (rebuilt > 0) {
+                log.info("Backfill summary quiz completato: {} utenti", rebuilt);
+            }
+        } catch (Exception e) {
+            log.warn("Backfill summary quiz fallito: {}", e.getMessage());
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    /**
+     * Scorre gli utenti in ordine di id (keyset): un utente che fallisce resta senza summary
+     * ma non viene riletto all'infinito, e il giro continua con gli altri
+     */
+    private int rebuildEach(BiFunction<UUID, Pageable, List<UUID>> nextUserIds, String operation) {
+        Pageable page = PageRequest.of(0, backfillBatchSize);
+        UUID afterId = MIN_UUID;
+        int rebuilt = 0;
+        int failed = 0;
+        List<UUID> batch;
+        do {
+            batch = nextUserIds.apply(afterId, page);
+            for (UUID userId : batch) {
+                // una transazione per utente: un errore non blocca il resto
+                try {
+                    selfProxy.rebuild(userId);
+                    rebuilt++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.warn("Summary quiz - {} fallita per utente {}: {}", operation, userId, e.getMessage());
+                }
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == backfillBatchSize);
+
+        if (failed > 0) {
+            log.warn("Summary quiz - {}: {} utenti ricostruiti, {} falliti", operation, rebuilt, failed);
+        }
+        return rebuilt;
+    }
+
+    /**
+     * @return true se la riga mancava ed è stata ricostruita dallo storico
+     *         (che include già la modifica corrente: il delta non va applicato)
+     */
+    private boolean applyOrRebuild(UUID userId, long total, long completed, long passed, long failed, double score) {
+        int updated = summaryRepository.applyDelta(userId, total, completed, passed, failed, score, LocalDateTime.now());
+        if (updated == 0) {
+            rebuild(userId);
+            return true;
+        }
+        return false;
+    }
+
+    private void raiseTopicBest(UUID userId, String topic, double score) {
+        if (topic == null) {
+            return;
+        }
+        int raised = topicScoreRepository.raiseBest(userId, topic, score, LocalDateTime.now());
+        if (raised == 0 && !topicScoreRepository.existsByUserIdAndTopic(userId, topic)) {
+            topicScoreRepository.save(new UserQuizTopicScore(userId, topic, score));
+        }
+    }
+
+    private static void applyTotals(UserQuizSummary summary, QuizRepository.QuizTotals totals) {
+        summary.setTotalQuizzes(totals.getTotal());
+        summary.setCompletedQuizzes(nullToZero(totals.getCompleted()));
+        summary.setPassedQuizzes(nullToZero(totals.getPassed()));
+        summary.setFailedQuizzes(nullToZero(totals.getFailed()));
+        summary.setScoreSum(totals.getScoreSum() != null ? totals.getScoreSum() : 0.0);
+    }
+
+    private static QuizStats toStats(UserQuizSummary summary) {
+        return new QuizStats(
+                summary.getTotalQuizzes(),
+                summary.getCompletedQuizzes(),
+                summary.getPassedQuizzes(),
+                summary.getFailedQuizzes(),
+                summary.getAverageScore()
+        );
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.dto.gamification.GamificationDTO.XpEventResponse;
+import com.ai.studybuddy.dto.quiz.QuizAnswerRequest;
+import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.service.inter.GamificationService;
+import com.ai.studybuddy.service.inter.QuizCompletionService;
+import com.ai.studybuddy.service.inter.QuizService;
+import com.ai.studybuddy.service.inter.QuizTemplateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class QuizCompletionServiceImpl implements QuizCompletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizCompletionServiceImpl.class);
+
+    private final QuizService quizService;
+    private final QuizTemplateService quizTemplateService;
+    private final GamificationService gamificationService;
+
+    private QuizCompletionService selfProxy;
+
+    public QuizCompletionServiceImpl(QuizService quizService,
+                                     QuizTemplateService quizTemplateService,
+                                     GamificationService gamificationService) {
+        this.quizService = quizService;
+        this.quizTemplateService = quizTemplateService;
+        this.gamificationService = gamificationService;
+    }
+
+    @Autowired
+    public void setSelfProxy(@Lazy QuizCompletionService quizCompletionService) {
+        this.selfProxy = quizCompletionService;
+    }
+
+    /**
+     * I service chiamati partecipano a questa transazione: tentativo ed evento XP sono scritti
+     * insieme al commit, statistiche, progressi e badge li aggiorna poi il proiettore XP
+     */
+    @Override
+    @Transactional
+    public QuizResultResponse completeQuiz(QuizAnswerRequest request, User user) {
+        QuizResultResponse result = quizService.submitAnswers(request, user.getId());
+        if (!result.isFirstCompletion()) {
+            log.info("Quiz {} già completato - Score: {}/{}, nessun XP",
+                    request.getQuizId(), result.getScore(), result.getTotalQuestions());
+            return result;
+        }
+        XpEventResponse xpEvent = applyQuizXp(user, result);
+
+        log.info("Quiz {} completato - Score: {}/{}, XP guadagnati: {}",
+                request.getQuizId(), result.getScore(), result.getTotalQuestions(), xpEvent.getXpEarned());
+        return result;
+    }
+
+    /**
+     * Due invii concorrenti del primo tentativo: il secondo fallisce sul vincolo uk_attempt_rewarded
+     * e al nuovo tentativo trova il completamento già premiato, quindi viene registrato senza XP
+     */
+    @Override
+    public QuizResultResponse completeSharedQuiz(String shareCode, Map<UUID, String> answers, User user) {
+        try {
+            return selfProxy.recordSharedCompletion(shareCode, answers, user);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Completamento concorrente del quiz condiviso {}, nuovo tentativo: {}", shareCode, e.getMessage());
+            return selfProxy.recordSharedCompletion(shareCode, answers, user);
+        }
+    }
+
+    @Override
+    @Transactional
+    public QuizResultResponse recordSharedCompletion(String shareCode, Map<UUID, String> answers, User user) {
+        QuizResultResponse result = quizTemplateService.submitSharedAttempt(shareCode, answers, user.getId());
+        if (!result.isFirstCompletion()) {
+            log.info("Quiz condiviso {} già completato - Score: {}/{}, nessun XP",
+                    shareCode, result.getScore(), result.getTotalQuestions());
+            return result;
+        }
+        XpEventResponse xpEvent = applyQuizXp(user, result);
+
+        log.info("Quiz condiviso {} completato - Score: {}/{}, XP guadagnati: {}",
+                shareCode, result.getScore(), result.getTotalQuestions(), xpEvent.getXpEarned());
+        return result;
+    }
+
+    /**
+     * Assegna gli XP del quiz completato e li riporta nella risposta
+     */
+    private XpEventResponse applyQuizXp(User user, QuizResultResponse result) {
+        XpEventResponse xpEvent = gamificationService.recordQuizXp(
+                user,
+                result.isPassed(),
+                result.getTopic(),
+                result.getSubject(),
+                result.getScorePercentage(),
+                result.getTotalQuestions(),
+                result.getScore()
+        );
+
+        result.setXpEarned(xpEvent.getXpEarned());
+        result.setTotalXp(xpEvent.getNewTotalXp());
+        result.setLevel(xpEvent.getNewLevel());
+        result.setLeveledUp(xpEvent.isLeveledUp());
+        // I badge li sblocca il proiettore dopo il commit: la risposta non ne riporta
+
+        return xpEvent;
+    }
+}
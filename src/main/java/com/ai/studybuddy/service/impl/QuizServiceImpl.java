@@ -1,30 +1,48 @@
 package com.ai.studybuddy.service.impl;
 
+import com.ai.studybuddy.config.resilience.Bulkhead;
 import com.ai.studybuddy.dto.quiz.QuizAnswerRequest;
+import com.ai.studybuddy.dto.quiz.QuizDetailResponse;
 import com.ai.studybuddy.dto.quiz.QuizGenerateRequest;
 import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.dto.quiz.QuizSummaryResponse;
+import com.ai.studybuddy.exception.AIServiceException;
+import com.ai.studybuddy.exception.AIServiceException.AIErrorType;
 import com.ai.studybuddy.exception.ResourceNotFoundException;
 import com.ai.studybuddy.mapper.QuizMapper;
+import com.ai.studybuddy.model.quiz.BankQuestion;
 import com.ai.studybuddy.model.quiz.Question;
 import com.ai.studybuddy.model.quiz.Quiz;
+import com.ai.studybuddy.model.quiz.QuizAttempt;
+import com.ai.studybuddy.model.quiz.QuizTemplate;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.repository.QuestionRepository;
 import com.ai.studybuddy.repository.QuizRepository;
 import com.ai.studybuddy.service.inter.AIService;
+import com.ai.studybuddy.service.inter.QuestionBankService;
+import com.ai.studybuddy.service.inter.QuizAnalyticsService;
 import com.ai.studybuddy.service.inter.QuizService;
+import com.ai.studybuddy.service.inter.QuizTemplateService;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
+import com.ai.studybuddy.util.pagination.CursorPage;
+import com.ai.studybuddy.util.pagination.PageCursor;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -38,6 +56,10 @@ public class QuizServiceImpl implements QuizService {
     private final QuestionRepository questionRepository;
     private final AIService aiService;
     private final QuizMapper quizMapper;
+    private final QuizAnalyticsService quizAnalyticsService;
+    private final QuestionBankService questionBankService;
+    private final QuizTemplateService quizTemplateService;
+    private final Bulkhead aiBulkhead;
     private final Gson gson = new Gson();
 
     private QuizService selfProxy;
@@ -45,11 +67,19 @@ public class QuizServiceImpl implements QuizService {
     public QuizServiceImpl(QuizRepository quizRepository,
                            QuestionRepository questionRepository,
                            AIService aiService,
-                           QuizMapper quizMapper) {
+                           QuizMapper quizMapper,
+                           QuizAnalyticsService quizAnalyticsService,
+                           QuestionBankService questionBankService,
+                           QuizTemplateService quizTemplateService,
+                           @Qualifier("aiBulkBulkhead") Bulkhead aiBulkhead) {
         this.quizRepository = quizRepository;
         this.questionRepository = questionRepository;
         this.aiService = aiService;
         this.quizMapper = quizMapper;
+        this.quizAnalyticsService = quizAnalyticsService;
+        this.questionBankService = questionBankService;
+        this.quizTemplateService = quizTemplateService;
+        this.aiBulkhead = aiBulkhead;
     }
 
     @Autowired
@@ -57,37 +87,108 @@ public class QuizServiceImpl implements QuizService {
         this.selfProxy = quizService;
     }
 
+    /**
+     * Il quiz viene composto prima dalla banca domande condivisa; l'AI genera solo le domande mancanti.
+     * La chiamata AI avviene fuori da qualsiasi transazione: nessuna connessione DB
+     * resta occupata mentre si attende Groq. Il salvataggio è una transazione breve separata.
+     */
     @Override
-    @Transactional
     public Quiz generateQuiz(QuizGenerateRequest request, User user) {
         log.info("Generazione quiz - topic: {}, domande: {}, difficoltà: {}, lingua: {}",
                 request.getTopic(), request.getNumberOfQuestions(), 
                 request.getDifficultyLevel(), request.getLanguage());
 
-        Quiz quiz = quizMapper.toEntity(request, user);
-        quiz = quizRepository.save(quiz);
+        int requested = request.getNumberOfQuestions();
+        List<BankQuestion> fromBank = aiBulkhead.withDbConnection(() -> questionBankService.pickForQuiz(
+                user.getId(), request.getTopic(), request.getDifficultyLevel(), request.getLanguage(), requested));
+
+        List<BankQuestion> generated = List.of();
+        int missing = requested - fromBank.size();
+        if (missing > 0) {
+            List<JsonObject> validItems;
+            try {
+                validItems = generateQuestions(request, missing, fromBank);
+            } catch (AIServiceException e) {
+                if (fromBank.isEmpty()) {
+                    throw e;
+                }
+                // Meglio un quiz più corto con le sole domande della banca che nessun quiz
+                log.warn("Generazione domande mancanti fallita, quiz con {} domande dalla banca: {}",
+                        fromBank.size(), e.getMessage());
+                validItems = List.of();
+            }
+            if (!validItems.isEmpty()) {
+                List<JsonObject> items = validItems;
+                generated = aiBulkhead.withDbConnection(() -> questionBankService.addGenerated(
+                        request.getTopic(), request.getDifficultyLevel(), request.getLanguage(), items));
+            }
+        } else {
+            log.info("Quiz composto interamente dalla banca domande, nessuna chiamata AI");
+        }
+
+        // Una domanda generata può coincidere con una già presa dalla banca: si tiene una sola copia
+        Map<UUID, BankQuestion> unique = new LinkedHashMap<>();
+        fromBank.forEach(q -> unique.put(q.getId(), q));
+        generated.forEach(q -> unique.putIfAbsent(q.getId(), q));
+        List<BankQuestion> questions = unique.values().stream().limit(requested).toList();
 
+        Quiz quiz = aiBulkhead.withDbConnection(() -> selfProxy.saveGeneratedQuiz(request, user, questions));
+        log.info("Quiz generato con ID: {}, {} domande ({} dalla banca), lingua: {}",
+                quiz.getId(), quiz.getNumberOfQuestions(), fromBank.size(), request.getLanguage());
+
+        return quiz;
+    }
+
+    /**
+     * Genera con l'AI {@code count} domande valide. Se una parte del quiz viene dalla banca
+     * si usa il prompt di rigenerazione, che riceve i testi da non ripetere.
+     */
+    private List<JsonObject> generateQuestions(QuizGenerateRequest request, int count, List<BankQuestion> fromBank) {
         // ✅ PASSA LA LINGUA DALLA REQUEST!
-        String aiResponse = aiService.generateQuiz(
-                request.getTopic(),
-                request.getNumberOfQuestions(),
-                request.getDifficultyLevel(),
-                request.getLanguage()
-        );
-
-        JsonArray questionsJson = parseQuizJson(aiResponse);
-
-        for (int i = 0; i < questionsJson.size(); i++) {
-            JsonObject questionJson = questionsJson.get(i).getAsJsonObject();
-            Question question = quizMapper.toQuestionEntity(questionJson, quiz, i + 1);
-            quiz.addQuestion(question);
+        String aiResponse = fromBank.isEmpty()
+                ? aiService.generateQuiz(
+                        request.getTopic(),
+                        count,
+                        request.getDifficultyLevel(),
+                        request.getLanguage())
+                : aiService.regenerateQuizQuestions(
+                        request.getTopic(),
+                        count,
+                        request.getDifficultyLevel(),
+                        request.getLanguage(),
+                        fromBank.stream().map(BankQuestion::getQuestionText).toList());
+
+        List<JsonElement> items = parseQuizItems(aiResponse, count);
+        repairInvalidItems(items, request);
+
+        List<JsonObject> validItems = new ArrayList<>();
+        for (JsonElement item : items) {
+            // ancora non valida dopo la rigenerazione: meglio scartarla
+            if (quizMapper.validateQuestionJson(item).isEmpty()) {
+                validItems.add(item.getAsJsonObject());
+            }
         }
 
-        quiz = quizRepository.save(quiz);
-        log.info("Quiz generato con ID: {}, {} domande, lingua: {}", 
-                quiz.getId(), quiz.getNumberOfQuestions(), request.getLanguage());
+        if (validItems.isEmpty()) {
+            throw new AIServiceException(AIErrorType.PARSE_ERROR, "Nessuna domanda valida generata per il quiz");
+        }
+        return validItems;
+    }
 
-        return quiz;
+    @Override
+    @Transactional
+    public Quiz saveGeneratedQuiz(QuizGenerateRequest request, User user, List<BankQuestion> questions) {
+        Quiz quiz = quizMapper.toEntity(request, user);
+
+        int order = 1;
+        for (BankQuestion bankQuestion : questions) {
+            quiz.addQuestion(quizMapper.toQuestionEntity(bankQuestion, quiz, order++));
+        }
+
+        Quiz saved = quizRepository.save(quiz);
+        questionBankService.recordServed(questions.stream().map(BankQuestion::getId).toList());
+        quizAnalyticsService.recordQuizCreated(user.getId());
+        return saved;
     }
 
     @Override
@@ -110,39 +211,46 @@ public class QuizServiceImpl implements QuizService {
         return quizRepository.save(quiz);
     }
 
+    /**
+     * Le risposte diventano un QuizAttempt valutato sul template: le domande non vengono riscritte
+     * e il quiz tiene solo il risultato dell'ultimo tentativo del creatore
+     */
     @Override
     @Transactional
     public QuizResultResponse submitAnswers(QuizAnswerRequest request, UUID userId) {
         log.info("Invio risposte quiz: {}", request.getQuizId());
 
-        Quiz quiz = findQuizByIdAndUser(request.getQuizId(), userId);
+        // Lock di riga: due invii concorrenti non completano entrambi il quiz, il secondo lo trova già completato
+        Quiz quiz = quizRepository.findByIdAndUserIdForUpdate(request.getQuizId(), userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", "id", request.getQuizId()));
+        QuizTemplate template = quizTemplateService.getTemplate(quiz.getId());
 
         if (Boolean.TRUE.equals(quiz.getIsCompleted())) {
             log.warn("Quiz {} già completato", request.getQuizId());
-            return buildQuizResultResponse(quiz);
+            QuizResultResponse previous = quizTemplateService.getLatestAttempt(quiz.getId(), userId)
+                    .map(attempt -> quizMapper.toResultResponse(template, attempt))
+                    .orElseGet(() -> buildQuizResultResponse(quiz));
+            // Reinvio: restituisce il risultato già registrato, senza nuovi XP
+            previous.setFirstCompletion(false);
+            return previous;
         }
 
-        Map<UUID, String> answers = request.getAnswers();
-        int correctCount = 0;
-
-        for (Question question : quiz.getQuestions()) {
-            String answer = answers.get(question.getId());
-            if (answer != null) {
-                question.setUserAnswer(answer);
-                boolean isCorrect = question.checkAnswer(answer);
-                if (isCorrect) correctCount++;
-            }
-        }
+        QuizAttempt attempt = quizTemplateService.recordAttempt(template, userId, request.getAnswers(),
+                quiz.getStartedAt());
 
-        quiz.complete();
-        quiz = quizRepository.save(quiz);
+        quiz.complete(attempt.getScore(), attempt.getTotalQuestions());
+        Quiz saved = quizRepository.save(quiz);
+        quizAnalyticsService.recordQuizCompleted(userId, saved.getTopic(), saved.getPercentage());
 
         log.info("Quiz completato - Score: {}/{} ({}%)",
-                quiz.getScore(), quiz.getTotalPoints(), quiz.getPercentage());
+                saved.getScore(), saved.getTotalPoints(), saved.getPercentage());
 
-        return buildQuizResultResponse(quiz);
+        return quizMapper.toResultResponse(template, attempt);
     }
 
+    /**
+     * Risultato dei quiz completati prima dei tentativi, con le risposte salvate sulle domande
+     */
     private QuizResultResponse buildQuizResultResponse(Quiz quiz) {
         QuizResultResponse response = new QuizResultResponse();
         response.setQuizId(quiz.getId());
@@ -231,6 +339,37 @@ public class QuizServiceImpl implements QuizService {
         return quizRepository.findByUserIdAndIsCompletedTrueOrderByCompletedAtDesc(userId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public QuizDetailResponse getQuizDetail(UUID quizId, UUID userId) {
+        Quiz quiz = quizRepository.findWithQuestionsByIdAndUserId(quizId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", "id", quizId));
+        Map<UUID, String> answers = Boolean.TRUE.equals(quiz.getIsCompleted())
+                ? quizTemplateService.getLatestAttempt(quizId, userId).map(QuizAttempt::getAnswers).orElse(null)
+                : Map.of();
+        return QuizDetailResponse.from(quiz, answers);
+    }
+
+    @Override
+    public CursorPage<QuizSummaryResponse> getUserQuizSummaries(UUID userId, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor, 2);
+        List<QuizSummaryResponse> rows = after == null
+                ? quizRepository.findSummariesByUserId(userId, CursorPage.probe(limit))
+                : quizRepository.findSummariesByUserIdAfter(userId, after.timestamp(0), after.uuid(1),
+                        CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, q -> PageCursor.encode(q.getCreatedAt(), q.getId()));
+    }
+
+    @Override
+    public CursorPage<QuizSummaryResponse> getCompletedQuizSummaries(UUID userId, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor, 2);
+        List<QuizSummaryResponse> rows = after == null
+                ? quizRepository.findCompletedSummariesByUserId(userId, CursorPage.probe(limit))
+                : quizRepository.findCompletedSummariesByUserIdAfter(userId, after.timestamp(0), after.uuid(1),
+                        CursorPage.probe(limit));
+        return CursorPage.of(rows, limit, q -> PageCursor.encode(q.getCompletedAt(), q.getId()));
+    }
+
     @Override
     public List<Quiz> getPendingQuizzes(UUID userId) {
         return quizRepository.findByUserIdAndIsCompletedFalseOrderByCreatedAtDesc(userId);
@@ -250,7 +389,11 @@ public class QuizServiceImpl implements QuizService {
     @Transactional
     public void deleteQuiz(UUID quizId, UUID userId) {
         Quiz quiz = findQuizByIdAndUser(quizId, userId);
+        boolean wasCompleted = Boolean.TRUE.equals(quiz.getIsCompleted());
+        Double percentage = quiz.getPercentage();
+        quizTemplateService.deleteQuizData(quizId);
         quizRepository.delete(quiz);
+        quizAnalyticsService.recordQuizDeleted(userId, wasCompleted, percentage);
         log.info("Quiz eliminato: {}", quizId);
     }
 
@@ -258,25 +401,23 @@ public class QuizServiceImpl implements QuizService {
     @Transactional
     public Quiz retryQuiz(UUID quizId, UUID userId) {
         Quiz quiz = findQuizByIdAndUser(quizId, userId);
-        quiz.resetAllAnswers();
-        return quizRepository.save(quiz);
+        boolean wasCompleted = Boolean.TRUE.equals(quiz.getIsCompleted());
+        Double percentage = quiz.getPercentage();
+        // Il tentativo precedente resta nello storico
+        quiz.resetResult();
+        Quiz saved = quizRepository.save(quiz);
+        if (wasCompleted) {
+            quizAnalyticsService.recordCompletionReverted(userId, percentage);
+        }
+        return saved;
     }
 
+    /**
+     * Legge la summary mantenuta da QuizAnalyticsService: una lookup per chiave primaria
+     */
     @Override
     public QuizStats getUserStats(UUID userId) {
-        long totalQuizzes = quizRepository.countByUserId(userId);
-        long completedQuizzes = quizRepository.countByUserIdAndIsCompletedTrue(userId);
-        Double averageScore = quizRepository.getAverageScoreByUserId(userId);
-        List<Quiz> passedQuizzes = quizRepository.findPassedQuizzes(userId);
-        List<Quiz> failedQuizzes = quizRepository.findFailedQuizzes(userId);
-
-        return new QuizStats(
-                totalQuizzes,
-                completedQuizzes,
-                passedQuizzes.size(),
-                failedQuizzes.size(),
-                averageScore != null ? averageScore : 0.0
-        );
+        return quizAnalyticsService.getStats(userId);
     }
 
     @Override
@@ -290,11 +431,129 @@ public class QuizServiceImpl implements QuizService {
                 .orElseThrow(() -> new ResourceNotFoundException("Quiz", "id", quizId));
     }
 
-    private JsonArray parseQuizJson(String aiResponse) {
-        String cleaned = aiResponse
+    /**
+     * Valida ogni domanda generata e rigenera SOLO quelle non valide (o mancanti)
+     * con un'unica chiamata AI. Le domande rigenerate prendono il posto di quelle scartate.
+     */
+    private void repairInvalidItems(List<JsonElement> items, QuizGenerateRequest request) {
+        List<Integer> invalidSlots = new ArrayList<>();
+        List<String> validTexts = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            List<String> problems = quizMapper.validateQuestionJson(items.get(i));
+            if (problems.isEmpty()) {
+                validTexts.add(items.get(i).getAsJsonObject().get("question").getAsString());
+            } else {
+                log.warn("Domanda {} non valida: {}", i + 1, problems);
+                invalidSlots.add(i);
+            }
+        }
+
+        if (invalidSlots.isEmpty()) {
+            return;
+        }
+
+        log.info("Rigenerazione di {}/{} domande non valide", invalidSlots.size(), items.size());
+
+        List<JsonElement> replacements;
+        try {
+            String repairResponse = aiService.regenerateQuizQuestions(
+                    request.getTopic(),
+                    invalidSlots.size(),
+                    request.getDifficultyLevel(),
+                    request.getLanguage(),
+                    validTexts
+            );
+            replacements = parseQuizItems(repairResponse, invalidSlots.size());
+        } catch (AIServiceException e) {
+            // Il quiz resta utilizzabile con le sole domande valide
+            log.warn("Rigenerazione domande fallita: {}", e.getMessage());
+            return;
+        }
+
+        int next = 0;
+        for (int slot : invalidSlots) {
+            while (next < replacements.size() && !quizMapper.validateQuestionJson(replacements.get(next)).isEmpty()) {
+                next++;
+            }
+            if (next >= replacements.size()) {
+                break;
+            }
+            items.set(slot, replacements.get(next++));
+        }
+    }
+
+    /**
+     * Parsing tollerante della risposta AI: restituisce esattamente {@code expected} elementi.
+     * Se l'array non è JSON valido, prova a recuperare i singoli oggetti di primo livello;
+     * gli elementi mancanti o illeggibili restano null e verranno rigenerati.
+     */
+    private List<JsonElement> parseQuizItems(String aiResponse, int expected) {
+        String cleaned = aiResponse == null ? "" : aiResponse
                 .replaceAll("```json\\s*", "")
                 .replaceAll("```\\s*", "")
                 .trim();
-        return gson.fromJson(cleaned, JsonArray.class);
+
+        List<JsonElement> items = new ArrayList<>();
+        try {
+            JsonArray array = gson.fromJson(cleaned, JsonArray.class);
+            if (array != null) {
+                array.forEach(items::add);
+            }
+        } catch (JsonParseException e) {
+            log.warn("Risposta quiz non è un array JSON valido, recupero delle singole domande");
+            for (String fragment : splitTopLevelObjects(cleaned)) {
+                try {
+                    items.add(JsonParser.parseString(fragment));
+                } catch (JsonParseException ignored) {
+                    items.add(null);
+                }
+            }
+        }
+
+        while (items.size() > expected) {
+            items.remove(items.size() - 1);
+        }
+        while (items.size() < expected) {
+            items.add(null);
+        }
+        return items;
+    }
+
+    /**
+     * Divide un testo nei suoi oggetti JSON di primo livello ({...}), ignorando le parentesi dentro le stringhe
+     */
+    private List<String> splitTopLevelObjects(String text) {
+        List<String> fragments = new ArrayList<>();
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+        boolean escaped = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth == 0) start = i;
+                depth++;
+            } else if (c == '}' && depth > 0) {
+                depth--;
+                if (depth == 0) {
+                    fragments.add(text.substring(start, i + 1));
+                }
+            }
+        }
+        return fragments;
     }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.exception.ResourceNotFoundException;
+import com.ai.studybuddy.mapper.QuizMapper;
+import com.ai.studybuddy.model.quiz.Quiz;
+import com.ai.studybuddy.model.quiz.QuizAttempt;
+import com.ai.studybuddy.model.quiz.QuizTemplate;
+import com.ai.studybuddy.repository.QuizAttemptRepository;
+import com.ai.studybuddy.repository.QuizRepository;
+import com.ai.studybuddy.service.inter.QuestionBankService;
+import com.ai.studybuddy.service.inter.QuizTemplateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class QuizTemplateServiceImpl implements QuizTemplateService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuizTemplateServiceImpl.class);
+
+    private static final String SHARE_CODE_ALPHABET =
+            "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz23456789";
+    private static final int SHARE_CODE_LENGTH = 10;
+
+    private final QuizRepository quizRepository;
+    private final QuizAttemptRepository attemptRepository;
+    private final QuestionBankService questionBankService;
+    private final QuizMapper quizMapper;
+    private final SecureRandom random = new SecureRandom();
+
+    // LRU dei template: un quiz condiviso con una classe viene letto dal DB una volta sola
+    private final Map<UUID, QuizTemplate> cache;
+
+    public QuizTemplateServiceImpl(QuizRepository quizRepository,
+                                   QuizAttemptRepository attemptRepository,
+                                   QuestionBankService questionBankService,
+                                   QuizMapper quizMapper,
+                                   @Value("${quiz.template.cache-size:1000}") int cacheSize) {
+        this.quizRepository = quizRepository;
+        this.attemptRepository = attemptRepository;
+        this.questionBankService = questionBankService;
+        this.quizMapper = quizMapper;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, QuizTemplate> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Il contenuto di un quiz non cambia dopo la generazione: nessuna invalidazione
+     * tranne l'eliminazione del quiz
+     */
+    @Override
+    public QuizTemplate getTemplate(UUID quizId) {
+        QuizTemplate cached = cache.get(quizId);
+        if (cached != null) {
+            return cached;
+        }
+        Quiz quiz = quizRepository.findWithQuestionsById(quizId)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", "id", quizId));
+        QuizTemplate template = QuizTemplate.from(quiz);
+        cache.put(quizId, template);
+        return template;
+    }
+
+    @Override
+    public QuizTemplate getSharedTemplate(String shareCode) {
+        // Lookup sull'indice unique a ogni richiesta: un quiz eliminato smette subito di essere raggiungibile
+        UUID quizId = quizRepository.findIdByShareCode(shareCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", "shareCode", shareCode));
+        return getTemplate(quizId);
+    }
+
+    @Override
+    @Transactional
+    public String shareQuiz(UUID quizId, UUID ownerId) {
+        Quiz quiz = quizRepository.findByIdAndUserId(quizId, ownerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Quiz", "id", quizId));
+        if (quiz.getShareCode() == null) {
+            String code;
+            do {
+                code = newShareCode();
+            } while (quizRepository.findIdByShareCode(code).isPresent());
+            quiz.setShareCode(code);
+            quizRepository.save(quiz);
+            log.info("Quiz {} condiviso con codice {}", quizId, code);
+        }
+        return quiz.getShareCode();
+    }
+
+    @Override
+    @Transactional
+    public QuizAttempt recordAttempt(QuizTemplate template, UUID userId, Map<UUID, String> answers,
+                                     LocalDateTime startedAt) {
+        return recordAttempt(template, userId, answers, startedAt, false);
+    }
+
+    private QuizAttempt recordAttempt(QuizTemplate template, UUID userId, Map<UUID, String> answers,
+                                      LocalDateTime startedAt, boolean rewarded) {
+        // Solo le risposte a domande del quiz, normalizzate in maiuscolo
+        Map<UUID, String> accepted = new LinkedHashMap<>();
+        List<UUID> bankCorrect = new ArrayList<>();
+        List<UUID> bankWrong = new ArrayList<>();
+        for (QuizTemplate.Item item : template.questions()) {
+            String answer = answers.get(item.id());
+            if (answer == null || answer.isBlank()) {
+                continue;
+            }
+            accepted.put(item.id(), answer.trim().toUpperCase());
+            if (item.bankQuestionId() != null) {
+                (item.isCorrect(answer) ? bankCorrect : bankWrong).add(item.bankQuestionId());
+            }
+        }
+
+        QuizAttempt attempt = new QuizAttempt(template.id(), userId, accepted, template.score(accepted),
+                template.questions().size(), startedAt);
+        if (rewarded) {
+            attempt.markRewarded();
+            // Il vincolo uk_attempt_rewarded va verificato subito, non al commit
+            attempt = attemptRepository.saveAndFlush(attempt);
+        } else {
+            attempt = attemptRepository.save(attempt);
+        }
+        questionBankService.recordAnswers(bankCorrect, bankWrong);
+        return attempt;
+    }
+
+    @Override
+    @Transactional
+    public QuizResultResponse submitSharedAttempt(String shareCode, Map<UUID, String> answers, UUID userId) {
+        QuizTemplate template = getSharedTemplate(shareCode);
+        // Gli XP spettano al primo completamento: i tentativi successivi restano solo nello storico
+        boolean first = !attemptRepository.existsByQuizIdAndUserIdAndRewardedTrue(template.id(), userId);
+        QuizAttempt attempt = recordAttempt(template, userId, answers, null, first);
+        log.info("Tentativo quiz condiviso {} - utente: {}, score: {}/{}, primo completamento: {}",
+                template.id(), userId, attempt.getScore(), attempt.getTotalQuestions(), first);
+        QuizResultResponse response = quizMapper.toResultResponse(template, attempt);
+        response.setFirstCompletion(first);
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<QuizAttempt> getAttempts(UUID quizId, UUID userId) {
+        return attemptRepository.findByQuizIdAndUserIdOrderByCompletedAtDesc(quizId, userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<QuizAttempt> getLatestAttempt(UUID quizId, UUID userId) {
+        return attemptRepository.findFirstByQuizIdAndUserIdOrderByCompletedAtDesc(quizId, userId);
+    }
+
+    @Override
+    @Transactional
+    public void deleteQuizData(UUID quizId) {
+        attemptRepository.deleteByQuizId(quizId);
+        cache.remove(quizId);
+    }
+
+    private String newShareCode() {
+        StringBuilder sb = new StringBuilder(SHARE_CODE_LENGTH);
+        for (int i = 0; i < SHARE_CODE_LENGTH; i++) {
+            sb.append(SHARE_CODE_ALPHABET.charAt(random.nextInt(SHARE_CODE_ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
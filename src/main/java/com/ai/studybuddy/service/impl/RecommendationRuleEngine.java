@@ -0,0 +1,234 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.UserStats;
+import com.ai.studybuddy.model.recommendation.Recommendation.Priority;
+import com.ai.studybuddy.model.recommendation.Recommendation.RecommendationType;
+import com.ai.studybuddy.model.user.UserProgress;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Regole delle raccomandazioni, valutate in memoria.
+ *
+ * Lavora su uno snapshot letto una volta (UserStats + tutti i UserProgress dell'utente)
+ * e sull'insieme delle chiavi (tipo, topic) già presenti: nessuna query durante la valutazione.
+ * Le regole girano nell'ordine storico e una chiave già usata, anche da una regola
+ * precedente nello stesso giro, non genera una seconda raccomandazione.
+ * I topic senza punteggio restano fuori dalle regole sul punteggio, come nelle vecchie
+ * query (confronti e AVG di SQL ignorano i NULL).
+ */
+@Component
+public class RecommendationRuleEngine {
+
+    private static final double WEAK_TOPIC_THRESHOLD = 60.0;
+    private static final double MASTERED_TOPIC_THRESHOLD = 80.0;
+    private static final int REVIEW_AFTER_DAYS = 7;
+    private static final int RECENT_TOPICS = 3;
+
+    /**
+     * Dati dell'utente letti una volta per generazione
+     */
+    public record Snapshot(UserStats stats, List<UserProgress> progress, LocalDateTime now) {}
+
+    /**
+     * Chiave di deduplica: una sola raccomandazione per tipo e topic, in qualsiasi stato (anche dismissed/completed)
+     */
+    public record Key(RecommendationType type, String topic) {}
+
+    /**
+     * Raccomandazione proposta da una regola, non ancora persistita
+     */
+    public record Candidate(RecommendationType type, String title, String description,
+                            String topic, String reason, Priority priority) {
+
+        Key key() {
+            return new Key(type, topic);
+        }
+    }
+
+    public List<Candidate> evaluate(Snapshot snapshot, Set<Key> existing) {
+        Rules rules = new Rules(existing);
+        UserStats stats = snapshot.stats();
+        List<UserProgress> progress = snapshot.progress();
+        LocalDateTime now = snapshot.now();
+
+        // 1. STREAK REMINDER
+        if (stats.getCurrentStreak() > 0 &&
+                stats.getLastActivityDate() != null &&
+                stats.getLastActivityDate().isBefore(now.toLocalDate())) {
+            rules.propose(RecommendationType.STREAK_REMINDER,
+                    "Mantieni il tuo streak!",
+                    "Hai uno streak di " + stats.getCurrentStreak() + " giorni. Non perderlo!",
+                    null,
+                    "Non perdere il tuo streak di studio",
+                    Priority.URGENT);
+        }
+
+        // 2. ARGOMENTI DEBOLI (score < 60%)
+        for (UserProgress p : progress) {
+            if (p.hasAverageScore() && p.getAverageScore() < WEAK_TOPIC_THRESHOLD) {
+                rules.propose(RecommendationType.WEAKNESS_FOCUS,
+                        "Ripassa: " + p.getTopic(),
+                        "Il tuo punteggio medio e' " + Math.round(p.getAverageScore()) + "%. Puoi migliorare!",
+                        p.getTopic(),
+                        "Punteggio sotto il 60%",
+                        Priority.HIGH);
+            }
+        }
+
+        // 3. ARGOMENTI DA RIPASSARE (non studiati da 7+ giorni)
+        LocalDateTime cutoffDate = now.minusDays(REVIEW_AFTER_DAYS);
+        for (UserProgress p : progress) {
+            if (p.getLastActivityAt() != null && p.getLastActivityAt().isBefore(cutoffDate)) {
+                long daysAgo = ChronoUnit.DAYS.between(p.getLastActivityAt().toLocalDate(), now.toLocalDate());
+                rules.propose(RecommendationType.REVIEW_TOPIC,
+                        "Ripasso consigliato: " + p.getTopic(),
+                        "Non studi questo argomento da " + daysAgo + " giorni",
+                        p.getTopic(),
+                        "Il ripasso periodico migliora la memoria a lungo termine",
+                        daysAgo > 14 ? Priority.HIGH : Priority.MEDIUM);
+            }
+        }
+
+        // 4. ARGOMENTI RECENTI - CONTINUA A STUDIARE
+        progress.stream()
+                .sorted(Comparator.comparing(UserProgress::getLastActivityAt,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(RECENT_TOPICS)
+                .filter(p -> p.hasAverageScore()
+                        && p.getAverageScore() >= WEAK_TOPIC_THRESHOLD && p.getAverageScore() < MASTERED_TOPIC_THRESHOLD)
+                .forEach(p -> rules.propose(RecommendationType.REVIEW_TOPIC,
+                        "Continua con: " + p.getTopic(),
+                        "Sei sulla buona strada! Punteggio attuale: " + Math.round(p.getAverageScore()) + "%",
+                        p.getTopic(),
+                        "Ancora un po' di pratica per padroneggiare l'argomento",
+                        Priority.MEDIUM));
+
+        // 5. ARGOMENTO PIU' STUDIATO - SFIDA TE STESSO
+        progress.stream()
+                .max(Comparator.comparing(UserProgress::getQuizCompleted))
+                .filter(top -> top.hasAverageScore() && top.getAverageScore() >= MASTERED_TOPIC_THRESHOLD)
+                .ifPresent(top -> rules.propose(RecommendationType.RETRY_QUIZ,
+                        "Sfida te stesso: " + top.getTopic(),
+                        "Sei forte in questo argomento! Prova un quiz difficile.",
+                        top.getTopic(),
+                        "Punteggio attuale: " + Math.round(top.getAverageScore()) + "% - Punta al 100%!",
+                        Priority.LOW));
+
+        // 6. STATISTICHE GENERALI (media, minuti e numero argomenti dallo stesso snapshot)
+        double overallAverage = progress.stream()
+                .filter(UserProgress::hasAverageScore)
+                .mapToDouble(UserProgress::getAverageScore)
+                .average().orElse(Double.NaN);
+        int totalStudyMinutes = progress.stream().mapToInt(UserProgress::getTotalStudyMinutes).sum();
+        int totalTopics = progress.size();
+
+        if (!Double.isNaN(overallAverage) && overallAverage < 70) {
+            rules.propose(RecommendationType.WEAKNESS_FOCUS,
+                    "Migliora la tua media!",
+                    "La tua media generale e' " + Math.round(overallAverage) + "%. Ripassa gli argomenti deboli.",
+                    null,
+                    "Una media sopra il 70% ti aiutera' a consolidare le conoscenze",
+                    Priority.MEDIUM);
+        }
+
+        if (totalStudyMinutes < 60) {
+            rules.propose(RecommendationType.DAILY_GOAL,
+                    "Aumenta il tempo di studio",
+                    "Hai studiato meno di un'ora in totale. Prova a dedicare piu' tempo!",
+                    null,
+                    "Anche 15 minuti al giorno fanno la differenza",
+                    Priority.MEDIUM);
+        }
+
+        if (totalTopics < 5) {
+            rules.propose(RecommendationType.NEW_TOPIC,
+                    "Esplora nuovi argomenti!",
+                    "Hai studiato solo " + totalTopics + " argomenti. Amplia i tuoi orizzonti!",
+                    null,
+                    "La varieta' aiuta a mantenere alta la motivazione",
+                    Priority.LOW);
+        }
+
+        // 7. OBIETTIVO XP GIORNALIERO
+        if (stats.getWeeklyXp() == null || stats.getWeeklyXp() < 50) {
+            rules.propose(RecommendationType.DAILY_GOAL,
+                    "Raggiungi 50 XP oggi!",
+                    "Completa qualche attivita' per raggiungere il tuo obiettivo",
+                    null,
+                    "Guadagna XP per salire di livello",
+                    Priority.MEDIUM);
+        }
+
+        // 8. SUGGERISCI QUIZ SE MAI FATTO
+        if (stats.getQuizzesCompleted() == null || stats.getQuizzesCompleted() == 0) {
+            rules.propose(RecommendationType.NEW_TOPIC,
+                    "Prova a creare un Quiz!",
+                    "Genera un quiz con l'AI per testare le tue conoscenze",
+                    null,
+                    "Non hai ancora completato nessun quiz",
+                    Priority.MEDIUM);
+        }
+
+        // 9. SUGGERISCI FLASHCARD SE MAI USATE
+        if (stats.getFlashcardsStudied() == null || stats.getFlashcardsStudied() == 0) {
+            rules.propose(RecommendationType.STUDY_FLASHCARDS,
+                    "Scopri le Flashcards!",
+                    "Crea un deck di flashcards per memorizzare concetti",
+                    null,
+                    "Non hai ancora studiato nessuna flashcard",
+                    Priority.MEDIUM);
+        }
+
+        // 10. CONGRATULAZIONI PER TRAGUARDI
+        if (stats.getQuizzesCompleted() != null && stats.getQuizzesCompleted() >= 10) {
+            rules.propose(RecommendationType.DAILY_GOAL,
+                    "Complimenti! 10+ Quiz completati",
+                    "Stai facendo un ottimo lavoro! Continua cosi'!",
+                    null,
+                    "Sei tra gli studenti piu' attivi",
+                    Priority.LOW);
+        }
+
+        // 11. BONUS WEEKEND
+        DayOfWeek today = now.getDayOfWeek();
+        if (today == DayOfWeek.SATURDAY || today == DayOfWeek.SUNDAY) {
+            rules.propose(RecommendationType.DAILY_GOAL,
+                    "Studio del weekend!",
+                    "Approfitta del weekend per recuperare o approfondire",
+                    null,
+                    "Il weekend e' perfetto per sessioni di studio piu' lunghe",
+                    Priority.LOW);
+        }
+
+        return rules.candidates;
+    }
+
+    /**
+     * Raccoglie i candidati scartando le chiavi già usate
+     */
+    private static final class Rules {
+        private final Set<Key> used;
+        private final List<Candidate> candidates = new ArrayList<>();
+
+        Rules(Set<Key> existing) {
+            this.used = new HashSet<>(existing);
+        }
+
+        void propose(RecommendationType type, String title, String description,
+                     String topic, String reason, Priority priority) {
+            Candidate candidate = new Candidate(type, title, description, topic, reason, priority);
+            if (used.add(candidate.key())) {
+                candidates.add(candidate);
+            }
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.dto.search.SearchResultResponse;
+import com.ai.studybuddy.model.flashcard.Flashcard;
+import com.ai.studybuddy.model.flashcard.FlashcardDeck;
+import com.ai.studybuddy.model.quiz.Question;
+import com.ai.studybuddy.model.quiz.Quiz;
+import com.ai.studybuddy.model.search.SearchDocument;
+import com.ai.studybuddy.model.search.SearchDocument.DocType;
+import com.ai.studybuddy.model.search.SearchIndexEvent;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.repository.FlashcardDeckRepository;
+import com.ai.studybuddy.repository.FlashcardRepository;
+import com.ai.studybuddy.repository.QuizRepository;
+import com.ai.studybuddy.repository.SearchDocumentRepository;
+import com.ai.studybuddy.repository.SearchDocumentRepository.SearchHitRow;
+import com.ai.studybuddy.service.inter.SearchService;
+import com.ai.studybuddy.util.pagination.CursorPage;
+import com.ai.studybuddy.util.pagination.PageCursor;
+import com.ai.studybuddy.util.search.InvertedIndex;
+import com.ai.studybuddy.util.search.LightStemmer;
+import com.ai.studybuddy.util.semantic.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchServiceImpl.class);
+
+    // Lingua -> configurazione text search di PostgreSQL
+    private static final Map<String, String> PG_CONFIGS = Map.of(
+            "it", "italian",
+            "en", "english",
+            "es", "spanish",
+            "fr", "french",
+            "de", "german",
+            "pt", "portuguese",
+            "ru", "russian"
+    );
+    private static final String DEFAULT_LANGUAGE = "it";
+    private static final String FALLBACK_PG_CONFIG = "simple";
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TITLE_MAX_LENGTH = 500;
+    private static final int SNIPPET_LENGTH = 160;
+
+    // Score -> intero per la chiave di seek: stessa scala della query nativa (vedi SearchDocumentRepository)
+    private static final double RANK_SCALE = 1_000_000;
+
+    /**
+     * Metadati del documento per l'indice in memoria (filtri e snippet senza toccare il DB)
+     */
+    private record IndexedDoc(UUID ownerId, DocType type, UUID refId, UUID deckId, String title, String body) {}
+
+    private final SearchDocumentRepository searchDocumentRepository;
+    private final FlashcardDeckRepository deckRepository;
+    private final FlashcardRepository flashcardRepository;
+    private final QuizRepository quizRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate indexTransactionTemplate;
+
+    @Value("${search.reindex-on-startup:true}")
+    private boolean reindexOnStartup;
+
+    @Value("${search.batch-size:500}")
+    private int batchSize;
+
+    // true se PostgreSQL con tsvector/pg_trgm disponibili, altrimenti indice in memoria
+    private volatile boolean postgresFullText;
+
+    // owner -> indice dei suoi documenti (chiave = id del SearchDocument)
+    private final Map<UUID, InvertedIndex<UUID>> memoryIndex = new ConcurrentHashMap<>();
+    private final Map<UUID, IndexedDoc> memoryDocs = new ConcurrentHashMap<>();
+
+    public SearchServiceImpl(SearchDocumentRepository searchDocumentRepository,
+                             FlashcardDeckRepository deckRepository,
+                             FlashcardRepository flashcardRepository,
+                             QuizRepository quizRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager) {
+        this.searchDocumentRepository = searchDocumentRepository;
+        this.deckRepository = deckRepository;
+        this.flashcardRepository = flashcardRepository;
+        this.quizRepository = quizRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Dopo il commit la transazione chiamante è conclusa ma ancora legata al thread: serve una transazione nuova
+        this.indexTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.indexTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ==================== AVVIO ====================
+
+    /**
+     * Sceglie il backend e, se la tabella è vuota (primo avvio con la ricerca), indicizza i contenuti esistenti
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        postgresFullText = setupPostgres();
+        if (postgresFullText) {
+            log.info("Ricerca full-text: backend PostgreSQL (tsvector + pg_trgm)");
+        } else {
+            log.warn("Ricerca full-text: backend indice in memoria, locale a questo nodo " +
+                    "(le modifiche fatte da altre istanze non sono visibili fino al riavvio)");
+        }
+
+        if (reindexOnStartup && searchDocumentRepository.count() == 0) {
+            int indexed = reindexAll();
+            log.info("Indice di ricerca costruito: {} documenti", indexed);
+        } else if (!postgresFullText) {
+            loadMemoryIndex();
+        }
+    }
+
+    /**
+     * La colonna tsvector e gli indici GIN non sono esprimibili con ddl-auto:
+     * vengono creati qui, in modo idempotente.
+     */
+    private boolean setupPostgres() {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con ->
+                    con.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                return false;
+            }
+
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("ALTER TABLE search_documents ADD COLUMN IF NOT EXISTS search_vector tsvector");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_search_vector " +
+                    "ON search_documents USING GIN (search_vector)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_search_title_trgm " +
+                    "ON search_documents USING GIN (title gin_trgm_ops)");
+
+            // Documenti scritti mentre il backend era in memoria (o prima della colonna)
+            int backfilled = jdbcTemplate.update("UPDATE search_documents SET search_vector = " +
+                    "setweight(to_tsvector(CAST(" + languageConfigSql() + " AS regconfig), coalesce(title, '')), 'A') || " +
+                    "setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+                    "setweight(to_tsvector(CAST(" + languageConfigSql() + " AS regconfig), coalesce(body, '')), 'B') || " +
+                    "setweight(to_tsvector('simple', coalesce(body, '')), 'B') " +
+                    "WHERE search_vector IS NULL");
+            if (backfilled > 0) {
+                log.info("Calcolati {} tsvector mancanti", backfilled);
+            }
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Full-text PostgreSQL non disponibile, uso l'indice in memoria: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static String languageConfigSql() {
+        StringBuilder sql = new StringBuilder("CASE language");
+        PG_CONFIGS.forEach((lang, config) ->
+                sql.append(" WHEN '").append(lang).append("' THEN '").append(config).append("'"));
+        return sql.append(" ELSE '").append(FALLBACK_PG_CONFIG).append("' END").toString();
+    }
+
+    private void loadMemoryIndex() {
+        int page = 0;
+        List<SearchDocument> docs;
+        do {
+            docs = searchDocumentRepository.findPage(PageRequest.of(page++, batchSize));
+            docs.forEach(this::memoryPut);
+        } while (docs.size() == batchSize);
+        log.info("Indice di ricerca in memoria caricato: {} documenti", memoryDocs.size());
+    }
+
+    // ==================== RICERCA ====================
+
+    @Override
+    public CursorPage<SearchResultResponse> search(UUID userId, String query, Set<DocType> types, UUID deckId,
+                                                   String language, String cursor, int limit) {
+        String raw = query != null ? query.trim() : "";
+        List<String> tokens = TextNormalizer.tokens(raw);
+        if (tokens.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        Set<DocType> effectiveTypes = types == null || types.isEmpty() ? EnumSet.allOf(DocType.class) : types;
+        String lang = normalizeLanguage(language);
+        PageCursor after = PageCursor.decode(cursor, 2);
+
+        if (postgresFullText) {
+            return searchPostgres(userId, raw, tokens, effectiveTypes, deckId, lang, after, limit);
+        }
+        return searchMemory(userId, raw, tokens, effectiveTypes, deckId, lang, after, limit);
+    }
+
+    private CursorPage<SearchResultResponse> searchPostgres(UUID userId, String raw, List<String> tokens,
+                                                            Set<DocType> types, UUID deckId, String lang,
+                                                            PageCursor after, int limit) {
+        String typesCsv = types.stream().map(Enum::name).collect(Collectors.joining(","));
+        String deck = deckId != null ? deckId.toString() : "";
+        String config = PG_CONFIGS.getOrDefault(lang, FALLBACK_PG_CONFIG);
+
+        List<SearchHitRow> rows = after == null
+                ? searchDocumentRepository.searchPostgres(userId, raw, config, typesCsv, deck, limit + 1)
+                : searchDocumentRepository.searchPostgresAfter(userId, raw, config, typesCsv, deck,
+                        after.longValue(0), after.uuid(1), limit + 1);
+
+        return CursorPage.of(rows, limit, r -> PageCursor.encode(r.getRankKey(), r.getId()))
+                .map(r -> new SearchResultResponse(DocType.valueOf(r.getDocType()), r.getRefId(), r.getDeckId(),
+                        r.getTitle(), snippet(r.getBody(), tokens), r.getScore()));
+    }
+
+    private CursorPage<SearchResultResponse> searchMemory(UUID userId, String raw, List<String> tokens,
+                                                          Set<DocType> types, UUID deckId, String lang,
+                                                          PageCursor after, int limit) {
+        InvertedIndex<UUID> index = memoryIndex.get(userId);
+        if (index == null) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        List<Set<String>> groups = tokens.stream()
+                .map(t -> (Set<String>) new LinkedHashSet<>(List.of(t, LightStemmer.stem(t, lang))))
+                .toList();
+        // L'ultima parola si considera incompleta finché l'utente non digita uno spazio
+        boolean prefixLast = !Character.isWhitespace(raw.charAt(raw.length() - 1));
+
+        List<InvertedIndex.Hit<UUID>> hits = new ArrayList<>(index.search(groups, prefixLast, docId -> {
+            IndexedDoc doc = memoryDocs.get(docId);
+            return doc != null && types.contains(doc.type())
+                    && (deckId == null || deckId.equals(doc.deckId()));
+        }));
+        // Stesso ordinamento totale del backend PostgreSQL: rankKey desc, id desc
+        hits.sort(Comparator.comparingLong((InvertedIndex.Hit<UUID> h) -> rankKey(h.score()))
+                .thenComparing(h -> h.key())
+                .reversed());
+
+        List<InvertedIndex.Hit<UUID>> page = new ArrayList<>(limit + 1);
+        for (InvertedIndex.Hit<UUID> hit : hits) {
+            if (after != null) {
+                long afterRank = after.longValue(0);
+                long rank = rankKey(hit.score());
+                if (rank > afterRank || (rank == afterRank && hit.key().compareTo(after.uuid(1)) >= 0)) {
+                    continue;
+                }
+            }
+            page.add(hit);
+            if (page.size() > limit) break;
+        }
+
+        return CursorPage.of(page, limit, h -> PageCursor.encode(rankKey(h.score()), h.key()))
+                .map(h -> {
+                    IndexedDoc doc = memoryDocs.get(h.key());
+                    return new SearchResultResponse(doc.type(), doc.refId(), doc.deckId(), doc.title(),
+                            snippet(doc.body(), tokens), h.score());
+                });
+    }
+
+    // ==================== INDICIZZAZIONE ====================
+
+    /**
+     * Eseguito dopo il commit della transazione che ha scritto l'entità, in una transazione propria:
+     * un errore di indicizzazione non deve mai far fallire l'operazione dell'utente.
+     */
+    @Override
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onIndexEvent(SearchIndexEvent event) {
+        try {
+            indexTransactionTemplate.executeWithoutResult(status -> applyIndexEvent(event));
+        } catch (RuntimeException e) {
+            log.warn("Indicizzazione {} {} fallita: {}", event.type(), event.refId(), e.getMessage());
+        }
+    }
+
+    private void applyIndexEvent(SearchIndexEvent event) {
+        if (event.removed()) {
+            removeDocument(event.type(), event.refId());
+            if (event.type() == DocType.DECK) {
+                removeDeckCards(event.refId());
+            }
+            return;
+        }
+        switch (event.type()) {
+            case DECK -> deckRepository.findById(event.refId()).ifPresentOrElse(this::indexDeck, () -> {
+                removeDocument(DocType.DECK, event.refId());
+                removeDeckCards(event.refId());
+            });
+            case FLASHCARD -> flashcardRepository.findById(event.refId()).ifPresentOrElse(this::indexFlashcard,
+                    () -> removeDocument(DocType.FLASHCARD, event.refId()));
+            case QUIZ -> quizRepository.findById(event.refId()).ifPresentOrElse(this::indexQuiz,
+                    () -> removeDocument(DocType.QUIZ, event.refId()));
+        }
+    }
+
+    @Override
+    public int reindexAll() {
+        int indexed = 0;
+        indexed += reindexPages(page -> deckRepository.findAll(page).getContent(), this::indexDeck);
+        indexed += reindexPages(page -> flashcardRepository.findAll(page).getContent(), this::indexFlashcard);
+        indexed += reindexPages(page -> quizRepository.findAll(page).getContent(), this::indexQuiz);
+        return indexed;
+    }
+
+    /**
+     * Una transazione per pagina: le relazioni lazy (owner, deck, domande) restano
+     * caricabili senza tenere aperta una transazione su tutta la tabella.
+     */
+    private <T> int reindexPages(Function<PageRequest, List<T>> loader, Consumer<T> indexer) {
+        int total = 0;
+        int page = 0;
+        while (true) {
+            PageRequest request = PageRequest.of(page++, batchSize, Sort.by("id"));
+            Integer count = transactionTemplate.execute(status -> {
+                List<T> entities = loader.apply(request);
+                entities.forEach(indexer);
+                return entities.size();
+            });
+            int size = count != null ? count : 0;
+            total += size;
+            if (size < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    private void indexDeck(FlashcardDeck deck) {
+        if (!Boolean.TRUE.equals(deck.getIsActive())) {
+            removeDocument(DocType.DECK, deck.getId());
+            removeDeckCards(deck.getId());
+            return;
+        }
+        User owner = deck.getOwner();
+        upsert(DocType.DECK, deck.getId(), owner.getId(), null, deck.getName(),
+                join(deck.getDescription(), deck.getSubject()), owner.getPreferredLanguage());
+    }
+
+    private void indexFlashcard(Flashcard card) {
+        FlashcardDeck deck = card.getDeck();
+        if (!Boolean.TRUE.equals(card.getIsActive()) || deck == null || !Boolean.TRUE.equals(deck.getIsActive())) {
+            removeDocument(DocType.FLASHCARD, card.getId());
+            return;
+        }
+        User owner = deck.getOwner();
+        upsert(DocType.FLASHCARD, card.getId(), owner.getId(), deck.getId(), card.getFrontContent(),
+                join(card.getBackContent(), card.getHint(), card.getTags()), owner.getPreferredLanguage());
+    }
+
+    private void indexQuiz(Quiz quiz) {
+        User user = quiz.getUser();
+        List<String> parts = new ArrayList<>();
+        parts.add(quiz.getTopic());
+        parts.add(quiz.getSubject());
+        parts.add(quiz.getDescription());
+        quiz.getQuestions().stream().map(Question::getQuestionText).forEach(parts::add);
+        upsert(DocType.QUIZ, quiz.getId(), user.getId(), null, quiz.getTitle(),
+                join(parts.toArray(new String[0])), user.getPreferredLanguage());
+    }
+
+    private void upsert(DocType type, UUID refId, UUID ownerId, UUID deckId, String title, String body,
+                        String language) {
+        String safeTitle = title != null ? truncate(title, TITLE_MAX_LENGTH) : "";
+        String lang = normalizeLanguage(language);
+        int hash = Objects.hash(ownerId, deckId, safeTitle, body, lang);
+
+        SearchDocument doc = searchDocumentRepository.findByDocTypeAndRefId(type, refId)
+                .orElseGet(SearchDocument::new);
+        // Quiz e flashcard vengono aggiornati spesso (punteggi, revisioni) senza cambiare il testo
+        if (doc.getId() != null && Objects.equals(doc.getContentHash(), hash)) {
+            return;
+        }
+
+        doc.setDocType(type);
+        doc.setRefId(refId);
+        doc.setOwnerId(ownerId);
+        doc.setDeckId(deckId);
+        doc.setTitle(safeTitle);
+        doc.setBody(body);
+        doc.setLanguage(lang);
+        doc.setContentHash(hash);
+        doc = searchDocumentRepository.saveAndFlush(doc);
+
+        if (postgresFullText) {
+            searchDocumentRepository.updateSearchVector(doc.getId(), PG_CONFIGS.getOrDefault(lang, FALLBACK_PG_CONFIG));
+        } else {
+            memoryPut(doc);
+        }
+    }
+
+    private void removeDocument(DocType type, UUID refId) {
+        if (!postgresFullText) {
+            searchDocumentRepository.findByDocTypeAndRefId(type, refId).ifPresent(this::memoryRemove);
+        }
+        searchDocumentRepository.deleteByDocTypeAndRefId(type, refId);
+    }
+
+    private void removeDeckCards(UUID deckId) {
+        if (!postgresFullText) {
+            memoryDocs.entrySet().removeIf(e -> {
+                if (deckId.equals(e.getValue().deckId())) {
+                    InvertedIndex<UUID> index = memoryIndex.get(e.getValue().ownerId());
+                    if (index != null) index.remove(e.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+        searchDocumentRepository.deleteByDeckId(deckId);
+    }
+
+    // ==================== INDICE IN MEMORIA ====================
+
+    private void memoryPut(SearchDocument doc) {
+        String lang = normalizeLanguage(doc.getLanguage());
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addTerms(termFrequencies, doc.getTitle(), lang, TITLE_WEIGHT);
+        addTerms(termFrequencies, doc.getBody(), lang, 1);
+
+        memoryIndex.computeIfAbsent(doc.getOwnerId(), id -> new InvertedIndex<>()).put(doc.getId(), termFrequencies);
+        memoryDocs.put(doc.getId(), new IndexedDoc(doc.getOwnerId(), doc.getDocType(), doc.getRefId(),
+                doc.getDeckId(), doc.getTitle(), doc.getBody()));
+    }
+
+    private void memoryRemove(SearchDocument doc) {
+        InvertedIndex<UUID> index = memoryIndex.get(doc.getOwnerId());
+        if (index != null) {
+            index.remove(doc.getId());
+        }
+        memoryDocs.remove(doc.getId());
+    }
+
+    /**
+     * Indicizza sia la forma originale sia la radice: la query cerca entrambe le varianti
+     */
+    private static void addTerms(Map<String, Integer> termFrequencies, String text, String lang, int weight) {
+        for (String token : TextNormalizer.tokens(text)) {
+            termFrequencies.merge(token, weight, Integer::sum);
+            String stem = LightStemmer.stem(token, lang);
+            if (!stem.equals(token)) {
+                termFrequencies.merge(stem, weight, Integer::sum);
+            }
+        }
+    }
+
+    // ==================== UTILITY ====================
+
+    private static long rankKey(double score) {
+        return Math.round(score * RANK_SCALE);
+    }
+
+    private static String normalizeLanguage(String language) {
+        if (language == null || language.isBlank()) {
+            return DEFAULT_LANGUAGE;
+        }
+        String lang = language.trim().toLowerCase(Locale.ROOT);
+        if (lang.length() > 2) {
+            lang = lang.substring(0, 2); // "it-IT" -> "it"
+        }
+        return PG_CONFIGS.containsKey(lang) ? lang : DEFAULT_LANGUAGE;
+    }
+
+    /**
+     * Estratto del corpo attorno alla prima parola della query trovata
+     * (confronto senza accenti, come i token dell'indice)
+     */
+    private static String snippet(String body, List<String> tokens) {
+        if (body == null || body.isBlank()) {
+            return "";
+        }
+        String folded = Normalizer.normalize(body.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        // Rimuovere i segni diacritici può accorciare il testo: in quel caso si parte dall'inizio
+        int position = -1;
+        if (folded.length() == body.length()) {
+            for (String token : tokens) {
+                position = folded.indexOf(token);
+                if (position >= 0) break;
+            }
+        }
+
+        int start = Math.max(0, position - SNIPPET_LENGTH / 4);
+        int end = Math.min(body.length(), start + SNIPPET_LENGTH);
+        String snippet = body.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 ? "…" : "") + snippet + (end < body.length() ? "…" : "");
+    }
+
+    private static String join(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                if (!sb.isEmpty()) sb.append('\n');
+                sb.append(part.trim());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength);
+    }
+}
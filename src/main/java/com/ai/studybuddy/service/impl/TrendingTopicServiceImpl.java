@@ -0,0 +1,92 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.service.inter.TrendingTopicService;
+import com.ai.studybuddy.util.semantic.TextNormalizer;
+import com.ai.studybuddy.util.sketch.DecayingTopK;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracker in memoria (count-min sketch + top-K con decadimento) degli argomenti richiesti.
+ * Memoria costante: non serve interrogare quizzes o user_progress.
+ */
+@Service
+public class TrendingTopicServiceImpl implements TrendingTopicService {
+
+    private static final String SEPARATOR = "|";
+
+    private final DecayingTopK topK;
+    private final int capacity;
+
+    // Etichetta leggibile solo per le chiavi nel top-K (dimensione limitata)
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+
+    public TrendingTopicServiceImpl(
+            @Value("${trending.top-k:100}") int capacity,
+            @Value("${trending.half-life-minutes:60}") long halfLifeMinutes,
+            @Value("${trending.sketch-depth:4}") int sketchDepth,
+            @Value("${trending.sketch-width:4096}") int sketchWidth) {
+        this.capacity = capacity;
+        this.topK = new DecayingTopK(capacity, halfLifeMinutes * 60_000, sketchDepth, sketchWidth);
+    }
+
+    @Override
+    public void record(String topic, String language) {
+        String key = key(topic, language);
+        if (key == null) return;
+
+        synchronized (topK) {
+            topK.add(key, System.currentTimeMillis());
+            if (topK.contains(key)) {
+                labels.put(key, topic.trim());
+            }
+            if (labels.size() > capacity * 2) {
+                labels.keySet().removeIf(k -> !topK.contains(k));
+            }
+        }
+    }
+
+    @Override
+    public List<TrendingTopic> getTrending(int limit, String language) {
+        List<DecayingTopK.Entry> entries;
+        synchronized (topK) {
+            entries = topK.top(capacity, System.currentTimeMillis());
+        }
+
+        String lang = language != null ? language.toLowerCase(Locale.ROOT) : null;
+        List<TrendingTopic> result = new ArrayList<>();
+        for (DecayingTopK.Entry entry : entries) {
+            int sep = entry.key().indexOf(SEPARATOR);
+            String entryLang = entry.key().substring(0, sep);
+            if (lang != null && !lang.equals(entryLang)) continue;
+
+            String label = labels.getOrDefault(entry.key(), entry.key().substring(sep + 1));
+            result.add(new TrendingTopic(label, entryLang, Math.round(entry.score() * 100) / 100.0));
+            if (result.size() >= limit) break;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isTrending(String topic, String language) {
+        String key = key(topic, language);
+        if (key == null) return false;
+        synchronized (topK) {
+            return topK.contains(key);
+        }
+    }
+
+    private String key(String topic, String language) {
+        if (topic == null || topic.isBlank()) return null;
+        String normalized = TextNormalizer.normalize(topic);
+        if (normalized.isEmpty()) return null;
+        String lang = language != null ? language.toLowerCase(Locale.ROOT) : "it";
+        return lang + SEPARATOR + normalized;
+    }
+}
@@ -4,6 +4,7 @@ import com.ai.studybuddy.service.inter.UserService;
 import com.ai.studybuddy.util.Const;
 import com.ai.studybuddy.model.user.User;
 import com.ai.studybuddy.repository.UserRepository;
+import com.ai.studybuddy.repository.XpEventRepository;
 import com.ai.studybuddy.util.enums.EducationLevel;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
@@ -32,10 +33,13 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     private static final List<String> SUPPORTED_LANGUAGES = Arrays.asList("it", "en", "es", "fr", "de", "pt", "ru");
 
     private final UserRepository userRepository;
+    private final XpEventRepository xpEventRepository;
     private final PasswordEncoder passwordEncoder;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, XpEventRepository xpEventRepository,
+                           PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
+        this.xpEventRepository = xpEventRepository;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -62,8 +66,13 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         return userRepository.save(user);
     }
 
+    /**
+     * Il registro XP non ha FK verso users: gli eventi dell'utente vanno eliminati insieme a lui
+     */
     @Override
+    @Transactional
     public void deleteById(UUID id) {
+        xpEventRepository.deleteByUserId(id);
         userRepository.deleteById(id);
     }
 
@@ -0,0 +1,239 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.XpEvent;
+import com.ai.studybuddy.model.gamification.XpEventAppended;
+import com.ai.studybuddy.model.gamification.XpEventsProjected;
+import com.ai.studybuddy.repository.XpEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind degli XP delle revisioni flashcard.
+ *
+ * Una sessione di studio manda una revisione ogni paio di secondi: invece di un evento XP
+ * (e una proiezione) per carta, i delta di ogni utente si sommano in memoria e diventano
+ * un solo evento FLASHCARD per utente a ogni flush. Il flush parte ogni xp.write-behind.flush-ms,
+ * quando un utente accumula xp.write-behind.flush-cards carte e allo spegnimento.
+ *
+ * La mappa è una ConcurrentHashMap e ogni passaggio di stato di un utente è un compute atomico
+ * sul suo bin: le revisioni di utenti diversi non si contendono nessun lock e un delta aggiunto
+ * durante il flush finisce nel flush successivo, mai perso. Il delta resta visibile finché non è
+ * nei totali di UserStats: durante il saveAll (inFlight) e poi, scritto, fino al commit della
+ * proiezione del suo evento (written, per id), così pendingFor non sottostima i totali.
+ *
+ * Un crash del processo (non uno spegnimento ordinato) perde al massimo un intervallo di XP da revisioni.
+ */
+@Component
+public class XpDeltaBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(XpDeltaBuffer.class);
+
+    /**
+     * Delta in attesa di un utente
+     */
+    public record Delta(int xp, int cards) {
+
+        static final Delta NONE = new Delta(0, 0);
+
+        Delta plus(Delta other) {
+            return new Delta(xp + other.xp, cards + other.cards);
+        }
+    }
+
+    /**
+     * Stato di un utente: delta ancora da scrivere, delta preso dal flush in corso
+     * e delta scritti in attesa di proiezione (per id evento)
+     */
+    private record Slot(Delta pending, Delta inFlight, Map<Long, Delta> written) {
+
+        static Slot of(Delta pending) {
+            return new Slot(pending, Delta.NONE, Map.of());
+        }
+
+        /**
+         * @param projectedUpTo ultimo evento già nei totali letti dal chiamante, null se nessuno
+         */
+        Delta total(Long projectedUpTo) {
+            Delta total = pending.plus(inFlight);
+            for (Map.Entry<Long, Delta> entry : written.entrySet()) {
+                if (projectedUpTo == null || entry.getKey() > projectedUpTo) {
+                    total = total.plus(entry.getValue());
+                }
+            }
+            return total;
+        }
+
+        Slot withWritten(Long eventId) {
+            Map<Long, Delta> updated = new HashMap<>(written);
+            updated.put(eventId, inFlight);
+            return new Slot(pending, Delta.NONE, Map.copyOf(updated));
+        }
+
+        Slot withoutWritten(List<Long> eventIds) {
+            Map<Long, Delta> updated = new HashMap<>(written);
+            eventIds.forEach(updated::remove);
+            return new Slot(pending, inFlight, Map.copyOf(updated));
+        }
+
+        boolean isEmpty() {
+            return pending.cards() == 0 && inFlight.cards() == 0 && written.isEmpty();
+        }
+    }
+
+    private final XpEventRepository xpEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int flushCards;
+
+    private final Map<UUID, Slot> slots = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public XpDeltaBuffer(XpEventRepository xpEventRepository,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${xp.write-behind.flush-ms:5000}") long flushMs,
+                         @Value("${xp.write-behind.flush-cards:25}") int flushCards) {
+        this.xpEventRepository = xpEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.flushCards = flushCards;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "xp-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushSafely, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Aggiunge carte studiate e XP al delta dell'utente
+     * @return delta non ancora proiettato dopo l'aggiunta (compreso quello in scrittura e quello scritto)
+     */
+    public Delta add(UUID userId, int cards, int xp) {
+        Delta added = new Delta(xp, cards);
+        Slot slot = slots.merge(userId, Slot.of(added),
+                (old, ignored) -> new Slot(old.pending().plus(added), old.inFlight(), old.written()));
+        if (slot.pending().cards() >= flushCards) {
+            flusher.execute(this::flushSafely);
+        }
+        return slot.total(null);
+    }
+
+    /**
+     * Delta non ancora proiettato: si somma ai valori persistiti per mostrare i totali all'utente
+     */
+    public Delta pendingFor(UUID userId) {
+        return pendingFor(userId, null);
+    }
+
+    /**
+     * Come pendingFor, escludendo i delta scritti con id fino a projectedUpTo: con il lastEventId
+     * di UserStats appena letto, una proiezione che si chiude tra le due letture non viene contata due volte
+     */
+    public Delta pendingFor(UUID userId, Long projectedUpTo) {
+        Slot slot = slots.get(userId);
+        return slot != null ? slot.total(projectedUpTo) : Delta.NONE;
+    }
+
+    /**
+     * Scrive un evento per utente in un solo saveAll (insert in batch) e sveglia il proiettore
+     * @return numero di utenti scritti
+     */
+    public int flush() {
+        return flush(true);
+    }
+
+    /**
+     * Un flush alla volta: il delta inFlight di un utente appartiene a un solo flush
+     *
+     * @param wakeProjector false allo spegnimento: il proiettore potrebbe essere già fermo,
+     *                      gli eventi scritti li proietta il polling al prossimo avvio
+     */
+    synchronized int flush(boolean wakeProjector) {
+        if (slots.isEmpty()) {
+            return 0;
+        }
+        List<XpEvent> events = new ArrayList<>();
+        for (UUID userId : slots.keySet()) {
+            Slot slot = slots.computeIfPresent(userId,
+                    (id, s) -> s.pending().cards() > 0 ? new Slot(Delta.NONE, s.pending(), s.written()) : s);
+            if (slot != null && slot.inFlight().cards() > 0) {
+                events.add(XpEvent.flashcards(userId, slot.inFlight().xp(), slot.inFlight().cards()));
+            }
+        }
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            xpEventRepository.saveAll(events);
+        } catch (RuntimeException e) {
+            // Il delta torna in attesa: lo riprova il prossimo flush
+            events.forEach(event -> slots.computeIfPresent(event.getUserId(),
+                    (id, s) -> new Slot(s.pending().plus(s.inFlight()), Delta.NONE, s.written())));
+            throw e;
+        }
+        // Scritto ma non ancora nei totali: resta visibile sotto il suo id fino alla proiezione
+        events.forEach(event -> slots.computeIfPresent(event.getUserId(),
+                (id, s) -> s.withWritten(event.getId())));
+        if (wakeProjector) {
+            events.forEach(event -> eventPublisher.publishEvent(new XpEventAppended(event.getUserId())));
+        }
+        return events.size();
+    }
+
+    /**
+     * Dopo il commit della proiezione i delta sono nei totali persistiti: l'utente esce dalla mappa
+     * se non ha altro in attesa. Sincronizzato con il flush: il polling può proiettare un evento
+     * appena scritto prima che il flush lo abbia registrato tra i written
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onProjected(XpEventsProjected event) {
+        slots.computeIfPresent(event.userId(), (id, s) -> {
+            Slot updated = s.withoutWritten(event.eventIds());
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private void flushSafely() {
+        try {
+            int users = flush();
+            if (users > 0) {
+                log.debug("Write-behind XP: scritti i delta di {} utenti", users);
+            }
+        } catch (Exception e) {
+            // Un errore non deve fermare il flush periodico (scheduleWithFixedDelay si interrompe alla prima eccezione)
+            log.warn("Flush dei delta XP fallito, nuovo tentativo al prossimo giro: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush(false);
+        } catch (Exception e) {
+            // Dopo un saveAll fallito i delta sono tornati tutti in attesa: sono quelli non scritti
+            long unwritten = slots.values().stream().filter(s -> s.pending().cards() > 0).count();
+            log.error("Flush finale dei delta XP fallito, XP da revisioni non scritti per {} utenti: {}",
+                    unwritten, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.XpEventAppended;
+import com.ai.studybuddy.repository.UserStatsRepository;
+import com.ai.studybuddy.repository.UserStatsRepository.LeaderboardRow;
+import com.ai.studybuddy.repository.XpEventRepository;
+import com.ai.studybuddy.service.inter.GamificationService;
+import com.ai.studybuddy.service.inter.LeaderboardService;
+import com.ai.studybuddy.service.inter.XpProjectionService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+public class XpProjectionServiceImpl implements XpProjectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(XpProjectionServiceImpl.class);
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final XpEventRepository xpEventRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final GamificationService gamificationService;
+    private final LeaderboardService leaderboardService;
+    private final long pollMs;
+    private final int userBatchSize;
+    private final int maxEventsPerUser;
+    private final int maxAttempts;
+    private final boolean replayOnStartup;
+
+    // Un solo thread: le proiezioni di questa istanza non si sovrappongono mai
+    private final ScheduledExecutorService projector;
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+
+    public XpProjectionServiceImpl(XpEventRepository xpEventRepository,
+                                   UserStatsRepository userStatsRepository,
+                                   GamificationService gamificationService,
+                                   LeaderboardService leaderboardService,
+                                   @Value("${xp.projector.poll-ms:1000}") long pollMs,
+                                   @Value("${xp.projector.user-batch-size:100}") int userBatchSize,
+                                   @Value("${xp.projector.max-events-per-user:500}") int maxEventsPerUser,
+                                   @Value("${xp.projector.max-attempts:3}") int maxAttempts,
+                                   @Value("${xp.projector.replay-on-startup:false}") boolean replayOnStartup) {
+        this.xpEventRepository = xpEventRepository;
+        this.userStatsRepository = userStatsRepository;
+        this.gamificationService = gamificationService;
+        this.leaderboardService = leaderboardService;
+        this.pollMs = pollMs;
+        this.userBatchSize = userBatchSize;
+        this.maxEventsPerUser = maxEventsPerUser;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.replayOnStartup = replayOnStartup;
+        this.projector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "xp-projector");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ==================== RISVEGLIO ====================
+
+    /**
+     * Dopo il commit dell'evento: più eventi ravvicinati svegliano il proiettore una volta sola
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventAppended(XpEventAppended event) {
+        if (wakeScheduled.compareAndSet(false, true)) {
+            projector.execute(() -> {
+                wakeScheduled.set(false);
+                drainSafely();
+            });
+        }
+    }
+
+    /**
+     * Il polling parte ad applicazione pronta: all'avvio recupera anche gli eventi lasciati in attesa
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        projector.scheduleWithFixedDelay(this::drainSafely, 0, pollMs, TimeUnit.MILLISECONDS);
+        if (!replayOnStartup) {
+            return;
+        }
+        projector.execute(() -> {
+            try {
+                replayAll();
+            } catch (Exception e) {
+                log.error("Ricostruzione dal registro XP fallita: {}", e.getMessage());
+            }
+        });
+    }
+
+    // ==================== PROIEZIONE ====================
+
+    @Override
+    public int drain() {
+        int total = 0;
+        while (true) {
+            List<UUID> users = xpEventRepository.findPendingUserIds(PageRequest.of(0, userBatchSize));
+            if (users.isEmpty()) {
+                break;
+            }
+            int applied = 0;
+            for (UUID userId : users) {
+                try {
+                    applied += projectWithRetry(userId);
+                } catch (Exception e) {
+                    // Gli eventi restano in attesa e si riprovano al prossimo giro
+                    log.warn("Proiezione eventi XP fallita per l'utente {}: {}", userId, e.getMessage());
+                }
+            }
+            total += applied;
+            if (applied == 0) {
+                // Tutti falliti o in mano a un'altra istanza: niente giri a vuoto
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public int replayAll() {
+        long start = System.currentTimeMillis();
+        drain();
+
+        int replayed = 0;
+        int users = 0;
+        UUID afterId = MIN_UUID;
+        List<LeaderboardRow> page;
+        do {
+            page = userStatsRepository.findLeaderboardRows(afterId, PageRequest.of(0, userBatchSize));
+            for (LeaderboardRow row : page) {
+                try {
+                    replayed += gamificationService.replayXpEvents(row.getUserId());
+                    users++;
+                } catch (Exception e) {
+                    log.warn("Ricostruzione fallita per l'utente {}: {}", row.getUserId(), e.getMessage());
+                }
+                afterId = row.getId();
+            }
+        } while (page.size() == userBatchSize);
+
+        leaderboardService.rebuild();
+        log.info("Statistiche ricostruite dal registro XP: {} utenti, {} eventi in {}ms",
+                users, replayed, System.currentTimeMillis() - start);
+        return replayed;
+    }
+
+    /**
+     * Conflitti attesi e rari: un'altra scrittura di UserStats (lock ottimistico) o la creazione
+     * concorrente della riga dell'utente. Si ritenta in una nuova transazione, per un numero limitato di volte.
+     */
+    private int projectWithRetry(UUID userId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return gamificationService.projectXpEvents(userId, maxEventsPerUser);
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Conflitto proiettando gli eventi XP dell'utente {} (tentativo {}): {}",
+                        userId, attempt, e.getMessage());
+            }
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            int applied = drain();
+            if (applied > 0) {
+                log.debug("Proiettati {} eventi XP", applied);
+            }
+        } catch (Exception e) {
+            // Un errore non deve fermare il polling (scheduleWithFixedDelay si interrompe alla prima eccezione)
+            log.error("Errore del proiettore XP: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        projector.shutdown();
+        try {
+            // Lascia finire la proiezione in corso: gli eventi non proiettati restano comunque nel registro
+            projector.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
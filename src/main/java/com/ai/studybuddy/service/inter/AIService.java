@@ -3,6 +3,8 @@ package com.ai.studybuddy.service.inter;
 import com.ai.studybuddy.util.enums.DifficultyLevel;
 import com.google.gson.JsonArray;
 
+import java.util.List;
+
 /**
  * Interfaccia per il servizio AI
  */
@@ -53,6 +55,15 @@ public interface AIService {
 
 	String generateFlashcards(String topic, int numCards, DifficultyLevel difficulty, String language);
 
+	/**
+	 * Rigenera solo le domande di un quiz risultate non valide, in un'unica chiamata.
+	 *
+	 * @param numQuestions numero di domande da rigenerare
+	 * @param existingQuestions testi delle domande già valide, da non ripetere
+	 */
+	String regenerateQuizQuestions(String topic, int numQuestions, DifficultyLevel difficulty, String language,
+			List<String> existingQuestions);
+
 	String generateFlashcardsWithContext(String topic, int numCards, DifficultyLevel difficulty, String context,
 			String language);
 
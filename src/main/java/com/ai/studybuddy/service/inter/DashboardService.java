@@ -0,0 +1,20 @@
+package com.ai.studybuddy.service.inter;
+
+import com.ai.studybuddy.dto.dashboard.DashboardResponse;
+
+import java.util.UUID;
+
+/**
+ * Dashboard aggregata
+ *
+ * Le sezioni (statistiche, quiz recenti, attività, raccomandazioni, deck) vengono lette
+ * in parallelo, ciascuna con il proprio timeout: la risposta arriva con la latenza
+ * della sezione più lenta e una sezione in errore non blocca le altre.
+ */
+public interface DashboardService {
+
+    /**
+     * Tutte le sezioni della dashboard dell'utente; quelle fallite sono elencate in unavailable
+     */
+    DashboardResponse getDashboard(UUID userId);
+}
@@ -0,0 +1,33 @@
+package com.ai.studybuddy.service.inter;
+
+import java.util.Optional;
+
+/**
+ * Cache semantica delle spiegazioni generate dall'AI.
+ * Le spiegazioni sono partizionate per lingua e livello: una richiesta
+ * abbastanza simile ad un argomento già spiegato riusa la spiegazione salvata.
+ */
+public interface ExplanationCacheService {
+
+    /**
+     * Cerca una spiegazione per un argomento simile
+     *
+     * @param topic argomento richiesto
+     * @param level livello (già normalizzato)
+     * @param language codice lingua
+     * @return spiegazione salvata se la similarità supera la soglia configurata
+     */
+    Optional<String> findSimilar(String topic, String level, String language);
+
+    /**
+     * Salva una spiegazione appena generata
+     */
+    void store(String topic, String level, String language, String explanation);
+
+    /**
+     * Statistiche di utilizzo della cache
+     */
+    CacheStats getStats();
+
+    record CacheStats(long hits, long misses, int entries, double hitRate) {}
+}
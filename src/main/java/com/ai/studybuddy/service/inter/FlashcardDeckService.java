@@ -1,8 +1,10 @@
 package com.ai.studybuddy.service.inter;
 
+import com.ai.studybuddy.dto.flashcard.DeckNameResponse;
 import com.ai.studybuddy.dto.flashcard.FlashcardDeckCreateRequest;
 import com.ai.studybuddy.model.flashcard.FlashcardDeck;
 import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.util.pagination.CursorPage;
 
 import java.util.List;
 import java.util.UUID;
@@ -18,9 +20,18 @@ public interface FlashcardDeckService {
     FlashcardDeck createDeck(FlashcardDeckCreateRequest request, User owner);
 
     /**
-     * Ottiene tutti i deck di un utente
+     * Pagina keyset dei deck di un utente (creati più di recente prima)
+     *
+     * @param cursor cursore restituito dalla pagina precedente, null per la prima
      */
-    List<FlashcardDeck> getUserDecks(UUID userId);
+    CursorPage<FlashcardDeck> getUserDecks(UUID userId, String cursor, int limit);
+
+    /**
+     * Id e nome dei deck attivi dell'utente, senza il resto dell'entity, a pagine come getUserDecks
+     *
+     * @param cursor cursore restituito dalla pagina precedente, null per la prima
+     */
+    CursorPage<DeckNameResponse> getDeckNames(UUID userId, String cursor, int limit);
 
     /**
      * Ottiene un deck specifico
@@ -53,9 +64,9 @@ public interface FlashcardDeckService {
     List<FlashcardDeck> searchDecks(UUID userId, String searchTerm);
 
     /**
-     * Ottiene i deck pubblici (condivisi)
+     * Pagina keyset dei deck pubblici (condivisi), pubblicati più di recente prima
      */
-    List<FlashcardDeck> getPublicDecks();
+    CursorPage<FlashcardDeck> getPublicDecks(String cursor, int limit);
 
     /**
      * Ottiene deck per materia
@@ -4,6 +4,7 @@ import com.ai.studybuddy.dto.flashcard.FlashcardAIGenerateRequest;
 import com.ai.studybuddy.dto.flashcard.FlashcardCreateRequest;
 import com.ai.studybuddy.model.flashcard.Flashcard;
 import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.util.pagination.CursorPage;
 
 import java.util.List;
 import java.util.UUID;
@@ -32,9 +33,16 @@ public interface FlashcardService {
     List<Flashcard> generateAndSaveFlashcards(UUID deckId, FlashcardAIGenerateRequest request, User user);
 
     /**
-     * Ottiene tutte le flashcard di un deck
+     * Salva in un'unica transazione le flashcard già generate dall'AI
      */
-    List<Flashcard> getFlashcardsByDeck(UUID deckId, UUID userId);
+    List<Flashcard> saveGeneratedFlashcards(UUID deckId, List<FlashcardCreateRequest> cards, User user);
+
+    /**
+     * Pagina keyset delle flashcard di un deck, in ordine di creazione
+     *
+     * @param cursor cursore restituito dalla pagina precedente, null per la prima
+     */
+    CursorPage<Flashcard> getFlashcardsByDeck(UUID deckId, UUID userId, String cursor, int limit);
 
     /**
      * Registra una revisione di una flashcard
@@ -57,9 +65,9 @@ public interface FlashcardService {
     List<Flashcard> getStudySession(UUID deckId, int numberOfCards, UUID userId);
 
     /**
-     * Cerca flashcards per contenuto
+     * Cerca flashcards per contenuto nel deck, ordinate per rilevanza (vedi SearchService)
      */
-    List<Flashcard> searchFlashcards(UUID deckId, String searchTerm, UUID userId);
+    List<Flashcard> searchFlashcards(UUID deckId, String searchTerm, User user);
 
     /**
      * Ottiene statistiche delle flashcard
@@ -7,6 +7,7 @@ import com.ai.studybuddy.model.recommendation.Recommendation;
 import com.ai.studybuddy.model.gamification.UserStats;
 import com.ai.studybuddy.model.user.User;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,6 +39,9 @@ public interface GamificationService {
 
     /**
      * Registra XP per spiegazione richiesta (+10 XP)
+     *
+     * I metodi record* scrivono solo l'evento nel registro XP: statistiche, progressi
+     * e badge si aggiornano subito dopo, in modo asincrono (XpProjectionService)
      */
     XpEventResponse recordExplanationXp(User user);
 
@@ -46,11 +50,25 @@ public interface GamificationService {
      */
     XpEventResponse recordQuizXp(User user, boolean passed);
 
+    /**
+     * Registra XP per quiz completato aggiornando anche i progressi per argomento
+     */
+    XpEventResponse recordQuizXp(User user, boolean passed, String topic, String subject,
+                                 double score, int totalQuestions, int correctAnswers);
+
     /**
      * Registra XP per flashcards studiate (+2 XP per card)
      */
     XpEventResponse recordFlashcardXp(User user, int cardsStudied);
 
+    /**
+     * Registra XP per una singola revisione flashcard (+2 XP)
+     *
+     * Le revisioni arrivano a raffica durante lo studio: gli XP si accumulano in memoria per utente
+     * e vengono scritti come un unico evento ogni xp.write-behind.flush-ms (write-behind)
+     */
+    XpEventResponse recordFlashcardReviewXp(User user);
+
     /**
      * Registra XP per sessione focus completata
      * @param user utente
@@ -59,6 +77,25 @@ public interface GamificationService {
      */
     XpEventResponse recordFocusSessionXp(User user, int durationMinutes, int xpToAward);
 
+    /**
+     * Storico degli eventi XP dell'utente, dal più recente
+     */
+    List<XpHistoryEntry> getXpHistory(UUID userId, int limit);
+
+    // ==================== PROIEZIONE EVENTI XP ====================
+
+    /**
+     * Applica a statistiche, bucket, progressi e badge gli eventi XP non ancora proiettati dell'utente
+     * @return numero di eventi applicati
+     */
+    int projectXpEvents(UUID userId, int maxEvents);
+
+    /**
+     * Ricalcola statistiche e bucket XP dell'utente dal registro eventi
+     * @return numero di eventi riletti
+     */
+    int replayXpEvents(UUID userId);
+
     // ==================== BADGES ====================
 
     /**
@@ -101,6 +138,22 @@ public interface GamificationService {
      */
     List<LeaderboardEntry> getStreakLeaderboard(int limit);
 
+    /**
+     * Classifica per tipo (XP, WEEKLY_XP, STREAK, LEVEL) con rank
+     */
+    List<LeaderboardEntry> getLeaderboard(String type, int limit);
+
+    /**
+     * Utenti attorno all'utente in classifica (radius sopra e sotto)
+     */
+    List<LeaderboardEntry> getLeaderboardAroundUser(UUID userId, String type, int radius);
+
+    /**
+     * Classifica XP di una settimana (WEEK) o di un mese (MONTH), anche passati
+     * @param date un giorno qualsiasi del periodo
+     */
+    List<LeaderboardEntry> getPeriodLeaderboard(String period, LocalDate date, int limit);
+
     /**
      * Ottiene la posizione dell'utente nella classifica
      */
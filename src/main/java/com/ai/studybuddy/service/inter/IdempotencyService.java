@@ -0,0 +1,22 @@
+package com.ai.studybuddy.service.inter;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Gestione delle chiavi di idempotenza (header Idempotency-Key) per le operazioni costose.
+ */
+public interface IdempotencyService {
+
+    /**
+     * Esegue l'operazione una sola volta per (utente, chiave).
+     * Le richieste ripetute entro la finestra di validità ricevono il risultato salvato,
+     * oppure si agganciano all'esecuzione ancora in corso.
+     *
+     * @param userId utente proprietario della chiave
+     * @param key valore dell'header Idempotency-Key (se null l'operazione viene eseguita normalmente)
+     * @param fingerprint impronta dei parametri della richiesta: la stessa chiave con parametri diversi è un errore
+     * @param action operazione da eseguire
+     */
+    <T> T execute(UUID userId, String key, String fingerprint, Supplier<T> action);
+}
@@ -0,0 +1,68 @@
+package com.ai.studybuddy.service.inter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Classifiche in memoria per metrica, aggiornate dagli eventi XP e ricostruibili da user_stats.
+ *
+ * Aggiornamento, rank e finestra "intorno a me" costano O(log n) qualunque sia il numero di utenti.
+ */
+public interface LeaderboardService {
+
+    enum Metric {
+        XP, WEEKLY_XP, STREAK, LEVEL;
+
+        /**
+         * Accetta anche "WEEKLY"; default XP per valori sconosciuti
+         */
+        public static Metric parse(String type) {
+            if (type == null) {
+                return XP;
+            }
+            return switch (type.trim().toUpperCase(Locale.ROOT)) {
+                case "WEEKLY_XP", "WEEKLY" -> WEEKLY_XP;
+                case "STREAK" -> STREAK;
+                case "LEVEL" -> LEVEL;
+                default -> XP;
+            };
+        }
+    }
+
+    /**
+     * Posizione in classifica con rank a pari merito
+     *
+     * @param score valore della metrica (per LEVEL: livello nei 32 bit alti, XP totali in quelli bassi)
+     */
+    record Ranked(UUID userId, long score, int rank) {}
+
+    List<Ranked> top(Metric metric, int offset, int limit);
+
+    /**
+     * Utenti attorno all'utente indicato (radius sopra e radius sotto), utente incluso
+     */
+    List<Ranked> around(Metric metric, UUID userId, int radius);
+
+    /**
+     * Rank dell'utente (1 = primo), -1 se non ha statistiche
+     */
+    int rankOf(Metric metric, UUID userId);
+
+    /**
+     * Livello dell'utente secondo la classifica LEVEL, 1 se assente
+     */
+    int levelOf(UUID userId);
+
+    /**
+     * XP totali dell'utente secondo la classifica XP, 0 se assente
+     */
+    int totalXpOf(UUID userId);
+
+    int size(Metric metric);
+
+    /**
+     * Ricostruisce tutte le classifiche da user_stats (dopo UPDATE massivi o una ricostruzione dal registro XP)
+     */
+    void rebuild();
+}
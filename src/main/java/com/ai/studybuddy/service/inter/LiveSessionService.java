@@ -0,0 +1,50 @@
+package com.ai.studybuddy.service.inter;
+
+import com.ai.studybuddy.dto.live.CreateLiveSessionRequest;
+import com.ai.studybuddy.dto.live.LiveAnswerRequest;
+import com.ai.studybuddy.model.live.LiveSession;
+import com.ai.studybuddy.model.user.User;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+/**
+ * Sessioni quiz live in classe.
+ *
+ * Il docente avvia una sessione da un suo quiz, gli studenti entrano con il codice;
+ * domande, countdown, istogramma delle risposte e classifica arrivano a tutti via SSE.
+ * Lo stato vive in memoria sul singolo nodo, le risposte sono salvate a blocchi in background.
+ */
+public interface LiveSessionService {
+
+    /**
+     * Crea una sessione in attesa (LOBBY) su un quiz del docente
+     */
+    LiveSession createSession(CreateLiveSessionRequest request, User host);
+
+    LiveSession getSession(String code);
+
+    LiveSession join(String code, User user);
+
+    /**
+     * Apre lo stream di eventi; solo docente e partecipanti possono iscriversi
+     */
+    SseEmitter subscribe(String code, UUID userId);
+
+    /**
+     * Domanda successiva (o prima domanda); a domande finite chiude la sessione
+     */
+    LiveSession nextQuestion(String code, UUID hostId);
+
+    /**
+     * Chiude la domanda corrente prima della scadenza e mostra la risposta corretta
+     */
+    LiveSession reveal(String code, UUID hostId);
+
+    LiveSession endSession(String code, UUID hostId);
+
+    /**
+     * @return false se la risposta non è accettata (domanda chiusa o già risposto)
+     */
+    boolean answer(String code, UUID userId, LiveAnswerRequest request);
+}
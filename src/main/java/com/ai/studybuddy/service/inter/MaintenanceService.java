@@ -0,0 +1,39 @@
+package com.ai.studybuddy.service.inter;
+
+/**
+ * Job di manutenzione schedulati
+ *
+ * Ogni job gira su un solo nodo (advisory lock di PostgreSQL), lavora a chunk
+ * in ordine di id (keyset) con transazioni brevi e registra ogni esecuzione in job_runs.
+ * Le esecuzioni schedulate girano una volta per finestra del cron: un nodo che arriva dopo
+ * (orologio sfasato, avvio in ritardo) trova in job_runs il giro già riuscito e lo salta.
+ * I metodi si possono chiamare anche a mano, senza vincolo di finestra: restituiscono
+ * le righe elaborate, -1 se il job è già in esecuzione altrove.
+ */
+public interface MaintenanceService {
+
+    String JOB_STREAK_RESET = "streak-reset";
+    String JOB_RECOMMENDATION_CLEANUP = "recommendation-cleanup";
+    String JOB_RETENTION = "retention";
+    String JOB_QUIZ_ANALYTICS_REBUILD = "quiz-analytics-rebuild";
+
+    /**
+     * Azzera gli streak di chi non ha attività né oggi né ieri
+     */
+    int resetBrokenStreaks();
+
+    /**
+     * Elimina le raccomandazioni scadute e quelle completate/ignorate da più di maintenance.recommendations.retention-days
+     */
+    int cleanupRecommendations();
+
+    /**
+     * Elimina lo storico dei job e i bucket XP oltre la retention configurata
+     */
+    int applyRetention();
+
+    /**
+     * Ricostruisce le summary quiz di tutti gli utenti dallo storico (vedi QuizAnalyticsService#rebuildAll)
+     */
+    int rebuildQuizAnalytics();
+}
@@ -0,0 +1,50 @@
+package com.ai.studybuddy.service.inter;
+
+import com.ai.studybuddy.model.quiz.BankQuestion;
+import com.ai.studybuddy.util.enums.DifficultyLevel;
+import com.google.gson.JsonObject;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Banca di domande condivisa, deduplicata per topic normalizzato, difficoltà e lingua.
+ *
+ * I quiz vengono composti prima dalla banca; l'AI genera solo le domande mancanti,
+ * che a loro volta entrano nella banca. Sui topic popolari le chiamate AI per quiz tendono a zero.
+ */
+public interface QuestionBankService {
+
+    /**
+     * Domande della banca utilizzabili per un nuovo quiz dell'utente (mai già viste da lui)
+     *
+     * @return al massimo {@code count} domande, eventualmente nessuna
+     */
+    List<BankQuestion> pickForQuiz(UUID userId, String topic, DifficultyLevel difficulty, String language, int count);
+
+    /**
+     * Aggiunge alla banca le domande generate dall'AI (già validate).
+     * Le domande già presenti non vengono duplicate.
+     *
+     * @return le voci della banca corrispondenti, nello stesso ordine e senza duplicati
+     */
+    List<BankQuestion> addGenerated(String topic, DifficultyLevel difficulty, String language,
+                                    List<JsonObject> questions);
+
+    /**
+     * Inserimento transazionale usato da {@link #addGenerated}: va chiamato tramite proxy
+     */
+    List<BankQuestion> storeGenerated(String topic, DifficultyLevel difficulty, String language,
+                                      List<JsonObject> questions);
+
+    /**
+     * Le domande sono state servite in un quiz (dentro la transazione che lo salva)
+     */
+    void recordServed(Collection<UUID> bankQuestionIds);
+
+    /**
+     * Aggiorna il tasso di risposte corrette (dentro la transazione che completa il quiz)
+     */
+    void recordAnswers(Collection<UUID> correctIds, Collection<UUID> wrongIds);
+}
@@ -0,0 +1,57 @@
+package com.ai.studybuddy.service.inter;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Statistiche quiz per utente mantenute in modo incrementale.
+ *
+ * I metodi record* vanno chiamati dentro la transazione che modifica il quiz,
+ * DOPO la modifica: se la riga di summary non esiste ancora viene ricostruita
+ * dallo storico, che a quel punto include già la modifica corrente.
+ */
+public interface QuizAnalyticsService {
+
+    void recordQuizCreated(UUID userId);
+
+    void recordQuizCompleted(UUID userId, String topic, Double percentage);
+
+    /**
+     * Un quiz completato torna "in corso" (retry)
+     */
+    void recordCompletionReverted(UUID userId, Double percentage);
+
+    void recordQuizDeleted(UUID userId, boolean wasCompleted, Double percentage);
+
+    /**
+     * Statistiche dell'utente: una lookup per chiave primaria, in sola lettura
+     * (se la riga manca i contatori si calcolano dallo storico senza crearla)
+     */
+    QuizService.QuizStats getStats(UUID userId);
+
+    /**
+     * Miglior punteggio storico dell'utente sul topic
+     */
+    Optional<Double> getBestScore(UUID userId, String topic);
+
+    /**
+     * Ricalcola summary e best score per topic dallo storico dei quiz
+     */
+    QuizService.QuizStats rebuild(UUID userId);
+
+    /**
+     * Crea le summary mancanti (utenti con quiz precedenti all'introduzione della tabella).
+     * Un utente che fallisce viene saltato e loggato, senza fermare gli altri.
+     *
+     * @return numero di utenti ricostruiti
+     */
+    int backfillMissing();
+
+    /**
+     * Ricostruisce dallo storico le summary di tutti gli utenti con quiz, per correggere
+     * eventuali derive dei contatori incrementali (job di manutenzione o chiamata manuale)
+     *
+     * @return numero di utenti ricostruiti
+     */
+    int rebuildAll();
+}
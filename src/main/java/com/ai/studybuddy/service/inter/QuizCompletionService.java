@@ -0,0 +1,33 @@
+package com.ai.studybuddy.service.inter;
+
+import com.ai.studybuddy.dto.quiz.QuizAnswerRequest;
+import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.model.user.User;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Completamento di un quiz in un'unica transazione:
+ * tentativo, risultato del quiz, summary, XP, progressi per argomento e badge.
+ *
+ * Il risultato restituito contiene già XP guadagnati, livello e nuovi badge.
+ */
+public interface QuizCompletionService {
+
+    /**
+     * Invio delle risposte a un quiz del creatore
+     */
+    QuizResultResponse completeQuiz(QuizAnswerRequest request, User user);
+
+    /**
+     * Invio delle risposte a un quiz condiviso: XP solo al primo completamento,
+     * i tentativi successivi vengono registrati senza XP
+     */
+    QuizResultResponse completeSharedQuiz(String shareCode, Map<UUID, String> answers, User user);
+
+    /**
+     * Transazione di completeSharedQuiz (attraverso il proxy, per poterla ripetere)
+     */
+    QuizResultResponse recordSharedCompletion(String shareCode, Map<UUID, String> answers, User user);
+}
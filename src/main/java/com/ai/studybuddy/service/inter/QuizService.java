@@ -1,10 +1,14 @@
 package com.ai.studybuddy.service.inter;
 
 import com.ai.studybuddy.dto.quiz.QuizAnswerRequest;
+import com.ai.studybuddy.dto.quiz.QuizDetailResponse;
 import com.ai.studybuddy.dto.quiz.QuizGenerateRequest;
 import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.dto.quiz.QuizSummaryResponse;
+import com.ai.studybuddy.model.quiz.BankQuestion;
 import com.ai.studybuddy.model.quiz.Quiz;
 import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.util.pagination.CursorPage;
 
 import java.util.List;
 import java.util.UUID;
@@ -19,6 +23,12 @@ public interface QuizService {
      */
     Quiz generateQuiz(QuizGenerateRequest request, User user);
 
+    /**
+     * Salva in un'unica transazione breve un quiz con le domande prese dalla banca condivisa
+     * (comprese quelle appena generate dall'AI e aggiunte alla banca)
+     */
+    Quiz saveGeneratedQuiz(QuizGenerateRequest request, User user, List<BankQuestion> questions);
+
     /**
      * Genera quiz (metodo legacy)
      * @deprecated Usa {@link #generateQuiz(QuizGenerateRequest, User)} invece
@@ -32,7 +42,8 @@ public interface QuizService {
     Quiz startQuiz(UUID quizId, UUID userId);
 
     /**
-     * Invia le risposte e calcola il punteggio
+     * Invia le risposte e calcola il punteggio.
+     * Su un quiz già completato restituisce l'ultimo risultato con firstCompletion = false
      */
     QuizResultResponse submitAnswers(QuizAnswerRequest request, UUID userId);
 
@@ -51,6 +62,23 @@ public interface QuizService {
      */
     List<Quiz> getCompletedQuizzes(UUID userId);
 
+    /**
+     * Dettaglio quiz con domande ordinate, caricato con una sola query
+     */
+    QuizDetailResponse getQuizDetail(UUID quizId, UUID userId);
+
+    /**
+     * Pagina keyset dell'elenco riassuntivo dei quiz dell'utente (senza domande)
+     *
+     * @param cursor cursore restituito dalla pagina precedente, null per la prima
+     */
+    CursorPage<QuizSummaryResponse> getUserQuizSummaries(UUID userId, String cursor, int limit);
+
+    /**
+     * Pagina keyset dell'elenco riassuntivo dei quiz completati (senza domande)
+     */
+    CursorPage<QuizSummaryResponse> getCompletedQuizSummaries(UUID userId, String cursor, int limit);
+
     /**
      * Ottiene i quiz in sospeso di un utente
      */
@@ -0,0 +1,61 @@
+package com.ai.studybuddy.service.inter;
+
+import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.model.quiz.QuizAttempt;
+import com.ai.studybuddy.model.quiz.QuizTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Template dei quiz (contenuto immutabile, in cache) e tentativi degli utenti.
+ *
+ * Un quiz generato una volta può essere svolto dal creatore quante volte vuole e,
+ * tramite link di condivisione, da un'intera classe: ogni svolgimento è un QuizAttempt.
+ */
+public interface QuizTemplateService {
+
+    /**
+     * Template del quiz, dalla cache se presente.
+     * Non verifica il proprietario: il chiamante deve averlo già fatto.
+     */
+    QuizTemplate getTemplate(UUID quizId);
+
+    /**
+     * Template di un quiz condiviso, accessibile a qualsiasi utente autenticato
+     */
+    QuizTemplate getSharedTemplate(String shareCode);
+
+    /**
+     * Genera (o restituisce) il codice di condivisione di un quiz del creatore
+     */
+    String shareQuiz(UUID quizId, UUID ownerId);
+
+    /**
+     * Salva un tentativo valutato sul template e aggiorna le statistiche della banca domande.
+     * Va chiamato dentro la transazione che completa il quiz.
+     */
+    QuizAttempt recordAttempt(QuizTemplate template, UUID userId, Map<UUID, String> answers,
+                              LocalDateTime startedAt);
+
+    /**
+     * Svolgimento di un quiz condiviso da parte di un altro utente.
+     * Il primo tentativo dell'utente viene marcato come premiato (vincolo unique su quiz e utente).
+     */
+    QuizResultResponse submitSharedAttempt(String shareCode, Map<UUID, String> answers, UUID userId);
+
+    /**
+     * Storico dei tentativi dell'utente su un quiz, dal più recente
+     */
+    List<QuizAttempt> getAttempts(UUID quizId, UUID userId);
+
+    Optional<QuizAttempt> getLatestAttempt(UUID quizId, UUID userId);
+
+    /**
+     * Quiz eliminato: rimuove tentativi e template in cache
+     */
+    void deleteQuizData(UUID quizId);
+}
@@ -2,6 +2,7 @@ package com.ai.studybuddy.service.inter;
 
 import com.ai.studybuddy.dto.recommendation.RecommendationResponse;
 import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.util.pagination.CursorPage;
 
 import java.util.List;
 import java.util.UUID;
@@ -10,9 +11,11 @@ public interface RecommendationService {
 
 
     /**
-     * Ottiene le raccomandazioni attive per l'utente
+     * Pagina keyset delle raccomandazioni attive per l'utente (priorità più alta prima)
+     *
+     * @param cursor cursore restituito dalla pagina precedente, null per la prima
      */
-    List<RecommendationResponse> getActiveRecommendations(UUID userId);
+    CursorPage<RecommendationResponse> getActiveRecommendations(UUID userId, String cursor, int limit);
 
     /**
      * Genera nuove raccomandazioni basate sui progressi
@@ -0,0 +1,43 @@
+package com.ai.studybuddy.service.inter;
+
+import com.ai.studybuddy.dto.search.SearchResultResponse;
+import com.ai.studybuddy.model.search.SearchDocument.DocType;
+import com.ai.studybuddy.model.search.SearchIndexEvent;
+import com.ai.studybuddy.util.pagination.CursorPage;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ricerca full-text unificata su deck, flashcard e quiz dell'utente.
+ *
+ * Su PostgreSQL usa tsvector + GIN (stemming per lingua) e pg_trgm per i refusi;
+ * altrove (H2) un indice invertito BM25 in memoria con stemming leggero.
+ *
+ * L'indice in memoria è locale al nodo: si carica da search_documents all'avvio e poi
+ * vede solo le scritture fatte dallo stesso processo. È il backend di sviluppo/test
+ * (istanza singola); con più istanze serve PostgreSQL, dove la tabella è condivisa.
+ */
+public interface SearchService {
+
+    /**
+     * @param types    tipi di documento da includere, vuoto = tutti
+     * @param deckId   limita alle flashcard di un deck (opzionale)
+     * @param language lingua della query per lo stemming
+     * @param cursor   cursore restituito dalla pagina precedente, null per la prima
+     */
+    CursorPage<SearchResultResponse> search(UUID userId, String query, Set<DocType> types, UUID deckId,
+                                            String language, String cursor, int limit);
+
+    /**
+     * Aggiorna l'indice per un'entità salvata/eliminata (dopo il commit)
+     */
+    void onIndexEvent(SearchIndexEvent event);
+
+    /**
+     * Reindicizza da zero deck, flashcard e quiz
+     *
+     * @return documenti indicizzati
+     */
+    int reindexAll();
+}
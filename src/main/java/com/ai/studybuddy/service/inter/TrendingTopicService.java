@@ -0,0 +1,38 @@
+package com.ai.studybuddy.service.inter;
+
+import java.util.List;
+
+/**
+ * Argomenti di tendenza tra le richieste AI (spiegazioni, quiz, flashcard).
+ * Si registrano solo le richieste ammesse ed eseguite: non quelle rifiutate per sovraccarico
+ * né i retry con la stessa Idempotency-Key.
+ *
+ * I trending servono a trattenere in cache le spiegazioni richieste spesso; non si
+ * pre-generano contenuti per argomenti non ancora richiesti, perché consumerebbe quota AI
+ * su richieste ipotetiche (livello e materia non sono noti in anticipo).
+ */
+public interface TrendingTopicService {
+
+    /**
+     * Registra un argomento richiesto
+     *
+     * @param topic argomento come inserito dall'utente
+     * @param language lingua della richiesta
+     */
+    void record(String topic, String language);
+
+    /**
+     * Argomenti più richiesti di recente
+     *
+     * @param limit numero massimo di risultati
+     * @param language filtra per lingua (null = tutte)
+     */
+    List<TrendingTopic> getTrending(int limit, String language);
+
+    /**
+     * Indica se l'argomento è attualmente tra i più richiesti (per la ritenzione in cache)
+     */
+    boolean isTrending(String topic, String language);
+
+    record TrendingTopic(String topic, String language, double score) {}
+}
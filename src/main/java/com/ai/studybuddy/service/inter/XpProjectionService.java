@@ -0,0 +1,23 @@
+package com.ai.studybuddy.service.inter;
+
+/**
+ * Proiettore asincrono del registro XP
+ *
+ * Applica gli XpEvent in attesa a UserStats, bucket XP, UserProgress, classifiche e badge.
+ * Viene svegliato dopo il commit di ogni evento e comunque ogni xp.projector.poll-ms,
+ * per gli eventi rimasti indietro (riavvio, errori, altre istanze).
+ */
+public interface XpProjectionService {
+
+    /**
+     * Proietta tutti gli eventi in attesa
+     * @return numero di eventi applicati
+     */
+    int drain();
+
+    /**
+     * Ricostruisce le statistiche di tutti gli utenti dal registro e poi le classifiche
+     * @return numero di eventi riletti
+     */
+    int replayAll();
+}
@@ -34,6 +34,7 @@ public class Const {
     // ==================== AI ====================
     public static final String AI_SERVICE_UNAVAILABLE = "AI_SERVICE_UNAVAILABLE";
     public static final String AI_TIMEOUT = "AI_TIMEOUT";
+    public static final String AI_OVERLOADED = "AI_OVERLOADED";
 
     // ==================== FLASHCARDS ====================
     public static final String DECK_NOT_FOUND = "DECK_NOT_FOUND";
@@ -0,0 +1,103 @@
+package com.ai.studybuddy.util.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursore opaco per la paginazione keyset.
+ *
+ * Contiene i valori delle colonne di ordinamento dell'ultima riga restituita
+ * (es. createdAt + id): la pagina successiva riparte "dopo" quella riga con un
+ * predicato di seek invece di un OFFSET, quindi il costo non cresce con la profondità.
+ * Il formato è base64url di "valore|valore|...": non è firmato perché i filtri
+ * per utente restano comunque nella query.
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String[] parts;
+
+    private PageCursor(String[] parts) {
+        this.parts = parts;
+    }
+
+    public static String encode(Object... values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(SEPARATOR);
+            sb.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null se il cursore è assente (prima pagina)
+     * @throws ResponseStatusException 400 se il cursore non è valido
+     */
+    public static PageCursor decode(String cursor, int expectedParts) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != expectedParts) {
+                throw invalid();
+            }
+            return new PageCursor(parts);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    public LocalDateTime timestamp(int index) {
+        try {
+            return LocalDateTime.parse(parts[index]);
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    public UUID uuid(int index) {
+        try {
+            return UUID.fromString(parts[index]);
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    public int integer(int index) {
+        try {
+            return Integer.parseInt(parts[index]);
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    public long longValue(int index) {
+        try {
+            return Long.parseLong(parts[index]);
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    public double decimal(int index) {
+        try {
+            return Double.parseDouble(parts[index]);
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursore di paginazione non valido");
+    }
+}
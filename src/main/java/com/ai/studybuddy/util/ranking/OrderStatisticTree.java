@@ -0,0 +1,311 @@
+package com.ai.studybuddy.util.ranking;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Classifica ordinata per punteggio decrescente con rank in O(log n).
+ *
+ * Treap (albero binario di ricerca con priorità casuali) su array primitivi: ogni nodo
+ * conosce la dimensione del proprio sottoalbero, così posizione, rank e k-esimo elemento
+ * si ottengono scendendo un solo cammino. Nessun oggetto per nodo: un utente costa
+ * qualche int e un long, anche con centinaia di migliaia di utenti.
+ *
+ * Ordine: punteggio decrescente, a parità di punteggio per slot (ordine di inserimento).
+ * Il rank è "a pari merito": 1 + numero di utenti con punteggio strettamente maggiore.
+ *
+ * Non thread-safe: la sincronizzazione è a carico del chiamante.
+ */
+public class OrderStatisticTree {
+
+    private static final int NIL = -1;
+
+    private UUID[] ids;
+    private long[] scores;
+    private int[] priorities;
+    private int[] left;
+    private int[] right;
+    private int[] sizes;
+
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    // Slot liberati dalle rimozioni, riusati dai nuovi inserimenti
+    private int[] free = new int[16];
+    private int freeCount;
+    private int used;
+    private int root = NIL;
+
+    public OrderStatisticTree(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new UUID[capacity];
+        scores = new long[capacity];
+        priorities = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        sizes = new int[capacity];
+    }
+
+    // ==================== AGGIORNAMENTI ====================
+
+    /**
+     * Inserisce l'utente o ne aggiorna il punteggio. O(log n)
+     */
+    public void put(UUID id, long score) {
+        Integer slot = slots.get(id);
+        if (slot != null) {
+            if (scores[slot] == score) {
+                return;
+            }
+            root = remove(root, slot);
+        } else {
+            slot = allocate(id);
+        }
+        scores[slot] = score;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        sizes[slot] = 1;
+        root = insert(root, slot);
+    }
+
+    public void remove(UUID id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        root = remove(root, slot);
+        ids[slot] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = slot;
+    }
+
+    public void clear() {
+        slots.clear();
+        Arrays.fill(ids, 0, used, null);
+        used = 0;
+        freeCount = 0;
+        root = NIL;
+    }
+
+    // ==================== QUERY ====================
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean contains(UUID id) {
+        return slots.containsKey(id);
+    }
+
+    /**
+     * @return punteggio dell'utente, oppure defaultValue se non è in classifica
+     */
+    public long scoreOf(UUID id, long defaultValue) {
+        Integer slot = slots.get(id);
+        return slot != null ? scores[slot] : defaultValue;
+    }
+
+    /**
+     * Rank a pari merito (1 = primo), -1 se l'utente non è in classifica. O(log n)
+     */
+    public int rankOf(UUID id) {
+        Integer slot = slots.get(id);
+        return slot != null ? countGreater(scores[slot]) + 1 : -1;
+    }
+
+    /**
+     * Rank che avrebbe un punteggio
+     */
+    public int rankOfScore(long score) {
+        return countGreater(score) + 1;
+    }
+
+    /**
+     * Posizione 0-based nell'ordinamento (unica anche a pari merito), -1 se assente. O(log n)
+     */
+    public int positionOf(UUID id) {
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            return -1;
+        }
+        int position = 0;
+        int node = root;
+        while (node != slot) {
+            if (before(slot, node)) {
+                node = left[node];
+            } else {
+                position += size(left[node]) + 1;
+                node = right[node];
+            }
+        }
+        return position + size(left[slot]);
+    }
+
+    /**
+     * Utente alla posizione 0-based. O(log n)
+     */
+    public UUID idAt(int position) {
+        int slot = select(position);
+        return slot != NIL ? ids[slot] : null;
+    }
+
+    public long scoreAt(int position) {
+        int slot = select(position);
+        return slot != NIL ? scores[slot] : 0L;
+    }
+
+    // ==================== TREAP ====================
+
+    /**
+     * a precede b: punteggio maggiore prima, a parità slot minore prima
+     */
+    private boolean before(int a, int b) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b];
+        }
+        return a < b;
+    }
+
+    private int insert(int node, int slot) {
+        if (node == NIL) {
+            return slot;
+        }
+        if (priorities[slot] > priorities[node]) {
+            long parts = split(node, slot);
+            left[slot] = (int) (parts >> 32);
+            right[slot] = (int) parts;
+            update(slot);
+            return slot;
+        }
+        if (before(slot, node)) {
+            left[node] = insert(left[node], slot);
+        } else {
+            right[node] = insert(right[node], slot);
+        }
+        update(node);
+        return node;
+    }
+
+    private int remove(int node, int slot) {
+        if (node == slot) {
+            return merge(left[node], right[node]);
+        }
+        if (before(slot, node)) {
+            left[node] = remove(left[node], slot);
+        } else {
+            right[node] = remove(right[node], slot);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Divide il sottoalbero in (nodi che precedono slot, nodi che lo seguono).
+     * Le due radici sono impacchettate in un long per non allocare.
+     */
+    private long split(int node, int slot) {
+        if (node == NIL) {
+            return pack(NIL, NIL);
+        }
+        if (before(node, slot)) {
+            long parts = split(right[node], slot);
+            right[node] = (int) (parts >> 32);
+            update(node);
+            return pack(node, (int) parts);
+        }
+        long parts = split(left[node], slot);
+        left[node] = (int) parts;
+        update(node);
+        return pack((int) (parts >> 32), node);
+    }
+
+    /**
+     * Unisce due sottoalberi in cui tutti i nodi di a precedono quelli di b
+     */
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+        if (priorities[a] > priorities[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private int countGreater(long score) {
+        int count = 0;
+        int node = root;
+        while (node != NIL) {
+            if (scores[node] > score) {
+                // tutto il sottoalbero sinistro ha punteggio >= di questo nodo
+                count += size(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return count;
+    }
+
+    private int select(int position) {
+        if (position < 0 || position >= size(root)) {
+            return NIL;
+        }
+        int node = root;
+        while (true) {
+            int leftSize = size(left[node]);
+            if (position < leftSize) {
+                node = left[node];
+            } else if (position == leftSize) {
+                return node;
+            } else {
+                position -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    private void update(int node) {
+        sizes[node] = 1 + size(left[node]) + size(right[node]);
+    }
+
+    private int size(int node) {
+        return node == NIL ? 0 : sizes[node];
+    }
+
+    private static long pack(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    private int allocate(UUID id) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (used == ids.length) {
+                grow();
+            }
+            slot = used++;
+        }
+        ids[slot] = id;
+        priorities[slot] = ThreadLocalRandom.current().nextInt();
+        slots.put(id, slot);
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+    }
+}
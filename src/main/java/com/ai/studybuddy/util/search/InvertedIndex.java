@@ -0,0 +1,163 @@
+package com.ai.studybuddy.util.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Indice invertito in memoria con ranking BM25.
+ *
+ * Il costo di una ricerca dipende dalle posting list dei termini cercati, non dal numero
+ * totale di documenti. I termini sono ordinati, così l'ultimo token della query può essere
+ * espanso per prefisso (ricerca mentre si digita). Thread-safe tramite sincronizzazione:
+ * pensato per un indice per utente, quindi con contesa trascurabile.
+ *
+ * @param <K> chiave del documento
+ */
+public class InvertedIndex<K> {
+
+    public record Hit<K>(K key, double score) {}
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_PREFIX_EXPANSIONS = 20;
+
+    private final NavigableMap<String, Map<K, Integer>> postings = new TreeMap<>();
+    // doc -> frequenze dei termini, serve per rimuovere/aggiornare un documento
+    private final Map<K, Map<String, Integer>> forward = new HashMap<>();
+    private final Map<K, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    public synchronized int size() {
+        return forward.size();
+    }
+
+    /**
+     * Inserisce o sostituisce il documento
+     *
+     * @param termFrequencies frequenza di ogni termine (già pesata per campo)
+     */
+    public synchronized void put(K key, Map<String, Integer> termFrequencies) {
+        removeInternal(key);
+        Map<String, Integer> copy = new HashMap<>(termFrequencies);
+        forward.put(key, copy);
+        int length = 0;
+        for (Map.Entry<String, Integer> e : copy.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), t -> new HashMap<>()).put(key, e.getValue());
+            length += e.getValue();
+        }
+        lengths.put(key, length);
+        totalLength += length;
+    }
+
+    public synchronized void remove(K key) {
+        removeInternal(key);
+    }
+
+    public synchronized void removeIf(Predicate<K> predicate) {
+        List<K> toRemove = forward.keySet().stream().filter(predicate).toList();
+        toRemove.forEach(this::removeInternal);
+    }
+
+    /**
+     * Ricerca con semantica AND tra i gruppi: ogni gruppo è un token della query con le sue
+     * varianti (es. forma originale e radice); un documento deve contenere almeno una
+     * variante di ogni gruppo.
+     *
+     * @param groups          varianti per ogni token della query
+     * @param prefixLastGroup se true l'ultimo gruppo matcha anche i termini che iniziano con le varianti
+     * @param filter          filtro sui documenti candidati (tipo, deck, ...)
+     * @return hit ordinati per punteggio decrescente
+     */
+    public synchronized List<Hit<K>> search(List<? extends Collection<String>> groups,
+                                            boolean prefixLastGroup, Predicate<K> filter) {
+        if (groups.isEmpty() || forward.isEmpty()) {
+            return List.of();
+        }
+
+        double avgLength = (double) totalLength / forward.size();
+        Map<K, Double> scores = null;
+
+        for (int g = 0; g < groups.size(); g++) {
+            Set<String> terms = expand(groups.get(g), prefixLastGroup && g == groups.size() - 1);
+
+            // punteggio del gruppo = miglior variante per documento
+            Map<K, Double> groupScores = new HashMap<>();
+            for (String term : terms) {
+                Map<K, Integer> docs = postings.get(term);
+                if (docs == null) continue;
+                double idf = Math.log(1 + (forward.size() - docs.size() + 0.5) / (docs.size() + 0.5));
+                for (Map.Entry<K, Integer> d : docs.entrySet()) {
+                    if (scores != null && !scores.containsKey(d.getKey())) continue;
+                    int docLength = lengths.get(d.getKey());
+                    double tf = d.getValue();
+                    double s = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * docLength / avgLength));
+                    groupScores.merge(d.getKey(), s, Math::max);
+                }
+            }
+
+            if (scores == null) {
+                scores = groupScores;
+            } else {
+                Map<K, Double> merged = new HashMap<>();
+                for (Map.Entry<K, Double> e : groupScores.entrySet()) {
+                    merged.put(e.getKey(), scores.get(e.getKey()) + e.getValue());
+                }
+                scores = merged;
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Hit<K>> hits = new ArrayList<>();
+        for (Map.Entry<K, Double> e : scores.entrySet()) {
+            if (filter == null || filter.test(e.getKey())) {
+                hits.add(new Hit<>(e.getKey(), e.getValue()));
+            }
+        }
+        hits.sort(Comparator.comparingDouble((Hit<K> h) -> h.score).reversed());
+        return hits;
+    }
+
+    // ==================== INTERNALS ====================
+
+    private Set<String> expand(Collection<String> variants, boolean prefix) {
+        Set<String> terms = new HashSet<>(variants);
+        if (prefix) {
+            for (String variant : variants) {
+                int added = 0;
+                for (String term : postings.subMap(variant, true, variant + Character.MAX_VALUE, true).keySet()) {
+                    if (added++ >= MAX_PREFIX_EXPANSIONS) break;
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private void removeInternal(K key) {
+        Map<String, Integer> old = forward.remove(key);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.keySet()) {
+            Map<K, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(key);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= lengths.remove(key);
+    }
+}
@@ -0,0 +1,108 @@
+package com.ai.studybuddy.util.search;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stemmer "leggero" a rimozione di suffissi per le lingue supportate (it, en, es, fr, de, pt, ru).
+ *
+ * Non è Snowball: toglie un solo suffisso flessivo/derivativo, quanto basta perché
+ * singolare/plurale e le forme verbali più comuni finiscano sullo stesso termine
+ * nell'indice in memoria. Lavora su token già normalizzati da TextNormalizer
+ * (minuscolo, senza accenti: per il russo "й" diventa "и").
+ */
+public final class LightStemmer {
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private static final Map<String, List<String>> SUFFIXES = Map.of(
+            "it", sortByLength(List.of(
+                    "azione", "azioni", "amento", "amenti", "imento", "imenti", "mente", "abile", "abili",
+                    "ibile", "ibili", "ista", "iste", "isti", "ita", "ando", "endo", "are", "ere", "ire",
+                    "ato", "ata", "ati", "ate", "ito", "ita", "iti", "ite", "i", "e", "a", "o")),
+            "en", sortByLength(List.of(
+                    "ization", "izations", "ational", "ation", "ations", "ness", "ments", "ment", "ings",
+                    "ing", "edly", "ed", "ers", "er", "ly", "es", "s")),
+            "es", sortByLength(List.of(
+                    "aciones", "acion", "amientos", "amiento", "imientos", "imiento", "mente", "idades",
+                    "idad", "ables", "able", "ibles", "ible", "ando", "iendo", "ados", "adas", "ado", "ada",
+                    "idos", "idas", "ido", "ida", "ar", "er", "ir", "es", "os", "as", "s", "o", "a", "e")),
+            "fr", sortByLength(List.of(
+                    "issements", "issement", "ations", "ation", "atrices", "atrice", "ateurs", "ateur",
+                    "ements", "ement", "ments", "ment", "ites", "ite", "euses", "euse", "eux", "ables",
+                    "able", "ees", "ee", "es", "er", "ez", "e", "s", "x")),
+            "de", sortByLength(List.of(
+                    "ungen", "ung", "heiten", "heit", "keiten", "keit", "lichen", "lich", "isch", "ern",
+                    "em", "en", "er", "es", "e", "s", "n")),
+            "pt", sortByLength(List.of(
+                    "acoes", "acao", "amentos", "amento", "imentos", "imento", "mente", "idades", "idade",
+                    "aveis", "avel", "iveis", "ivel", "ando", "endo", "indo", "ados", "adas", "ado", "ada",
+                    "idos", "idas", "ido", "ida", "ar", "er", "ir", "es", "os", "as", "s", "o", "a", "e")),
+            "ru", sortByLength(List.of(
+                    "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ость", "ости", "ение",
+                    "ения", "ении", "ать", "ять", "ить", "еть", "ыть", "ии", "ыи", "ои", "ая", "яя", "ое",
+                    "ее", "ые", "ие", "ом", "ем", "ах", "ях", "ов", "ев", "еи", "ую", "юю", "а", "я", "о",
+                    "е", "ы", "и", "у", "ю", "ь"))
+    );
+
+    private LightStemmer() {}
+
+    /**
+     * @param language codice lingua (it, en, ...); lingue sconosciute lasciano il token invariato
+     */
+    public static String stem(String token, String language) {
+        if (token == null || language == null) {
+            return token;
+        }
+        String lang = language.toLowerCase(Locale.ROOT);
+        List<String> suffixes = SUFFIXES.get(lang);
+        if (suffixes == null || token.length() <= MIN_STEM_LENGTH || isNumeric(token)) {
+            return token;
+        }
+
+        if ("en".equals(lang)) {
+            String english = stemEnglishSpecial(token);
+            if (english != null) {
+                return english;
+            }
+        }
+
+        for (String suffix : suffixes) {
+            if (token.endsWith(suffix) && token.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Casi inglesi in cui la semplice rimozione del suffisso rovinerebbe il termine
+     */
+    private static String stemEnglishSpecial(String token) {
+        if (token.endsWith("ss") || token.endsWith("us") || token.endsWith("is")) {
+            return token;
+        }
+        if (token.endsWith("ies") || token.endsWith("ied")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        return null;
+    }
+
+    private static boolean isNumeric(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> sortByLength(List<String> suffixes) {
+        return suffixes.stream()
+                .distinct()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toList();
+    }
+}
@@ -0,0 +1,277 @@
+package com.ai.studybuddy.util.semantic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice approssimato nearest-neighbour in memoria (Hierarchical Navigable Small World).
+ *
+ * I vettori devono essere normalizzati L2: la similarità usata è il prodotto scalare (coseno).
+ * Inserimenti serializzati, ricerche concorrenti tramite read/write lock.
+ * Non supporta la cancellazione: chi lo usa ricostruisce l'indice quando serve liberare spazio.
+ *
+ * @param <T> valore associato ad ogni vettore
+ */
+public class HnswIndex<T> {
+
+    public record Match<T>(T value, float similarity) {}
+
+    private final int m;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+
+    private final List<float[]> vectors = new ArrayList<>();
+    private final List<T> values = new ArrayList<>();
+    // links.get(node)[layer] = vicini del nodo su quel livello
+    private final List<int[][]> links = new ArrayList<>();
+    private final List<int[]> linkCounts = new ArrayList<>();
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = m;
+        this.maxLinksLayer0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return vectors.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(float[] vector, T value) {
+        lock.writeLock().lock();
+        try {
+            int node = vectors.size();
+            int level = randomLevel();
+
+            vectors.add(vector);
+            values.add(value);
+            int[][] nodeLinks = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                nodeLinks[l] = new int[maxLinks(l)];
+            }
+            links.add(nodeLinks);
+            linkCounts.add(new int[level + 1]);
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(vector, current, l);
+            }
+
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(vector, current, efConstruction, l);
+                List<Candidate> selected = selectNeighbours(candidates, m);
+                for (Candidate neighbour : selected) {
+                    connect(node, neighbour.node, l);
+                    connect(neighbour.node, node, l);
+                }
+                current = candidates.get(0).node;
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Match<T>> search(float[] query, int k) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return Collections.emptyList();
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(query, current, l);
+            }
+
+            List<Candidate> candidates = searchLayer(query, current, Math.max(efSearch, k), 0);
+            List<Match<T>> result = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && i < k; i++) {
+                Candidate c = candidates.get(i);
+                result.add(new Match<>(values.get(c.node), c.similarity));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    private record Candidate(int node, float similarity) {}
+
+    private static final Comparator<Candidate> BY_SIMILARITY = Comparator.comparingDouble(Candidate::similarity);
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, 1e-12)) * levelMultiplier);
+    }
+
+    private int maxLinks(int layer) {
+        return layer == 0 ? maxLinksLayer0 : m;
+    }
+
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        float best = similarity(query, vectors.get(current));
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links.get(current)[layer];
+            int count = linkCounts.get(current)[layer];
+            for (int i = 0; i < count; i++) {
+                float s = similarity(query, vectors.get(neighbours[i]));
+                if (s > best) {
+                    best = s;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search su un livello. Ritorna i candidati ordinati per similarità decrescente.
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int layer) {
+        BitSet visited = new BitSet(vectors.size());
+        visited.set(start);
+
+        Candidate first = new Candidate(start, similarity(query, vectors.get(start)));
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(BY_SIMILARITY.reversed());
+        PriorityQueue<Candidate> best = new PriorityQueue<>(BY_SIMILARITY);
+        toVisit.add(first);
+        best.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate c = toVisit.poll();
+            if (best.size() >= ef && c.similarity < best.peek().similarity) {
+                break;
+            }
+            int[][] nodeLinks = links.get(c.node);
+            if (layer >= nodeLinks.length) {
+                continue;
+            }
+            int[] neighbours = nodeLinks[layer];
+            int count = linkCounts.get(c.node)[layer];
+            for (int i = 0; i < count; i++) {
+                int n = neighbours[i];
+                if (visited.get(n)) continue;
+                visited.set(n);
+
+                float s = similarity(query, vectors.get(n));
+                if (best.size() < ef || s > best.peek().similarity) {
+                    Candidate nc = new Candidate(n, s);
+                    toVisit.add(nc);
+                    best.add(nc);
+                    if (best.size() > ef) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(best);
+        result.sort(BY_SIMILARITY.reversed());
+        return result;
+    }
+
+    /**
+     * Aggiunge il link from -> to; se la lista è piena la riduce con l'euristica di selezione
+     */
+    private void connect(int from, int to, int layer) {
+        int[] neighbours = links.get(from)[layer];
+        int[] counts = linkCounts.get(from);
+        int count = counts[layer];
+
+        for (int i = 0; i < count; i++) {
+            if (neighbours[i] == to) return;
+        }
+
+        if (count < neighbours.length) {
+            neighbours[count] = to;
+            counts[layer] = count + 1;
+            return;
+        }
+
+        float[] base = vectors.get(from);
+        Candidate[] all = new Candidate[count + 1];
+        for (int i = 0; i < count; i++) {
+            all[i] = new Candidate(neighbours[i], similarity(base, vectors.get(neighbours[i])));
+        }
+        all[count] = new Candidate(to, similarity(base, vectors.get(to)));
+        Arrays.sort(all, BY_SIMILARITY.reversed());
+
+        List<Candidate> kept = selectNeighbours(Arrays.asList(all), neighbours.length);
+        for (int i = 0; i < kept.size(); i++) {
+            neighbours[i] = kept.get(i).node;
+        }
+        counts[layer] = kept.size();
+    }
+
+    /**
+     * Euristica di selezione dei vicini: un candidato viene scartato se è più vicino
+     * a un vicino già scelto che al nodo base. Mantiene link verso cluster diversi,
+     * altrimenti gruppi di argomenti molto simili "rubano" tutti i link e il resto
+     * del grafo diventa irraggiungibile.
+     *
+     * @param candidates candidati ordinati per similarità decrescente rispetto al nodo base
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        for (Candidate c : candidates) {
+            if (selected.size() >= max) break;
+            float[] cv = vectors.get(c.node);
+            boolean diverse = true;
+            for (Candidate s : selected) {
+                if (similarity(cv, vectors.get(s.node)) > c.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(c);
+            }
+        }
+        return selected;
+    }
+
+    private static float similarity(float[] a, float[] b) {
+        float dot = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
@@ -0,0 +1,169 @@
+package com.ai.studybuddy.util.semantic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Embedding locale senza dipendenze: n-grammi di caratteri (3-5) per parola,
+ * proiettati con feature hashing su un vettore di dimensione fissa, con TF sublineare e IDF.
+ *
+ * L'IDF non si aggiorna a ogni documento: {@link #fitIdf} calcola una tabella immutabile
+ * da un insieme di testi e chi la usa deve ricalcolare con la stessa tabella tutti i vettori
+ * che confronta (indice e query). Senza tabella il peso è uniforme (solo TF).
+ * I vettori restituiti sono normalizzati L2: il prodotto scalare è la similarità coseno.
+ */
+public class NgramEmbedder {
+
+    private static final int MIN_N = 3;
+    private static final int MAX_N = 5;
+
+    private final int dimensions;
+
+    public NgramEmbedder(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions deve essere > 0");
+        }
+        this.dimensions = dimensions;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Embedding con peso uniforme (solo TF)
+     */
+    public float[] embed(String text) {
+        return embed(text, null);
+    }
+
+    /**
+     * Embedding di un testo (documento da indicizzare o query: stesso trattamento)
+     * @param idf tabella da {@link #fitIdf}, null per il peso uniforme
+     */
+    public float[] embed(String text, Idf idf) {
+        if (idf != null && idf.weights.length != dimensions) {
+            throw new IllegalArgumentException("Tabella IDF di dimensione diversa dall'embedder");
+        }
+        return weight(termFrequencies(text), idf);
+    }
+
+    /**
+     * IDF liscio per bucket, log((1 + N) / (1 + df)) + 1, dai testi dati: gli n-grammi
+     * comuni a molti argomenti ("zione", "teor") pesano meno di quelli che li distinguono
+     */
+    public Idf fitIdf(Collection<String> documents) {
+        int[] df = new int[dimensions];
+        for (String document : documents) {
+            float[] tf = termFrequencies(document);
+            for (int i = 0; i < dimensions; i++) {
+                if (tf[i] != 0f) {
+                    df[i]++;
+                }
+            }
+        }
+        float[] weights = new float[dimensions];
+        int n = documents.size();
+        for (int i = 0; i < dimensions; i++) {
+            weights[i] = (float) (Math.log((1.0 + n) / (1.0 + df[i])) + 1.0);
+        }
+        return new Idf(weights, n);
+    }
+
+    /**
+     * Statistiche IDF congelate: non cambiano dopo la creazione
+     */
+    public static final class Idf {
+
+        private final float[] weights;
+        private final int documents;
+
+        private Idf(float[] weights, int documents) {
+            this.weights = weights;
+            this.documents = documents;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+    }
+
+    private float[] termFrequencies(String text) {
+        float[] tf = new float[dimensions];
+        List<String> tokens = TextNormalizer.keyTokens(text);
+
+        for (String token : tokens) {
+            String padded = "<" + token + ">";
+            // Token intero: aiuta a distinguere parole corte con n-grammi in comune
+            add(tf, padded);
+            for (int n = MIN_N; n <= MAX_N; n++) {
+                for (int i = 0; i + n <= padded.length(); i++) {
+                    add(tf, padded.substring(i, i + n));
+                }
+            }
+        }
+        return tf;
+    }
+
+    private void add(float[] tf, String gram) {
+        int hash = murmurHash(gram);
+        int bucket = Math.floorMod(hash, dimensions);
+        // Segno dal bit alto: riduce il bias delle collisioni
+        tf[bucket] += (hash >>> 31) == 0 ? 1f : -1f;
+    }
+
+    private float[] weight(float[] tf, Idf idf) {
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            if (tf[i] == 0f) continue;
+            tf[i] = (float) (Math.signum(tf[i]) * (1 + Math.log(Math.abs(tf[i]))));
+            if (idf != null) {
+                tf[i] *= idf.weights[i];
+            }
+            norm += (double) tf[i] * tf[i];
+        }
+        if (norm > 0) {
+            float inv = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < dimensions; i++) {
+                tf[i] *= inv;
+            }
+        }
+        return tf;
+    }
+
+    private static int murmurHash(String s) {
+        byte[] data = s.getBytes(StandardCharsets.UTF_8);
+        int h = 0x9747b28c;
+        int i = 0;
+        for (; i + 4 <= data.length; i += 4) {
+            int k = (data[i] & 0xff) | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff) << 16 | (data[i + 3] & 0xff) << 24;
+            k *= 0xcc9e2d51;
+            k = Integer.rotateLeft(k, 15);
+            k *= 0x1b873593;
+            h ^= k;
+            h = Integer.rotateLeft(h, 13);
+            h = h * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        switch (data.length - i) {
+            case 3: k ^= (data[i + 2] & 0xff) << 16;
+            case 2: k ^= (data[i + 1] & 0xff) << 8;
+            case 1:
+                k ^= (data[i] & 0xff);
+                k *= 0xcc9e2d51;
+                k = Integer.rotateLeft(k, 15);
+                k *= 0x1b873593;
+                h ^= k;
+            default:
+                break;
+        }
+        h ^= data.length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
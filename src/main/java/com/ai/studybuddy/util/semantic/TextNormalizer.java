@@ -0,0 +1,175 @@
+package com.ai.studybuddy.util.semantic;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Normalizzazione leggera dei testi (argomenti, query) prima dell'embedding:
+ * minuscolo, rimozione accenti e punteggiatura, eliminazione delle stopword più comuni.
+ */
+public final class TextNormalizer {
+
+    // Stopword minime per le lingue supportate: bastano articoli/preposizioni
+    // che altrimenti dominerebbero gli n-grammi su argomenti brevi
+    private static final Set<String> STOPWORDS = Set.copyOf(List.of(
+            // it
+            "il", "lo", "la", "i", "gli", "le", "un", "uno", "una", "di", "del", "della", "dei", "degli",
+            "delle", "da", "dal", "dalla", "in", "nel", "nella", "nei", "su", "sul", "sulla", "per", "con",
+            "tra", "fra", "e", "ed", "o", "che", "cos", "cosa", "come", "cose", "quale", "quali",
+            // en
+            "the", "a", "an", "of", "to", "and", "or", "on", "at", "for", "with", "what", "is", "are",
+            "how", "does", "do",
+            // es / pt / fr / de
+            "el", "los", "las", "de", "del", "y", "que", "les", "des", "du", "et", "der", "die", "das",
+            "und", "von", "os", "as", "um", "uma"
+    ));
+
+    // Parole che accompagnano l'argomento senza cambiarlo ("processo della fotosintesi", "photosynthesis process")
+    private static final Set<String> FILLER = Set.copyOf(List.of(
+            "processo", "processi", "process", "concetto", "concetti", "concept", "introduzione", "introduction",
+            "definizione", "definition", "spiegazione", "explanation", "basi", "basics", "panoramica", "overview"
+    ));
+
+    // Ordinali: "prima" e "seconda guerra mondiale" sono argomenti diversi per quanto vicini nel testo
+    private static final Map<String, Integer> ORDINALS = Map.ofEntries(
+            Map.entry("primo", 1), Map.entry("prima", 1), Map.entry("primi", 1), Map.entry("prime", 1), Map.entry("first", 1),
+            Map.entry("secondo", 2), Map.entry("seconda", 2), Map.entry("secondi", 2), Map.entry("seconde", 2), Map.entry("second", 2),
+            Map.entry("terzo", 3), Map.entry("terza", 3), Map.entry("third", 3),
+            Map.entry("quarto", 4), Map.entry("quarta", 4), Map.entry("fourth", 4),
+            Map.entry("quinto", 5), Map.entry("quinta", 5), Map.entry("fifth", 5),
+            Map.entry("ii", 2), Map.entry("iii", 3), Map.entry("iv", 4), Map.entry("vi", 6),
+            Map.entry("vii", 7), Map.entry("viii", 8), Map.entry("ix", 9)
+    );
+
+    // Varianti della stessa parola: radice comune di almeno 5 caratteri, suffissi di al più 3
+    private static final int MIN_SHARED_STEM = 5;
+    private static final int MAX_SUFFIX_DIFFERENCE = 3;
+
+    private TextNormalizer() {}
+
+    public static String normalize(String text) {
+        return String.join(" ", tokens(text));
+    }
+
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+
+        String stripped = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+
+        for (String token : stripped.split("\\s+")) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+
+        // Se restano solo stopword meglio tenere il testo originale piuttosto che niente
+        if (tokens.isEmpty() && !stripped.isEmpty()) {
+            for (String token : stripped.split("\\s+")) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Token che identificano l'argomento, per l'embedding e il confronto tra argomenti:
+     * senza parole di contorno e con la grafia avvicinata tra lingue (ph→f, th→t, y→i),
+     * così "photosynthesis" e "fotosintesi" condividono gli n-grammi
+     */
+    public static List<String> keyTokens(String text) {
+        List<String> tokens = tokens(text);
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            if (!FILLER.contains(token)) {
+                keys.add(fold(token));
+            }
+        }
+        return keys.isEmpty() ? tokens : keys;
+    }
+
+    /**
+     * Due argomenti vicini negli n-grammi si possono servire a vicenda salvo che:
+     * numeri e ordinali non coincidono ("prima"/"seconda guerra mondiale", "moti del 1848"/"1849"),
+     * oppure ciascuno ha una parola chiave che l'altro non ha ("rivoluzione francese"/"russa").
+     * Un argomento che ne precisa un altro ("fotosintesi"/"fotosintesi clorofilliana") passa.
+     */
+    public static boolean compatibleTopics(String a, String b) {
+        List<String> left = keyTokens(a);
+        List<String> right = keyTokens(b);
+        if (left.isEmpty() || right.isEmpty()) {
+            return false;
+        }
+        if (!discriminators(left).equals(discriminators(right))) {
+            return false;
+        }
+        return allMatched(left, right) || allMatched(right, left);
+    }
+
+    private static String fold(String token) {
+        return token.replace("ph", "f").replace("th", "t").replace('y', 'i');
+    }
+
+    private static boolean isDiscriminator(String token) {
+        return ORDINALS.containsKey(token) || Character.isDigit(token.charAt(0));
+    }
+
+    private static Set<String> discriminators(List<String> tokens) {
+        Set<String> result = new HashSet<>();
+        for (String token : tokens) {
+            Integer ordinal = ORDINALS.get(token);
+            if (ordinal != null) {
+                result.add(String.valueOf(ordinal));
+            } else if (Character.isDigit(token.charAt(0))) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ogni parola chiave di tokens ha una variante in candidates (numeri e ordinali esclusi: li confronta discriminators)
+     */
+    private static boolean allMatched(List<String> tokens, List<String> candidates) {
+        for (String token : tokens) {
+            if (isDiscriminator(token)) {
+                continue;
+            }
+            boolean matched = false;
+            for (String candidate : candidates) {
+                if (sameWord(token, candidate)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameWord(String a, String b) {
+        if (a.equals(b)) {
+            return true;
+        }
+        int shared = 0;
+        int max = Math.min(a.length(), b.length());
+        while (shared < max && a.charAt(shared) == b.charAt(shared)) {
+            shared++;
+        }
+        return shared >= MIN_SHARED_STEM
+                && a.length() - shared <= MAX_SUFFIX_DIFFERENCE
+                && b.length() - shared <= MAX_SUFFIX_DIFFERENCE;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ai.studybuddy.util.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Count-min sketch con contatori double (per supportare pesi con decadimento).
+ * Memoria costante: depth x width contatori, indipendentemente dal numero di chiavi viste.
+ * La stima non sottostima mai; l'errore è al massimo e/width * totale con probabilità 1 - e^-depth.
+ *
+ * Non thread-safe: la sincronizzazione è a carico del chiamante.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final double[][] counters;
+    private final int[] seeds;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("depth e width devono essere > 0");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new double[depth][width];
+        this.seeds = new int[depth];
+        for (int i = 0; i < depth; i++) {
+            seeds[i] = 0x9E3779B9 * (i + 1);
+        }
+    }
+
+    /**
+     * Aggiunge il peso alla chiave e restituisce la nuova stima.
+     * Usa il conservative update: incrementa solo i contatori al minimo, riducendo la sovrastima.
+     */
+    public double addAndEstimate(String key, double weight) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int[] buckets = new int[depth];
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            buckets[i] = Math.floorMod(hash(bytes, seeds[i]), width);
+            min = Math.min(min, counters[i][buckets[i]]);
+        }
+        double target = min + weight;
+        for (int i = 0; i < depth; i++) {
+            if (counters[i][buckets[i]] < target) {
+                counters[i][buckets[i]] = target;
+            }
+        }
+        return target;
+    }
+
+    public double estimate(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, counters[i][Math.floorMod(hash(bytes, seeds[i]), width)]);
+        }
+        return min;
+    }
+
+    /**
+     * Moltiplica tutti i contatori per il fattore (usato per rinormalizzare il decadimento)
+     */
+    public void scale(double factor) {
+        for (double[] row : counters) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] *= factor;
+            }
+        }
+    }
+
+    public void clear() {
+        for (double[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    // FNV-1a con seed, seguito da un finalizer per distribuire i bit
+    private static int hash(byte[] data, int seed) {
+        int h = 0x811c9dc5 ^ seed;
+        for (byte b : data) {
+            h ^= b & 0xff;
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ai.studybuddy.util.sketch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heavy hitters in streaming con decadimento esponenziale nel tempo.
+ *
+ * Le frequenze sono stimate da un {@link CountMinSketch}; solo le K chiavi più frequenti
+ * vengono tenute esplicitamente, in un min-heap indicizzato. Il decadimento usa il
+ * "forward decay": ogni evento pesa 2^((t - t0) / halfLife), così i pesi passati non vanno
+ * mai aggiornati; quando i pesi crescono troppo si rinormalizza tutto e si sposta t0.
+ *
+ * Memoria costante. Non thread-safe: la sincronizzazione è a carico del chiamante.
+ */
+public class DecayingTopK {
+
+    private static final double RESCALE_THRESHOLD = 1e12;
+
+    public record Entry(String key, double score) {}
+
+    private final int k;
+    private final double halfLifeMillis;
+    private final CountMinSketch sketch;
+
+    // Min-heap indicizzato: heap[0] è la chiave con score minore tra le top-K
+    private final String[] heap;
+    private final double[] scores;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private int size;
+
+    private long epochMillis;
+
+    public DecayingTopK(int k, long halfLifeMillis, int sketchDepth, int sketchWidth) {
+        this.k = k;
+        this.halfLifeMillis = halfLifeMillis;
+        this.sketch = new CountMinSketch(sketchDepth, sketchWidth);
+        this.heap = new String[k];
+        this.scores = new double[k];
+        this.epochMillis = -1;
+    }
+
+    public void add(String key, long nowMillis) {
+        if (epochMillis < 0) {
+            epochMillis = nowMillis;
+        }
+        double weight = Math.pow(2, (nowMillis - epochMillis) / halfLifeMillis);
+        if (weight > RESCALE_THRESHOLD) {
+            rescale(nowMillis);
+            weight = 1.0;
+        }
+
+        double estimate = sketch.addAndEstimate(key, weight);
+
+        Integer pos = positions.get(key);
+        if (pos != null) {
+            scores[pos] = estimate;
+            siftDown(pos);
+        } else if (size < k) {
+            heap[size] = key;
+            scores[size] = estimate;
+            positions.put(key, size);
+            siftUp(size++);
+        } else if (estimate > scores[0]) {
+            positions.remove(heap[0]);
+            heap[0] = key;
+            scores[0] = estimate;
+            positions.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Top chiavi ordinate per score decrescente, con score espresso come
+     * "numero di eventi equivalenti ad ora" (già decaduti)
+     */
+    public List<Entry> top(int limit, long nowMillis) {
+        if (size == 0) {
+            return List.of();
+        }
+        double norm = Math.pow(2, (nowMillis - epochMillis) / halfLifeMillis);
+        List<Entry> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Entry(heap[i], scores[i] / norm));
+        }
+        result.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    public boolean contains(String key) {
+        return positions.containsKey(key);
+    }
+
+    private void rescale(long nowMillis) {
+        double factor = Math.pow(2, -(nowMillis - epochMillis) / halfLifeMillis);
+        sketch.scale(factor);
+        for (int i = 0; i < size; i++) {
+            scores[i] *= factor;
+        }
+        epochMillis = nowMillis;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (scores[i] >= scores[parent]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            int right = left + 1;
+            int smallest = i;
+            if (left < size && scores[left] < scores[smallest]) smallest = left;
+            if (right < size && scores[right] < scores[smallest]) smallest = right;
+            if (smallest == i) return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String ka = heap[a];
+        double sa = scores[a];
+        heap[a] = heap[b];
+        scores[a] = scores[b];
+        heap[b] = ka;
+        scores[b] = sa;
+        positions.put(heap[a], a);
+        positions.put(heap[b], b);
+    }
+}
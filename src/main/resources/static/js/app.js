@@ -228,6 +228,72 @@ async function apiFetch(endpoint, options = {}) {
     }
 }
 
+/**
+ * Scarica una pagina di un endpoint paginato (array JSON + header X-Next-Cursor).
+ * Restituisce { items, nextCursor }: nextCursor è null sull'ultima pagina.
+ */
+async function apiFetchPage(endpoint, cursor = null, options = {}) {
+    const separator = endpoint.includes('?') ? '&' : '?';
+    const url = cursor ? `${endpoint}${separator}cursor=${encodeURIComponent(cursor)}` : endpoint;
+    const response = await apiFetch(url, options);
+    if (!response.ok) {
+        throw new Error(`HTTP_${response.status}`);
+    }
+    return { items: await response.json(), nextCursor: response.headers.get('X-Next-Cursor') };
+}
+
+/**
+ * Consuma uno stream SSE con fetch: EventSource non permette di inviare l'header Authorization.
+ * onEvent(nome, dati) riceve il payload JSON già decodificato; i commenti (heartbeat) sono ignorati.
+ * Restituisce un AbortController per chiudere lo stream.
+ */
+function apiStream(endpoint, onEvent, onClose = null) {
+    const controller = new AbortController();
+
+    (async () => {
+        try {
+            const response = await apiFetch(endpoint, {
+                headers: { 'Accept': 'text/event-stream' },
+                signal: controller.signal
+            });
+            if (!response.ok) {
+                throw new Error(`HTTP_${response.status}`);
+            }
+
+            const reader = response.body.getReader();
+            const decoder = new TextDecoder();
+            let buffer = '';
+            while (true) {
+                const { value, done } = await reader.read();
+                if (done) break;
+                buffer += decoder.decode(value, { stream: true });
+
+                // Gli eventi sono separati da una riga vuota
+                let boundary;
+                while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+                    const block = buffer.slice(0, boundary);
+                    buffer = buffer.slice(boundary + 2);
+
+                    let name = 'message';
+                    const data = [];
+                    for (const line of block.split('\n')) {
+                        if (line.startsWith('event:')) name = line.slice(6).trim();
+                        else if (line.startsWith('data:')) data.push(line.slice(5).replace(/^ /, ''));
+                    }
+                    if (data.length > 0) {
+                        onEvent(name, JSON.parse(data.join('\n')));
+                    }
+                }
+            }
+            if (onClose) onClose(null);
+        } catch (error) {
+            if (error.name !== 'AbortError' && onClose) onClose(error);
+        }
+    })();
+
+    return controller;
+}
+
 /**
  * Traduzione codici errore
  */
@@ -0,0 +1,139 @@
+package com.ai.studybuddy.config.resilience;
+
+import com.ai.studybuddy.config.resilience.AIAdmissionControl.Permit;
+import com.ai.studybuddy.config.resilience.AIAdmissionControl.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AIAdmissionControlTest {
+
+    private static final long TARGET_MS = 100;
+    private static final long INTERVAL_MS = 5000;
+
+    // Orologio delle decisioni CoDel: l'intervallo si fa passare a mano, le attese sono reali
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    private AIAdmissionControl control(int maxConcurrent, int bulkMaxConcurrent) {
+        return new AIAdmissionControl(maxConcurrent, bulkMaxConcurrent, 32, TARGET_MS, INTERVAL_MS, 5, clock::get);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Test
+    void ammetteSubitoConPermessiLiberi() throws Exception {
+        AIAdmissionControl control = control(2, 1);
+
+        Permit first = control.tryAdmit(Priority.INTERACTIVE);
+        Permit second = control.tryAdmit(Priority.BULK);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(control.getStats(Priority.INTERACTIVE).admitted()).isEqualTo(1);
+        assertThat(control.getStats(Priority.BULK).admitted()).isEqualTo(1);
+    }
+
+    @Test
+    void attesaMassimaPariAlTarget() throws Exception {
+        AIAdmissionControl control = control(1, 1);
+        control.tryAdmit(Priority.INTERACTIVE);
+
+        long start = System.nanoTime();
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNull();
+        long waited = elapsedMs(start);
+
+        // Mai l'intervallo: il thread resta fermo al più il target
+        assertThat(waited).isGreaterThanOrEqualTo(TARGET_MS - 10).isLessThan(INTERVAL_MS / 2);
+        assertThat(control.getStats(Priority.INTERACTIVE).rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void sojournSopraIlTargetPerUnIntervalloAttivaIlDrop() throws Exception {
+        AIAdmissionControl control = control(1, 1);
+        Permit held = control.tryAdmit(Priority.INTERACTIVE);
+
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNull();
+        assertThat(control.getStats(Priority.INTERACTIVE).shedding()).isFalse();
+
+        advance(INTERVAL_MS);
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNull();
+        assertThat(control.getStats(Priority.INTERACTIVE).shedding()).isTrue();
+
+        // In drop il rifiuto è immediato, senza attesa
+        long start = System.nanoTime();
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNull();
+        assertThat(elapsedMs(start)).isLessThan(TARGET_MS / 2);
+
+        // Un permesso libero subito fa passare la richiesta e chiude il drop
+        control.release(held);
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNotNull();
+        assertThat(control.getStats(Priority.INTERACTIVE).shedding()).isFalse();
+    }
+
+    @Test
+    void attesaSottoIlTargetAzzeraLIntervallo() throws Exception {
+        AIAdmissionControl control = control(2, 2);
+        Permit held = control.tryAdmit(Priority.INTERACTIVE);
+        Permit other = control.tryAdmit(Priority.INTERACTIVE);
+
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNull();
+        control.release(other);
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNotNull();
+
+        // Dopo un sojourn sotto il target l'intervallo riparte da zero
+        advance(INTERVAL_MS);
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNull();
+        assertThat(control.getStats(Priority.INTERACTIVE).shedding()).isFalse();
+        control.release(held);
+    }
+
+    @Test
+    void leBulkVengonoScartatePrimaDelleInterattive() throws Exception {
+        AIAdmissionControl control = control(1, 1);
+        Permit held = control.tryAdmit(Priority.INTERACTIVE);
+
+        // Prima attesa sopra il target: pressione, non ancora drop
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNull();
+        assertThat(control.getStats(Priority.BULK).shedding()).isTrue();
+        assertThat(control.getStats(Priority.INTERACTIVE).shedding()).isFalse();
+
+        long start = System.nanoTime();
+        assertThat(control.tryAdmit(Priority.BULK)).isNull();
+        assertThat(elapsedMs(start)).isLessThan(TARGET_MS / 2);
+
+        // L'interattiva invece attende ancora fino al target e prende il permesso che si libera
+        CompletableFuture.runAsync(() -> control.release(held),
+                CompletableFuture.delayedExecutor(TARGET_MS / 4, TimeUnit.MILLISECONDS));
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNotNull();
+    }
+
+    @Test
+    void leBulkNonOccupanoTuttiIPosti() throws Exception {
+        AIAdmissionControl control = control(2, 1);
+
+        assertThat(control.tryAdmit(Priority.BULK)).isNotNull();
+        assertThat(control.tryAdmit(Priority.BULK)).isNull();
+        assertThat(control.tryAdmit(Priority.INTERACTIVE)).isNotNull();
+
+        // L'attesa sulla quota bulk non è sovraccarico dei permessi condivisi
+        assertThat(control.getStats(Priority.INTERACTIVE).shedding()).isFalse();
+    }
+
+    @Test
+    void retryAfterPiuLungoPerLeBulk() {
+        AIAdmissionControl control = control(2, 1);
+
+        assertThat(control.getRetryAfterSeconds(Priority.INTERACTIVE)).isEqualTo(5);
+        assertThat(control.getRetryAfterSeconds(Priority.BULK)).isEqualTo(10);
+    }
+}
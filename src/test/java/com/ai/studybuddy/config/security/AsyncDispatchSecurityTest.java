@@ -0,0 +1,88 @@
+package com.ai.studybuddy.config.security;
+
+import com.ai.studybuddy.config.WebMvcConfig;
+import com.ai.studybuddy.config.resilience.AIAdmissionControl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Gli endpoint che restituiscono CompletableFuture (generazione AI) completano la risposta
+ * in un secondo dispatch ASYNC, su cui il JwtFilter non gira: la catena di sicurezza
+ * non deve rifiutarlo.
+ */
+@WebMvcTest(controllers = AsyncDispatchSecurityTest.AsyncController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = WebMvcConfig.class))
+@Import({SecurityConfig.class, AsyncDispatchSecurityTest.AsyncController.class})
+class AsyncDispatchSecurityTest {
+
+    private static final String TOKEN = "token-valido";
+    private static final String EMAIL = "studente@example.com";
+
+    @RestController
+    static class AsyncController {
+
+        @GetMapping("/api/test/async")
+        public CompletableFuture<String> async(Principal principal) {
+            return CompletableFuture.supplyAsync(principal::getName);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtUtils jwtUtils;
+
+    @MockitoBean
+    private UserDetailsService userDetailsService;
+
+    @MockitoBean
+    private AIAdmissionControl admissionControl;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtUtils.validateToken(TOKEN)).thenReturn(true);
+        when(jwtUtils.getEmailFromToken(TOKEN)).thenReturn(EMAIL);
+        when(userDetailsService.loadUserByUsername(EMAIL))
+                .thenReturn(User.withUsername(EMAIL).password("x").roles("USER").build());
+    }
+
+    @Test
+    void dispatchAsyncCompletaLaRisposta() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/test/async").header("Authorization", "Bearer " + TOKEN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(EMAIL));
+    }
+
+    @Test
+    void senzaTokenLaRichiestaVieneRifiutata() throws Exception {
+        mockMvc.perform(get("/api/test/async"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,53 @@
+package com.ai.studybuddy.mapper;
+
+import com.ai.studybuddy.model.quiz.BankQuestion;
+import com.ai.studybuddy.model.quiz.Question;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuizMapperTest {
+
+    private final QuizMapper mapper = new QuizMapper();
+
+    private static JsonObject question(String correct) {
+        JsonObject json = new JsonObject();
+        json.addProperty("question", "Capitale d'Italia?");
+        JsonArray options = new JsonArray();
+        options.add("Roma");
+        options.add("Milano");
+        options.add("Napoli");
+        options.add("Torino");
+        json.add("options", options);
+        json.addProperty("correct", correct);
+        return json;
+    }
+
+    @Test
+    void rispostaComeLetteraOTesto() {
+        assertThat(mapper.toQuestionEntity(question("a"), null, 1).getCorrectAnswer()).isEqualTo("A");
+        assertThat(mapper.toQuestionEntity(question("Napoli"), null, 1).getCorrectAnswer()).isEqualTo("C");
+        assertThat(mapper.toQuestionEntity(question("D) Torino"), null, 1).getCorrectAnswer()).isEqualTo("D");
+    }
+
+    @Test
+    void rispostaNonRiconducibileVieneRifiutata() {
+        assertThat(mapper.validateQuestionJson(question("Firenze"))).isNotEmpty();
+        assertThatThrownBy(() -> mapper.toQuestionEntity(question("Firenze"), null, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> mapper.toBankQuestion(question("")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void domandaValidaPassaInBanca() {
+        assertThat(mapper.validateQuestionJson(question("B"))).isEmpty();
+        BankQuestion bankQuestion = mapper.toBankQuestion(question("B"));
+        Question copy = mapper.toQuestionEntity(bankQuestion, null, 2);
+        assertThat(copy.getCorrectAnswer()).isEqualTo("B");
+        assertThat(copy.getQuestionOrder()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ai.studybuddy.model.gamification;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class XpBucketTest {
+
+    @Test
+    void periodiRiconosciuti() {
+        assertThat(XpBucket.PeriodType.parse("week")).isEqualTo(XpBucket.PeriodType.WEEK);
+        assertThat(XpBucket.PeriodType.parse(" Weekly ")).isEqualTo(XpBucket.PeriodType.WEEK);
+        assertThat(XpBucket.PeriodType.parse("MONTHLY")).isEqualTo(XpBucket.PeriodType.MONTH);
+        assertThat(XpBucket.PeriodType.parse(null)).isEqualTo(XpBucket.PeriodType.WEEK);
+    }
+
+    @Test
+    void periodoSconosciutoVieneRifiutato() {
+        assertThatThrownBy(() -> XpBucket.PeriodType.parse("year"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void inizioDelPeriodo() {
+        LocalDate thursday = LocalDate.of(2026, 10, 15);
+        assertThat(XpBucket.PeriodType.WEEK.start(thursday)).isEqualTo(LocalDate.of(2026, 10, 12));
+        assertThat(XpBucket.PeriodType.MONTH.start(thursday)).isEqualTo(LocalDate.of(2026, 10, 1));
+    }
+}
@@ -0,0 +1,126 @@
+package com.ai.studybuddy.model.live;
+
+import com.ai.studybuddy.model.quiz.QuizTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveSessionTest {
+
+    private static final int MAX_POINTS = 1000;
+
+    private static QuizTemplate template(int questions) {
+        List<QuizTemplate.Item> items = new ArrayList<>();
+        for (int i = 0; i < questions; i++) {
+            items.add(new QuizTemplate.Item(UUID.randomUUID(), i, "Domanda " + i,
+                    "a", "b", "c", "d", "A", null, null));
+        }
+        return new QuizTemplate(UUID.randomUUID(), UUID.randomUUID(), "Quiz", "topic", null, null, null, items);
+    }
+
+    private static LiveSession session(int questions) {
+        return new LiveSession("ABC123", UUID.randomUUID(), template(questions), 20);
+    }
+
+    @Test
+    void rispostaAccettataUnaSolaVolta() {
+        LiveSession session = session(1);
+        UUID user = UUID.randomUUID();
+        session.join(user, "Anna");
+        session.advance();
+        UUID questionId = session.currentQuestion().id();
+
+        assertThat(session.answer(user, questionId, "a", MAX_POINTS)).isNotNull();
+        assertThat(session.answer(user, questionId, "B", MAX_POINTS)).isNull();
+        assertThat(session.histogramSnapshot()).containsExactly(1, 0, 0, 0);
+        assertThat(session.leaderboard(10).get(0).getScore()).isGreaterThanOrEqualTo(MAX_POINTS / 2);
+    }
+
+    @Test
+    void rispostaRifiutataFuoriDallaDomandaCorrente() {
+        LiveSession session = session(2);
+        UUID user = UUID.randomUUID();
+        UUID stranger = UUID.randomUUID();
+        session.join(user, "Anna");
+
+        UUID first = session.getTemplate().questions().get(0).id();
+        assertThat(session.answer(user, first, "A", MAX_POINTS)).as("lobby").isNull();
+
+        session.advance();
+        assertThat(session.answer(stranger, first, "A", MAX_POINTS)).as("non iscritto").isNull();
+        assertThat(session.answer(user, first, "E", MAX_POINTS)).as("lettera non valida").isNull();
+        assertThat(session.answer(user, session.getTemplate().questions().get(1).id(), "A", MAX_POINTS))
+                .as("altra domanda").isNull();
+
+        assertThat(session.reveal()).isTrue();
+        assertThat(session.answer(user, first, "A", MAX_POINTS)).as("dopo il reveal").isNull();
+        assertThat(session.reveal()).isFalse();
+    }
+
+    @Test
+    void avanzamentoAzzeraIstogrammaEFinisceConLeDomande() {
+        LiveSession session = session(2);
+        UUID user = UUID.randomUUID();
+        session.join(user, "Anna");
+        session.advance();
+        session.answer(user, session.currentQuestion().id(), "C", MAX_POINTS);
+        session.reveal();
+
+        assertThat(session.advance()).isTrue();
+        assertThat(session.getCurrentIndex()).isEqualTo(1);
+        assertThat(session.histogramSnapshot()).containsExactly(0, 0, 0, 0);
+        assertThat(session.answeredCount()).isZero();
+        assertThat(session.advance()).isFalse();
+
+        session.finish();
+        assertThat(session.getStatus()).isEqualTo(LiveSession.Status.FINISHED);
+    }
+
+    @Test
+    void revealConcorrenteNonPerdeRisposteAccettate() throws Exception {
+        int participants = 200;
+        LiveSession session = session(1);
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < participants; i++) {
+            UUID user = UUID.randomUUID();
+            session.join(user, "Studente " + i);
+            users.add(user);
+        }
+        session.advance();
+        UUID questionId = session.currentQuestion().id();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (UUID user : users) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return session.answer(user, questionId, "A", MAX_POINTS) != null;
+            }));
+        }
+        start.countDown();
+        session.reveal();
+        // Fotografia presa subito dopo il reveal: le risposte accettate devono esserci già tutte
+        int[] atReveal = session.histogramSnapshot();
+        int scoredAtReveal = (int) session.leaderboard(participants).stream().filter(p -> p.getScore() > 0).count();
+
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(5, TimeUnit.SECONDS)) accepted++;
+        }
+        pool.shutdown();
+
+        assertThat(atReveal[0]).isEqualTo(accepted);
+        assertThat(scoredAtReveal).isEqualTo(accepted);
+        assertThat(session.answeredCount()).isEqualTo(accepted);
+    }
+}
@@ -0,0 +1,190 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.Badge;
+import com.ai.studybuddy.model.gamification.BadgeChangeEvent;
+import com.ai.studybuddy.model.gamification.UserStats;
+import com.ai.studybuddy.repository.BadgeRepository;
+import com.ai.studybuddy.repository.UserBadgeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BadgeRuleEngineTest {
+
+    private final BadgeRepository badgeRepository = mock(BadgeRepository.class);
+    private final UserBadgeRepository userBadgeRepository = mock(UserBadgeRepository.class);
+    private final BadgeRuleEngine engine = new BadgeRuleEngine(badgeRepository, userBadgeRepository, 100, 10);
+
+    private final UUID userId = UUID.randomUUID();
+
+    static Badge badge(String requirementType, int requirementValue) {
+        Badge badge = new Badge();
+        badge.setId(UUID.randomUUID());
+        badge.setName(requirementType + " " + requirementValue);
+        badge.setRequirementType(requirementType);
+        badge.setRequirementValue(requirementValue);
+        badge.setIsActive(true);
+        return badge;
+    }
+
+    private static UserStats quizzesCompleted(int count) {
+        UserStats stats = new UserStats();
+        stats.setQuizzesCompleted(count);
+        return stats;
+    }
+
+    private void catalog(List<Badge> badges) {
+        when(badgeRepository.findByIsActiveTrueOrderByRequirementValueAsc()).thenReturn(badges);
+    }
+
+    @Test
+    void sogliaRaggiuntaInclusaSogliaSuccessivaEsclusa() {
+        Badge one = badge("QUIZZES_COMPLETED", 1);
+        Badge five = badge("QUIZZES_COMPLETED", 5);
+        Badge alsoFive = badge("QUIZZES_COMPLETED", 5);
+        Badge ten = badge("QUIZZES_COMPLETED", 10);
+        // Ordine del repository diverso da quello delle soglie: il catalogo le ordina per tipo
+        catalog(List.of(ten, five, one, alsoFive));
+
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(0))).isEmpty();
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(4))).containsExactly(one);
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactlyInAnyOrder(one, five, alsoFive);
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(9))).hasSize(3);
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(1000))).hasSize(4);
+    }
+
+    @Test
+    void requisitiSconosciutiOSenzaValoreIgnorati() {
+        Badge unknown = badge("NON_ESISTE", 1);
+        Badge noValue = badge("QUIZZES_COMPLETED", 0);
+        noValue.setRequirementValue(null);
+        catalog(List.of(unknown, noValue));
+
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(50))).isEmpty();
+    }
+
+    @Test
+    void badgeGiaSbloccatiNelDatabaseEsclusi() {
+        Badge one = badge("QUIZZES_COMPLETED", 1);
+        Badge five = badge("QUIZZES_COMPLETED", 5);
+        catalog(List.of(one, five));
+        when(userBadgeRepository.findBadgeIdsByUserId(userId)).thenReturn(List.of(one.getId()));
+
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactly(five);
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactly(five);
+        // Il bitset resta in cache: una sola lettura dal database
+        verify(userBadgeRepository, times(1)).findBadgeIdsByUserId(userId);
+    }
+
+    @Test
+    void eventoDiSbloccoERimozioneAggiornaIlBitset() {
+        Badge one = badge("QUIZZES_COMPLETED", 1);
+        Badge five = badge("QUIZZES_COMPLETED", 5);
+        catalog(List.of(one, five));
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactly(one, five);
+
+        engine.onBadgeChange(new BadgeChangeEvent(userId, five.getId(), false));
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactly(one);
+
+        engine.onBadgeChange(new BadgeChangeEvent(userId, five.getId(), true));
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactly(one, five);
+
+        // Nessuna rilettura: gli eventi aggiornano il bitset in memoria
+        verify(userBadgeRepository, times(1)).findBadgeIdsByUserId(userId);
+    }
+
+    @Test
+    void bitsetOltreIlPrimoLong() {
+        List<Badge> badges = new ArrayList<>();
+        for (int i = 1; i <= 70; i++) {
+            badges.add(badge("QUIZZES_COMPLETED", i));
+        }
+        catalog(badges);
+        Badge last = badges.get(69);
+        Badge first = badges.get(0);
+        when(userBadgeRepository.findBadgeIdsByUserId(userId)).thenReturn(List.of(badges.get(65).getId()));
+
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(70))).hasSize(69).doesNotContain(badges.get(65));
+
+        engine.onBadgeChange(new BadgeChangeEvent(userId, last.getId(), false));
+        engine.onBadgeChange(new BadgeChangeEvent(userId, first.getId(), false));
+
+        // Indici 0 e 69 stanno in long diversi: ognuno cambia solo il proprio bit
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(70)))
+                .hasSize(67)
+                .doesNotContain(first, last, badges.get(65))
+                .contains(badges.get(1), badges.get(64), badges.get(68));
+    }
+
+    @Test
+    void eventoDiUnUtenteNonInCacheVieneIgnorato() {
+        Badge one = badge("QUIZZES_COMPLETED", 1);
+        catalog(List.of(one));
+        engine.findUnlockable(UUID.randomUUID(), quizzesCompleted(1));
+
+        engine.onBadgeChange(new BadgeChangeEvent(userId, one.getId(), false));
+
+        // Il bitset dell'utente non esisteva: viene letto dal database al primo accesso
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(1))).containsExactly(one);
+        verify(userBadgeRepository).findBadgeIdsByUserId(userId);
+    }
+
+    @Test
+    void catalogoRicaricatoConGliStessiBadgeRiusaIBitset() {
+        Badge one = badge("QUIZZES_COMPLETED", 1);
+        Badge five = badge("QUIZZES_COMPLETED", 5);
+        catalog(List.of(one, five));
+        engine.findUnlockable(userId, quizzesCompleted(5));
+
+        // Stessi id nello stesso ordine (es. cambia solo il nome): stessa versione del catalogo
+        engine.onBadgeChange(new BadgeChangeEvent(null, one.getId(), false));
+        engine.findUnlockable(userId, quizzesCompleted(5));
+
+        verify(badgeRepository, times(2)).findByIsActiveTrueOrderByRequirementValueAsc();
+        verify(userBadgeRepository, times(1)).findBadgeIdsByUserId(userId);
+    }
+
+    @Test
+    void catalogoConBadgeDiversiInvalidaIBitset() {
+        Badge one = badge("QUIZZES_COMPLETED", 1);
+        Badge five = badge("QUIZZES_COMPLETED", 5);
+        catalog(List.of(one, five));
+        engine.findUnlockable(userId, quizzesCompleted(5));
+        engine.onBadgeChange(new BadgeChangeEvent(userId, five.getId(), false));
+
+        // Un badge in più sposta gli indici: i bitset della versione precedente non valgono più
+        Badge three = badge("QUIZZES_COMPLETED", 3);
+        catalog(List.of(one, three, five));
+        when(userBadgeRepository.findBadgeIdsByUserId(userId)).thenReturn(List.of(five.getId()));
+        engine.invalidateCatalog();
+
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactly(one, three);
+        verify(userBadgeRepository, times(2)).findBadgeIdsByUserId(userId);
+
+        // Gli eventi successivi usano gli indici del nuovo catalogo
+        engine.onBadgeChange(new BadgeChangeEvent(userId, three.getId(), false));
+        assertThat(engine.findUnlockable(userId, quizzesCompleted(5))).containsExactly(one);
+    }
+
+    @Test
+    void valoreCorrenteDeiRequisiti() {
+        UserStats stats = new UserStats();
+        stats.setTotalXp(250);
+        stats.setLevel(2);
+        stats.setCurrentStreak(4);
+
+        assertThat(BadgeRuleEngine.currentValue("TOTAL_XP", stats)).isEqualTo(250);
+        assertThat(BadgeRuleEngine.currentValue("LEVEL", stats)).isEqualTo(2);
+        assertThat(BadgeRuleEngine.currentValue("STREAK_DAYS", stats)).isEqualTo(4);
+        assertThat(BadgeRuleEngine.currentValue("NON_ESISTE", stats)).isNull();
+        assertThat(BadgeRuleEngine.currentValue(null, stats)).isNull();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.service.inter.TrendingTopicService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ExplanationCacheServiceImplTest {
+
+    // Argomenti di contorno: superano la soglia oltre la quale la partizione usa l'IDF
+    private static final List<String> OTHER_TOPICS = List.of(
+            "teorema di pitagora", "prima guerra mondiale", "guerra fredda", "rivoluzione francese",
+            "rivoluzione industriale", "ciclo di krebs", "ciclo dell'acqua", "legge di ohm", "equazioni di primo grado",
+            "respirazione cellulare", "mitosi", "meiosi", "dna", "rna messaggero", "tavola periodica", "legami chimici",
+            "acidi e basi", "derivate", "integrali", "limiti", "funzioni esponenziali", "logaritmi", "trigonometria",
+            "vettori", "moto uniformemente accelerato", "leggi di newton", "termodinamica", "entropia", "impero romano",
+            "repubblica romana", "medioevo", "rinascimento", "illuminismo", "risorgimento", "unità d'italia",
+            "dante alighieri", "divina commedia", "promessi sposi", "leopardi", "verga", "pirandello", "kant", "hegel",
+            "platone", "aristotele", "cartesio", "evoluzione darwin", "sistema solare", "tettonica delle placche",
+            "vulcani", "ecosistemi", "catene alimentari", "sistema nervoso", "apparato digerente");
+
+    private static ExplanationCacheServiceImpl cache() {
+        ExplanationCacheServiceImpl cache = new ExplanationCacheServiceImpl(1024, mock(TrendingTopicService.class));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "similarityThreshold", 0.50);
+        ReflectionTestUtils.setField(cache, "maxEntriesPerPartition", 5000);
+        return cache;
+    }
+
+    @Test
+    void esempiDellaRichiestaUsanoLaStessaSpiegazione() {
+        ExplanationCacheServiceImpl cache = cache();
+        cache.store("fotosintesi", "liceo", "it", "spiegazione fotosintesi");
+
+        assertThat(cache.findSimilar("La fotosintesi", "liceo", "it")).contains("spiegazione fotosintesi");
+        assertThat(cache.findSimilar("fotosintesi clorofilliana", "liceo", "it")).contains("spiegazione fotosintesi");
+        assertThat(cache.findSimilar("photosynthesis process", "liceo", "it")).contains("spiegazione fotosintesi");
+    }
+
+    @Test
+    void conIdfGliEsempiRestanoHit() {
+        ExplanationCacheServiceImpl cache = cache();
+        cache.store("fotosintesi", "liceo", "it", "spiegazione fotosintesi");
+        for (String topic : OTHER_TOPICS) {
+            cache.store(topic, "liceo", "it", "spiegazione " + topic);
+        }
+
+        assertThat(cache.findSimilar("fotosintesi clorofilliana", "liceo", "it")).contains("spiegazione fotosintesi");
+        assertThat(cache.findSimilar("photosynthesis process", "liceo", "it")).contains("spiegazione fotosintesi");
+        assertThat(cache.findSimilar("teoremi pitagora", "liceo", "it")).contains("spiegazione teorema di pitagora");
+    }
+
+    @Test
+    void argomentiVicinoMaDiversiNonVengonoServiti() {
+        ExplanationCacheServiceImpl cache = cache();
+        cache.store("prima guerra mondiale", "liceo", "it", "spiegazione prima guerra");
+        cache.store("rivoluzione francese", "liceo", "it", "spiegazione rivoluzione francese");
+
+        assertThat(cache.findSimilar("seconda guerra mondiale", "liceo", "it")).isEmpty();
+        assertThat(cache.findSimilar("rivoluzione russa", "liceo", "it")).isEmpty();
+        assertThat(cache.getStats().misses()).isEqualTo(2);
+    }
+
+    @Test
+    void partizioniSeparatePerLinguaELivello() {
+        ExplanationCacheServiceImpl cache = cache();
+        cache.store("fotosintesi", "liceo", "it", "spiegazione fotosintesi");
+
+        assertThat(cache.findSimilar("fotosintesi", "liceo", "en")).isEmpty();
+        assertThat(cache.findSimilar("fotosintesi", "medie", "it")).isEmpty();
+    }
+}
@@ -0,0 +1,277 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.Badge;
+import com.ai.studybuddy.model.gamification.UserBadge;
+import com.ai.studybuddy.model.gamification.UserStats;
+import com.ai.studybuddy.model.gamification.XpEvent;
+import com.ai.studybuddy.model.gamification.XpEventsProjected;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.repository.BadgeRepository;
+import com.ai.studybuddy.repository.UserBadgeRepository;
+import com.ai.studybuddy.repository.UserRepository;
+import com.ai.studybuddy.repository.UserStatsRepository;
+import com.ai.studybuddy.repository.XpBucketRepository;
+import com.ai.studybuddy.repository.XpEventRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.ai.studybuddy.service.impl.BadgeRuleEngineTest.badge;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GamificationServiceImplTest {
+
+    private final BadgeRepository badgeRepository = mock(BadgeRepository.class);
+    private final UserBadgeRepository userBadgeRepository = mock(UserBadgeRepository.class);
+    private final XpEventRepository xpEventRepository = mock(XpEventRepository.class);
+    private final XpBucketRepository xpBucketRepository = mock(XpBucketRepository.class);
+    private final UserStatsRepository userStatsRepository = mock(UserStatsRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final BadgeRuleEngine badgeRuleEngine = new BadgeRuleEngine(badgeRepository, userBadgeRepository, 100, 10);
+    private final GamificationServiceImpl service = service();
+
+    private final User user = user();
+
+    private GamificationServiceImpl service() {
+        GamificationServiceImpl service = new GamificationServiceImpl();
+        ReflectionTestUtils.setField(service, "badgeRepository", badgeRepository);
+        ReflectionTestUtils.setField(service, "userBadgeRepository", userBadgeRepository);
+        ReflectionTestUtils.setField(service, "xpEventRepository", xpEventRepository);
+        ReflectionTestUtils.setField(service, "xpBucketRepository", xpBucketRepository);
+        ReflectionTestUtils.setField(service, "badgeRuleEngine", badgeRuleEngine);
+        ReflectionTestUtils.setField(service, "userStatsRepository", userStatsRepository);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+        return service;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+
+    private static Badge rewarding(Badge badge, int xpReward) {
+        badge.setXpReward(xpReward);
+        return badge;
+    }
+
+    private static UserStats statsWithXp(int totalXp) {
+        // Livello 1, prossimo livello a 100 XP
+        UserStats stats = new UserStats();
+        stats.setTotalXp(totalXp);
+        return stats;
+    }
+
+    private static XpEvent withId(XpEvent event, long id) {
+        ReflectionTestUtils.setField(event, "id", id);
+        return event;
+    }
+
+    private UserStats lockedStats(UserStats stats) {
+        stats.setUser(user);
+        when(userStatsRepository.findByUserIdForUpdate(user.getId())).thenReturn(Optional.of(stats));
+        return stats;
+    }
+
+    private void pending(XpEvent... events) {
+        when(xpEventRepository.lockPendingByUserId(eq(user.getId()), any())).thenReturn(List.of(events));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserBadge> savedUserBadges() {
+        ArgumentCaptor<Iterable<UserBadge>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(userBadgeRepository).saveAll(saved.capture());
+        List<UserBadge> badges = new ArrayList<>();
+        saved.getValue().forEach(badges::add);
+        return badges;
+    }
+
+    @Test
+    void ilBonusDiUnBadgeSbloccaIBadgeSuccessivi() {
+        // 60 XP -> badge da 50 (+40) -> livello 2 -> badge livello 2 (+30) -> 130 XP -> badge da 120
+        Badge xp50 = rewarding(badge("TOTAL_XP", 50), 40);
+        Badge level2 = rewarding(badge("LEVEL", 2), 30);
+        Badge xp120 = rewarding(badge("TOTAL_XP", 120), 0);
+        Badge xp500 = rewarding(badge("TOTAL_XP", 500), 100);
+        when(badgeRepository.findByIsActiveTrueOrderByRequirementValueAsc()).thenReturn(List.of(xp50, level2, xp120, xp500));
+        UserStats stats = statsWithXp(60);
+
+        List<Badge> unlocked = service.checkAndUnlockBadges(user, stats);
+
+        assertThat(unlocked).containsExactly(xp50, level2, xp120);
+        assertThat(stats.getTotalXp()).isEqualTo(130);
+        assertThat(stats.getLevel()).isEqualTo(2);
+        // Un evento BADGE_REWARD per ogni bonus, una sola scrittura dei badge sbloccati
+        verify(xpEventRepository, times(2)).save(any(XpEvent.class));
+        assertThat(savedUserBadges()).hasSize(3);
+    }
+
+    @Test
+    void badgeGiaPresenteNelDatabaseNonVieneRipremiato() {
+        Badge xp50 = rewarding(badge("TOTAL_XP", 50), 40);
+        Badge xp80 = rewarding(badge("TOTAL_XP", 80), 10);
+        when(badgeRepository.findByIsActiveTrueOrderByRequirementValueAsc()).thenReturn(List.of(xp50, xp80));
+        // Sbloccato da una richiesta concorrente dopo che il bitset è stato messo in cache
+        when(userBadgeRepository.existsByUserIdAndBadgeId(user.getId(), xp50.getId())).thenReturn(true);
+        UserStats stats = statsWithXp(60);
+
+        List<Badge> unlocked = service.checkAndUnlockBadges(user, stats);
+
+        // Senza il bonus da 40 XP la soglia degli 80 non si raggiunge
+        assertThat(unlocked).isEmpty();
+        assertThat(stats.getTotalXp()).isEqualTo(60);
+        verify(xpEventRepository, never()).save(any(XpEvent.class));
+        verify(userBadgeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void nessunCandidatoNessunaScrittura() {
+        when(badgeRepository.findByIsActiveTrueOrderByRequirementValueAsc())
+                .thenReturn(List.of(rewarding(badge("TOTAL_XP", 500), 100)));
+
+        assertThat(service.checkAndUnlockBadges(user, statsWithXp(60))).isEmpty();
+        verify(userBadgeRepository, never()).saveAll(any());
+        verify(xpBucketRepository, never()).addXp(any(), any(), any(), any(), anyInt(), any());
+    }
+
+    // ==================== PROIEZIONE E RICOSTRUZIONE ====================
+
+    @Test
+    void proiezioneApplicaGliEventiEMarcaProiettati() {
+        UserStats stats = lockedStats(new UserStats());
+        pending(withId(XpEvent.quiz(user.getId(), 30, true, null, null, 5, 4), 11L),
+                withId(XpEvent.explanation(user.getId(), 10, null, null), 12L));
+
+        assertThat(service.projectXpEvents(user.getId(), 100)).isEqualTo(2);
+
+        assertThat(stats.getTotalXp()).isEqualTo(40);
+        assertThat(stats.getQuizzesCompleted()).isEqualTo(1);
+        assertThat(stats.getQuizzesPassed()).isEqualTo(1);
+        assertThat(stats.getExplanationsRequested()).isEqualTo(1);
+        assertThat(stats.getCurrentStreak()).isEqualTo(1);
+        assertThat(stats.getLastEventId()).isEqualTo(12L);
+        verify(xpEventRepository).markProjected(List.of(11L, 12L));
+        verify(userStatsRepository).save(stats);
+        // Dopo il commit il write-behind toglie i delta di questi eventi
+        verify(eventPublisher).publishEvent(new XpEventsProjected(user.getId(), List.of(11L, 12L)));
+        // Utente senza attività precedente: nessun saldo iniziale
+        verify(xpEventRepository, never()).save(any(XpEvent.class));
+    }
+
+    @Test
+    void nessunEventoInAttesaNessunaScrittura() {
+        assertThat(service.projectXpEvents(user.getId(), 100)).isZero();
+
+        verify(userStatsRepository, never()).findByUserIdForUpdate(any());
+        verify(xpEventRepository, never()).markProjected(any());
+        verify(eventPublisher, never()).publishEvent(any(XpEventsProjected.class));
+    }
+
+    @Test
+    void eventiDiUnUtenteEliminatoVengonoScartati() {
+        pending(withId(XpEvent.flashcards(user.getId(), 4, 2), 21L));
+        when(userStatsRepository.findByUserIdForUpdate(user.getId())).thenReturn(Optional.empty());
+        when(userRepository.existsById(user.getId())).thenReturn(false);
+
+        assertThat(service.projectXpEvents(user.getId(), 100)).isEqualTo(1);
+
+        // Marcati proiettati: il proiettore non li riprova a ogni giro
+        verify(xpEventRepository).markProjected(List.of(21L));
+        verify(eventPublisher).publishEvent(new XpEventsProjected(user.getId(), List.of(21L)));
+        verify(userRepository, never()).getReferenceById(any());
+        verify(userStatsRepository, never()).save(any());
+    }
+
+    @Test
+    void primaProiezioneCreaLeStatisticheSeLUtenteEsiste() {
+        pending(withId(XpEvent.explanation(user.getId(), 10, null, null), 31L));
+        when(userStatsRepository.findByUserIdForUpdate(user.getId())).thenReturn(Optional.empty());
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(userStatsRepository.save(any(UserStats.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThat(service.projectXpEvents(user.getId(), 100)).isEqualTo(1);
+
+        ArgumentCaptor<UserStats> saved = ArgumentCaptor.forClass(UserStats.class);
+        verify(userStatsRepository, times(2)).save(saved.capture());
+        assertThat(saved.getValue().getTotalXp()).isEqualTo(10);
+        verify(xpEventRepository).markProjected(List.of(31L));
+    }
+
+    @Test
+    void primaProiezioneSalvaIlSaldoInizialeDelleStatistichePrecedenti() {
+        UserStats stats = new UserStats();
+        stats.setTotalXp(500);
+        stats.setQuizzesCompleted(7);
+        lockedStats(stats);
+        pending(withId(XpEvent.explanation(user.getId(), 10, null, null), 9L));
+        when(xpEventRepository.save(any(XpEvent.class))).thenAnswer(inv -> withId(inv.getArgument(0), 3L));
+
+        service.projectXpEvents(user.getId(), 100);
+
+        ArgumentCaptor<XpEvent> opening = ArgumentCaptor.forClass(XpEvent.class);
+        verify(xpEventRepository).save(opening.capture());
+        assertThat(opening.getValue().getType()).isEqualTo(XpEvent.Type.OPENING_BALANCE);
+        assertThat(opening.getValue().getXp()).isEqualTo(500);
+        assertThat(opening.getValue().isProjected()).isTrue();
+        assertThat(opening.getValue().getDetails()).contains("\"quizzesCompleted\":7");
+        assertThat(stats.getTotalXp()).isEqualTo(510);
+        assertThat(stats.getLastEventId()).isEqualTo(9L);
+    }
+
+    @Test
+    void ricostruzioneApplicaPrimaIlSaldoInizialePoiGliEventi() {
+        UserStats stats = new UserStats();
+        // Contatori andati alla deriva: la ricostruzione li ricalcola dal registro
+        stats.setTotalXp(9999);
+        stats.setQuizzesCompleted(99);
+        stats.setLastEventId(50L);
+        lockedStats(stats);
+        XpEvent opening = withId(XpEvent.openingBalance(user.getId(), 500,
+                "{\"quizzesCompleted\":7,\"quizzesPassed\":5,\"longestStreak\":3}"), 60L);
+        when(xpEventRepository.findFirstByUserIdAndTypeOrderByIdAsc(user.getId(), XpEvent.Type.OPENING_BALANCE))
+                .thenReturn(Optional.of(opening));
+        // Il saldo iniziale ha un id successivo al primo evento: va comunque applicato per primo
+        when(xpEventRepository.findProjectedByUserId(eq(user.getId()), eq(0L), any())).thenReturn(List.of(
+                withId(XpEvent.quiz(user.getId(), 30, true, null, null, 5, 4), 40L),
+                opening,
+                withId(XpEvent.explanation(user.getId(), 10, null, null), 70L)));
+
+        assertThat(service.replayXpEvents(user.getId())).isEqualTo(3);
+
+        assertThat(stats.getTotalXp()).isEqualTo(540);
+        assertThat(stats.getQuizzesCompleted()).isEqualTo(8);
+        assertThat(stats.getQuizzesPassed()).isEqualTo(6);
+        assertThat(stats.getExplanationsRequested()).isEqualTo(1);
+        assertThat(stats.getLongestStreak()).isEqualTo(3);
+        assertThat(stats.getLastEventId()).isEqualTo(70L);
+        verify(xpBucketRepository, never()).addXp(any(), any(), any(), any(), anyInt(), any());
+        verify(xpBucketRepository, times(2)).setXp(any(), eq(user.getId()), any(), any(), eq(40), any());
+        verify(userStatsRepository).save(stats);
+    }
+
+    @Test
+    void ricostruzioneSenzaStatisticheNonFaNulla() {
+        when(userStatsRepository.findByUserIdForUpdate(user.getId())).thenReturn(Optional.empty());
+
+        assertThat(service.replayXpEvents(user.getId())).isZero();
+        verify(xpEventRepository, never()).findProjectedByUserId(any(), anyLong(), any());
+    }
+}
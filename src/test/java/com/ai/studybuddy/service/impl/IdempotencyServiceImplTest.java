@@ -0,0 +1,89 @@
+package com.ai.studybuddy.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceImplTest {
+
+    private static IdempotencyServiceImpl service(long maxWaitSeconds) {
+        IdempotencyServiceImpl service = new IdempotencyServiceImpl();
+        ReflectionTestUtils.setField(service, "ttlMinutes", 10L);
+        ReflectionTestUtils.setField(service, "maxWaitSeconds", maxWaitSeconds);
+        return service;
+    }
+
+    @Test
+    void stessaChiaveRiusaIlRisultato() {
+        IdempotencyServiceImpl service = service(5);
+        UUID user = UUID.randomUUID();
+        AtomicInteger runs = new AtomicInteger();
+
+        String first = service.execute(user, "k1", "f", () -> "quiz-" + runs.incrementAndGet());
+        String second = service.execute(user, "k1", "f", () -> "quiz-" + runs.incrementAndGet());
+
+        assertThat(first).isEqualTo("quiz-1");
+        assertThat(second).isEqualTo("quiz-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void parametriDiversiConLaStessaChiaveSonoUnErrore() {
+        IdempotencyServiceImpl service = service(5);
+        UUID user = UUID.randomUUID();
+        service.execute(user, "k1", "a", () -> "x");
+
+        assertThatThrownBy(() -> service.execute(user, "k1", "b", () -> "y"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+    }
+
+    @Test
+    void duplicatoNonAttendeOltreIlLimite() throws Exception {
+        IdempotencyServiceImpl service = service(0);
+        UUID user = UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() ->
+                service.execute(user, "k1", "f", () -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "fatto";
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> service.execute(user, "k1", "f", () -> "doppio"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        release.countDown();
+        assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo("fatto");
+    }
+
+    @Test
+    void operazioneFallitaNonVieneMemorizzata() {
+        IdempotencyServiceImpl service = service(5);
+        UUID user = UUID.randomUUID();
+
+        assertThatThrownBy(() -> service.execute(user, "k1", "f", () -> {
+            throw new IllegalStateException("AI non disponibile");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(service.execute(user, "k1", "f", () -> "ok")).isEqualTo("ok");
+    }
+}
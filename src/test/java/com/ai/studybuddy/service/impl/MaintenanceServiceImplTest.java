@@ -0,0 +1,40 @@
+package com.ai.studybuddy.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MaintenanceServiceImplTest {
+
+    private static final CronExpression DAILY = CronExpression.parse("0 5 0 * * *");
+    private static final CronExpression WEEKLY = CronExpression.parse("0 0 4 * * SUN");
+
+    @Test
+    void finestraGiornalieraEUltimaAttivazione() {
+        assertThat(MaintenanceServiceImpl.scheduleWindow(DAILY, LocalDateTime.of(2026, 3, 10, 0, 5, 0, 3_000_000)))
+                .isEqualTo(LocalDateTime.of(2026, 3, 10, 0, 5));
+        assertThat(MaintenanceServiceImpl.scheduleWindow(DAILY, LocalDateTime.of(2026, 3, 10, 18, 30)))
+                .isEqualTo(LocalDateTime.of(2026, 3, 10, 0, 5));
+        assertThat(MaintenanceServiceImpl.scheduleWindow(DAILY, LocalDateTime.of(2026, 3, 10, 0, 4)))
+                .isEqualTo(LocalDateTime.of(2026, 3, 9, 0, 5));
+    }
+
+    @Test
+    void attivazioneInAnticipoRestaNellaStessaFinestra() {
+        // Due nodi con orologi sfasati di pochi millisecondi calcolano la stessa finestra
+        assertThat(MaintenanceServiceImpl.scheduleWindow(DAILY, LocalDateTime.of(2026, 3, 10, 0, 4, 59, 990_000_000)))
+                .isEqualTo(LocalDateTime.of(2026, 3, 10, 0, 5));
+    }
+
+    @Test
+    void finestraSettimanaleCercaAllIndietro() {
+        // 2026-03-15 è domenica
+        assertThat(MaintenanceServiceImpl.scheduleWindow(WEEKLY, LocalDateTime.of(2026, 3, 20, 12, 0)))
+                .isEqualTo(LocalDateTime.of(2026, 3, 15, 4, 0));
+        assertThat(MaintenanceServiceImpl.scheduleWindow(WEEKLY, LocalDateTime.of(2026, 3, 15, 3, 0)))
+                .isEqualTo(LocalDateTime.of(2026, 3, 8, 4, 0));
+    }
+}
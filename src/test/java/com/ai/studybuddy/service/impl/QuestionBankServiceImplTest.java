@@ -0,0 +1,28 @@
+package com.ai.studybuddy.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuestionBankServiceImplTest {
+
+    @Test
+    void linguaRidottaAlCodiceIso() {
+        assertThat(QuestionBankServiceImpl.normalizeLanguage(" IT ")).isEqualTo("it");
+        assertThat(QuestionBankServiceImpl.normalizeLanguage("pt_BR")).isEqualTo("pt");
+        assertThat(QuestionBankServiceImpl.normalizeLanguage("en-GB")).isEqualTo("en");
+        assertThat(QuestionBankServiceImpl.normalizeLanguage(null)).isEqualTo("it");
+    }
+
+    @Test
+    void linguaNonSupportataVieneRifiutata() {
+        assertThatThrownBy(() -> QuestionBankServiceImpl.normalizeLanguage("italiano"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> QuestionBankServiceImpl.normalizeLanguage("zh-Hant-TW"))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+}
@@ -0,0 +1,178 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.quiz.UserQuizSummary;
+import com.ai.studybuddy.model.quiz.UserQuizTopicScore;
+import com.ai.studybuddy.repository.QuizRepository;
+import com.ai.studybuddy.repository.UserQuizSummaryRepository;
+import com.ai.studybuddy.repository.UserQuizTopicScoreRepository;
+import com.ai.studybuddy.service.inter.QuizService.QuizStats;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuizAnalyticsServiceImplTest {
+
+    private final UserQuizSummaryRepository summaryRepository = mock(UserQuizSummaryRepository.class);
+    private final UserQuizTopicScoreRepository topicScoreRepository = mock(UserQuizTopicScoreRepository.class);
+    private final QuizRepository quizRepository = mock(QuizRepository.class);
+    private final QuizAnalyticsServiceImpl service = service();
+
+    private QuizAnalyticsServiceImpl service() {
+        QuizAnalyticsServiceImpl service =
+                new QuizAnalyticsServiceImpl(summaryRepository, topicScoreRepository, quizRepository);
+        // Senza Spring il proxy è il servizio stesso: una "transazione" per utente diventa una chiamata diretta
+        service.setSelfProxy(service);
+        ReflectionTestUtils.setField(service, "backfillBatchSize", 2);
+        return service;
+    }
+
+    private static QuizRepository.QuizTotals totals(long total, long completed, long passed, long failed,
+                                                    double scoreSum) {
+        return new QuizRepository.QuizTotals() {
+            public long getTotal() { return total; }
+            public Long getCompleted() { return completed; }
+            public Long getPassed() { return passed; }
+            public Long getFailed() { return failed; }
+            public Double getScoreSum() { return scoreSum; }
+        };
+    }
+
+    private static QuizRepository.TopicBest best(String topic, double score) {
+        return new QuizRepository.TopicBest() {
+            public String getTopic() { return topic; }
+            public Double getBest() { return score; }
+        };
+    }
+
+    private void summaryExistsAfterInsert() {
+        when(summaryRepository.findByUserIdForUpdate(any()))
+                .thenAnswer(inv -> Optional.of(new UserQuizSummary(inv.getArgument(0))));
+    }
+
+    @Test
+    void completamentoApplicaIlDeltaEAlzaIlBestDelTopic() {
+        UUID user = UUID.randomUUID();
+        when(summaryRepository.applyDelta(eq(user), eq(0L), eq(1L), eq(1L), eq(0L), eq(80.0), any()))
+                .thenReturn(1);
+        when(topicScoreRepository.raiseBest(eq(user), eq("Storia"), eq(80.0), any())).thenReturn(1);
+
+        service.recordQuizCompleted(user, "Storia", 80.0);
+
+        verify(topicScoreRepository).raiseBest(eq(user), eq("Storia"), eq(80.0), any());
+        verify(summaryRepository, never()).insertIfAbsent(any(), any());
+        verify(topicScoreRepository, never()).save(any());
+    }
+
+    @Test
+    void completamentoBocciatoEPrimoBestDelTopic() {
+        UUID user = UUID.randomUUID();
+        when(summaryRepository.applyDelta(eq(user), eq(0L), eq(1L), eq(0L), eq(1L), eq(40.0), any()))
+                .thenReturn(1);
+
+        service.recordQuizCompleted(user, "Chimica", 40.0);
+
+        // Nessuna riga da alzare e nessuna esistente: il best del topic viene creato
+        ArgumentCaptor<UserQuizTopicScore> saved = ArgumentCaptor.forClass(UserQuizTopicScore.class);
+        verify(topicScoreRepository).save(saved.capture());
+        assertThat(saved.getValue().getBestPercentage()).isEqualTo(40.0);
+    }
+
+    @Test
+    void rigaMancanteVieneRicostruitaDalloStoricoSenzaApplicareIlDelta() {
+        UUID user = UUID.randomUUID();
+        summaryExistsAfterInsert();
+        when(quizRepository.aggregateTotalsByUserId(user)).thenReturn(totals(3, 2, 1, 1, 130.0));
+        when(quizRepository.findBestScoresByUserId(user)).thenReturn(List.of(best("Storia", 80.0)));
+
+        service.recordQuizCompleted(user, "Storia", 80.0);
+
+        // Prima la riga garantita e bloccata, poi la lettura dello storico
+        InOrder order = inOrder(summaryRepository, quizRepository);
+        order.verify(summaryRepository).insertIfAbsent(eq(user), any());
+        order.verify(summaryRepository).findByUserIdForUpdate(user);
+        order.verify(quizRepository).aggregateTotalsByUserId(user);
+
+        ArgumentCaptor<UserQuizSummary> summary = ArgumentCaptor.forClass(UserQuizSummary.class);
+        verify(summaryRepository).save(summary.capture());
+        assertThat(summary.getValue().getTotalQuizzes()).isEqualTo(3);
+        assertThat(summary.getValue().getCompletedQuizzes()).isEqualTo(2);
+        assertThat(summary.getValue().getScoreSum()).isEqualTo(130.0);
+
+        verify(topicScoreRepository).deleteByUserId(user);
+        verify(topicScoreRepository).save(any(UserQuizTopicScore.class));
+        // Lo storico include già il completamento corrente
+        verify(topicScoreRepository, never()).raiseBest(any(), anyString(), anyDouble(), any());
+    }
+
+    @Test
+    void statisticheSenzaRigaNonScrivonoNulla() {
+        UUID user = UUID.randomUUID();
+        when(summaryRepository.findById(user)).thenReturn(Optional.empty());
+        when(quizRepository.aggregateTotalsByUserId(user)).thenReturn(totals(4, 2, 2, 0, 150.0));
+
+        QuizStats stats = service.getStats(user);
+
+        assertThat(stats.getTotalQuizzes()).isEqualTo(4);
+        assertThat(stats.getCompletedQuizzes()).isEqualTo(2);
+        assertThat(stats.getAverageScore()).isEqualTo(75.0);
+        verify(summaryRepository, never()).insertIfAbsent(any(), any());
+        verify(summaryRepository, never()).save(any());
+        verify(summaryRepository, never()).applyDelta(any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyDouble(), any());
+    }
+
+    @Test
+    void statisticheDallaRigaEsistente() {
+        UUID user = UUID.randomUUID();
+        UserQuizSummary summary = new UserQuizSummary(user);
+        summary.setTotalQuizzes(5);
+        summary.setCompletedQuizzes(4);
+        summary.setPassedQuizzes(3);
+        summary.setFailedQuizzes(1);
+        summary.setScoreSum(300.0);
+        when(summaryRepository.findById(user)).thenReturn(Optional.of(summary));
+
+        QuizStats stats = service.getStats(user);
+
+        assertThat(stats.getPassedQuizzes()).isEqualTo(3);
+        assertThat(stats.getAverageScore()).isEqualTo(75.0);
+        verify(quizRepository, never()).aggregateTotalsByUserId(any());
+    }
+
+    @Test
+    void backfillScorreIBatchESaltaGliUtentiCheFalliscono() {
+        UUID first = new UUID(0L, 1L);
+        UUID failing = new UUID(0L, 2L);
+        UUID third = new UUID(0L, 3L);
+        when(quizRepository.findUserIdsWithoutSummaryAfter(eq(new UUID(0L, 0L)), any()))
+                .thenReturn(List.of(first, failing));
+        when(quizRepository.findUserIdsWithoutSummaryAfter(eq(failing), any())).thenReturn(List.of(third));
+        summaryExistsAfterInsert();
+        when(quizRepository.aggregateTotalsByUserId(any())).thenReturn(totals(1, 0, 0, 0, 0.0));
+        when(quizRepository.aggregateTotalsByUserId(failing)).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThat(service.backfillMissing()).isEqualTo(2);
+
+        // Il batch successivo riparte dall'ultimo id letto, anche se quell'utente è fallito
+        verify(quizRepository).findUserIdsWithoutSummaryAfter(eq(failing), any());
+        verify(summaryRepository).insertIfAbsent(eq(third), any());
+    }
+}
@@ -0,0 +1,126 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.config.resilience.Bulkhead;
+import com.ai.studybuddy.dto.gamification.GamificationDTO.XpEventResponse;
+import com.ai.studybuddy.dto.quiz.QuizAnswerRequest;
+import com.ai.studybuddy.dto.quiz.QuizResultResponse;
+import com.ai.studybuddy.mapper.QuizMapper;
+import com.ai.studybuddy.model.quiz.Quiz;
+import com.ai.studybuddy.model.quiz.QuizAttempt;
+import com.ai.studybuddy.model.user.User;
+import com.ai.studybuddy.repository.QuestionRepository;
+import com.ai.studybuddy.repository.QuizRepository;
+import com.ai.studybuddy.service.inter.AIService;
+import com.ai.studybuddy.service.inter.GamificationService;
+import com.ai.studybuddy.service.inter.QuestionBankService;
+import com.ai.studybuddy.service.inter.QuizAnalyticsService;
+import com.ai.studybuddy.service.inter.QuizService;
+import com.ai.studybuddy.service.inter.QuizTemplateService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class QuizCompletionServiceImplTest {
+
+    private final QuizRepository quizRepository = mock(QuizRepository.class);
+    private final QuizMapper quizMapper = mock(QuizMapper.class);
+    private final QuizAnalyticsService quizAnalyticsService = mock(QuizAnalyticsService.class);
+    private final QuizTemplateService quizTemplateService = mock(QuizTemplateService.class);
+    private final GamificationService gamificationService = mock(GamificationService.class);
+
+    // Quiz service reale sui repository finti: il flag di primo completamento nasce lì
+    private final QuizService quizService = new QuizServiceImpl(quizRepository, mock(QuestionRepository.class),
+            mock(AIService.class), quizMapper, quizAnalyticsService, mock(QuestionBankService.class),
+            quizTemplateService, mock(Bulkhead.class));
+    private final QuizCompletionServiceImpl completionService =
+            new QuizCompletionServiceImpl(quizService, quizTemplateService, gamificationService);
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID quizId = UUID.randomUUID();
+
+    private User user() {
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+
+    private QuizAnswerRequest request() {
+        QuizAnswerRequest request = new QuizAnswerRequest();
+        request.setQuizId(quizId);
+        request.setAnswers(Map.of());
+        return request;
+    }
+
+    private Quiz quiz(boolean completed) {
+        Quiz quiz = new Quiz();
+        quiz.setId(quizId);
+        quiz.setTopic("Storia");
+        if (completed) {
+            quiz.complete(4, 5);
+        }
+        when(quizRepository.findByIdAndUserIdForUpdate(quizId, userId)).thenReturn(Optional.of(quiz));
+        when(quizRepository.save(any(Quiz.class))).thenAnswer(inv -> inv.getArgument(0));
+        return quiz;
+    }
+
+    @Test
+    void primoCompletamentoAssegnaGliXp() {
+        quiz(false);
+        QuizAttempt attempt = new QuizAttempt(quizId, userId, Map.of(), 4, 5, null);
+        when(quizTemplateService.recordAttempt(any(), eq(userId), any(), any())).thenReturn(attempt);
+        when(quizMapper.toResultResponse(any(), eq(attempt))).thenReturn(new QuizResultResponse());
+        when(gamificationService.recordQuizXp(any(), anyBoolean(), any(), any(), anyDouble(), anyInt(), anyInt()))
+                .thenReturn(new XpEventResponse("QUIZ_COMPLETED", 50, 150, 2, false, List.of()));
+
+        QuizResultResponse result = completionService.completeQuiz(request(), user());
+
+        assertThat(result.isFirstCompletion()).isTrue();
+        assertThat(result.getXpEarned()).isEqualTo(50);
+        verify(quizAnalyticsService).recordQuizCompleted(eq(userId), eq("Storia"), eq(80.0));
+    }
+
+    @Test
+    void reinvioDiUnQuizCompletatoNonAssegnaXp() {
+        quiz(true);
+
+        QuizResultResponse result = completionService.completeQuiz(request(), user());
+
+        // Risultato già registrato, nessun nuovo tentativo, nessun evento XP
+        assertThat(result.isFirstCompletion()).isFalse();
+        assertThat(result.getScore()).isEqualTo(4);
+        verify(quizTemplateService, never()).recordAttempt(any(), any(), any(), any());
+        verify(quizAnalyticsService, never()).recordQuizCompleted(any(), anyString(), any());
+        verifyNoInteractions(gamificationService);
+    }
+
+    @Test
+    void reinvioConTentativoRestituisceLUltimoTentativo() {
+        quiz(true);
+        QuizAttempt latest = new QuizAttempt(quizId, userId, Map.of(), 4, 5, null);
+        QuizResultResponse previous = new QuizResultResponse();
+        when(quizTemplateService.getLatestAttempt(quizId, userId)).thenReturn(Optional.of(latest));
+        when(quizMapper.toResultResponse(any(), eq(latest))).thenReturn(previous);
+
+        QuizResultResponse result = completionService.completeQuiz(request(), user());
+
+        assertThat(result).isSameAs(previous);
+        assertThat(result.isFirstCompletion()).isFalse();
+        verifyNoInteractions(gamificationService);
+    }
+}
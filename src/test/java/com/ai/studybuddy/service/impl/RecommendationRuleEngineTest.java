@@ -0,0 +1,246 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.UserStats;
+import com.ai.studybuddy.model.gamification.XpBucket;
+import com.ai.studybuddy.model.recommendation.Recommendation.Priority;
+import com.ai.studybuddy.model.recommendation.Recommendation.RecommendationType;
+import com.ai.studybuddy.model.user.UserProgress;
+import com.ai.studybuddy.service.impl.RecommendationRuleEngine.Candidate;
+import com.ai.studybuddy.service.impl.RecommendationRuleEngine.Key;
+import com.ai.studybuddy.service.impl.RecommendationRuleEngine.Snapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class RecommendationRuleEngineTest {
+
+    // Mercoledì
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 11, 10, 0);
+
+    private final RecommendationRuleEngine engine = new RecommendationRuleEngine();
+
+    private static UserStats stats() {
+        return new UserStats();
+    }
+
+    /**
+     * Utente attivo: nessuna delle regole generiche (XP, quiz, flashcard) scatta
+     */
+    private static UserStats activeStats() {
+        UserStats stats = new UserStats();
+        stats.setWeeklyXp(80);
+        stats.setWeeklyXpPeriod(XpBucket.PeriodType.WEEK.start(LocalDate.now()));
+        stats.setQuizzesCompleted(3);
+        stats.setFlashcardsStudied(20);
+        return stats;
+    }
+
+    private static UserProgress progress(String topic, Double score, int quizzes, LocalDateTime lastActivity) {
+        UserProgress p = new UserProgress();
+        p.setTopic(topic);
+        p.setAverageScore(score);
+        p.setQuizCompleted(quizzes);
+        p.setTotalStudyMinutes(30);
+        p.setLastActivityAt(lastActivity);
+        return p;
+    }
+
+    private List<Candidate> evaluate(UserStats stats, List<UserProgress> progress) {
+        return evaluate(stats, progress, NOW, Set.of());
+    }
+
+    private List<Candidate> evaluate(UserStats stats, List<UserProgress> progress, LocalDateTime now, Set<Key> existing) {
+        return engine.evaluate(new Snapshot(stats, progress, now), existing);
+    }
+
+    private static List<Candidate> ofType(List<Candidate> candidates, RecommendationType type) {
+        return candidates.stream().filter(c -> c.type() == type).toList();
+    }
+
+    @Test
+    void streakDaMantenereSeOggiNonSiEStudiato() {
+        UserStats stats = activeStats();
+        stats.setCurrentStreak(4);
+        stats.setLastActivityDate(NOW.toLocalDate().minusDays(1));
+
+        assertThat(ofType(evaluate(stats, List.of()), RecommendationType.STREAK_REMINDER))
+                .singleElement()
+                .satisfies(c -> assertThat(c.priority()).isEqualTo(Priority.URGENT));
+
+        stats.setLastActivityDate(NOW.toLocalDate());
+        assertThat(ofType(evaluate(stats, List.of()), RecommendationType.STREAK_REMINDER)).isEmpty();
+    }
+
+    @Test
+    void argomentoDeboleSottoIlSessantaPerCento() {
+        List<Candidate> candidates = evaluate(activeStats(), List.of(
+                progress("Frazioni", 45.0, 2, NOW.minusDays(1)),
+                progress("Storia", 95.0, 2, NOW.minusDays(1))));
+
+        assertThat(ofType(candidates, RecommendationType.WEAKNESS_FOCUS))
+                .extracting(Candidate::topic)
+                .containsExactly("Frazioni");
+    }
+
+    @Test
+    void topicSenzaPunteggioNonEntraNelleRegoleSulPunteggio() {
+        // Un topic senza punteggio non è debole, né in fascia media, né padroneggiato
+        List<Candidate> candidates = evaluate(activeStats(), List.of(
+                progress("Geometria", null, 9, NOW.minusDays(1))));
+
+        assertThat(ofType(candidates, RecommendationType.WEAKNESS_FOCUS)).isEmpty();
+        assertThat(ofType(candidates, RecommendationType.REVIEW_TOPIC)).isEmpty();
+        assertThat(ofType(candidates, RecommendationType.RETRY_QUIZ)).isEmpty();
+    }
+
+    @Test
+    void ripassoDopoSetteGiorniSenzaStudio() {
+        List<Candidate> candidates = evaluate(activeStats(), List.of(
+                progress("Atomi", 50.0, 1, NOW.minusDays(10)),
+                progress("Cellule", 50.0, 1, NOW.minusDays(20)),
+                progress("Vettori", 50.0, 1, NOW.minusDays(3))));
+
+        assertThat(ofType(candidates, RecommendationType.REVIEW_TOPIC))
+                .extracting(Candidate::topic, Candidate::priority)
+                .containsExactly(
+                        tuple("Atomi", Priority.MEDIUM),
+                        tuple("Cellule", Priority.HIGH));
+    }
+
+    @Test
+    void continuaConGliUltimiTreTopicInFasciaMedia() {
+        List<Candidate> candidates = evaluate(activeStats(), List.of(
+                progress("Verbi", 70.0, 1, NOW.minusDays(4)),
+                progress("Aggettivi", 70.0, 1, NOW.minusDays(1)),
+                progress("Pronomi", 90.0, 1, NOW.minusDays(2)),
+                progress("Avverbi", null, 1, NOW.minusDays(3)),
+                progress("Articoli", 70.0, 1, NOW.minusDays(5))));
+
+        // I tre più recenti sono Aggettivi, Pronomi e Avverbi: solo Aggettivi è tra 60 e 80
+        assertThat(ofType(candidates, RecommendationType.REVIEW_TOPIC))
+                .extracting(Candidate::topic)
+                .containsExactly("Aggettivi");
+    }
+
+    @Test
+    void sfidaSulTopicPiuStudiatoSeGiaPadroneggiato() {
+        List<Candidate> candidates = evaluate(activeStats(), List.of(
+                progress("Derivate", 85.0, 10, NOW.minusDays(1)),
+                progress("Integrali", 95.0, 3, NOW.minusDays(1))));
+
+        assertThat(ofType(candidates, RecommendationType.RETRY_QUIZ))
+                .extracting(Candidate::topic)
+                .containsExactly("Derivate");
+
+        candidates = evaluate(activeStats(), List.of(
+                progress("Derivate", null, 10, NOW.minusDays(1)),
+                progress("Integrali", 95.0, 3, NOW.minusDays(1))));
+        assertThat(ofType(candidates, RecommendationType.RETRY_QUIZ)).isEmpty();
+    }
+
+    @Test
+    void mediaGeneraleIgnoraITopicSenzaPunteggio() {
+        // Con il null contato come 0 la media scenderebbe a 45 e scatterebbe il suggerimento
+        List<Candidate> candidates = evaluate(activeStats(), List.of(
+                progress("Chimica", 90.0, 2, NOW.minusDays(1)),
+                progress("Fisica", null, 2, NOW.minusDays(1))));
+        assertThat(ofType(candidates, RecommendationType.WEAKNESS_FOCUS)).isEmpty();
+
+        candidates = evaluate(activeStats(), List.of(
+                progress("Chimica", 65.0, 2, NOW.minusDays(1)),
+                progress("Fisica", null, 2, NOW.minusDays(1))));
+        assertThat(ofType(candidates, RecommendationType.WEAKNESS_FOCUS))
+                .extracting(Candidate::title)
+                .containsExactly("Migliora la tua media!");
+    }
+
+    @Test
+    void utenteNuovoRiceveUnSuggerimentoPerChiave() {
+        // Le regole successive con la stessa chiave (tipo, nessun topic) vengono scartate
+        assertThat(evaluate(stats(), List.of()))
+                .extracting(Candidate::title)
+                .containsExactly("Aumenta il tempo di studio", "Esplora nuovi argomenti!", "Scopri le Flashcards!");
+    }
+
+    @Test
+    void chiaviGiaPresentiNonGeneranoDuplicati() {
+        List<Candidate> candidates = evaluate(activeStats(),
+                List.of(progress("Frazioni", 45.0, 2, NOW.minusDays(1))),
+                NOW,
+                Set.of(new Key(RecommendationType.WEAKNESS_FOCUS, "Frazioni"),
+                        new Key(RecommendationType.WEAKNESS_FOCUS, null),
+                        new Key(RecommendationType.DAILY_GOAL, null)));
+
+        assertThat(ofType(candidates, RecommendationType.WEAKNESS_FOCUS)).isEmpty();
+        assertThat(ofType(candidates, RecommendationType.DAILY_GOAL)).isEmpty();
+    }
+
+    @Test
+    void obiettivoXpSottoICinquantaPuntiSettimanali() {
+        UserStats stats = activeStats();
+        stats.setWeeklyXp(20);
+
+        assertThat(ofType(evaluate(stats, List.of()), RecommendationType.DAILY_GOAL))
+                .extracting(Candidate::title)
+                .containsExactly("Aumenta il tempo di studio");
+
+        List<UserProgress> studied = List.of(
+                progress("A", 70.0, 1, NOW.minusDays(1)),
+                progress("B", 70.0, 1, NOW.minusDays(1)));
+        assertThat(ofType(evaluate(stats, studied), RecommendationType.DAILY_GOAL))
+                .extracting(Candidate::title)
+                .containsExactly("Raggiungi 50 XP oggi!");
+    }
+
+    @Test
+    void primoQuizEPrimeFlashcard() {
+        UserStats stats = activeStats();
+        stats.setQuizzesCompleted(0);
+        stats.setFlashcardsStudied(0);
+        List<UserProgress> topics = List.of(
+                progress("A", 70.0, 1, NOW.minusDays(1)),
+                progress("B", 70.0, 1, NOW.minusDays(1)),
+                progress("C", 70.0, 1, NOW.minusDays(1)),
+                progress("D", 70.0, 1, NOW.minusDays(1)),
+                progress("E", 70.0, 1, NOW.minusDays(1)));
+
+        List<Candidate> candidates = evaluate(stats, topics);
+        assertThat(ofType(candidates, RecommendationType.NEW_TOPIC))
+                .extracting(Candidate::title)
+                .containsExactly("Prova a creare un Quiz!");
+        assertThat(ofType(candidates, RecommendationType.STUDY_FLASHCARDS)).hasSize(1);
+    }
+
+    @Test
+    void complimentiDopoDieciQuiz() {
+        UserStats stats = activeStats();
+        stats.setQuizzesCompleted(12);
+        List<UserProgress> studied = List.of(
+                progress("A", 70.0, 1, NOW.minusDays(1)),
+                progress("B", 70.0, 1, NOW.minusDays(1)));
+
+        assertThat(ofType(evaluate(stats, studied), RecommendationType.DAILY_GOAL))
+                .extracting(Candidate::title)
+                .containsExactly("Complimenti! 10+ Quiz completati");
+    }
+
+    @Test
+    void bonusSoloNelWeekend() {
+        List<UserProgress> studied = List.of(
+                progress("A", 70.0, 1, NOW.minusDays(1)),
+                progress("B", 70.0, 1, NOW.minusDays(1)));
+
+        assertThat(ofType(evaluate(activeStats(), studied), RecommendationType.DAILY_GOAL)).isEmpty();
+
+        LocalDateTime saturday = NOW.plusDays(3);
+        assertThat(ofType(evaluate(activeStats(), studied, saturday, Set.of()), RecommendationType.DAILY_GOAL))
+                .extracting(Candidate::title)
+                .containsExactly("Studio del weekend!");
+    }
+}
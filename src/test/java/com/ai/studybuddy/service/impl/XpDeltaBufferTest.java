@@ -0,0 +1,175 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.model.gamification.XpEvent;
+import com.ai.studybuddy.model.gamification.XpEventAppended;
+import com.ai.studybuddy.model.gamification.XpEventsProjected;
+import com.ai.studybuddy.repository.XpEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class XpDeltaBufferTest {
+
+    private final XpEventRepository repository = mock(XpEventRepository.class);
+    private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    // Flush periodico e per soglia fuori portata: i test chiamano flush a mano
+    private final XpDeltaBuffer buffer = new XpDeltaBuffer(repository, publisher, 3_600_000, 1_000);
+
+    @AfterEach
+    void tearDown() {
+        buffer.shutdown();
+    }
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Come il saveAll reale: gli eventi escono con l'id della sequenza
+     */
+    @SuppressWarnings("unchecked")
+    private List<XpEvent> saved(Object argument) {
+        List<XpEvent> events = new ArrayList<>();
+        ((Iterable<XpEvent>) argument).forEach(event -> {
+            ReflectionTestUtils.setField(event, "id", sequence.incrementAndGet());
+            events.add(event);
+        });
+        return events;
+    }
+
+    @Test
+    void deltaSommatiPerUtente() {
+        UUID user = UUID.randomUUID();
+        buffer.add(user, 1, 2);
+        XpDeltaBuffer.Delta delta = buffer.add(user, 1, 2);
+
+        assertThat(delta).isEqualTo(new XpDeltaBuffer.Delta(4, 2));
+        assertThat(buffer.pendingFor(user)).isEqualTo(delta);
+        assertThat(buffer.pendingFor(UUID.randomUUID())).isEqualTo(new XpDeltaBuffer.Delta(0, 0));
+    }
+
+    @Test
+    void flushScriveUnEventoPerUtenteESvegliaIlProiettore() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        buffer.add(first, 1, 2);
+        buffer.add(first, 1, 2);
+        buffer.add(second, 1, 2);
+        AtomicReference<List<XpEvent>> written = new AtomicReference<>();
+        when(repository.saveAll(any())).thenAnswer(inv -> {
+            written.set(saved(inv.getArgument(0)));
+            return written.get();
+        });
+
+        assertThat(buffer.flush()).isEqualTo(2);
+
+        assertThat(written.get()).extracting(XpEvent::getUserId).containsExactlyInAnyOrder(first, second);
+        assertThat(written.get()).filteredOn(e -> e.getUserId().equals(first))
+                .singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getXp()).isEqualTo(4);
+                    assertThat(e.getQuantity()).isEqualTo(2);
+                });
+        // Scritto ma non ancora proiettato: il delta resta nei totali mostrati
+        assertThat(buffer.pendingFor(first)).isEqualTo(new XpDeltaBuffer.Delta(4, 2));
+        verify(publisher).publishEvent(new XpEventAppended(first));
+        verify(publisher).publishEvent(new XpEventAppended(second));
+    }
+
+    @Test
+    void deltaInScritturaRestaVisibile() {
+        UUID user = UUID.randomUUID();
+        buffer.add(user, 1, 2);
+        AtomicReference<XpDeltaBuffer.Delta> duringSave = new AtomicReference<>();
+        when(repository.saveAll(any())).thenAnswer(inv -> {
+            // Una revisione arriva mentre il flush sta scrivendo
+            buffer.add(user, 1, 2);
+            duringSave.set(buffer.pendingFor(user));
+            return saved(inv.getArgument(0));
+        });
+
+        buffer.flush();
+
+        assertThat(duringSave.get()).isEqualTo(new XpDeltaBuffer.Delta(4, 2));
+        // Il delta scritto resta fino alla proiezione, la revisione arrivata durante il flush va al prossimo
+        assertThat(buffer.pendingFor(user)).isEqualTo(new XpDeltaBuffer.Delta(4, 2));
+        when(repository.saveAll(any())).thenAnswer(inv -> saved(inv.getArgument(0)));
+        assertThat(buffer.flush()).isEqualTo(1);
+    }
+
+    @Test
+    void deltaScrittoVisibileFinoAllaProiezione() {
+        UUID user = UUID.randomUUID();
+        when(repository.saveAll(any())).thenAnswer(inv -> saved(inv.getArgument(0)));
+        buffer.add(user, 2, 4);
+        buffer.flush();
+        buffer.add(user, 1, 2);
+        buffer.flush();
+        buffer.add(user, 1, 2);
+
+        // Eventi 1 e 2 scritti, una revisione ancora in memoria: nulla è nei totali di UserStats
+        assertThat(buffer.pendingFor(user)).isEqualTo(new XpDeltaBuffer.Delta(8, 4));
+        // UserStats letto dopo la proiezione dell'evento 1 ma prima del suo commit visto dal buffer
+        assertThat(buffer.pendingFor(user, 1L)).isEqualTo(new XpDeltaBuffer.Delta(4, 2));
+
+        buffer.onProjected(new XpEventsProjected(user, List.of(1L)));
+        assertThat(buffer.pendingFor(user)).isEqualTo(new XpDeltaBuffer.Delta(4, 2));
+
+        buffer.onProjected(new XpEventsProjected(user, List.of(2L)));
+        buffer.flush();
+        assertThat(buffer.pendingFor(user)).isEqualTo(new XpDeltaBuffer.Delta(2, 1));
+
+        buffer.onProjected(new XpEventsProjected(user, List.of(3L)));
+        assertThat(buffer.pendingFor(user)).isEqualTo(new XpDeltaBuffer.Delta(0, 0));
+    }
+
+    @Test
+    void proiezioneDiEventiSconosciutiIgnorata() {
+        UUID user = UUID.randomUUID();
+        buffer.add(user, 1, 2);
+
+        // Eventi scritti da altri percorsi (quiz, spiegazioni): nessun delta da togliere
+        buffer.onProjected(new XpEventsProjected(user, List.of(42L)));
+        buffer.onProjected(new XpEventsProjected(UUID.randomUUID(), List.of(43L)));
+
+        assertThat(buffer.pendingFor(user)).isEqualTo(new XpDeltaBuffer.Delta(2, 1));
+    }
+
+    @Test
+    void saveAllFallitoRimetteIDeltaInAttesa() {
+        UUID user = UUID.randomUUID();
+        buffer.add(user, 3, 6);
+        when(repository.saveAll(any())).thenThrow(new DataAccessResourceFailureException("db giù"));
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(buffer.pendingFor(user)).isEqualTo(new XpDeltaBuffer.Delta(6, 3));
+        verify(publisher, never()).publishEvent(any(XpEventAppended.class));
+    }
+
+    @Test
+    void flushFinaleNonSvegliaIlProiettore() {
+        buffer.add(UUID.randomUUID(), 1, 2);
+        when(repository.saveAll(any())).thenAnswer(inv -> saved(inv.getArgument(0)));
+
+        buffer.shutdown();
+
+        verify(repository, times(1)).saveAll(any());
+        verify(publisher, never()).publishEvent(any(XpEventAppended.class));
+    }
+}
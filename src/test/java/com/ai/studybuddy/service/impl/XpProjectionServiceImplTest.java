@@ -0,0 +1,74 @@
+package com.ai.studybuddy.service.impl;
+
+import com.ai.studybuddy.repository.UserStatsRepository;
+import com.ai.studybuddy.repository.XpEventRepository;
+import com.ai.studybuddy.service.inter.GamificationService;
+import com.ai.studybuddy.service.inter.LeaderboardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class XpProjectionServiceImplTest {
+
+    private final XpEventRepository xpEventRepository = mock(XpEventRepository.class);
+    private final GamificationService gamificationService = mock(GamificationService.class);
+    private final XpProjectionServiceImpl projector = new XpProjectionServiceImpl(xpEventRepository,
+            mock(UserStatsRepository.class), gamificationService, mock(LeaderboardService.class),
+            1000, 100, 500, 3, false);
+
+    @AfterEach
+    void tearDown() {
+        projector.shutdown();
+    }
+
+    @Test
+    void unUtenteCheFallisceNonBloccaGliAltri() {
+        UUID failing = UUID.randomUUID();
+        UUID ok = UUID.randomUUID();
+        when(xpEventRepository.findPendingUserIds(any())).thenReturn(List.of(failing, ok), List.of());
+        when(gamificationService.projectXpEvents(failing, 500))
+                .thenThrow(new DataAccessResourceFailureException("db giù"));
+        when(gamificationService.projectXpEvents(ok, 500)).thenReturn(2);
+
+        assertThat(projector.drain()).isEqualTo(2);
+        // Errore non di conflitto: nessun nuovo tentativo nello stesso giro
+        verify(gamificationService, times(1)).projectXpEvents(failing, 500);
+    }
+
+    @Test
+    void conflittoRitentatoFinoAlLimite() {
+        UUID user = UUID.randomUUID();
+        when(xpEventRepository.findPendingUserIds(any())).thenReturn(List.of(user), List.of());
+        when(gamificationService.projectXpEvents(user, 500))
+                .thenThrow(new OptimisticLockingFailureException("UserStats modificato"))
+                .thenReturn(3);
+
+        assertThat(projector.drain()).isEqualTo(3);
+        verify(gamificationService, times(2)).projectXpEvents(user, 500);
+    }
+
+    @Test
+    void tuttiFallitiNessunGiroAVuoto() {
+        UUID user = UUID.randomUUID();
+        when(xpEventRepository.findPendingUserIds(any())).thenReturn(List.of(user));
+        when(gamificationService.projectXpEvents(any(), anyInt()))
+                .thenThrow(new OptimisticLockingFailureException("UserStats modificato"));
+
+        assertThat(projector.drain()).isZero();
+        // Tre tentativi, poi gli eventi restano in attesa per il prossimo polling
+        verify(gamificationService, times(3)).projectXpEvents(user, 500);
+        verify(xpEventRepository, times(1)).findPendingUserIds(any());
+    }
+}
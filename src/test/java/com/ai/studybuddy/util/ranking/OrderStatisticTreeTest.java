@@ -0,0 +1,116 @@
+package com.ai.studybuddy.util.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatisticTreeTest {
+
+    @Test
+    void rankAPariMerito() {
+        OrderStatisticTree tree = new OrderStatisticTree(4);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        UUID d = UUID.randomUUID();
+        tree.put(a, 100);
+        tree.put(b, 300);
+        tree.put(c, 100);
+        tree.put(d, 50);
+
+        assertThat(tree.rankOf(b)).isEqualTo(1);
+        assertThat(tree.rankOf(a)).isEqualTo(2);
+        assertThat(tree.rankOf(c)).isEqualTo(2);
+        assertThat(tree.rankOf(d)).isEqualTo(4);
+        assertThat(tree.rankOfScore(200)).isEqualTo(2);
+        assertThat(tree.rankOf(UUID.randomUUID())).isEqualTo(-1);
+    }
+
+    @Test
+    void selezionePerPosizione() {
+        OrderStatisticTree tree = new OrderStatisticTree(4);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        tree.put(second, 20);
+        tree.put(third, 10);
+        tree.put(first, 30);
+
+        assertThat(tree.idAt(0)).isEqualTo(first);
+        assertThat(tree.idAt(1)).isEqualTo(second);
+        assertThat(tree.idAt(2)).isEqualTo(third);
+        assertThat(tree.scoreAt(2)).isEqualTo(10);
+        assertThat(tree.idAt(3)).isNull();
+        assertThat(tree.idAt(-1)).isNull();
+        assertThat(tree.positionOf(second)).isEqualTo(1);
+    }
+
+    @Test
+    void aggiornamentoERimozione() {
+        OrderStatisticTree tree = new OrderStatisticTree(4);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        tree.put(a, 10);
+        tree.put(b, 20);
+
+        tree.put(a, 30);
+        assertThat(tree.size()).isEqualTo(2);
+        assertThat(tree.idAt(0)).isEqualTo(a);
+        assertThat(tree.scoreOf(a, -1)).isEqualTo(30);
+
+        tree.remove(a);
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.contains(a)).isFalse();
+        assertThat(tree.positionOf(a)).isEqualTo(-1);
+        assertThat(tree.rankOf(b)).isEqualTo(1);
+
+        // Lo slot liberato viene riusato
+        UUID c = UUID.randomUUID();
+        tree.put(c, 5);
+        assertThat(tree.idAt(1)).isEqualTo(c);
+
+        tree.clear();
+        assertThat(tree.size()).isZero();
+        assertThat(tree.idAt(0)).isNull();
+    }
+
+    @Test
+    void coerenteConUnOrdinamentoCompleto() {
+        Random random = new Random(42);
+        OrderStatisticTree tree = new OrderStatisticTree(16);
+        Map<UUID, Long> expected = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        for (int step = 0; step < 5000; step++) {
+            UUID id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(4) == 0) {
+                tree.remove(id);
+                expected.remove(id);
+            } else {
+                long score = random.nextInt(50);
+                tree.put(id, score);
+                expected.put(id, score);
+            }
+        }
+
+        List<Long> sorted = expected.values().stream().sorted(Comparator.reverseOrder()).toList();
+        assertThat(tree.size()).isEqualTo(expected.size());
+        for (int position = 0; position < sorted.size(); position++) {
+            assertThat(tree.scoreAt(position)).isEqualTo(sorted.get(position));
+            UUID id = tree.idAt(position);
+            assertThat(tree.positionOf(id)).isEqualTo(position);
+            assertThat(tree.rankOf(id)).isEqualTo(sorted.indexOf(expected.get(id)) + 1);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ai.studybuddy.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    private static List<String> keys(List<InvertedIndex.Hit<String>> hits) {
+        return hits.stream().map(InvertedIndex.Hit::key).toList();
+    }
+
+    @Test
+    void tuttiIGruppiDevonoEsserePresenti() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("d1", Map.of("gatt", 1, "ner", 1));
+        index.put("d2", Map.of("gatt", 1));
+
+        assertThat(keys(index.search(List.of(List.of("gatt"), List.of("ner")), false, null)))
+                .containsExactly("d1");
+        assertThat(keys(index.search(List.of(List.of("gatt")), false, null)))
+                .containsExactlyInAnyOrder("d1", "d2");
+    }
+
+    @Test
+    void bastaUnaVarianteDelGruppo() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("d1", Map.of("gatto", 1));
+        index.put("d2", Map.of("gatt", 1));
+
+        assertThat(keys(index.search(List.of(List.of("gatto", "gatt")), false, null)))
+                .containsExactlyInAnyOrder("d1", "d2");
+    }
+
+    @Test
+    void prefissoSoloSullUltimoGruppo() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("d1", Map.of("fotosintesi", 1, "clorofilla", 1));
+
+        assertThat(keys(index.search(List.of(List.of("foto")), true, null))).containsExactly("d1");
+        assertThat(index.search(List.of(List.of("foto")), false, null)).isEmpty();
+        assertThat(index.search(List.of(List.of("foto"), List.of("clorofilla")), true, null)).isEmpty();
+        assertThat(keys(index.search(List.of(List.of("clorofilla"), List.of("foto")), true, null)))
+                .containsExactly("d1");
+    }
+
+    @Test
+    void frequenzaPiuAltaVienePrima() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("poco", Map.of("atomo", 1));
+        index.put("molto", Map.of("atomo", 3));
+        index.put("altro", Map.of("cellula", 1));
+
+        List<InvertedIndex.Hit<String>> hits = index.search(List.of(List.of("atomo")), false, null);
+
+        assertThat(keys(hits)).containsExactly("molto", "poco");
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+    }
+
+    @Test
+    void putSostituisceERemoveElimina() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("d1", Map.of("vecchio", 1));
+        index.put("d1", Map.of("nuovo", 1));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search(List.of(List.of("vecchio")), false, null)).isEmpty();
+        assertThat(keys(index.search(List.of(List.of("nuovo")), false, null))).containsExactly("d1");
+
+        index.remove("d1");
+        assertThat(index.size()).isZero();
+        assertThat(index.search(List.of(List.of("nuovo")), false, null)).isEmpty();
+    }
+
+    @Test
+    void filtroERemoveIf() {
+        InvertedIndex<String> index = new InvertedIndex<>();
+        index.put("deck-1", Map.of("storia", 1));
+        index.put("card-1", Map.of("storia", 1));
+        index.put("card-2", Map.of("storia", 2));
+
+        assertThat(keys(index.search(List.of(List.of("storia")), false, k -> k.startsWith("card"))))
+                .containsExactly("card-2", "card-1");
+
+        index.removeIf(k -> k.startsWith("card"));
+        assertThat(keys(index.search(List.of(List.of("storia")), false, null))).containsExactly("deck-1");
+    }
+}
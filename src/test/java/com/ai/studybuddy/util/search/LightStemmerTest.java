@@ -0,0 +1,37 @@
+package com.ai.studybuddy.util.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LightStemmerTest {
+
+    @Test
+    void singolareEPluraleItaliani() {
+        assertThat(LightStemmer.stem("gatti", "it")).isEqualTo(LightStemmer.stem("gatto", "it"));
+        assertThat(LightStemmer.stem("cellule", "it")).isEqualTo(LightStemmer.stem("cellula", "it"));
+    }
+
+    @Test
+    void casiSpecialiInglesi() {
+        assertThat(LightStemmer.stem("studies", "en")).isEqualTo("study");
+        assertThat(LightStemmer.stem("class", "en")).isEqualTo("class");
+        assertThat(LightStemmer.stem("classes", "en")).isEqualTo("class");
+        assertThat(LightStemmer.stem("virus", "en")).isEqualTo("virus");
+    }
+
+    @Test
+    void laRadiceNonScendeSottoLaLunghezzaMinima() {
+        assertThat(LightStemmer.stem("via", "it")).isEqualTo("via");
+        assertThat(LightStemmer.stem("casa", "it")).isEqualTo("cas");
+        assertThat(LightStemmer.stem("mente", "it")).isEqualTo("ment");
+    }
+
+    @Test
+    void numeriELingueSconosciuteRestanoInvariati() {
+        assertThat(LightStemmer.stem("2024", "it")).isEqualTo("2024");
+        assertThat(LightStemmer.stem("gatti", "xx")).isEqualTo("gatti");
+        assertThat(LightStemmer.stem("gatti", null)).isEqualTo("gatti");
+        assertThat(LightStemmer.stem("gatti", "IT")).isEqualTo("gatt");
+    }
+}
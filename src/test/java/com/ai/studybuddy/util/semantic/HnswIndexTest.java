@@ -0,0 +1,108 @@
+package com.ai.studybuddy.util.semantic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    void indiceVuoto() {
+        HnswIndex<Integer> index = new HnswIndex<>(16, 100, 50);
+        assertThat(index.search(randomUnit(new Random(1)), 3)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void trovaIlVettoreInserito() {
+        Random random = new Random(42);
+        HnswIndex<Integer> index = new HnswIndex<>(16, 100, 50);
+        float[][] vectors = new float[500][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnit(random);
+            index.add(vectors[i], i);
+        }
+        assertThat(index.size()).isEqualTo(500);
+
+        for (int i = 0; i < vectors.length; i += 25) {
+            List<HnswIndex.Match<Integer>> matches = index.search(vectors[i], 1);
+            assertThat(matches).hasSize(1);
+            assertThat(matches.get(0).value()).isEqualTo(i);
+            assertThat(matches.get(0).similarity()).isGreaterThan(0.999f);
+        }
+    }
+
+    @Test
+    void richiamoRispettoAllaRicercaEsaustiva() {
+        Random random = new Random(7);
+        HnswIndex<Integer> index = new HnswIndex<>(16, 100, 50);
+        float[][] vectors = new float[1000][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnit(random);
+            index.add(vectors[i], i);
+        }
+
+        int found = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomUnit(random);
+            int expected = bruteForceNearest(vectors, query);
+            if (index.search(query, 1).get(0).value() == expected) {
+                found++;
+            }
+        }
+        // HNSW è approssimato: con ef=50 su 1000 punti il primo vicino è quasi sempre esatto
+        assertThat(found).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void risultatiOrdinatiPerSimilaritaELimitatiAK() {
+        Random random = new Random(3);
+        HnswIndex<Integer> index = new HnswIndex<>(8, 50, 20);
+        for (int i = 0; i < 5; i++) {
+            index.add(randomUnit(random), i);
+        }
+
+        List<HnswIndex.Match<Integer>> all = index.search(randomUnit(random), 10);
+        assertThat(all).hasSize(5);
+        for (int i = 1; i < all.size(); i++) {
+            assertThat(all.get(i - 1).similarity()).isGreaterThanOrEqualTo(all.get(i).similarity());
+        }
+        assertThat(index.search(randomUnit(random), 2)).hasSize(2);
+    }
+
+    private static int bruteForceNearest(float[][] vectors, float[] query) {
+        int best = -1;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vectors.length; i++) {
+            double similarity = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                similarity += vectors[i][d] * query[d];
+            }
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] v = new float[DIMENSIONS];
+        double norm = 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            v[d] = (float) random.nextGaussian();
+            norm += v[d] * v[d];
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int d = 0; d < DIMENSIONS; d++) {
+            v[d] *= inv;
+        }
+        return v;
+    }
+}
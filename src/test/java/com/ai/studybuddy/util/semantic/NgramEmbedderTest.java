@@ -0,0 +1,90 @@
+package com.ai.studybuddy.util.semantic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NgramEmbedderTest {
+
+    private final NgramEmbedder embedder = new NgramEmbedder(1024);
+
+    @Test
+    void vettoriNormalizzati() {
+        float[] v = embedder.embed("Teorema di Pitagora");
+        assertThat(dot(v, v)).isCloseTo(1.0, org.assertj.core.data.Offset.offset(1e-4));
+    }
+
+    @Test
+    void stessoTestoStessoVettoreAncheDopoAltriDocumenti() {
+        // Nessuno stato appreso: vettori salvati e query restano confrontabili
+        float[] before = embedder.embed("rivoluzione francese");
+        for (int i = 0; i < 50; i++) {
+            embedder.embed("argomento numero " + i);
+        }
+        assertThat(embedder.embed("rivoluzione francese")).containsExactly(before);
+    }
+
+    @Test
+    void stopwordEAccentiNonContano() {
+        float[] a = embedder.embed("La fotosintesi clorofilliana");
+        float[] b = embedder.embed("fotosintesi clorofilliana");
+        assertThat(dot(a, b)).isGreaterThan(0.999);
+    }
+
+    @Test
+    void argomentiSimiliPiuViciniDiArgomentiDiversi() {
+        float[] query = embedder.embed("teorema di pitagora");
+        double variant = dot(query, embedder.embed("teoremi pitagora"));
+        double unrelated = dot(query, embedder.embed("ciclo di krebs"));
+        assertThat(variant).isGreaterThan(unrelated);
+        assertThat(unrelated).isLessThan(0.3);
+    }
+
+    @Test
+    void tabellaIdfCongelataNonCambiaIVettori() {
+        NgramEmbedder.Idf idf = embedder.fitIdf(List.of("rivoluzione francese", "rivoluzione russa", "fotosintesi"));
+        float[] before = embedder.embed("rivoluzione francese", idf);
+        embedder.fitIdf(List.of("altro", "corpus"));
+        assertThat(embedder.embed("rivoluzione francese", idf)).containsExactly(before);
+        assertThat(idf.getDocuments()).isEqualTo(3);
+    }
+
+    @Test
+    void idfPesaMenoLeParoleComuni() {
+        // "rivoluzione" compare in tutti gli argomenti: con l'IDF conta di più la parola che li distingue
+        NgramEmbedder.Idf idf = embedder.fitIdf(List.of(
+                "rivoluzione francese", "rivoluzione russa", "rivoluzione industriale",
+                "rivoluzione americana", "rivoluzione scientifica"));
+        double plain = dot(embedder.embed("rivoluzione francese"), embedder.embed("rivoluzione russa"));
+        double weighted = dot(embedder.embed("rivoluzione francese", idf), embedder.embed("rivoluzione russa", idf));
+        assertThat(weighted).isLessThan(plain);
+    }
+
+    @Test
+    void tabellaDiAltraDimensioneRifiutata() {
+        NgramEmbedder.Idf idf = new NgramEmbedder(64).fitIdf(List.of("storia"));
+        assertThatThrownBy(() -> embedder.embed("storia", idf)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testoVuotoDaVettoreNullo() {
+        float[] v = embedder.embed("   ");
+        assertThat(dot(v, v)).isZero();
+    }
+
+    @Test
+    void dimensioniNonValide() {
+        assertThatThrownBy(() -> new NgramEmbedder(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (double) a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ai.studybuddy.util.semantic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    @Test
+    void normalizzaAccentiPunteggiaturaEStopword() {
+        assertThat(TextNormalizer.normalize("Cos'è la Rivoluzione Francese?")).isEqualTo("rivoluzione francese");
+        assertThat(TextNormalizer.normalize("Perché il cielo è blu")).isEqualTo("perche cielo blu");
+    }
+
+    @Test
+    void soloStopwordTieneIlTesto() {
+        assertThat(TextNormalizer.tokens("il e la")).containsExactly("il", "e", "la");
+    }
+
+    @Test
+    void numeriEOrdinaliDiversiNonCoincidono() {
+        assertThat(TextNormalizer.compatibleTopics("prima guerra mondiale", "seconda guerra mondiale")).isFalse();
+        assertThat(TextNormalizer.compatibleTopics("equazioni di primo grado", "equazioni di secondo grado")).isFalse();
+        assertThat(TextNormalizer.compatibleTopics("moti del 1848", "moti del 1849")).isFalse();
+        assertThat(TextNormalizer.compatibleTopics("guerra mondiale", "prima guerra mondiale")).isFalse();
+    }
+
+    @Test
+    void paroleChiaveDiverseDaEntrambeLePartiNonCoincidono() {
+        assertThat(TextNormalizer.compatibleTopics("rivoluzione francese", "rivoluzione russa")).isFalse();
+        assertThat(TextNormalizer.compatibleTopics("legge di ohm", "legge di coulomb")).isFalse();
+    }
+
+    @Test
+    void argomentoPiuPrecisoOTradottoCoincide() {
+        assertThat(TextNormalizer.compatibleTopics("La fotosintesi", "fotosintesi clorofilliana")).isTrue();
+        assertThat(TextNormalizer.compatibleTopics("fotosintesi clorofilliana", "photosynthesis process")).isTrue();
+        assertThat(TextNormalizer.compatibleTopics("teorema di Pitagora", "teoremi pitagora")).isTrue();
+        assertThat(TextNormalizer.compatibleTopics("Guerre puniche", "la guerra punica")).isTrue();
+    }
+
+    @Test
+    void paroleDiContornoEGrafiaNonContano() {
+        assertThat(TextNormalizer.keyTokens("Photosynthesis process")).containsExactly("fotosintesis");
+        assertThat(TextNormalizer.keyTokens("processo")).containsExactly("processo");
+    }
+
+    @Test
+    void testoVuotoNonCoincide() {
+        assertThat(TextNormalizer.compatibleTopics("", "storia")).isFalse();
+        assertThat(TextNormalizer.compatibleTopics(null, null)).isFalse();
+    }
+}
@@ -0,0 +1,65 @@
+package com.ai.studybuddy.util.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Offset.offset;
+
+class CountMinSketchTest {
+
+    @Test
+    void pocheChiaviStimaEsatta() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        sketch.addAndEstimate("storia", 1);
+        sketch.addAndEstimate("storia", 2);
+        sketch.addAndEstimate("fisica", 1);
+
+        assertThat(sketch.estimate("storia")).isEqualTo(3.0);
+        assertThat(sketch.estimate("fisica")).isEqualTo(1.0);
+        assertThat(sketch.estimate("chimica")).isZero();
+    }
+
+    @Test
+    void nonSottostimaMai() {
+        // Sketch stretto: le collisioni sono inevitabili, ma la stima resta >= al valore vero
+        CountMinSketch sketch = new CountMinSketch(3, 64);
+        Map<String, Integer> truth = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            String key = "topic-" + random.nextInt(500);
+            truth.merge(key, 1, Integer::sum);
+            sketch.addAndEstimate(key, 1);
+        }
+
+        truth.forEach((key, count) -> assertThat(sketch.estimate(key)).isGreaterThanOrEqualTo(count));
+    }
+
+    @Test
+    void addAndEstimateRestituisceLaNuovaStima() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        assertThat(sketch.addAndEstimate("a", 1.5)).isEqualTo(1.5);
+        assertThat(sketch.addAndEstimate("a", 1.5)).isEqualTo(3.0);
+    }
+
+    @Test
+    void scaleEClear() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        sketch.addAndEstimate("a", 8);
+        sketch.scale(0.25);
+        assertThat(sketch.estimate("a")).isCloseTo(2.0, offset(1e-9));
+
+        sketch.clear();
+        assertThat(sketch.estimate("a")).isZero();
+    }
+
+    @Test
+    void dimensioniNonValide() {
+        assertThatThrownBy(() -> new CountMinSketch(0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CountMinSketch(4, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
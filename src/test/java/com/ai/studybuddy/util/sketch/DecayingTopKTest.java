@@ -0,0 +1,93 @@
+package com.ai.studybuddy.util.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+class DecayingTopKTest {
+
+    private static final long HALF_LIFE = 60_000;
+
+    @Test
+    void vuotoNessunRisultato() {
+        DecayingTopK topK = new DecayingTopK(5, HALF_LIFE, 4, 1024);
+        assertThat(topK.top(10, 0)).isEmpty();
+        assertThat(topK.contains("storia")).isFalse();
+    }
+
+    @Test
+    void trovaLeChiaviPiuFrequentiTraIlRumore() {
+        DecayingTopK topK = new DecayingTopK(3, HALF_LIFE, 4, 4096);
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            topK.add("rumore-" + random.nextInt(1000), 0);
+            if (i % 10 == 0) topK.add("storia", 0);
+            if (i % 15 == 0) topK.add("fisica", 0);
+            if (i % 30 == 0) topK.add("chimica", 0);
+        }
+
+        List<DecayingTopK.Entry> top = topK.top(3, 0);
+        assertThat(top).extracting(DecayingTopK.Entry::key).containsExactly("storia", "fisica", "chimica");
+        assertThat(top.get(0).score()).isGreaterThanOrEqualTo(300);
+    }
+
+    @Test
+    void gliScoreDimezzanoDopoUnHalfLife() {
+        DecayingTopK topK = new DecayingTopK(5, HALF_LIFE, 4, 1024);
+        for (int i = 0; i < 8; i++) {
+            topK.add("storia", 0);
+        }
+
+        assertThat(topK.top(1, 0).get(0).score()).isCloseTo(8.0, offset(1e-9));
+        assertThat(topK.top(1, HALF_LIFE).get(0).score()).isCloseTo(4.0, offset(1e-9));
+        assertThat(topK.top(1, 3 * HALF_LIFE).get(0).score()).isCloseTo(1.0, offset(1e-9));
+    }
+
+    @Test
+    void richiesteRecentiSuperanoQuelleVecchie() {
+        DecayingTopK topK = new DecayingTopK(5, HALF_LIFE, 4, 1024);
+        for (int i = 0; i < 10; i++) {
+            topK.add("vecchio", 0);
+        }
+        // Dopo 4 half-life 10 eventi valgono 0.625: ne bastano 3 recenti per superarli
+        long now = 4 * HALF_LIFE;
+        for (int i = 0; i < 3; i++) {
+            topK.add("nuovo", now);
+        }
+
+        assertThat(topK.top(2, now)).extracting(DecayingTopK.Entry::key).containsExactly("nuovo", "vecchio");
+    }
+
+    @Test
+    void rinormalizzazioneMantieneGliScore() {
+        DecayingTopK topK = new DecayingTopK(5, HALF_LIFE, 4, 1024);
+        topK.add("vecchio", 0);
+        topK.add("vecchio", 0);
+        // Oltre 40 half-life il peso supera la soglia e si rinormalizza tutto
+        long now = 50 * HALF_LIFE;
+        topK.add("nuovo", now);
+
+        List<DecayingTopK.Entry> top = topK.top(5, now);
+        assertThat(top.get(0).key()).isEqualTo("nuovo");
+        assertThat(top.get(0).score()).isCloseTo(1.0, offset(1e-9));
+        assertThat(top.get(1).score()).isCloseTo(2.0 / Math.pow(2, 50), offset(1e-12));
+    }
+
+    @Test
+    void capacitaLimitataSostituisceIlMinimo() {
+        DecayingTopK topK = new DecayingTopK(2, HALF_LIFE, 4, 1024);
+        topK.add("a", 0);
+        topK.add("b", 0);
+        topK.add("b", 0);
+        topK.add("c", 0);
+        topK.add("c", 0);
+
+        assertThat(topK.contains("a")).isFalse();
+        assertThat(topK.top(5, 0)).extracting(DecayingTopK.Entry::key).containsExactlyInAnyOrder("b", "c");
+        assertThat(topK.top(1, 0)).hasSize(1);
+    }
+}